@@ -8,12 +8,13 @@
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 /** Qualified name */
-public class QualifiedName
+public class QualifiedName implements Serializable
 {
     public static QualifiedName EMPTY = new QualifiedName(emptyList());
     private final List<String> parts;
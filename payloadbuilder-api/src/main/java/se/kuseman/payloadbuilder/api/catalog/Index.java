@@ -103,7 +103,13 @@ public String toString()
     public enum IndexType
     {
         /** Specifies that seek with EQ is supported. */
-        SEEK_EQ
+        SEEK_EQ,
+
+        /**
+         * Specifies that seek with ranges (&gt;, &gt;=, &lt;, &lt;=) is supported. Range seeks are only performed on a single column of the index (or any column for {@link ColumnsType#WILDCARD}
+         * indices). See {@link se.kuseman.payloadbuilder.api.execution.ISeekPredicate.ISeekKey#getComparisonType()}
+         */
+        SEEK_RANGE
     }
 
     /** Type of columns this index supports. */
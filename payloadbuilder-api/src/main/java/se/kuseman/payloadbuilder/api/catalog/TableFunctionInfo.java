@@ -19,6 +19,9 @@
 public abstract class TableFunctionInfo extends FunctionInfo
 // CSON
 {
+    /** Trailing column of vectors returned from {@link #executeBatch(IExecutionContext, String, List, FunctionData, TupleVector)} with the producing input row */
+    public static final Column ROW_ID_COLUMN = Column.of("__rowId", Column.Type.Int);
+
     public TableFunctionInfo(String name)
     {
         super(name, FunctionType.TABLE);
@@ -55,6 +58,35 @@ public Schema getSchema(List<IExpression> arguments)
      */
     public abstract TupleIterator execute(IExecutionContext context, String catalogAlias, List<IExpression> arguments, FunctionData functionData);
 
+    /**
+     * Returns true if this function supports batched execution with {@link #executeBatch(IExecutionContext, String, List, FunctionData, TupleVector)}. Batched execution is used by correlated
+     * CROSS/OUTER APPLY's to execute the function once per outer batch instead of once per outer row.
+     */
+    public boolean isBatchSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Execute table function for a batch of outer rows.
+     *
+     * <pre>
+     * Arguments should be evaluated against the provided input ({@code argument.eval(input, context)}) which yields one value per input row.
+     * Each returned {@link TupleVector} MUST have the columns of the function's schema followed by a trailing {@link #ROW_ID_COLUMN} that
+     * tells which input row that produced the row. Rows MUST be returned in ascending row id order.
+     * </pre>
+     *
+     * @param context Execution context
+     * @param catalogAlias The query specific catalog alias used in this invocation
+     * @param arguments Function arguments
+     * @param functionData Various data connected to the function.
+     * @param input The input rows that the arguments should be evaluated against
+     */
+    public TupleIterator executeBatch(IExecutionContext context, String catalogAlias, List<IExpression> arguments, FunctionData functionData, TupleVector input)
+    {
+        throw new UnsupportedOperationException("Function " + getName() + " does not support batched execution");
+    }
+
     /**
      * Returns a map with describe properties that is used during describe/analyze statements
      */
@@ -3,6 +3,7 @@
 import java.util.List;
 
 import se.kuseman.payloadbuilder.api.catalog.Index;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 
 /** Index seek predicate used when creating index seek scan operators from catalogs */
 public interface ISeekPredicate
@@ -18,10 +19,38 @@
      */
     List<ISeekKey> getSeekKeys(IExecutionContext context);
 
+    /**
+     * Returns true if this is a range seek predicate on a {@link Index.IndexType#SEEK_RANGE} index.
+     *
+     * <pre>
+     * A range predicate has one seek key per bound and all keys targets the same column. The same column can
+     * then occur multiple times in {@link #getIndexColumns()}.
+     * Each row in the seek keys values is one range where all the bounds on that row should be met.
+     * The result should contain the rows matching any of the ranges and each matching row should only be returned once.
+     *
+     * Ie. ts &gt;= 10 and ts &lt; 20
+     *
+     * index columns: [ts,  ts]
+     * seek keys:     [&gt;= [10], &lt; [20]]
+     * </pre>
+     */
+    default boolean isRangeSeek()
+    {
+        return false;
+    }
+
     /** Definition of a seek key. Part of a seek predicate that corresponds to one of the columns used */
     interface ISeekKey
     {
         /** Return the value vector that represents this keys values */
         ValueVector getValue();
+
+        /**
+         * Return the comparison type of this key. Is {@link IComparisonExpression.Type#EQUAL} for all keys on non range predicates. See {@link ISeekPredicate#isRangeSeek()}
+         */
+        default IComparisonExpression.Type getComparisonType()
+        {
+            return IComparisonExpression.Type.EQUAL;
+        }
     }
 }
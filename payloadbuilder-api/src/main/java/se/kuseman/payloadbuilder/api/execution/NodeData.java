@@ -29,11 +29,12 @@ public NodeData()
         nodeTime.start();
     }
 
-    /** Merge this data with provided */
+    /** Merge this data with provided. Sub classes with statistics of their own should override this and merge their statistics as well */
     public void merge(NodeData nodeData)
     {
         executionCount += nodeData.executionCount;
         rowCount += nodeData.rowCount;
+        batchCount += nodeData.batchCount;
         if (nodeTimeDuration == null)
         {
             nodeTimeDuration = Duration.of(nodeTime.getElapsedMilliseconds(), ChronoUnit.MILLIS);
@@ -59,9 +59,15 @@ public byte[] getBytes()
 
     /** Return the bytes of this instance into destination byte array. Caller is responsible for correct length */
     public void getBytes(byte[] destination)
+    {
+        getBytes(destination, 0);
+    }
+
+    /** Return the bytes of this instance into destination byte array starting at provided offset. Caller is responsible for correct length */
+    public void getBytes(byte[] destination, int destinationOffset)
     {
         getBytesInternal();
-        System.arraycopy(this.bytes, offset, destination, 0, length);
+        System.arraycopy(this.bytes, offset, destination, destinationOffset, length);
     }
 
     // ValueVector
@@ -146,13 +152,7 @@ public int hashCode()
         if (hash == 0
                 && !hashIsZero)
         {
-            result = START;
-            int end = offset + length;
-            for (int i = offset; i < end; i++)
-            {
-                result = result * CONSTANT + bytes[i];
-            }
-
+            result = hashCode(bytes, offset, length);
             if (result == 0)
             {
                 hashIsZero = true;
@@ -166,6 +166,21 @@ public int hashCode()
         return result;
     }
 
+    /**
+     * Calculate the hash code of a range of utf8 bytes. Returns the same hash as {@link #hashCode()} on a string with the same bytes. Used by vectors that stores strings in a shared buffer to hash
+     * without creating string instances.
+     */
+    public static int hashCode(byte[] bytes, int offset, int length)
+    {
+        int result = START;
+        int end = offset + length;
+        for (int i = offset; i < end; i++)
+        {
+            result = result * CONSTANT + bytes[i];
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -205,6 +220,85 @@ else if (obj instanceof UTF8String that)
         return false;
     }
 
+    /**
+     * Return a sort prefix of this string. The prefix consists of the first 8 bytes of the utf8 representation in big endian order padded with zeros. Comparing two prefixes unsigned gives the same
+     * order as a bytewise comparison of the strings. Strings with equal prefixes must be compared with {@link #compareTo(UTF8String)}.
+     */
+    public long getSortPrefix()
+    {
+        if (bytes == null)
+        {
+            return getSortPrefix(string);
+        }
+        long prefix = 0;
+        int size = Math.min(Long.BYTES, length);
+        for (int i = 0; i < size; i++)
+        {
+            prefix = putPrefixByte(prefix, i, bytes[offset + i]);
+        }
+        return prefix;
+    }
+
+    /** Calculate the sort prefix from a string without encoding the whole string */
+    private static long getSortPrefix(String string)
+    {
+        long prefix = 0;
+        int index = 0;
+        int length = string.length();
+        for (int i = 0; i < length
+                && index < Long.BYTES; i++)
+        {
+            int codePoint = string.charAt(i);
+            if (Character.isSurrogate((char) codePoint))
+            {
+                if (Character.isHighSurrogate((char) codePoint)
+                        && i + 1 < length
+                        && Character.isLowSurrogate(string.charAt(i + 1)))
+                {
+                    codePoint = Character.toCodePoint((char) codePoint, string.charAt(++i));
+                }
+                else
+                {
+                    // Malformed surrogates are replaced by '?' when encoded
+                    codePoint = '?';
+                }
+            }
+
+            if (codePoint < 0x80)
+            {
+                prefix = putPrefixByte(prefix, index++, codePoint);
+            }
+            else if (codePoint < 0x800)
+            {
+                prefix = putPrefixByte(prefix, index++, 0xC0 | (codePoint >> 6));
+                prefix = putPrefixByte(prefix, index++, 0x80 | (codePoint & 0x3F));
+            }
+            else if (codePoint < 0x10000)
+            {
+                prefix = putPrefixByte(prefix, index++, 0xE0 | (codePoint >> 12));
+                prefix = putPrefixByte(prefix, index++, 0x80 | ((codePoint >> 6) & 0x3F));
+                prefix = putPrefixByte(prefix, index++, 0x80 | (codePoint & 0x3F));
+            }
+            else
+            {
+                prefix = putPrefixByte(prefix, index++, 0xF0 | (codePoint >> 18));
+                prefix = putPrefixByte(prefix, index++, 0x80 | ((codePoint >> 12) & 0x3F));
+                prefix = putPrefixByte(prefix, index++, 0x80 | ((codePoint >> 6) & 0x3F));
+                prefix = putPrefixByte(prefix, index++, 0x80 | (codePoint & 0x3F));
+            }
+        }
+        return prefix;
+    }
+
+    private static long putPrefixByte(long prefix, int index, int value)
+    {
+        if (index >= Long.BYTES)
+        {
+            return prefix;
+        }
+        return prefix | ((value & 0xFFL) << (8 * (Long.BYTES - 1 - index)));
+    }
+
     /** Returns true if this instance has a {@link java.lang.String} instance. */
     public boolean hasString()
     {
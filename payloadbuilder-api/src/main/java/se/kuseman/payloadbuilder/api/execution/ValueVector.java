@@ -500,6 +500,40 @@ default int getCardinality()
         return count;
     }
 
+    /**
+     * Return the dictionary of this vector if it's dictionary encoded otherwise null. Each non null row of a dictionary encoded vector has a code that is a row in the dictionary, see
+     * {@link #getDictionaryCode(int)}. Rows with equal codes have equal values and a dictionary doesn't contain duplicates which means that equality between rows of vectors sharing the same
+     * dictionary can be determined on the codes alone.
+     */
+    default ValueVector getDictionary()
+    {
+        return null;
+    }
+
+    /** Return the dictionary code of provided row. Only applicable for dictionary encoded vectors, see {@link #getDictionary()} */
+    default int getDictionaryCode(int row)
+    {
+        throw new IllegalArgumentException("Dictionary codes are only supported for dictionary encoded value vectors");
+    }
+
+    /**
+     * Return the code of provided value when this vector is a dictionary, see {@link #getDictionary()}. Returns -1 if the value is not part of the dictionary. Default implementation scans the
+     * values, dictionaries should override with a lookup.
+     */
+    default int getDictionaryCode(UTF8String value)
+    {
+        int size = size();
+        for (int i = 0; i < size; i++)
+        {
+            if (getString(i)
+                    .equals(value))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /** Create a literal vector of type {@link Column.Type#Object} with provided value and size */
     static ValueVector literalObject(ObjectVector value, int size)
     {
@@ -125,6 +125,30 @@ public Object getAny(int row)
         return vector.getAny(selection[row]);
     }
 
+    @Override
+    public ValueVector getDictionary()
+    {
+        return vector.getDictionary();
+    }
+
+    @Override
+    public int getDictionaryCode(int row)
+    {
+        return vector.getDictionaryCode(selection[row]);
+    }
+
+    /** Return the wrapped vector */
+    public ValueVector getVector()
+    {
+        return vector;
+    }
+
+    /** Return the selected rows of the wrapped vector. NOTE! The returned array is not a copy and must not be modified */
+    public int[] getSelection()
+    {
+        return selection;
+    }
+
     /**
      * Create a selected value vector from provided source and selection.
      *
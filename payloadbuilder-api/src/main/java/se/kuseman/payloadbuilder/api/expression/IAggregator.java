@@ -24,4 +24,26 @@
      */
     ValueVector combine(IExecutionContext context);
 
+    /**
+     * Returns true if this aggregator supports {@link #merge(IAggregator, ValueVector, ValueVector, IExecutionContext)}. Operators that aggregates input in parallel only does so if all it's
+     * aggregators supports merging.
+     */
+    default boolean supportsMerge()
+    {
+        return false;
+    }
+
+    /**
+     * Merge the state of a partial aggregator into this aggregator. The partial aggregator is created from the same expression as this aggregator and it's input comes after the input already appended
+     * to this aggregator.
+     *
+     * @param partial The partial aggregator to merge
+     * @param groupIds Integer vector with group ids of this aggregator
+     * @param partialGroupIds Integer vector with the group ids of the partial aggregator that should be merged into corresponding group in @param groupIds. Same size as @param groupIds
+     */
+    default void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support merge");
+    }
+
 }
\ No newline at end of file
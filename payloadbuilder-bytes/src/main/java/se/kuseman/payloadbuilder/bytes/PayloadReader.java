@@ -143,19 +143,42 @@ public static TupleVector readTupleVector(byte[] bytes, Schema schema, boolean e
         return vector.getTable(0);
     }
 
+    /**
+     * Reads a tuple vector from provided buffer. The payload is read from the buffers position to it's limit. The vector reads it's data directly from the buffer so this can be used to read payloads
+     * stored off heap (direct or memory mapped buffers) without copying. NOTE! Assumes the vector written are of type Table and of size 1
+     *
+     * @see #readTupleVector(byte[], Schema, boolean)
+     */
+    public static TupleVector readTupleVector(ByteBuffer buffer, Schema schema, boolean expandSchema)
+    {
+        requireNonNull(buffer);
+        requireNonNull(schema);
+
+        ReadContext context = new ReadContext(schema, expandSchema);
+
+        ValueVector vector = readInternal(buffer.slice()
+                .order(BYTE_ORDER), context);
+        return vector.getTable(0);
+    }
+
     private static ValueVector readInternal(byte[] bytes, ReadContext context)
     {
-        if (bytes.length < 8
-                || (!(bytes[0] == P
-                        && bytes[1] == L
-                        && bytes[2] == B)
-                        || bytes[bytes.length - 1] != bytes[CHECKSUM_BYTE]))
+        return readInternal(ByteBuffer.wrap(bytes)
+                .order(BYTE_ORDER), context);
+    }
+
+    private static ValueVector readInternal(ByteBuffer buffer, ReadContext context)
+    {
+        int length = buffer.limit();
+        if (length < 8
+                || (!(buffer.get(0) == P
+                        && buffer.get(1) == L
+                        && buffer.get(2) == B)
+                        || buffer.get(length - 1) != buffer.get(CHECKSUM_BYTE)))
         {
             throw new IllegalArgumentException("Illegal payload. Expected marker bytes does not exists");
         }
 
-        ByteBuffer buffer = ByteBuffer.wrap(bytes)
-                .order(BYTE_ORDER);
         int position = 3;
         int version = Utils.readVarInt(buffer, position);
         position += Utils.sizeOfVarInt(version);
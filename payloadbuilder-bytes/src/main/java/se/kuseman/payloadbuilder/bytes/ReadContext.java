@@ -1,18 +1,18 @@
 package se.kuseman.payloadbuilder.bytes;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import se.kuseman.payloadbuilder.api.catalog.Schema;
 
-/** Cache used during reading of values. */
+/** Cache used during reading of values. Vectors can be shared between threads (ie. cached payloads) so the cache is thread safe. */
 class ReadContext
 {
     private final Schema schema;
     private final boolean expandSchema;
-    private Map<Integer, BigDecimal> bigDecimalCache = new HashMap<>();
+    private Map<Integer, BigDecimal> bigDecimalCache = new ConcurrentHashMap<>();
 
     ReadContext()
     {
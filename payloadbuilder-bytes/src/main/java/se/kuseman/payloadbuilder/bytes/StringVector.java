@@ -49,6 +49,13 @@ private static UTF8String getString(ByteBuffer buffer, int position)
     {
         int length = Utils.readVarInt(buffer, position);
         position += Utils.sizeOfVarInt(length);
-        return UTF8String.utf8(buffer.array(), position, length);
+        if (buffer.hasArray())
+        {
+            return UTF8String.utf8(buffer.array(), buffer.arrayOffset() + position, length);
+        }
+        // Direct or mapped buffer, copy the bytes
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return UTF8String.utf8(bytes);
     }
 }
@@ -1,10 +1,24 @@
 package se.kuseman.payloadbuilder.bytes;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.Decimal;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.test.VectorTestUtils;
+
 /** Test of {@link PayloadReader} */
 class PayloadReaderTest
 {
@@ -20,4 +34,30 @@ void test_isSupported()
         assertFalse(PayloadReader.isSupportedPayload(new byte[] { PayloadReader.P, PayloadReader.L, PayloadReader.B, 1, 2, 3, 4, 5, 6, PayloadReader.L }));
         assertTrue(PayloadReader.isSupportedPayload(new byte[] { PayloadReader.P, PayloadReader.L, PayloadReader.B, 1, 2, 3, 4, 5, 6, 5 }));
     }
+
+    @Test
+    void test_read_from_byte_buffer()
+    {
+        Schema schema = Schema.of(Column.of("int", Type.Int), Column.of("string", Type.String), Column.of("decimal", Type.Decimal));
+        TupleVector vector = TupleVector.of(schema, List.of(vv(Type.Int, 1, null, 3), vv(Type.String, "one", "two", null), vv(Type.Decimal, Decimal.from(1.5), null, Decimal.from(3))));
+        byte[] bytes = PayloadWriter.write(ValueVector.literalTable(vector, 1));
+
+        // Direct buffer
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes)
+                .flip();
+        VectorTestUtils.assertTupleVectorsEquals(vector, PayloadReader.readTupleVector(direct, schema, false));
+        // Reading doesn't move the buffers position
+        assertEquals(0, direct.position());
+        VectorTestUtils.assertTupleVectorsEquals(vector, PayloadReader.readTupleVector(direct, schema, false));
+
+        // Heap buffer where the payload doesn't start at the beginning of the array
+        byte[] padded = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, padded, 5, bytes.length);
+        ByteBuffer heap = ByteBuffer.wrap(padded, 5, bytes.length)
+                .slice();
+        VectorTestUtils.assertTupleVectorsEquals(vector, PayloadReader.readTupleVector(heap, schema, false));
+
+        assertThrows(IllegalArgumentException.class, () -> PayloadReader.readTupleVector(ByteBuffer.wrap(padded), schema, false));
+    }
 }
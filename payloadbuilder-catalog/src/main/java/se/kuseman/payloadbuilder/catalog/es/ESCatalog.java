@@ -9,6 +9,7 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -163,8 +164,12 @@ private IDatasource getDatasource(IQuerySession session, String catalogAlias, Qu
 
         if (seekPredicate != null)
         {
+            // Range predicates have one column per bound but it's always the same column
             if (seekPredicate.getIndexColumns()
-                    .size() != 1)
+                    .stream()
+                    .map(String::toLowerCase)
+                    .distinct()
+                    .count() != 1)
             {
                 throw new IllegalArgumentException("Invalid index, catalog only supports single column indices");
             }
@@ -503,7 +508,8 @@ private List<Index> getIndicesInternal(QualifiedName table, Map<QualifiedName, M
                 continue;
             }
 
-            result.add(new Index(table, singletonList(field.toDotDelimited()), Index.ColumnsType.ALL));
+            // Property indices can be used for both terms and range queries
+            result.add(new Index(table, singletonList(field.toDotDelimited()), Index.ColumnsType.ALL, EnumSet.of(Index.IndexType.SEEK_EQ, Index.IndexType.SEEK_RANGE)));
         }
 
         return result;
@@ -139,7 +139,8 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
                         sortItems.stream()
                                 .map(Object::toString)
                                 .collect(joining(", "))),
-                entry("Query", ESQueryUtils.getSearchBody(true, strategy, sortItems, propertyPredicates, null, indexField, quoteValues, context)));
+                entry("Query", ESQueryUtils.getSearchBody(true, strategy, sortItems, propertyPredicates, null, isRangeSeek() ? emptyList()
+                        : null, indexField, quoteValues, context)));
 
         Data data = context.getStatementContext()
                 .getNodeData(nodeId);
@@ -149,7 +150,7 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
             result.put("Scroll count", data.scrollCount);
             result.put("Bytes sent", FileUtils.byteCountToDisplaySize(data.bytesSent));
             result.put("Bytes received", FileUtils.byteCountToDisplaySize(data.bytesReceived));
-            result.put("Request and deserialization time", DurationFormatUtils.formatDurationHMS(data.requestTime.getTime(TimeUnit.MILLISECONDS)));
+            result.put("Request and deserialization time", DurationFormatUtils.formatDurationHMS(data.getRequestTime()));
             if (!isBlank(data.actualQuery))
             {
                 result.put("Query", data.actualQuery);
@@ -163,6 +164,8 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
     public TupleIterator execute(IExecutionContext context)
     {
         ValueVector indexSeekValues = getIndexSeekValues(context);
+        List<ISeekKey> indexRangeSeekKeys = isRangeSeek() ? indexPredicate.getSeekKeys(context)
+                : null;
         String indexField = getIndexField();
         int batchSize = getBatchSize(context, indexField, indexSeekValues);
 
@@ -189,7 +192,7 @@ public TupleIterator execute(IExecutionContext context)
 
         boolean quoteValues = indexProperty == null
                 || indexProperty.shouldQuoteValues();
-        String body = ESQueryUtils.getSearchBody(false, strategy, sortItems, propertyPredicates, indexSeekValues, indexField, quoteValues, context);
+        String body = ESQueryUtils.getSearchBody(false, strategy, sortItems, propertyPredicates, indexSeekValues, indexRangeSeekKeys, indexField, quoteValues, context);
         data.actualQuery = body;
         return getScrollingIterator(context, strategy, catalogAlias, esType.endpoint, data, searchUrl, scrollUrl, body);
     }
@@ -246,9 +249,17 @@ else if (predicate.getPredicate()
         return batchSize;
     }
 
+    private boolean isRangeSeek()
+    {
+        return indexPredicate != null
+                && indexPredicate.isRangeSeek();
+    }
+
     private ValueVector getIndexSeekValues(IExecutionContext context)
     {
-        if (indexPredicate == null)
+        // Range seeks uses the seek keys as is
+        if (indexPredicate == null
+                || indexPredicate.isRangeSeek())
         {
             return null;
         }
@@ -774,12 +785,38 @@ static class Data extends NodeData
         long bytesReceived;
         int scrollCount;
         String actualQuery;
+        /** Request time in millis of merged node datas */
+        long mergedRequestTime;
 
         Data()
         {
             requestTime.start();
             requestTime.suspend();
         }
+
+        /** Return total request time in millis */
+        long getRequestTime()
+        {
+            return requestTime.getTime(TimeUnit.MILLISECONDS) + mergedRequestTime;
+        }
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof Data data)
+            {
+                requestCount += data.requestCount;
+                bytesSent += data.bytesSent;
+                bytesReceived += data.bytesReceived;
+                scrollCount += data.scrollCount;
+                mergedRequestTime += data.getRequestTime();
+                if (isBlank(actualQuery))
+                {
+                    actualQuery = data.actualQuery;
+                }
+            }
+        }
     }
 
     /** Class the streams doc id's to _mget endpoint in ES */
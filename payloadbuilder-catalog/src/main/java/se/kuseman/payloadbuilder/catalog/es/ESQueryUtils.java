@@ -14,7 +14,9 @@
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.NullOrder;
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.ISeekPredicate.ISeekKey;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.catalog.es.ElasticsearchMetaUtils.MappedProperty;
 
 /** Utils for ESCatalog */
@@ -96,20 +98,34 @@ static String getMgetUrl(String endpoint, String index, String type)
     /** Build search body **/
     static String getSearchBody(boolean describe, ElasticStrategy strategy, List<SortItemMeta> sortItems, List<IPropertyPredicate> propertyPredicates, ValueVector indexSeekValues, String indexField,
             boolean quoteIndexFieldValues, IExecutionContext context)
+    {
+        return getSearchBody(describe, strategy, sortItems, propertyPredicates, indexSeekValues, null, indexField, quoteIndexFieldValues, context);
+    }
+
+    /** Build search body. If index range seek keys is provided then a range filter is used for index field instead of a terms filter with the index seek values **/
+    static String getSearchBody(boolean describe, ElasticStrategy strategy, List<SortItemMeta> sortItems, List<IPropertyPredicate> propertyPredicates, ValueVector indexSeekValues,
+            List<ISeekKey> indexRangeSeekKeys, String indexField, boolean quoteIndexFieldValues, IExecutionContext context)
     {
         StringBuilder sb = new StringBuilder().append('{');
         appendSortItems(strategy, sortItems, sb);
-        appendPropertyPredicates(describe, strategy, propertyPredicates, indexSeekValues, indexField, quoteIndexFieldValues, sb, context);
+        appendPropertyPredicates(describe, strategy, propertyPredicates, indexSeekValues, indexRangeSeekKeys, indexField, quoteIndexFieldValues, sb, context);
         sb.append('}');
         return sb.toString();
     }
 
-    private static void appendPropertyPredicates(boolean describe, ElasticStrategy strategy, List<IPropertyPredicate> propertyPredicates, ValueVector indexSeekValues, String indexField,
-            boolean quoteIndexFieldValues, StringBuilder sb, IExecutionContext context)
+    private static void appendPropertyPredicates(boolean describe, ElasticStrategy strategy, List<IPropertyPredicate> propertyPredicates, ValueVector indexSeekValues,
+            List<ISeekKey> indexRangeSeekKeys, String indexField, boolean quoteIndexFieldValues, StringBuilder sb, IExecutionContext context)
     {
         StringBuilder filterMust = new StringBuilder();
         StringBuilder filterMustNot = new StringBuilder();
-        appendIndexSearchFilter(filterMust, indexSeekValues, quoteIndexFieldValues, indexField);
+        if (indexRangeSeekKeys != null)
+        {
+            appendIndexRangeFilter(filterMust, indexRangeSeekKeys, quoteIndexFieldValues, indexField);
+        }
+        else
+        {
+            appendIndexSearchFilter(filterMust, indexSeekValues, quoteIndexFieldValues, indexField);
+        }
 
         if (!propertyPredicates.isEmpty())
         {
@@ -204,6 +220,116 @@ private static void appendIndexSearchFilter(StringBuilder sb, ValueVector indexS
         sb.append("]}}");
     }
 
+    /**
+     * Append search body for index range seek keys. Each row of the keys is one range where all bounds must be met and the ranges are combined with should.
+     *
+     * <pre>
+     * Single range:
+     *   {"range":{"field":{"gte":10}}},{"range":{"field":{"lt":20}}}
+     *
+     * Multiple ranges:
+     *   {"bool":{"should":[{"bool":{"must":[{"range":{"field":{"gte":10}}},{"range":{"field":{"lt":20}}}]}},{"bool":{"must":[...]}}]}}
+     * </pre>
+     */
+    private static void appendIndexRangeFilter(StringBuilder sb, List<ISeekKey> seekKeys, boolean quoteValues, String field)
+    {
+        if (seekKeys.isEmpty())
+        {
+            // No keys here, that means we have a describe/analyze-call
+            // so add a dummy value
+            sb.append("{\"range\":{\"")
+                    .append(field)
+                    .append("\":\"<index ranges>\"}}");
+            return;
+        }
+
+        int keyCount = seekKeys.size();
+        int rowCount = seekKeys.get(0)
+                .getValue()
+                .size();
+        boolean multiRange = rowCount > 1;
+        if (multiRange)
+        {
+            sb.append("{\"bool\":{\"should\":[");
+        }
+        boolean firstRow = true;
+        rows: for (int i = 0; i < rowCount; i++)
+        {
+            // A null bound can never be met, skip whole range
+            for (int j = 0; j < keyCount; j++)
+            {
+                if (seekKeys.get(j)
+                        .getValue()
+                        .isNull(i))
+                {
+                    continue rows;
+                }
+            }
+
+            if (!firstRow)
+            {
+                sb.append(',');
+            }
+            firstRow = false;
+
+            if (multiRange)
+            {
+                sb.append("{\"bool\":{\"must\":[");
+            }
+            for (int j = 0; j < keyCount; j++)
+            {
+                ISeekKey seekKey = seekKeys.get(j);
+                if (j > 0)
+                {
+                    sb.append(',');
+                }
+                // { "range": { "field": { "gt": 100 }}}
+                sb.append("{\"range\":{\"")
+                        .append(field)
+                        .append("\":{\"")
+                        .append(getRangeOp(seekKey.getComparisonType()))
+                        .append("\":");
+                if (quoteValues)
+                {
+                    sb.append('\"');
+                }
+                sb.append(seekKey.getValue()
+                        .valueAsObject(i));
+                if (quoteValues)
+                {
+                    sb.append('\"');
+                }
+                sb.append("}}}");
+            }
+            if (multiRange)
+            {
+                sb.append("]}}");
+            }
+        }
+
+        if (firstRow)
+        {
+            // All ranges had null bounds, add a term that can never be true
+            sb.append("{\"term\": { \"_id\": \"-1\" }}");
+        }
+        if (multiRange)
+        {
+            sb.append("]}}");
+        }
+    }
+
+    private static String getRangeOp(IComparisonExpression.Type type)
+    {
+        return switch (type)
+        {
+            case GREATER_THAN -> "gt";
+            case GREATER_THAN_EQUAL -> "gte";
+            case LESS_THAN -> "lt";
+            case LESS_THAN_EQUAL -> "lte";
+            default -> throw new IllegalArgumentException("Unsupported range seek comparison type: " + type);
+        };
+    }
+
     private static void appendSortItems(ElasticStrategy strategy, List<SortItemMeta> sortItems, StringBuilder sb)
     {
         sb.append("\"sort\":[");
@@ -2,12 +2,13 @@
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.Serializable;
 import java.util.Map;
 
 import se.kuseman.payloadbuilder.catalog.es.ElasticsearchMetaUtils.MappedType;
 
 /** Meta about an elasticsearch instance such as version etc. */
-class ElasticsearchMeta
+class ElasticsearchMeta implements Serializable
 {
     private final Version version;
     private final Map<String, MappedType> mappedTypes;
@@ -8,6 +8,7 @@
 import static java.util.stream.Collectors.joining;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -325,7 +326,7 @@ private static <T> T get(Class<T> clazz, IQuerySession session, String catalogAl
     }
 
     /** Class containing info about a type */
-    static class MappedType
+    static class MappedType implements Serializable
     {
         final Map<String, Object> meta;
         final Map<QualifiedName, MappedProperty> properties;
@@ -338,7 +339,7 @@ private static <T> T get(Class<T> clazz, IQuerySession session, String catalogAl
     }
 
     /** Class containing info about a mapped property such as type, ev. fields, analyzed etc. */
-    static class MappedProperty
+    static class MappedProperty implements Serializable
     {
         private static final Set<String> NON_QUOTE_TYPES = new HashSet<>(asList("boolean", "long", "integer", "short", "byte", "double", "float", "half_float", "scaled_float", "unsigned_long"));
 
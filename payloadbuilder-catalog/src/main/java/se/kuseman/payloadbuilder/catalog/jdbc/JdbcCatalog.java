@@ -17,6 +17,7 @@
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -112,7 +113,7 @@ public TableSchema getTableSchema(IExecutionContext context, String catalogAlias
                     .map(p -> new Column(p, ResolvedType.ANY))
                     .toList());
         }
-        return new TableSchema(schema, singletonList(new Index(table, emptyList(), Index.ColumnsType.WILDCARD)));
+        return new TableSchema(schema, singletonList(new Index(table, emptyList(), Index.ColumnsType.WILDCARD, EnumSet.of(Index.IndexType.SEEK_EQ, Index.IndexType.SEEK_RANGE))));
     }
 
     @Override
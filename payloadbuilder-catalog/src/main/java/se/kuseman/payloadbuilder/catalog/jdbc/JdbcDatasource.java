@@ -139,7 +139,25 @@ private String buildSql(SqlDialect dialect, IExecutionContext context, boolean d
                     .append(tableHints);
         }
 
-        if (indexPredicate != null)
+        boolean whereAdded = false;
+        if (indexPredicate != null
+                && indexPredicate.isRangeSeek())
+        {
+            sb.append(" WHERE ");
+            whereAdded = true;
+            if (describe)
+            {
+                sb.append("<index ranges ")
+                        .append(indexPredicate.getIndexColumns()
+                                .get(0))
+                        .append(">");
+            }
+            else
+            {
+                dialect.appendIndexRangeCondition(sb, indexPredicate, indexPredicate.getSeekKeys(context));
+            }
+        }
+        else if (indexPredicate != null)
         {
             List<ISeekKey> seekKeys;
             if (describe)
@@ -166,7 +184,8 @@ public ValueVector getValue()
 
         if (!predicates.isEmpty())
         {
-            sb.append(" WHERE ");
+            sb.append(whereAdded ? " AND "
+                    : " WHERE ");
             boolean first = true;
             for (IPredicate predicate : predicates)
             {
@@ -389,6 +389,58 @@ default void appendIndexJoinStatement(StringBuilder sb, ISeekPredicate indexPred
         }
     }
 
+    /**
+     * Appends condition for provided range seek keys. Each row of the seek keys is one range and the ranges are combined with OR.
+     *
+     * <pre>
+     * This is the SQL that we need
+     *
+     * (
+     *      (y.col &gt;= 10 AND y.col &lt; 20)
+     *   OR (y.col &gt;= 30 AND y.col &lt; 40)
+     * )
+     * </pre>
+     */
+    default void appendIndexRangeCondition(StringBuilder sb, ISeekPredicate indexPredicate, List<ISeekPredicate.ISeekKey> seekKeys)
+    {
+        sb.append("(");
+
+        int keySize = seekKeys.size();
+        int rowCount = seekKeys.get(0)
+                .getValue()
+                .size();
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(" OR ");
+            }
+
+            sb.append("(");
+            for (int j = 0; j < keySize; j++)
+            {
+                ISeekPredicate.ISeekKey seekKey = seekKeys.get(j);
+                ValueVector values = seekKey.getValue();
+                if (j > 0)
+                {
+                    sb.append(" AND ");
+                }
+                sb.append("y.")
+                        .append(indexPredicate.getIndexColumns()
+                                .get(j))
+                        .append(" ")
+                        .append(seekKey.getComparisonType())
+                        .append(" ");
+                // A null bound can never be met and comparing with NULL yields the same
+                sb.append(values.isNull(i) ? "NULL"
+                        : convert(values.valueAsObject(i)));
+            }
+            sb.append(")");
+        }
+
+        sb.append(")");
+    }
+
     /** Convert provided value regarding booleans, quoting of strings etc. */
     default Object convert(Object value)
     {
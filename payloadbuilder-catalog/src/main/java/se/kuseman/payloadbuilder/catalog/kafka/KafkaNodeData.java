@@ -9,4 +9,17 @@ class KafkaNodeData extends NodeData
     long bytesRead;
     long pollCount;
     int deserializationErrors;
+
+    @Override
+    public void merge(NodeData nodeData)
+    {
+        super.merge(nodeData);
+        if (nodeData instanceof KafkaNodeData data)
+        {
+            recordsPolled += data.recordsPolled;
+            bytesRead += data.bytesRead;
+            pollCount += data.pollCount;
+            deserializationErrors += data.deserializationErrors;
+        }
+    }
 }
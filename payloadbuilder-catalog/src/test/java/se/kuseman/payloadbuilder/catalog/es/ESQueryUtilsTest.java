@@ -23,8 +23,10 @@
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.NullOrder;
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.ISeekPredicate.ISeekKey;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.expression.IColumnExpression;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.catalog.es.ESQueryUtils.SortItemMeta;
 import se.kuseman.payloadbuilder.catalog.es.ElasticsearchMetaUtils.MappedProperty;
 import se.kuseman.payloadbuilder.test.IPredicateMock;
@@ -153,6 +155,33 @@ void test_search_body_singleType_with_index()
                         .collect(toList()), indexSeekValues, "index.keyword", true, context));
     }
 
+    @Test
+    void test_search_body_singleType_with_index_range()
+    {
+        List<IPropertyPredicate> predicates = List.of();
+
+        // Describe should yield a dummy range
+        assertEquals("{\"sort\":[\"_doc\"],\"query\":{\"bool\":{\"filter\":[{\"range\":{\"index\":\"<index ranges>\"}}]}}}",
+                ESQueryUtils.getSearchBody(false, new GenericStrategy(), emptyList(), predicates, null, emptyList(), "index", false, context));
+
+        // Single range
+        List<ISeekKey> seekKeys = List.of(key(IComparisonExpression.Type.GREATER_THAN_EQUAL, 10), key(IComparisonExpression.Type.LESS_THAN, 20));
+        assertEquals("{\"sort\":[\"_doc\"],\"query\":{\"bool\":{\"filter\":[{\"range\":{\"index\":{\"gte\":10}}},{\"range\":{\"index\":{\"lt\":20}}}]}}}",
+                ESQueryUtils.getSearchBody(false, new GenericStrategy(), emptyList(), predicates, null, seekKeys, "index", false, context));
+
+        // Multiple ranges, null bounds are skipped
+        seekKeys = List.of(key(IComparisonExpression.Type.GREATER_THAN, 10, null, 30), key(IComparisonExpression.Type.LESS_THAN_EQUAL, "20", 5, "40"));
+        assertEquals("{\"sort\":[\"_doc\"],\"query\":{\"bool\":{\"filter\":[{\"bool\":{\"should\":["
+                     + "{\"bool\":{\"must\":[{\"range\":{\"index\":{\"gt\":\"10\"}}},{\"range\":{\"index\":{\"lte\":\"20\"}}}]}},"
+                     + "{\"bool\":{\"must\":[{\"range\":{\"index\":{\"gt\":\"30\"}}},{\"range\":{\"index\":{\"lte\":\"40\"}}}]}}]}}]}}}",
+                ESQueryUtils.getSearchBody(false, new GenericStrategy(), emptyList(), predicates, null, seekKeys, "index", true, context));
+
+        // Only null bounds, should not match anything
+        seekKeys = List.of(key(IComparisonExpression.Type.GREATER_THAN, (Object) null));
+        assertEquals("{\"sort\":[\"_doc\"],\"query\":{\"bool\":{\"filter\":[{\"term\": { \"_id\": \"-1\" }}]}}}",
+                ESQueryUtils.getSearchBody(false, new GenericStrategy(), emptyList(), predicates, null, seekKeys, "index", false, context));
+    }
+
     @Test
     void test_search_body_singleType()
     {
@@ -375,4 +404,23 @@ static MappedProperty prop(String name, String type, Object index)
     {
         return new MappedProperty(QualifiedName.of(name), type, index, null, emptyList(), emptyMap());
     }
+
+    private static ISeekKey key(IComparisonExpression.Type type, Object... values)
+    {
+        ValueVector vector = VectorTestUtils.vv(Type.Any, values);
+        return new ISeekKey()
+        {
+            @Override
+            public ValueVector getValue()
+            {
+                return vector;
+            }
+
+            @Override
+            public IComparisonExpression.Type getComparisonType()
+            {
+                return type;
+            }
+        };
+    }
 }
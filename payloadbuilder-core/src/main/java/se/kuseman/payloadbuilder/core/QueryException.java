@@ -7,4 +7,9 @@ public QueryException(String string)
     {
         super(string);
     }
+
+    public QueryException(String string, Throwable cause)
+    {
+        super(string, cause);
+    }
 }
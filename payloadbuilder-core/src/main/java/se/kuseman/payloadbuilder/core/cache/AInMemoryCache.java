@@ -2,27 +2,42 @@
 
 import static java.util.Objects.requireNonNull;
 
+import java.lang.ref.WeakReference;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import se.kuseman.payloadbuilder.api.QualifiedName;
 
 /**
- * Base class for simple in memory based caches. Implemented using a simple ConcurrentHashMap
+ * Base class for simple in memory based caches. Implemented using a simple ConcurrentHashMap. The caches can be bounded by number of entries and estimated size both per cache and for the whole
+ * provider, when a limit is exceeded the least recently used entries are evicted. Expired entries are kept (and returned stale while reloading) until a sweep removes them, see
+ * {@link #setSweepInterval(Duration)}.
  *
  * @param <TValue> Type of value in the cache
  */
@@ -38,14 +53,27 @@
      * Sets if all entries should be loaded async even when the cache entry is not found in cache. This is useful if the user of the cache never want's any load time on the caller thread.
      */
     private final boolean alwaysLoadAsync;
+    /** Weigher used to estimate the size in bytes of the cached values. Null if sizes cannot be estimated */
+    private final ToLongFunction<TValue> weigher;
     protected final Map<QualifiedName, CacheImpl<TValue>> caches = new ConcurrentHashMap<>();
+    /** Limits of each cache */
+    private volatile CacheLimits cacheLimits = CacheLimits.UNBOUNDED;
+    /** Limits of all caches in this provider combined */
+    private volatile CacheLimits providerLimits = CacheLimits.UNBOUNDED;
+    private ScheduledFuture<?> sweepFuture;
 
     AInMemoryCache(CacheType cacheType, String providerName, boolean enableJmx, boolean alwaysLoadAsync)
+    {
+        this(cacheType, providerName, enableJmx, alwaysLoadAsync, null);
+    }
+
+    AInMemoryCache(CacheType cacheType, String providerName, boolean enableJmx, boolean alwaysLoadAsync, ToLongFunction<TValue> weigher)
     {
         this.cacheType = cacheType;
         this.providerName = providerName;
         this.enableJmx = enableJmx;
         this.alwaysLoadAsync = alwaysLoadAsync;
+        this.weigher = weigher;
     }
 
     @Override
@@ -65,20 +93,42 @@ public void flushAll()
     {
         for (CacheImpl<TValue> e : caches.values())
         {
-            e.elements.clear();
+            e.flush();
         }
     }
 
     @Override
     public void remove(QualifiedName name)
     {
-        caches.remove(name);
+        CacheImpl<TValue> cache = caches.remove(name);
+        if (cache != null)
+        {
+            cache.flush();
+        }
     }
 
     @Override
     public void removeAll()
     {
-        caches.clear();
+        for (QualifiedName name : new ArrayList<>(caches.keySet()))
+        {
+            remove(name);
+        }
+    }
+
+    /** Called when a value is removed from cache (flushed, evicted or replaced). Can be used by implementations to release resources held by the value */
+    protected void onRemoval(TValue value)
+    {
+    }
+
+    /** Called when the value of an entry is written (put or loaded). Can be used by implementations to persist entries */
+    void onEntryWritten(CacheImpl<TValue> cache, CacheEntryImpl<TValue> entry)
+    {
+    }
+
+    /** Called when an entry is removed from a cache (flushed, evicted or swept). Not called when the value of an entry is replaced */
+    void onEntryRemoved(CacheImpl<TValue> cache, CacheEntryImpl<TValue> entry)
+    {
     }
 
     @Override
@@ -87,12 +137,140 @@ public Cache getCache(QualifiedName name)
         return caches.get(name);
     }
 
+    public CacheLimits getCacheLimits()
+    {
+        return cacheLimits;
+    }
+
+    /** Set the limits of each cache in this provider. When a limit is exceeded the least recently used entries of that cache are evicted. */
+    public void setCacheLimits(CacheLimits cacheLimits)
+    {
+        this.cacheLimits = validate(cacheLimits);
+    }
+
+    public CacheLimits getProviderLimits()
+    {
+        return providerLimits;
+    }
+
+    /** Set the limits of all caches in this provider combined. When a limit is exceeded the least recently used entries among all caches are evicted. */
+    public void setProviderLimits(CacheLimits providerLimits)
+    {
+        this.providerLimits = validate(providerLimits);
+    }
+
+    /** Set the interval of the background sweep that removes expired entries. Null or a non positive interval disables the sweep. */
+    public synchronized void setSweepInterval(Duration interval)
+    {
+        if (sweepFuture != null)
+        {
+            sweepFuture.cancel(false);
+            sweepFuture = null;
+        }
+        if (interval == null
+                || interval.isZero()
+                || interval.isNegative())
+        {
+            return;
+        }
+        long millis = interval.toMillis();
+        Sweeper sweeper = new Sweeper(this);
+        sweepFuture = SWEEPER.scheduleWithFixedDelay(sweeper, millis, millis, TimeUnit.MILLISECONDS);
+        sweeper.future = sweepFuture;
+    }
+
+    /** Remove all expired entries that are not reloading. Returns number of removed entries */
+    public int sweep()
+    {
+        int count = 0;
+        for (CacheImpl<TValue> cache : caches.values())
+        {
+            count += cache.removeExpired();
+        }
+        return count;
+    }
+
+    private CacheLimits validate(CacheLimits limits)
+    {
+        requireNonNull(limits, "limits");
+        if (limits.maxBytes() > 0
+                && weigher == null)
+        {
+            throw new IllegalArgumentException("Cache provider " + getClass().getSimpleName() + " cannot estimate sizes of values, only max entries is supported");
+        }
+        return limits;
+    }
+
+    /** Evict least recently used entries among all caches if the provider limits are exceeded */
+    void evictIfNeeded()
+    {
+        CacheLimits limits = providerLimits;
+        if (!limits.isBounded()
+                || !limits.isExceeded(getTotalSize(), getTotalWeight()))
+        {
+            return;
+        }
+        evict(limits);
+    }
+
+    private synchronized void evict(CacheLimits limits)
+    {
+        int size = getTotalSize();
+        long weight = getTotalWeight();
+        if (!limits.isAboveTarget(size, weight))
+        {
+            return;
+        }
+        List<Pair<CacheImpl<TValue>, CacheEntryImpl<TValue>>> entries = new ArrayList<>(size);
+        for (CacheImpl<TValue> cache : caches.values())
+        {
+            for (CacheEntryImpl<TValue> entry : cache.elements.values())
+            {
+                entries.add(Pair.of(cache, entry));
+            }
+        }
+        entries.sort(Comparator.comparingLong(p -> p.getValue().lastAccess));
+        for (Pair<CacheImpl<TValue>, CacheEntryImpl<TValue>> pair : entries)
+        {
+            if (!limits.isAboveTarget(size, weight))
+            {
+                break;
+            }
+            if (pair.getKey()
+                    .evict(pair.getValue()))
+            {
+                size--;
+                weight -= pair.getValue().weight;
+            }
+        }
+    }
+
+    private int getTotalSize()
+    {
+        int size = 0;
+        for (CacheImpl<TValue> cache : caches.values())
+        {
+            size += cache.elements.size();
+        }
+        return size;
+    }
+
+    private long getTotalWeight()
+    {
+        long weight = 0;
+        for (CacheImpl<TValue> cache : caches.values())
+        {
+            weight += cache.weight.get();
+        }
+        return weight;
+    }
+
     protected CacheImpl<TValue> getCacheOrCreate(QualifiedName name)
     {
         requireNonNull(name, "name of cache is mandatory");
         return caches.computeIfAbsent(name, k ->
         {
-            CacheImpl<TValue> result = new CacheImpl<>(name, alwaysLoadAsync);
+            CacheImpl<TValue> result = new CacheImpl<>(this, name, alwaysLoadAsync, weigher);
 
             if (enableJmx)
             {
@@ -103,22 +281,76 @@ protected CacheImpl<TValue> getCacheOrCreate(QualifiedName name)
         });
     }
 
-    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory()
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r ->
+    {
+        Thread t = new Thread(r, AInMemoryCache.class.getSimpleName() + "#Sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Task that sweeps expired entries of a provider. Only weakly references the provider to not keep it alive, the task is cancelled when the provider is collected */
+    private static class Sweeper implements Runnable
     {
-        AtomicInteger threadCount = new AtomicInteger();
+        private final WeakReference<AInMemoryCache<?>> provider;
+        private volatile ScheduledFuture<?> future;
+
+        Sweeper(AInMemoryCache<?> provider)
+        {
+            this.provider = new WeakReference<>(provider);
+        }
 
         @Override
-        public Thread newThread(Runnable r)
+        public void run()
         {
-            String name = AInMemoryCache.class.getSimpleName() + "#CacheReloader#" + threadCount.incrementAndGet();
-            Thread t = new Thread(r, name);
-            if (t.isDaemon())
-                t.setDaemon(false);
-            if (t.getPriority() != Thread.NORM_PRIORITY)
-                t.setPriority(Thread.NORM_PRIORITY);
-            return t;
+            AInMemoryCache<?> cache = provider.get();
+            if (cache == null)
+            {
+                ScheduledFuture<?> f = future;
+                if (f != null)
+                {
+                    f.cancel(false);
+                }
+                return;
+            }
+            try
+            {
+                cache.sweep();
+            }
+            catch (Throwable e)
+            {
+                // Swallow to not cancel the sweep
+                LOGGER.error("Error sweeping cache provider: {}", cache.getName(), e);
+            }
         }
-    });
+    }
+
+    /** Max number of threads that reloads cache entries in background */
+    private static final int RELOAD_THREADS = Math.max(4, Runtime.getRuntime()
+            .availableProcessors());
+    private static final ExecutorService EXECUTOR = createReloadExecutor();
+
+    private static ExecutorService createReloadExecutor()
+    {
+        // NOTE! The queue is unbounded but each entry only has one reload in flight so it's bounded by the number of cached entries
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(RELOAD_THREADS, RELOAD_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory()
+        {
+            AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                String name = AInMemoryCache.class.getSimpleName() + "#CacheReloader#" + threadCount.incrementAndGet();
+                Thread t = new Thread(r, name);
+                if (t.isDaemon())
+                    t.setDaemon(false);
+                if (t.getPriority() != Thread.NORM_PRIORITY)
+                    t.setPriority(Thread.NORM_PRIORITY);
+                return t;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
     /**
      * Cache
@@ -132,18 +364,158 @@ public Thread newThread(Runnable r)
         AtomicInteger cacheHits = new AtomicInteger();
         AtomicInteger cacheStaleHits = new AtomicInteger();
         AtomicInteger cacheMisses = new AtomicInteger();
+        AtomicInteger evictionCount = new AtomicInteger();
+        AtomicInteger loadCount = new AtomicInteger();
+        /** Total time in nanos spent loading values */
+        AtomicLong loadTime = new AtomicLong();
         volatile ZonedDateTime lastAccessTime;
         volatile ZonedDateTime lastReloadTime;
+        private final AInMemoryCache<T> provider;
         private boolean alwaysLoadAsync;
+        private final ToLongFunction<T> weigher;
+        /** Total estimated weight of the entries in this cache */
+        final AtomicLong weight = new AtomicLong();
 
-        CacheImpl(QualifiedName name, boolean alwaysLoadAsync)
+        CacheImpl(AInMemoryCache<T> provider, QualifiedName name, boolean alwaysLoadAsync, ToLongFunction<T> weigher)
         {
+            this.provider = provider;
             this.name = name;
             this.elements = new ConcurrentHashMap<>();
             this.alwaysLoadAsync = alwaysLoadAsync;
+            this.weigher = weigher;
+        }
+
+        /** Return value for key. Returns null if key is missing or expired */
+        T get(Object key)
+        {
+            lastAccessTime = ZonedDateTime.now();
+            CacheEntryImpl<T> ce = elements.get(key);
+            if (ce != null
+                    && ce.value != null
+                    && !ce.isExpired())
+            {
+                ce.lastAccess = System.nanoTime();
+                cacheHits.incrementAndGet();
+                return ce.value;
+            }
+            cacheMisses.incrementAndGet();
+            return null;
+        }
+
+        /** Put value for key. Evicts least recently used entries if the limits are exceeded */
+        void put(Object key, T value, Duration ttl)
+        {
+            CacheEntryImpl<T> entry = new CacheEntryImpl<>(key, value, ttl);
+            entry.weight = weigh(value);
+            List<T> replaced = new ArrayList<>(1);
+            elements.compute(key, (k, prev) ->
+            {
+                weight.addAndGet(entry.weight - (prev != null ? prev.weight
+                        : 0));
+                if (prev != null)
+                {
+                    replaced.add(prev.value);
+                }
+                return entry;
+            });
+            replaced.forEach(v -> removed(v, value));
+            provider.onEntryWritten(this, entry);
+            afterWrite();
         }
 
-        /** Compute or get value for key */
+        private long weigh(T value)
+        {
+            return weigher != null
+                    && value != null ? weigher.applyAsLong(value)
+                            : 0;
+        }
+
+        /** Evict entries if the limits of this cache or the provider are exceeded */
+        private void afterWrite()
+        {
+            CacheLimits limits = provider.cacheLimits;
+            if (limits.isBounded()
+                    && limits.isExceeded(elements.size(), weight.get()))
+            {
+                evict(limits);
+            }
+            provider.evictIfNeeded();
+        }
+
+        /** Evict least recently used entries until the cache is below the eviction target of provided limits */
+        private synchronized void evict(CacheLimits limits)
+        {
+            if (!limits.isAboveTarget(elements.size(), weight.get()))
+            {
+                return;
+            }
+            List<CacheEntryImpl<T>> entries = new ArrayList<>(elements.values());
+            entries.sort(Comparator.comparingLong(e -> e.lastAccess));
+            for (CacheEntryImpl<T> entry : entries)
+            {
+                if (!limits.isAboveTarget(elements.size(), weight.get()))
+                {
+                    break;
+                }
+                evict(entry);
+            }
+        }
+
+        /** Evict provided entry. Returns true if the entry was removed */
+        boolean evict(CacheEntryImpl<T> entry)
+        {
+            if (remove(entry))
+            {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        /** Remove provided entry. Returns true if the entry was removed */
+        private boolean remove(CacheEntryImpl<T> entry)
+        {
+            if (elements.remove(entry.key, entry))
+            {
+                weight.addAndGet(-entry.weight);
+                removed(entry.value, null);
+                provider.onEntryRemoved(this, entry);
+                return true;
+            }
+            return false;
+        }
+
+        /** Notify provider that a value is not cached anymore */
+        private void removed(T value, T replacement)
+        {
+            if (value != null
+                    && value != replacement)
+            {
+                provider.onRemoval(value);
+            }
+        }
+
+        /** Remove expired entries that are not reloading. Returns number of removed entries */
+        int removeExpired()
+        {
+            int count = 0;
+            for (CacheEntryImpl<T> entry : elements.values())
+            {
+                if (entry.isExpired()
+                        && !entry.reloading
+                        && entry.loader == null
+                        && evict(entry))
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Compute or get value for key. On a miss the supplier is called on the calling thread but outside of the map lock. Concurrent callers of the same key waits for that load instead of
+         * calling the supplier them self.
+         */
         T computeIfAbsent(Object key, final Duration ttl, final Supplier<T> supplier)
         {
             // To save some locking/contention we do a
@@ -153,14 +525,22 @@ T computeIfAbsent(Object key, final Duration ttl, final Supplier<T> supplier)
             if (ce != null)
             {
                 T value = ce.value;
+                CompletableFuture<T> loader = ce.loader;
                 boolean expired = ce.isExpired();
                 boolean reloading = ce.reloading;
 
-                if (value != null
+                if (loader != null)
+                {
+                    lastAccessTime = ZonedDateTime.now();
+                    cacheHits.incrementAndGet();
+                    return await(loader);
+                }
+                else if (value != null
                         && (!expired
                                 || reloading))
                 {
                     lastAccessTime = ZonedDateTime.now();
+                    ce.lastAccess = System.nanoTime();
                     if (reloading)
                     {
                         cacheStaleHits.incrementAndGet();
@@ -173,15 +553,26 @@ T computeIfAbsent(Object key, final Duration ttl, final Supplier<T> supplier)
                 }
             }
 
-            return elements.compute(key, (k, v) ->
+            MutableBoolean load = new MutableBoolean();
+            CacheEntryImpl<T> result = elements.compute(key, (k, v) ->
             {
                 lastAccessTime = ZonedDateTime.now();
-                // Call supplier sync
+                // Load sync, the supplier is called outside of compute to not block other keys
                 if (v == null
                         && !alwaysLoadAsync)
                 {
                     cacheMisses.incrementAndGet();
-                    return new CacheEntryImpl<>(k, supplier.get(), ttl);
+                    CacheEntryImpl<T> entry = new CacheEntryImpl<>(k, null, ttl);
+                    entry.loader = new CompletableFuture<>();
+                    load.setTrue();
+                    return entry;
+                }
+                // Another thread is loading
+                else if (v != null
+                        && v.loader != null)
+                {
+                    cacheHits.incrementAndGet();
+                    return v;
                 }
 
                 boolean forceReload = v == null;
@@ -201,8 +592,10 @@ T computeIfAbsent(Object key, final Duration ttl, final Supplier<T> supplier)
                         {
                             try
                             {
-                                entry.value = supplier.get();
-                                entry.setExpire(ttl);
+                                long start = System.nanoTime();
+                                T value = supplier.get();
+                                loaded(entry, start);
+                                setValue(entry, value, ttl);
                             }
                             catch (Throwable e)
                             {
@@ -224,8 +617,107 @@ T computeIfAbsent(Object key, final Duration ttl, final Supplier<T> supplier)
                     cacheHits.incrementAndGet();
                 }
 
+                entry.lastAccess = System.nanoTime();
                 return entry;
-            }).value;
+            });
+
+            if (load.isTrue())
+            {
+                return load(result, ttl, supplier);
+            }
+
+            CompletableFuture<T> loader = result.loader;
+            if (loader != null)
+            {
+                return await(loader);
+            }
+            afterWrite();
+            return result.value;
+        }
+
+        /** Load value of provided entry on calling thread and complete it's loader. */
+        private T load(CacheEntryImpl<T> entry, Duration ttl, Supplier<T> supplier)
+        {
+            CompletableFuture<T> loader = entry.loader;
+            T value;
+            long start = System.nanoTime();
+            try
+            {
+                value = supplier.get();
+                loaded(entry, start);
+            }
+            catch (Throwable e)
+            {
+                // Remove the entry to let next call retry the load
+                elements.remove(entry.key, entry);
+                loader.completeExceptionally(e);
+                throw e;
+            }
+            setValue(entry, value, ttl);
+            // NOTE! Value must be set before the loader is cleared since readers checks the loader before the value
+            loader.complete(value);
+            entry.loader = null;
+            return value;
+        }
+
+        /** Record load time statistics of a load that started at provided nano time */
+        private void loaded(CacheEntryImpl<T> entry, long start)
+        {
+            long time = System.nanoTime() - start;
+            entry.loadTime = time;
+            loadTime.addAndGet(time);
+            loadCount.incrementAndGet();
+        }
+
+        /** Set the value of provided entry and update weight. The entry is only updated if it's still present, it might have been flushed or evicted during load */
+        private void setValue(CacheEntryImpl<T> entry, T value, Duration ttl)
+        {
+            long valueWeight = weigh(value);
+            List<T> replaced = new ArrayList<>(1);
+            elements.computeIfPresent(entry.key, (k, v) ->
+            {
+                if (v == entry)
+                {
+                    replaced.add(entry.value);
+                    weight.addAndGet(valueWeight - entry.weight);
+                    entry.weight = valueWeight;
+                    entry.value = value;
+                    entry.setExpire(ttl);
+                }
+                return v;
+            });
+            if (replaced.isEmpty())
+            {
+                // Entry was removed during load, the value is not cached
+                removed(value, null);
+            }
+            else
+            {
+                removed(replaced.get(0), value);
+                provider.onEntryWritten(this, entry);
+            }
+            afterWrite();
+        }
+
+        /** Wait for a load made by another thread. Rethrows the error of the load if any */
+        private static <V> V await(CompletableFuture<V> loader)
+        {
+            try
+            {
+                return loader.join();
+            }
+            catch (CompletionException e)
+            {
+                if (e.getCause() instanceof RuntimeException re)
+                {
+                    throw re;
+                }
+                else if (e.getCause() instanceof Error err)
+                {
+                    throw err;
+                }
+                throw e;
+            }
         }
 
         @Override
@@ -258,6 +750,30 @@ public int getCacheMisses()
             return cacheMisses.get();
         }
 
+        @Override
+        public int getEvictionCount()
+        {
+            return evictionCount.get();
+        }
+
+        @Override
+        public long getEstimatedSize()
+        {
+            return weight.get();
+        }
+
+        @Override
+        public int getLoadCount()
+        {
+            return loadCount.get();
+        }
+
+        @Override
+        public long getTotalLoadTime()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(loadTime.get());
+        }
+
         @Override
         public ZonedDateTime getLastAccessTime()
         {
@@ -273,13 +789,20 @@ public ZonedDateTime getLastReloadTime()
         @Override
         public void flush()
         {
-            elements.clear();
+            for (CacheEntryImpl<T> entry : elements.values())
+            {
+                remove(entry);
+            }
         }
 
         @Override
         public void flush(Object key)
         {
-            elements.remove(key);
+            CacheEntryImpl<T> entry = elements.get(key);
+            if (entry != null)
+            {
+                remove(entry);
+            }
         }
 
         @Override
@@ -300,6 +823,14 @@ public List<CacheEntry> getCacheEntries()
         volatile long expireTime;
         volatile T value;
         volatile boolean reloading = false;
+        /** Loader that is set while the value of a missing entry is loaded. Other callers of the same key waits on this one */
+        volatile CompletableFuture<T> loader;
+        /** Estimated weight of this entry */
+        long weight;
+        /** Time in nanos when this entry was last accessed. Used for eviction */
+        volatile long lastAccess = System.nanoTime();
+        /** Time in nanos of the last load of this entry */
+        volatile long loadTime;
 
         CacheEntryImpl(Object key, T value, Duration ttl)
         {
@@ -320,6 +851,14 @@ void setExpire(Duration ttl)
                     : -1;
         }
 
+        /** Return the expire time in epoch millis. Returns -1 if the entry never expires */
+        long getExpireEpochMillis()
+        {
+            long expire = expireTime;
+            return expire >= 0 ? System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(expire - System.nanoTime())
+                    : -1;
+        }
+
         @Override
         public Object getKey()
         {
@@ -329,8 +868,15 @@ public Object getKey()
         @Override
         public ZonedDateTime getExpireTime()
         {
-            return expireTime >= 0 ? ZonedDateTime.ofInstant(Instant.ofEpochMilli(expireTime), ZoneId.systemDefault())
+            long expire = getExpireEpochMillis();
+            return expire >= 0 ? ZonedDateTime.ofInstant(Instant.ofEpochMilli(expire), ZoneId.systemDefault())
                     : null;
         }
+
+        @Override
+        public long getLoadTime()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(loadTime);
+        }
     }
 }
@@ -23,6 +23,38 @@
     /** Return cache misses */
     int getCacheMisses();
 
+    /** Return number of entries evicted from cache due to size limits or expiration */
+    default int getEvictionCount()
+    {
+        return 0;
+    }
+
+    /** Return estimated size in bytes of the entries in cache. Returns 0 if the cache cannot estimate sizes */
+    default long getEstimatedSize()
+    {
+        return 0;
+    }
+
+    /** Return number of values loaded by this cache (misses and reloads) */
+    default int getLoadCount()
+    {
+        return 0;
+    }
+
+    /** Return total time in milliseconds spent loading values */
+    default long getTotalLoadTime()
+    {
+        return 0;
+    }
+
+    /** Return average time in milliseconds of a load */
+    default float getAverageLoadTime()
+    {
+        int count = getLoadCount();
+        return count > 0 ? (float) getTotalLoadTime() / count
+                : 0;
+    }
+
     /** Return time when cache was last accessed */
     ZonedDateTime getLastAccessTime();
 
@@ -60,5 +92,11 @@ default float getCacheMissRatio()
 
         /** Return the expire time */
         ZonedDateTime getExpireTime();
+
+        /** Return time in milliseconds of the last load of this entry */
+        default long getLoadTime()
+        {
+            return 0;
+        }
     }
 }
\ No newline at end of file
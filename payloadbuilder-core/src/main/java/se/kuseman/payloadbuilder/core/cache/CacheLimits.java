@@ -0,0 +1,50 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+/**
+ * Size limits of an in memory cache. A limit of zero or less means unbounded.
+ *
+ * @param maxEntries Max number of entries
+ * @param maxBytes Max estimated size in bytes of the entries
+ */
+public record CacheLimits(int maxEntries, long maxBytes)
+{
+    /** Limits without any bounds */
+    public static final CacheLimits UNBOUNDED = new CacheLimits(0, 0);
+
+    /** Return limits with a max number of entries */
+    public static CacheLimits ofEntries(int maxEntries)
+    {
+        return new CacheLimits(maxEntries, 0);
+    }
+
+    /** Return limits with a max estimated size in bytes */
+    public static CacheLimits ofBytes(long maxBytes)
+    {
+        return new CacheLimits(0, maxBytes);
+    }
+
+    /** Return true if any of the limits is set */
+    public boolean isBounded()
+    {
+        return maxEntries > 0
+                || maxBytes > 0;
+    }
+
+    /** Return true if provided entry count or weight exceeds these limits */
+    boolean isExceeded(int entries, long bytes)
+    {
+        return (maxEntries > 0
+                && entries > maxEntries)
+                || (maxBytes > 0
+                        && bytes > maxBytes);
+    }
+
+    /** Return true if provided entry count or weight is above the eviction target (90%) of these limits. Evicting below the limit avoids an eviction on every write when the cache is full */
+    boolean isAboveTarget(int entries, long bytes)
+    {
+        return (maxEntries > 0
+                && entries > (int) (maxEntries * 0.9))
+                || (maxBytes > 0
+                        && bytes > (long) (maxBytes * 0.9));
+    }
+}
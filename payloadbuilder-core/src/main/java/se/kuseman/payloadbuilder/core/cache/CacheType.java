@@ -6,7 +6,8 @@
 public enum CacheType
 {
     TEMPTABLE,
-    GENERIC;
+    GENERIC,
+    SEEK;
 
     /**
      * Return cache type from provided provider.
@@ -23,6 +24,10 @@ else if (provider instanceof TempTableCache)
         {
             return CacheType.TEMPTABLE;
         }
+        else if (provider instanceof SeekCache)
+        {
+            return CacheType.SEEK;
+        }
         return null;
     }
 }
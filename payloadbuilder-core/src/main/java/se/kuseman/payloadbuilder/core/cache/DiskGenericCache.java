@@ -0,0 +1,671 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+
+/**
+ * Implementation of generic cache that survives restarts. Entries are kept in memory like {@link InMemoryGenericCache} and every write and removal is appended to a log file in a directory. An
+ * in memory index keeps track of the live record of each entry and the log is compacted when it contains more stale records than live ones. When the cache is created the log is replayed and all
+ * non expired entries are loaded.
+ *
+ * <pre>
+ * Keys and values must be {@link java.io.Serializable} to be persisted, other entries are only cached in memory.
+ * Classes are resolved with the thread context class loader when the log is replayed, entries that cannot be read are dropped.
+ * Only classes in {@link #DEFAULT_ALLOWED_CLASSES} and the allowed classes provided to the constructor are deserialized when
+ * the log is replayed, entries with other classes are dropped.
+ * Records are appended to the log by a single writer thread to not perform any disk IO on the threads that loads values.
+ * The directory must not be shared between processes.
+ * </pre>
+ */
+public class DiskGenericCache extends AInMemoryCache<Object> implements GenericCache, Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskGenericCache.class);
+    static final String FILE_NAME = "generic-cache.log";
+    private static final int MAGIC = 0x504C4743;
+    private static final int VERSION = 1;
+    /** Size of file header (magic and version) */
+    private static final int HEADER_SIZE = 8;
+    /** Size of record header (length and checksum) */
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    /** Min size of the log before it's compacted */
+    static final long COMPACT_MIN_SIZE = 1024 * 1024;
+    /** Classes that are allowed to be deserialized when the log is replayed. Pattern according to {@link ObjectInputFilter.Config#createFilter(String)} */
+    public static final String DEFAULT_ALLOWED_CLASSES = "java.lang.*;java.util.*;java.time.*;java.math.*;se.kuseman.payloadbuilder.**";
+    /** Max time to wait for pending writes when the cache is closed */
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final Path file;
+    private final ObjectInputFilter filter;
+    /** Single thread that appends records to the log */
+    private final ThreadPoolExecutor writer;
+    /** Location of the live record of each persisted entry */
+    private final Map<LogKey, Location> index = new HashMap<>();
+    private FileChannel channel;
+    /** Current size of the log */
+    private long size;
+    /** Total size of all live records */
+    private long liveSize;
+    /** Min size of log before compaction */
+    private long compactMinSize = COMPACT_MIN_SIZE;
+    /** Flag that is set while the log is replayed to not write the replayed entries again */
+    private boolean replaying;
+
+    public DiskGenericCache(String name, Path directory)
+    {
+        this(name, directory, false);
+    }
+
+    public DiskGenericCache(String name, Path directory, boolean enableJmx)
+    {
+        this(name, directory, enableJmx, false);
+    }
+
+    public DiskGenericCache(String name, Path directory, boolean enableJmx, boolean alwaysLoadAsync)
+    {
+        this(name, directory, enableJmx, alwaysLoadAsync, null);
+    }
+
+    /**
+     * Create a disk generic cache
+     *
+     * @param allowedClasses Classes besides {@link #DEFAULT_ALLOWED_CLASSES} that are allowed to be deserialized when the log is replayed. Pattern according to
+     * {@link ObjectInputFilter.Config#createFilter(String)}, ie. "com.company.**". Can be null.
+     */
+    public DiskGenericCache(String name, Path directory, boolean enableJmx, boolean alwaysLoadAsync, String allowedClasses)
+    {
+        super(CacheType.GENERIC, name, enableJmx, alwaysLoadAsync);
+        this.file = requireNonNull(directory, "directory").resolve(FILE_NAME);
+        this.filter = ObjectInputFilter.Config.createFilter(DEFAULT_ALLOWED_CLASSES + (isBlank(allowedClasses) ? ""
+                : ";" + allowedClasses) + ";!*");
+        // NOTE! The queue is unbounded since the load path should never block on disk IO
+        this.writer = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r ->
+        {
+            Thread t = new Thread(r, DiskGenericCache.class.getSimpleName() + "#Writer#" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        this.writer.allowCoreThreadTimeOut(true);
+        try
+        {
+            Files.createDirectories(directory);
+            replay();
+        }
+        catch (IOException e)
+        {
+            throw new IllegalArgumentException("Cannot open cache log: " + file, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T computIfAbsent(QualifiedName name, Object key, Duration ttl, final Supplier<T> supplier)
+    {
+        CacheImpl<T> entry = (CacheImpl<T>) getCacheOrCreate(name);
+        return entry.computeIfAbsent(key, ttl, supplier);
+    }
+
+    /** Set min size of the log before it's compacted */
+    void setCompactMinSize(long compactMinSize)
+    {
+        this.compactMinSize = compactMinSize;
+    }
+
+    /** Return current size of the log. Waits for pending writes */
+    long getLogSize()
+    {
+        awaitWrites();
+        synchronized (this)
+        {
+            return size;
+        }
+    }
+
+    /** Close the cache. Waits for pending writes before the log is closed */
+    @Override
+    public void close() throws IOException
+    {
+        writer.shutdown();
+        try
+        {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            {
+                LOGGER.warn("Timed out waiting for pending writes to cache log: {}", file);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+        }
+        synchronized (this)
+        {
+            if (channel != null)
+            {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    @Override
+    void onEntryWritten(CacheImpl<Object> cache, CacheEntryImpl<Object> entry)
+    {
+        if (!replaying)
+        {
+            submit(() -> write(cache, entry));
+        }
+    }
+
+    @Override
+    void onEntryRemoved(CacheImpl<Object> cache, CacheEntryImpl<Object> entry)
+    {
+        if (!replaying)
+        {
+            submit(() -> remove(cache, entry));
+        }
+    }
+
+    /** Submit a task to the writer. Tasks submitted after close are ignored */
+    private void submit(Runnable task)
+    {
+        try
+        {
+            writer.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // Cache is closed
+        }
+    }
+
+    /** Wait for all tasks submitted to the writer to complete */
+    private void awaitWrites()
+    {
+        try
+        {
+            writer.submit(() -> null)
+                    .get();
+        }
+        catch (RejectedExecutionException e)
+        {
+            // Cache is closed
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            // Cannot happen, the task does nothing
+        }
+    }
+
+    /** Append a put record for the entry. Executed by the writer */
+    private synchronized void write(CacheImpl<Object> cache, CacheEntryImpl<Object> entry)
+    {
+        Object value = entry.value;
+        // Entry has been replaced or removed, the log is updated by that operation
+        if (channel == null
+                || value == null
+                || cache.elements.get(entry.key) != entry)
+        {
+            return;
+        }
+
+        LogKey key = new LogKey(cache.name, entry.key);
+        byte[] record;
+        try
+        {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeByte(PUT);
+            writeName(out, cache.name);
+            writeObject(out, entry.key);
+            out.writeLong(entry.getExpireEpochMillis());
+            writeObject(out, value);
+            out.flush();
+            record = bos.toByteArray();
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Cannot persist cache entry: {}, key: {}, keeping it in memory only", cache.name, entry.key, e);
+            // Remove any previous value to not load a stale value after restart
+            removeRecord(key);
+            return;
+        }
+
+        Location location = append(record);
+        if (location != null)
+        {
+            Location prev = index.put(key, location);
+            liveSize += location.length - (prev != null ? prev.length
+                    : 0);
+            compactIfNeeded();
+        }
+    }
+
+    /** Append a remove record for the entry. Executed by the writer */
+    private synchronized void remove(CacheImpl<Object> cache, CacheEntryImpl<Object> entry)
+    {
+        CacheEntryImpl<Object> current = cache.elements.get(entry.key);
+        // Key has been written again, the log is updated by that operation
+        if (channel == null
+                || (current != null
+                        && current.value != null))
+        {
+            return;
+        }
+        removeRecord(new LogKey(cache.name, entry.key));
+    }
+
+    /** Append a remove record for provided key if it's persisted */
+    private void removeRecord(LogKey key)
+    {
+        Location prev = index.get(key);
+        if (prev == null)
+        {
+            return;
+        }
+        byte[] record;
+        try
+        {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeByte(REMOVE);
+            writeName(out, key.name);
+            writeObject(out, key.key);
+            out.flush();
+            record = bos.toByteArray();
+        }
+        catch (IOException e)
+        {
+            // Should not happen since the key was serialized when the entry was written
+            LOGGER.warn("Cannot write remove record for cache: {}, key: {}", key.name, key.key, e);
+            return;
+        }
+        if (append(record) != null)
+        {
+            index.remove(key);
+            liveSize -= prev.length;
+            compactIfNeeded();
+        }
+    }
+
+    /** Append a record to the log. Returns the location of the record or null if the write failed */
+    private Location append(byte[] record)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+        buffer.putInt(record.length)
+                .putInt((int) crc.getValue())
+                .put(record)
+                .flip();
+        long position = size;
+        try
+        {
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Cannot write to cache log: {}", file, e);
+            return null;
+        }
+        size += buffer.limit();
+        return new Location(position, buffer.limit());
+    }
+
+    /** Compact log if it contains more stale records than live ones */
+    private void compactIfNeeded()
+    {
+        if (size < compactMinSize
+                || size - HEADER_SIZE <= liveSize * 2)
+        {
+            return;
+        }
+        try
+        {
+            compact();
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Cannot compact cache log: {}", file, e);
+        }
+    }
+
+    /** Rewrite the log with only the live records */
+    private void compact() throws IOException
+    {
+        Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+        Map<LogKey, Location> locations = new LinkedHashMap<>(index.size());
+        long position = HEADER_SIZE;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            writeHeader(out);
+            for (Map.Entry<LogKey, Location> e : index.entrySet())
+            {
+                Location location = e.getValue();
+                long transferred = 0;
+                while (transferred < location.length)
+                {
+                    transferred += channel.transferTo(location.position + transferred, location.length - transferred, out);
+                }
+                locations.put(e.getKey(), new Location(position, location.length));
+                position += location.length;
+            }
+        }
+
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = openForAppend();
+        index.putAll(locations);
+        size = position;
+        liveSize = position - HEADER_SIZE;
+    }
+
+    /** Replay the log and load all non expired entries */
+    private synchronized void replay() throws IOException
+    {
+        Map<LogKey, Record> records = new LinkedHashMap<>();
+        long validSize = HEADER_SIZE;
+        if (Files.exists(file))
+        {
+            try
+            {
+                validSize = read(records);
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("Cannot read cache log: {}, starting with an empty cache", file, e);
+                records.clear();
+                Files.delete(file);
+            }
+        }
+
+        if (!Files.exists(file))
+        {
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+            {
+                writeHeader(out);
+            }
+        }
+
+        channel = openForAppend();
+        if (channel.size() > validSize)
+        {
+            LOGGER.warn("Cache log: {} has a corrupt tail, truncating it at: {}", file, validSize);
+            channel.truncate(validSize);
+        }
+        size = validSize;
+
+        replaying = true;
+        try
+        {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<LogKey, Record> e : records.entrySet())
+            {
+                Record record = e.getValue();
+                if (record.expireTime >= 0
+                        && record.expireTime <= now)
+                {
+                    continue;
+                }
+                Duration ttl = record.expireTime >= 0 ? Duration.ofMillis(record.expireTime - now)
+                        : null;
+                getCacheOrCreate(e.getKey().name).put(e.getKey().key, record.value, ttl);
+                index.put(e.getKey(), record.location);
+            }
+        }
+        finally
+        {
+            replaying = false;
+        }
+
+        // Drop the index of entries that was evicted during replay
+        index.keySet()
+                .removeIf(k ->
+                {
+                    CacheImpl<Object> cache = caches.get(k.name);
+                    return cache == null
+                            || !cache.elements.containsKey(k.key);
+                });
+        liveSize = 0;
+        for (Location location : index.values())
+        {
+            liveSize += location.length;
+        }
+
+        if (size - HEADER_SIZE > liveSize)
+        {
+            compact();
+        }
+    }
+
+    /** Read all records of the log into provided map. Returns the size of the valid part of the log */
+    private long read(Map<LogKey, Record> records) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException("Not a cache log file");
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported version of cache log: " + version);
+            }
+
+            long position = HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            while (true)
+            {
+                byte[] record;
+                try
+                {
+                    int length = in.readInt();
+                    final int checksum = in.readInt();
+                    if (length <= 0)
+                    {
+                        return position;
+                    }
+                    record = in.readNBytes(length);
+                    crc.reset();
+                    crc.update(record);
+                    if (record.length != length
+                            || (int) crc.getValue() != checksum)
+                    {
+                        return position;
+                    }
+                }
+                catch (EOFException e)
+                {
+                    return position;
+                }
+
+                Location location = new Location(position, RECORD_HEADER_SIZE + record.length);
+                position += location.length;
+                readRecord(record, location, records);
+            }
+        }
+    }
+
+    /** Read a record and apply it to provided map */
+    private void readRecord(byte[] bytes, Location location, Map<LogKey, Record> records)
+    {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes)))
+        {
+            byte op = in.readByte();
+            QualifiedName name = readName(in);
+            Object key = readObject(in);
+            LogKey logKey = new LogKey(name, key);
+            // Remove first to keep the map in order of writes
+            records.remove(logKey);
+            if (op == PUT)
+            {
+                long expireTime = in.readLong();
+                Object value = readObject(in);
+                records.put(logKey, new Record(location, expireTime, value));
+            }
+        }
+        catch (InvalidClassException e)
+        {
+            LOGGER.warn("Cannot read record from cache log: {}, skipping it. Class is not allowed: {}", file, e.getMessage());
+        }
+        catch (IOException | ClassNotFoundException e)
+        {
+            LOGGER.debug("Cannot read record from cache log: {}, skipping it", file, e);
+        }
+    }
+
+    /** Open the log for reading and writing. Records are written at absolute positions at the end of the log */
+    private FileChannel openForAppend() throws IOException
+    {
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .flip();
+        while (header.hasRemaining())
+        {
+            channel.write(header);
+        }
+    }
+
+    private static void writeName(DataOutputStream out, QualifiedName name) throws IOException
+    {
+        List<String> parts = name.getParts();
+        out.writeInt(parts.size());
+        for (String part : parts)
+        {
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static QualifiedName readName(DataInputStream in) throws IOException
+    {
+        int count = in.readInt();
+        List<String> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            parts.add(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8));
+        }
+        return new QualifiedName(parts);
+    }
+
+    private static void writeObject(DataOutputStream out, Object object) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos))
+        {
+            oos.writeObject(object);
+        }
+        out.writeInt(bos.size());
+        bos.writeTo(out);
+    }
+
+    private Object readObject(DataInputStream in) throws IOException, ClassNotFoundException
+    {
+        byte[] bytes = in.readNBytes(in.readInt());
+        try (ObjectInputStream ois = new ContextObjectInputStream(new ByteArrayInputStream(bytes), filter))
+        {
+            return ois.readObject();
+        }
+    }
+
+    /** Object input stream that resolves classes with the thread context class loader to be able to read values of catalogs. Only classes accepted by the filter are deserialized. */
+    private static class ContextObjectInputStream extends ObjectInputStream
+    {
+        ContextObjectInputStream(InputStream in, ObjectInputFilter filter) throws IOException
+        {
+            super(in);
+            setObjectInputFilter(filter);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            ClassLoader classLoader = Thread.currentThread()
+                    .getContextClassLoader();
+            if (classLoader != null)
+            {
+                try
+                {
+                    return Class.forName(desc.getName(), false, classLoader);
+                }
+                catch (ClassNotFoundException e)
+                {
+                    // Fallback to default
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+
+    /** Key of a persisted entry */
+    private record LogKey(QualifiedName name, Object key)
+    {
+    }
+
+    /** Location of a record in the log */
+    private record Location(long position, int length)
+    {
+    }
+
+    /** A replayed put record */
+    private record Record(Location location, long expireTime, Object value)
+    {
+    }
+}
@@ -5,7 +5,7 @@
 
 import se.kuseman.payloadbuilder.api.QualifiedName;
 
-/** Implementation of generic cache that stores data in memory */
+/** Implementation of generic cache that stores data in memory. The sizes of the generic values cannot be estimated so only the number of entries can be limited */
 public class InMemoryGenericCache extends AInMemoryCache<Object> implements GenericCache
 {
     public InMemoryGenericCache(String name)
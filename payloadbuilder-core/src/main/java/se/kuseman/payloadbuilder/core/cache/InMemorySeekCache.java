@@ -0,0 +1,42 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+import java.time.Duration;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+
+/** Implementation of seek cache that stores data in memory. Each cache is bounded by the estimated size of the cached rows and evicts least recently used keys. */
+public class InMemorySeekCache extends AInMemoryCache<TupleVector> implements SeekCache
+{
+    /** Default max estimated size in bytes per cache */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    public InMemorySeekCache()
+    {
+        this(false);
+    }
+
+    public InMemorySeekCache(boolean enableJmx)
+    {
+        this(enableJmx, DEFAULT_MAX_BYTES);
+    }
+
+    public InMemorySeekCache(boolean enableJmx, long maxBytes)
+    {
+        super(CacheType.SEEK, "", enableJmx, false, VectorUtils::estimateSize);
+        setCacheLimits(CacheLimits.ofBytes(maxBytes));
+    }
+
+    @Override
+    public TupleVector get(QualifiedName name, Object key)
+    {
+        return getCacheOrCreate(name).get(key);
+    }
+
+    @Override
+    public void put(QualifiedName name, Object key, TupleVector rows, Duration ttl)
+    {
+        getCacheOrCreate(name).put(key, rows, ttl);
+    }
+}
@@ -5,8 +5,9 @@
 
 import se.kuseman.payloadbuilder.api.QualifiedName;
 import se.kuseman.payloadbuilder.core.execution.TemporaryTable;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
 
-/** Implementation of temp table cache that stores data in memory. */
+/** Implementation of temp table cache that stores data in memory. The size of a temporary table is estimated from the row count and column types of it's tuple vector. */
 public class InMemoryTempTableCache extends AInMemoryCache<TemporaryTable> implements TempTableCache
 {
     public InMemoryTempTableCache()
@@ -16,7 +17,7 @@ public InMemoryTempTableCache()
 
     public InMemoryTempTableCache(boolean enableJmx)
     {
-        super(CacheType.TEMPTABLE, "", enableJmx, false);
+        super(CacheType.TEMPTABLE, "", enableJmx, false, t -> VectorUtils.estimateSize(t.getTupleVector()));
     }
 
     @Override
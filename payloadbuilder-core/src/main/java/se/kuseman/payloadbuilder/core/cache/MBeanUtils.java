@@ -50,6 +50,16 @@ public static void registerCacheMBean(CacheType type, String providerName, Quali
 
         float getCacheMissRatio();
 
+        int getEvictionCount();
+
+        long getEstimatedSize();
+
+        int getLoadCount();
+
+        long getTotalLoadTime();
+
+        float getAverageLoadTime();
+
         String getLastAccessTime();
 
         String getLastReloadTime();
@@ -104,6 +114,36 @@ public float getCacheMissRatio()
             return cache.getCacheMissRatio();
         }
 
+        @Override
+        public int getEvictionCount()
+        {
+            return cache.getEvictionCount();
+        }
+
+        @Override
+        public long getEstimatedSize()
+        {
+            return cache.getEstimatedSize();
+        }
+
+        @Override
+        public int getLoadCount()
+        {
+            return cache.getLoadCount();
+        }
+
+        @Override
+        public long getTotalLoadTime()
+        {
+            return cache.getTotalLoadTime();
+        }
+
+        @Override
+        public float getAverageLoadTime()
+        {
+            return cache.getAverageLoadTime();
+        }
+
         @Override
         public String getLastAccessTime()
         {
@@ -0,0 +1,415 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Index;
+import se.kuseman.payloadbuilder.api.catalog.Index.ColumnsType;
+import se.kuseman.payloadbuilder.api.catalog.Index.IndexType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.bytes.PayloadReader;
+import se.kuseman.payloadbuilder.bytes.PayloadWriter;
+import se.kuseman.payloadbuilder.core.execution.TemporaryTable;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+
+/**
+ * Implementation of temp table cache that stores the cached data off heap. Temporary tables are written in payloadbuilder-bytes format to direct byte buffers or, if a directory is provided, to
+ * memory mapped files. The tables are read directly from the buffers without copying so the cached data is not part of the heap's live set. Indices are rebuilt lazily on first index access.
+ *
+ * <pre>
+ * When using a directory the cache survives restarts, all non expired tables in the directory are loaded when the cache is created.
+ * The directory must not be shared between processes.
+ *
+ * Tables that cannot be written (ie. columns with values of mixed types) are kept on heap.
+ * NOTE! Direct buffers are limited by the JVM's max direct memory (-XX:MaxDirectMemorySize).
+ * </pre>
+ */
+public class OffHeapTempTableCache extends AInMemoryCache<TemporaryTable> implements TempTableCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapTempTableCache.class);
+    static final String FILE_SUFFIX = ".plbt";
+    private static final int MAGIC = 0x504C4254;
+    private static final int VERSION = 1;
+
+    private final Path directory;
+
+    /** Create a cache that stores tables in direct byte buffers */
+    public OffHeapTempTableCache()
+    {
+        this(null, false);
+    }
+
+    /** Create a cache that stores tables in memory mapped files in provided directory. */
+    public OffHeapTempTableCache(Path directory)
+    {
+        this(directory, false);
+    }
+
+    public OffHeapTempTableCache(Path directory, boolean enableJmx)
+    {
+        super(CacheType.TEMPTABLE, "", enableJmx, false, OffHeapTempTableCache::estimateSize);
+        this.directory = directory;
+        if (directory != null)
+        {
+            try
+            {
+                Files.createDirectories(directory);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalArgumentException("Cannot create cache directory: " + directory, e);
+            }
+            load();
+        }
+    }
+
+    @Override
+    public TemporaryTable computIfAbsent(QualifiedName name, Duration ttl, Supplier<TemporaryTable> supplier)
+    {
+        CacheImpl<TemporaryTable> entry = getCacheOrCreate(name);
+        return entry.computeIfAbsent(name, ttl, () -> store(name, ttl, supplier.get()));
+    }
+
+    @Override
+    protected void onRemoval(TemporaryTable value)
+    {
+        if (value instanceof OffHeapTable table
+                && table.file != null)
+        {
+            try
+            {
+                // NOTE! The file is still readable by queries using the table until the mapping is collected
+                Files.deleteIfExists(table.file);
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("Could not delete cached temporary table file: {}", table.file, e);
+            }
+        }
+    }
+
+    /** Store provided table off heap. Returns the stored table */
+    private TemporaryTable store(QualifiedName name, Duration ttl, TemporaryTable table)
+    {
+        TupleVector vector = table.getTupleVector();
+        byte[] bytes;
+        try
+        {
+            bytes = PayloadWriter.write(ValueVector.literalTable(VectorUtils.resolveAnyColumns(vector), 1));
+        }
+        catch (IllegalArgumentException e)
+        {
+            LOGGER.debug("Cannot write temporary table: {} off heap, keeping it on heap", name, e);
+            return table;
+        }
+
+        if (directory == null)
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes)
+                    .flip();
+            return new OffHeapTable(PayloadReader.readTupleVector(buffer, vector.getSchema(), false), table.getIndices(), bytes.length, null);
+        }
+
+        long expireTime = ttl != null ? System.currentTimeMillis() + ttl.toMillis()
+                : -1;
+        Path file = directory.resolve(UUID.randomUUID() + FILE_SUFFIX);
+        try
+        {
+            write(file, name, expireTime, vector.getSchema(), table.getIndices(), bytes);
+            return read(file, vector.getSchema()).table;
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Cannot write temporary table: {} to file: {}, keeping it on heap", name, file, e);
+            deleteQuietly(file);
+            return table;
+        }
+    }
+
+    /** Load all tables in directory */
+    private void load()
+    {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory))
+        {
+            files = stream.filter(p -> p.getFileName()
+                    .toString()
+                    .endsWith(FILE_SUFFIX))
+                    .sorted(Comparator.comparingLong(OffHeapTempTableCache::lastModified))
+                    .toList();
+        }
+        catch (IOException e)
+        {
+            throw new IllegalArgumentException("Cannot list cache directory: " + directory, e);
+        }
+
+        long now = System.currentTimeMillis();
+        for (Path file : files)
+        {
+            StoredTable stored;
+            try
+            {
+                stored = read(file, null);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                LOGGER.warn("Cannot read cached temporary table file: {}, deleting it", file, e);
+                deleteQuietly(file);
+                continue;
+            }
+
+            Duration ttl = null;
+            if (stored.expireTime >= 0)
+            {
+                if (stored.expireTime <= now)
+                {
+                    deleteQuietly(file);
+                    continue;
+                }
+                ttl = Duration.ofMillis(stored.expireTime - now);
+            }
+            // Files are loaded in order of modification so a newer file of the same table replaces (and deletes) older ones
+            getCacheOrCreate(stored.name).put(stored.name, stored.table, ttl);
+        }
+    }
+
+    /**
+     * <pre>
+     * File format:
+     * - magic (int)
+     * - version (int)
+     * - cache name (strings)
+     * - expire time in epoch millis, -1 if no expire (long)
+     * - column names (strings)
+     * - index count (int)
+     *   - table (strings)
+     *   - columns (strings)
+     *   - columns type (string)
+     *   - index types (strings)
+     * - payload length (int)
+     * - payload (payloadbuilder-bytes)
+     *
+     * strings: count (int) followed by each string
+     * string: length (int) followed by utf-8 bytes
+     * </pre>
+     */
+    private static void write(Path file, QualifiedName name, long expireTime, Schema schema, List<Index> indices, byte[] payload) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeStrings(out, name.getParts());
+        out.writeLong(expireTime);
+        writeStrings(out, schema.getColumns()
+                .stream()
+                .map(Column::getName)
+                .toList());
+        out.writeInt(indices.size());
+        for (Index index : indices)
+        {
+            writeStrings(out, index.getTable()
+                    .getParts());
+            writeStrings(out, index.getColumns());
+            writeString(out, index.getColumnsType()
+                    .name());
+            List<String> indexTypes = new ArrayList<>();
+            for (IndexType indexType : IndexType.values())
+            {
+                if (index.supports(indexType))
+                {
+                    indexTypes.add(indexType.name());
+                }
+            }
+            writeStrings(out, indexTypes);
+        }
+        out.writeInt(payload.length);
+        out.flush();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            ByteBuffer header = ByteBuffer.wrap(bos.toByteArray());
+            while (header.hasRemaining())
+            {
+                channel.write(header);
+            }
+            ByteBuffer data = ByteBuffer.wrap(payload);
+            while (data.hasRemaining())
+            {
+                channel.write(data);
+            }
+        }
+    }
+
+    /** Read table from file. If schema is null then the schema is created from the stored column names and the payloads types */
+    private static StoredTable read(Path file, Schema schema) throws IOException
+    {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            // The mapping is valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != MAGIC)
+        {
+            throw new IllegalArgumentException("Not a cached temporary table file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION)
+        {
+            throw new IllegalArgumentException("Unsupported version of cached temporary table file: " + version);
+        }
+        QualifiedName name = new QualifiedName(readStrings(buffer));
+        long expireTime = buffer.getLong();
+        List<String> columnNames = readStrings(buffer);
+        int indexCount = buffer.getInt();
+        List<Index> indices = new ArrayList<>(indexCount);
+        for (int i = 0; i < indexCount; i++)
+        {
+            QualifiedName table = new QualifiedName(readStrings(buffer));
+            List<String> columns = readStrings(buffer);
+            ColumnsType columnsType = ColumnsType.valueOf(readString(buffer));
+            Set<IndexType> indexTypes = new HashSet<>();
+            for (String indexType : readStrings(buffer))
+            {
+                indexTypes.add(IndexType.valueOf(indexType));
+            }
+            indices.add(new Index(table, columns, columnsType, indexTypes));
+        }
+        int length = buffer.getInt();
+        ByteBuffer payload = buffer.slice(buffer.position(), length);
+
+        if (schema == null)
+        {
+            // The payload doesn't contain column names, read the types and combine them with the stored names
+            Schema payloadSchema = PayloadReader.readTupleVector(payload, Schema.EMPTY, false)
+                    .getSchema();
+            List<Column> columns = new ArrayList<>(columnNames.size());
+            for (int i = 0; i < columnNames.size(); i++)
+            {
+                columns.add(new Column(columnNames.get(i), payloadSchema.getColumns()
+                        .get(i)
+                        .getType()));
+            }
+            schema = new Schema(columns);
+        }
+
+        TupleVector vector = PayloadReader.readTupleVector(payload, schema, false);
+        return new StoredTable(name, expireTime, new OffHeapTable(vector, indices, length, file));
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException
+    {
+        out.writeInt(strings.size());
+        for (String string : strings)
+        {
+            writeString(out, string);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer)
+    {
+        int count = buffer.getInt();
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            result.add(readString(buffer));
+        }
+        return result;
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long lastModified(Path file)
+    {
+        try
+        {
+            return Files.getLastModifiedTime(file)
+                    .toMillis();
+        }
+        catch (IOException e)
+        {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Could not delete cached temporary table file: {}", file, e);
+        }
+    }
+
+    /** Estimate size of table. Off heap tables are weighed by their payload size */
+    private static long estimateSize(TemporaryTable table)
+    {
+        if (table instanceof OffHeapTable offHeapTable)
+        {
+            return offHeapTable.size;
+        }
+        return VectorUtils.estimateSize(table.getTupleVector());
+    }
+
+    /** A table read from file */
+    private record StoredTable(QualifiedName name, long expireTime, OffHeapTable table)
+    {
+    }
+
+    /** Temporary table that reads it's data from an off heap buffer */
+    static class OffHeapTable extends TemporaryTable
+    {
+        /** Size in bytes of the payload */
+        final long size;
+        /** The memory mapped file. Null if the table is stored in a direct buffer */
+        final Path file;
+
+        OffHeapTable(TupleVector vector, List<Index> indices, long size, Path file)
+        {
+            super(vector, indices);
+            this.size = size;
+            this.file = file;
+        }
+    }
+}
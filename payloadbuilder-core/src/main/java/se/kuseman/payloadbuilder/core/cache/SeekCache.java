@@ -0,0 +1,29 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+import java.time.Duration;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+
+/** Cache provider for index seek results. Stores the rows that a data source returned per seek key */
+public interface SeekCache extends CacheProvider
+{
+    /**
+     * Return cached rows for provided seek key
+     *
+     * @param name Name of cache
+     * @param key Seek key
+     * @return Cached rows or null if the key is not cached or has expired. An empty vector is returned if the data source had no rows for the key
+     */
+    TupleVector get(QualifiedName name, Object key);
+
+    /**
+     * Put rows for provided seek key
+     *
+     * @param name Name of cache
+     * @param key Seek key
+     * @param rows Rows for key
+     * @param ttl TTL Duration for cache entry. NULL if no TTL
+     */
+    void put(QualifiedName name, Object key, TupleVector rows, Duration ttl);
+}
@@ -268,11 +268,96 @@ public Decimal getDecimal(int row)
                 @Override
                 public Object getAny(int row)
                 {
-                    return objectResult.get(row);
+                    if (objectResult != null)
+                    {
+                        return objectResult.get(row);
+                    }
+                    // Primitive result, happens when this vector is copied into a vector of type Any
+                    return valueAsObject(row);
                 }
             };
         }
 
+        @Override
+        public boolean supportsMerge()
+        {
+            return true;
+        }
+
+        @Override
+        public void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+        {
+            BaseAggregator that = (BaseAggregator) partial;
+            int groupCount = groupIds.size();
+            for (int i = 0; i < groupCount; i++)
+            {
+                size = Math.max(size, groupIds.getInt(i) + 1);
+            }
+
+            // Nothing appended to partial
+            if (that.resultType == null)
+            {
+                return;
+            }
+            // Result type is determined by the first input like when appending
+            if (resultType == null)
+            {
+                resultType = that.resultType;
+            }
+
+            for (int i = 0; i < groupCount; i++)
+            {
+                int partialGroupId = partialGroupIds.getInt(i);
+                ValueVector value = that.getGroupValue(partialGroupId);
+                if (value != null)
+                {
+                    mergeGroup(that, partialGroupId, value, groupIds.getInt(i), context);
+                }
+            }
+        }
+
+        /** Merge a partial groups aggregated value into provided group. Appends the partial value as a single row */
+        protected void mergeGroup(BaseAggregator partial, int partialGroupId, ValueVector value, int group, IExecutionContext context)
+        {
+            append(value, group, context);
+        }
+
+        /** Return the aggregated value of provided group as a single row vector. Returns null if the group has no value */
+        private ValueVector getGroupValue(int groupId)
+        {
+            switch (resultType)
+            {
+                case Int:
+                case Long:
+                case Float:
+                case Double:
+                    if (valueSetBitSet == null
+                            || !valueSetBitSet.get(groupId))
+                    {
+                        return null;
+                    }
+                    break;
+                default:
+                    if (objectResult == null
+                            || groupId >= objectResult.size()
+                            || objectResult.get(groupId) == null)
+                    {
+                        return null;
+                    }
+                    break;
+            }
+
+            return switch (resultType)
+            {
+                case Int -> ValueVector.literalInt(intResult.getInt(groupId), 1);
+                case Long -> ValueVector.literalLong(longResult.getLong(groupId), 1);
+                case Float -> ValueVector.literalFloat(floatResult.getFloat(groupId), 1);
+                case Double -> ValueVector.literalDouble(doubleResult.getDouble(groupId), 1);
+                case Decimal -> ValueVector.literalDecimal((Decimal) objectResult.get(groupId), 1);
+                default -> ValueVector.literalAny(1, objectResult.get(groupId));
+            };
+        }
+
         private void setValueBit(int groupId)
         {
             if (valueSetBitSet == null)
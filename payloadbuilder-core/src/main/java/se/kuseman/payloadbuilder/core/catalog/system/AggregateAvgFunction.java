@@ -6,6 +6,7 @@
 import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression.Type;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.execution.ExpressionMath;
+import se.kuseman.payloadbuilder.core.execution.vector.SimdKernels;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
@@ -46,50 +47,75 @@ protected void append(ValueVector groupResult, int group, IExecutionContext cont
             boolean allNull = true;
             int rowCount = 0;
             int count = groupResult.size();
-            for (int i = 0; i < count; i++)
+            // Vectors without nulls that are backed by an array are summed with SIMD
+            if (count > 0
+                    && SimdKernels.supports(groupResult, resultType))
             {
-                if (groupResult.isNull(i))
-                {
-                    continue;
-                }
                 allNull = false;
-                rowCount++;
+                rowCount = count;
                 switch (resultType)
                 {
                     case Int:
-                        intSum = Math.addExact(intSum, groupResult.getInt(i));
+                        intSum = SimdKernels.sumInt(groupResult);
                         break;
                     case Long:
-                        longSum = Math.addExact(longSum, groupResult.getLong(i));
+                        longSum = SimdKernels.sumLong(groupResult);
                         break;
                     case Float:
-                        floatSum += groupResult.getFloat(i);
-                        break;
-                    case Double:
-                        doubleSum += groupResult.getDouble(i);
-                        break;
-                    case Decimal:
-                        if (decimalSum == null)
-                        {
-                            decimalSum = groupResult.getDecimal(i);
-                        }
-                        else
-                        {
-                            decimalSum = decimalSum.processArithmetic(groupResult.getDecimal(i), Type.ADD);
-                        }
+                        floatSum = SimdKernels.sumFloat(groupResult);
                         break;
                     default:
-                        if (anySum == null)
-                        {
-                            anySum = groupResult.getAny(i);
-                        }
-                        else
-                        {
-                            anySum = ExpressionMath.add(anySum, groupResult.getAny(i));
-                        }
+                        doubleSum = SimdKernels.sumDouble(groupResult);
                         break;
                 }
             }
+            else
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    if (groupResult.isNull(i))
+                    {
+                        continue;
+                    }
+                    allNull = false;
+                    rowCount++;
+                    switch (resultType)
+                    {
+                        case Int:
+                            intSum = Math.addExact(intSum, groupResult.getInt(i));
+                            break;
+                        case Long:
+                            longSum = Math.addExact(longSum, groupResult.getLong(i));
+                            break;
+                        case Float:
+                            floatSum += groupResult.getFloat(i);
+                            break;
+                        case Double:
+                            doubleSum += groupResult.getDouble(i);
+                            break;
+                        case Decimal:
+                            if (decimalSum == null)
+                            {
+                                decimalSum = groupResult.getDecimal(i);
+                            }
+                            else
+                            {
+                                decimalSum = decimalSum.processArithmetic(groupResult.getDecimal(i), Type.ADD);
+                            }
+                            break;
+                        default:
+                            if (anySum == null)
+                            {
+                                anySum = groupResult.getAny(i);
+                            }
+                            else
+                            {
+                                anySum = ExpressionMath.add(anySum, groupResult.getAny(i));
+                            }
+                            break;
+                    }
+                }
+            }
 
             if (allNull)
             {
@@ -142,6 +168,14 @@ protected void append(ValueVector groupResult, int group, IExecutionContext cont
             }
         }
 
+        @Override
+        protected void mergeGroup(BaseAggregator partial, int partialGroupId, ValueVector value, int group, IExecutionContext context)
+        {
+            // The partial sum is appended as a single value, adjust the count with the partial groups count
+            super.mergeGroup(partial, partialGroupId, value, group, context);
+            counts.set(group, counts.getInt(group) - 1 + ((AvgAggregator) partial).counts.getInt(partialGroupId));
+        }
+
         @Override
         public ValueVector combine(IExecutionContext context)
         {
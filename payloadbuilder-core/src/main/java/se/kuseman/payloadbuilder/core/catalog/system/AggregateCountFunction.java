@@ -130,6 +130,28 @@ public void appendGroup(TupleVector input, ValueVector groupIds, ValueVector sel
             }
         }
 
+        @Override
+        public boolean supportsMerge()
+        {
+            return true;
+        }
+
+        @Override
+        public void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+        {
+            IntList partialResult = ((CountAggregator) partial).result;
+            int groupCount = groupIds.size();
+            for (int i = 0; i < groupCount; i++)
+            {
+                int groupId = groupIds.getInt(i);
+                int partialGroupId = partialGroupIds.getInt(i);
+                result.size(Math.max(result.size(), groupId + 1));
+                int count = partialGroupId < partialResult.size() ? partialResult.getInt(partialGroupId)
+                        : 0;
+                result.set(groupId, count + result.getInt(groupId));
+            }
+        }
+
         @Override
         public ValueVector combine(IExecutionContext context)
         {
@@ -14,6 +14,7 @@
 import se.kuseman.payloadbuilder.api.expression.IAggregator;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+import se.kuseman.payloadbuilder.core.execution.vector.SimdKernels;
 
 /** Min aggregate. Return the min value among values */
 class AggregateMinMaxFunction extends ScalarFunctionInfo
@@ -151,6 +152,41 @@ public void appendGroup(TupleVector input, ValueVector groupIds, ValueVector sel
             }
         }
 
+        @Override
+        public boolean supportsMerge()
+        {
+            return true;
+        }
+
+        @Override
+        public void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+        {
+            MutableValueVector partialMinMaxRow = ((MinMaxAggregator) partial).minMaxRow;
+            int groupCount = groupIds.size();
+            if (minMaxRow == null)
+            {
+                minMaxRow = context.getVectorFactory()
+                        .getMutableVector(ResolvedType.of(Type.Any), groupCount);
+            }
+            for (int i = 0; i < groupCount; i++)
+            {
+                int groupId = groupIds.getInt(i);
+                int partialGroupId = partialGroupIds.getInt(i);
+                if (minMaxRow.size() <= groupId)
+                {
+                    minMaxRow.setNull(groupId);
+                }
+                // The partial state is a single row vector with the partial min/max
+                ValueVector partialRow = partialMinMaxRow != null
+                        && partialGroupId < partialMinMaxRow.size() ? (ValueVector) partialMinMaxRow.getAny(partialGroupId)
+                                : null;
+                if (partialRow != null)
+                {
+                    setMinMaxRow(partialRow, groupId, context.getVectorFactory());
+                }
+            }
+        }
+
         @Override
         public ValueVector combine(IExecutionContext context)
         {
@@ -173,8 +209,9 @@ public ValueVector combine(IExecutionContext context)
         }
 
         /** Compares provided batch and sets min/max in stage */
-        private void setMinMaxRow(ValueVector vector, int group, IVectorFactory vectorFactory)
+        private void setMinMaxRow(ValueVector groupVector, int group, IVectorFactory vectorFactory)
         {
+            ValueVector vector = reduceSimd(groupVector);
             int groupSize = vector.size();
 
             boolean hasNulls = vector.hasNulls();
@@ -238,6 +275,21 @@ else if (!prevNull)
                 }
             }
         }
+
+        /** Reduce an int or long vector without nulls that is backed by an array to a single row with the min/max value using SIMD */
+        private ValueVector reduceSimd(ValueVector vector)
+        {
+            Type type = resolvedType.getType();
+            if (vector.size() <= 1
+                    || (type != Type.Int
+                            && type != Type.Long)
+                    || !SimdKernels.supports(vector, type))
+            {
+                return vector;
+            }
+            return type == Type.Int ? ValueVector.literalInt(SimdKernels.minMaxInt(vector, min), 1)
+                    : ValueVector.literalLong(SimdKernels.minMaxLong(vector, min), 1);
+        }
     }
 
     @Override
@@ -6,6 +6,7 @@
 import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression.Type;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.execution.ExpressionMath;
+import se.kuseman.payloadbuilder.core.execution.vector.SimdKernels;
 
 /** Sum aggregate. Sum all non null inputs */
 class AggregateSumFunction extends ANumericAggregateFunction
@@ -40,50 +41,74 @@ protected void append(ValueVector groupResult, int group, IExecutionContext cont
 
             boolean allNull = true;
             int count = groupResult.size();
-            for (int i = 0; i < count; i++)
+            // Vectors without nulls that are backed by an array are summed with SIMD
+            if (count > 0
+                    && SimdKernels.supports(groupResult, resultType))
             {
-                if (groupResult.isNull(i))
-                {
-                    continue;
-                }
                 allNull = false;
-
                 switch (resultType)
                 {
                     case Int:
-                        intSum = Math.addExact(intSum, groupResult.getInt(i));
+                        intSum = SimdKernels.sumInt(groupResult);
                         break;
                     case Long:
-                        longSum = Math.addExact(longSum, groupResult.getLong(i));
+                        longSum = SimdKernels.sumLong(groupResult);
                         break;
                     case Float:
-                        floatSum += groupResult.getFloat(i);
-                        break;
-                    case Double:
-                        doubleSum += groupResult.getDouble(i);
-                        break;
-                    case Decimal:
-                        if (decimalSum == null)
-                        {
-                            decimalSum = groupResult.getDecimal(i);
-                        }
-                        else
-                        {
-                            decimalSum = decimalSum.processArithmetic(groupResult.getDecimal(i), Type.ADD);
-                        }
+                        floatSum = SimdKernels.sumFloat(groupResult);
                         break;
                     default:
-                        if (anySum == null)
-                        {
-                            anySum = groupResult.getAny(i);
-                        }
-                        else
-                        {
-                            anySum = ExpressionMath.add(anySum, groupResult.getAny(i));
-                        }
+                        doubleSum = SimdKernels.sumDouble(groupResult);
                         break;
                 }
             }
+            else
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    if (groupResult.isNull(i))
+                    {
+                        continue;
+                    }
+                    allNull = false;
+
+                    switch (resultType)
+                    {
+                        case Int:
+                            intSum = Math.addExact(intSum, groupResult.getInt(i));
+                            break;
+                        case Long:
+                            longSum = Math.addExact(longSum, groupResult.getLong(i));
+                            break;
+                        case Float:
+                            floatSum += groupResult.getFloat(i);
+                            break;
+                        case Double:
+                            doubleSum += groupResult.getDouble(i);
+                            break;
+                        case Decimal:
+                            if (decimalSum == null)
+                            {
+                                decimalSum = groupResult.getDecimal(i);
+                            }
+                            else
+                            {
+                                decimalSum = decimalSum.processArithmetic(groupResult.getDecimal(i), Type.ADD);
+                            }
+                            break;
+                        default:
+                            if (anySum == null)
+                            {
+                                anySum = groupResult.getAny(i);
+                            }
+                            else
+                            {
+                                anySum = ExpressionMath.add(anySum, groupResult.getAny(i));
+                            }
+                            break;
+                    }
+                }
+            }
 
             if (allNull)
             {
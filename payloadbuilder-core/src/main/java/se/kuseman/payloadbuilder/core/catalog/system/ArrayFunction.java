@@ -143,6 +143,48 @@ public void appendGroup(TupleVector input, ValueVector groupIds, ValueVector sel
             }
         }
 
+        @Override
+        public boolean supportsMerge()
+        {
+            return true;
+        }
+
+        @Override
+        public void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+        {
+            ObjectList<MutableValueVector> partialGroupVectors = ((ArrayAggregator) partial).groupVectors;
+            int groupCount = groupIds.size();
+            if (groupVectors == null)
+            {
+                groupVectors = new ObjectArrayList<>(groupCount + 1);
+            }
+
+            for (int i = 0; i < groupCount; i++)
+            {
+                int groupId = groupIds.getInt(i);
+                int partialGroupId = partialGroupIds.getInt(i);
+                groupVectors.size(Math.max(groupVectors.size(), groupId + 1));
+
+                MutableValueVector partialVector = partialGroupVectors != null
+                        && partialGroupId < partialGroupVectors.size() ? partialGroupVectors.get(partialGroupId)
+                                : null;
+                if (partialVector == null)
+                {
+                    continue;
+                }
+
+                MutableValueVector vector = groupVectors.get(groupId);
+                if (vector == null)
+                {
+                    groupVectors.set(groupId, partialVector);
+                }
+                else
+                {
+                    vector.copy(vector.size(), partialVector);
+                }
+            }
+        }
+
         @Override
         public ValueVector combine(IExecutionContext context)
         {
@@ -146,6 +146,52 @@ public void appendGroup(TupleVector input, ValueVector groupIds, ValueVector sel
             }
         }
 
+        @Override
+        public boolean supportsMerge()
+        {
+            return true;
+        }
+
+        @Override
+        public void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+        {
+            ObjectList<List<MutableValueVector>> partialGroupVectors = ((ObjectAggregator) partial).groupVectors;
+            int groupCount = groupIds.size();
+            if (groupVectors == null)
+            {
+                groupVectors = new ObjectArrayList<>(groupCount + 1);
+            }
+
+            for (int i = 0; i < groupCount; i++)
+            {
+                int groupId = groupIds.getInt(i);
+                int partialGroupId = partialGroupIds.getInt(i);
+                groupVectors.size(Math.max(groupVectors.size(), groupId + 1));
+
+                List<MutableValueVector> partialVectors = partialGroupVectors != null
+                        && partialGroupId < partialGroupVectors.size() ? partialGroupVectors.get(partialGroupId)
+                                : null;
+                if (partialVectors == null)
+                {
+                    continue;
+                }
+
+                List<MutableValueVector> vectors = groupVectors.get(groupId);
+                if (vectors == null)
+                {
+                    groupVectors.set(groupId, partialVectors);
+                    continue;
+                }
+
+                int size = vectors.size();
+                for (int j = 0; j < size; j++)
+                {
+                    MutableValueVector vector = vectors.get(j);
+                    vector.copy(vector.size(), partialVectors.get(j));
+                }
+            }
+        }
+
         @Override
         public ValueVector combine(IExecutionContext context)
         {
@@ -330,5 +330,16 @@ static class CsvNodeData extends NodeData
     {
         long totalBytes;
         long totalMillis;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof CsvNodeData data)
+            {
+                totalBytes += data.totalBytes;
+                totalMillis += data.totalMillis;
+            }
+        }
     }
 }
@@ -10,9 +10,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.tuple.Pair;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonPointer;
@@ -30,6 +30,11 @@
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.common.SchemaUtils;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 
 /** TVF for opening a json argument and transform into a {@link TupleIterator} */
 class OpenJsonFunction extends TableFunctionInfo
@@ -47,27 +52,6 @@ public Arity arity()
         return Arity.ONE;
     }
 
-    private Pair<Closeable, JsonParser> getParser(ValueVector value) throws IOException
-    {
-        if (value.type()
-                .getType() == Type.Any)
-        {
-            // See if we have a wrapped reader/inputstram. Some catalogs can wrap a lazy reader for a file etc.
-            Object obj = value.getAny(0);
-            if (obj instanceof Reader r)
-            {
-                return Pair.of(r, IsJsonFunction.MAPPER.createParser(r));
-            }
-            else if (obj instanceof InputStream is)
-            {
-                // Jackson determines encoding based on BOM
-                return Pair.of(is, IsJsonFunction.MAPPER.createParser(is));
-            }
-        }
-
-        return Pair.of(null, IsJsonFunction.MAPPER.createParser(value.valueAsString(0)));
-    }
-
     @Override
     public TupleIterator execute(IExecutionContext context, String catalogAlias, List<IExpression> arguments, FunctionData data)
     {
@@ -79,21 +63,12 @@ public TupleIterator execute(IExecutionContext context, String catalogAlias, Lis
             return TupleIterator.EMPTY;
         }
 
-        ValueVector option = context.getOption(JSONPATH, data.getOptions());
-        JsonPointer pathPointer = option != null
-                && !option.isNull(0)
-                        ? JsonPointer.compile(option.getString(0)
-                                .toString())
-                        : null;
-
+        JsonPointer pathPointer = getPathPointer(context, data);
         int batchSize = context.getBatchSize(data.getOptions());
 
         try
         {
-            Pair<Closeable, JsonParser> pair = getParser(value);
-            Closeable closable = pair.getKey();
-            JsonParser parser = pair.getValue();
-            return iterate(context, closable, parser, batchSize, pathPointer);
+            return iterate(context, new JsonReader(value, 0, pathPointer), batchSize);
         }
         catch (IOException e)
         {
@@ -101,14 +76,27 @@ public TupleIterator execute(IExecutionContext context, String catalogAlias, Lis
         }
     }
 
-    private TupleIterator iterate(IExecutionContext context, Closeable closable, JsonParser parser, int batchSize, JsonPointer pathPointer)
+    @Override
+    public boolean isBatchSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public TupleIterator executeBatch(IExecutionContext context, String catalogAlias, List<IExpression> arguments, FunctionData data, TupleVector input)
     {
+        final ValueVector value = arguments.get(0)
+                .eval(input, context);
+        final JsonPointer pathPointer = getPathPointer(context, data);
+        final int batchSize = context.getBatchSize(data.getOptions());
+        final int rowCount = input.getRowCount();
+
         return new TupleIterator()
         {
+            /** Current input row */
+            int row = -1;
+            JsonReader reader;
             TupleVector next;
-            boolean pathFound = pathPointer == null;
-            boolean insideArray = false;
-            boolean endFound = false;
             volatile boolean abort = false;
 
             Runnable abortListener = () ->
@@ -138,7 +126,10 @@ public void close()
             {
                 context.getSession()
                         .unregisterAbortListener(abortListener);
-                IOUtils.closeQuietly(closable, parser);
+                if (reader != null)
+                {
+                    reader.close();
+                }
             }
 
             @Override
@@ -148,10 +139,6 @@ public boolean hasNext()
                 {
                     return true;
                 }
-                else if (endFound)
-                {
-                    return false;
-                }
 
                 try
                 {
@@ -163,200 +150,382 @@ else if (endFound)
                 }
             }
 
-            @SuppressWarnings("unchecked")
             private boolean setNext() throws IOException
             {
-                // First stream until we find path pointer
-                if (!pathFound)
+                List<Object> batch = new ArrayList<>(batchSize);
+                IntList rowIds = new IntArrayList(batchSize);
+                while (batch.size() < batchSize)
                 {
-                    while (!pathFound
-                            && parser.nextToken() != null)
+                    if (abort)
                     {
-                        if (abort)
+                        return false;
+                    }
+
+                    if (reader == null)
+                    {
+                        row++;
+                        if (row >= rowCount)
                         {
-                            return false;
+                            break;
                         }
-
-                        // We only support pointers to objects/arrays
-                        boolean isNestedStart = parser.isExpectedStartArrayToken()
-                                || parser.isExpectedStartObjectToken();
-                        if (isNestedStart)
+                        else if (value.isNull(row))
                         {
-                            JsonPointer currentPath = JsonPointer.forPath(parser.getParsingContext(), false);
-                            pathFound = pathPointer.equals(currentPath);
-                            // pathToken = parser.currentToken();
-
-                            // Mark that we are inside an array because this token will be lost otherwise
-                            if (pathFound
-                                    && parser.isExpectedStartArrayToken())
-                            {
-                                insideArray = true;
-                                // Move the parse into the first array item
-                                parser.nextToken();
-                            }
+                            continue;
                         }
+                        reader = new JsonReader(value, row, pathPointer);
                     }
 
-                    // No path found => we're done
-                    if (!pathFound)
+                    int size = batch.size();
+                    boolean more = reader.read(batch, batchSize, () -> abort);
+                    for (int i = size; i < batch.size(); i++)
                     {
-                        return false;
+                        rowIds.add(row);
+                    }
+                    if (!more)
+                    {
+                        reader.close();
+                        reader = null;
                     }
                 }
 
-                //@formatter:off
-                /*
-                 * Object Input:
-                 * {
-                 *   "key": 123,
-                 *   "key2": 456
-                 * }
-                 *
-                 * Result
-                 * key   key2
-                 * 123   456
-                 *
-                 * Array object input:
-                 * [
-                 * {
-                 *   "key": 123,
-                 *   "key2": 456
-                 * },
-                 * {
-                 *   "key": 1230,
-                 *   "key2": 4560
-                 * }
-                 * ]
-                 *
-                 * Result
-                 * key   key2
-                 * 123   456
-                 * 1230  4560
-                 *
-                 * Array scalar input
-                 * [
-                 *   1,
-                 *   2,
-                 *   [],
-                 *   {}
-                 * ]
-                 *
-                 * Result
-                 *
-                 * value
-                 * 1,
-                 * 2,
-                 * [],
-                 * {}
-                 *
-                 */
-                //@formatter:on
-
-                // Start the parser
-                if (parser.currentToken() == null)
+                if (batch.isEmpty())
                 {
-                    parser.nextToken();
-                    if (parser.currentToken() == null)
-                    {
-                        endFound = true;
-                        return false;
-                    }
+                    return false;
                 }
 
-                boolean allMaps = true;
-                List<Object> batch = null;
+                next = createVector(batch, rowIds);
+                return true;
+            }
+        };
+    }
+
+    private JsonPointer getPathPointer(IExecutionContext context, FunctionData data)
+    {
+        ValueVector option = context.getOption(JSONPATH, data.getOptions());
+        return option != null
+                && !option.isNull(0)
+                        ? JsonPointer.compile(option.getString(0)
+                                .toString())
+                        : null;
+    }
+
+    private TupleIterator iterate(IExecutionContext context, JsonReader reader, int batchSize)
+    {
+        return new TupleIterator()
+        {
+            TupleVector next;
+            volatile boolean abort = false;
 
-                do
+            Runnable abortListener = () ->
+            {
+                abort = true;
+            };
+
+            {
+                context.getSession()
+                        .registerAbortListener(abortListener);
+            }
+
+            @Override
+            public TupleVector next()
+            {
+                if (next == null)
                 {
-                    if (abort)
-                    {
-                        return false;
-                    }
+                    throw new NoSuchElementException();
+                }
+                TupleVector next = this.next;
+                this.next = null;
+                return next;
+            }
 
-                    JsonToken currentToken = parser.currentToken();
+            @Override
+            public void close()
+            {
+                context.getSession()
+                        .unregisterAbortListener(abortListener);
+                reader.close();
+            }
 
-                    // If we have an end object then we're done
-                    // happens if we have a pointer in the middle of a json string
-                    // and we have read one object and then end up with the parents end object
-                    if (currentToken == JsonToken.END_OBJECT)
-                    {
-                        endFound = true;
-                        break;
-                    }
+            @Override
+            public boolean hasNext()
+            {
+                if (next != null)
+                {
+                    return true;
+                }
 
-                    if (!insideArray
-                            && currentToken == JsonToken.START_ARRAY)
-                    {
-                        insideArray = true;
-                        continue;
-                    }
-                    // We are done, we reached the end of the top array
-                    else if (insideArray
-                            && currentToken == JsonToken.END_ARRAY)
-                    {
-                        endFound = true;
-                        break;
-                    }
+                try
+                {
+                    return setNext();
+                }
+                catch (IOException e)
+                {
+                    throw new IllegalArgumentException("Error reading JSON", e);
+                }
+            }
+
+            private boolean setNext() throws IOException
+            {
+                List<Object> batch = new ArrayList<>(batchSize);
+                reader.read(batch, batchSize, () -> abort);
+                if (batch.isEmpty())
+                {
+                    return false;
+                }
+                next = createVector(batch, null);
+                return true;
+            }
+        };
+    }
+
+    /** Create a tuple vector of provided batch. If row ids are provided a trailing row id column is added */
+    @SuppressWarnings("unchecked")
+    private static TupleVector createVector(List<Object> batch, IntList rowIds)
+    {
+        final boolean maps = batch.stream()
+                .allMatch(Map.class::isInstance);
+        final List<String> columns;
+        if (maps)
+        {
+            columns = batch.stream()
+                    .map(m -> (Map<String, Object>) m)
+                    .flatMap(m -> m.keySet()
+                            .stream())
+                    .distinct()
+                    .collect(toList());
+        }
+        else
+        {
+            columns = List.of("Value");
+        }
+
+        final Schema schema = new Schema(columns.stream()
+                .map(c -> new Column(c, ResolvedType.of(Type.Any)))
+                .toList());
+
+        TupleVector vector = new ObjectTupleVector(schema, batch.size(), (row, col) ->
+        {
+            Object rowValue = batch.get(row);
+
+            if (maps)
+            {
+                String columnName = columns.get(col);
+                return ((Map<String, Object>) rowValue).get(columnName);
+            }
+
+            return rowValue;
+        });
+
+        if (rowIds == null)
+        {
+            return vector;
+        }
+
+        int size = columns.size();
+        List<ValueVector> vectors = new ArrayList<>(size + 1);
+        for (int i = 0; i < size; i++)
+        {
+            vectors.add(vector.getColumn(i));
+        }
+        vectors.add(VectorUtils.convertToSelectionVector(rowIds));
+        return TupleVector.of(SchemaUtils.joinSchema(schema, Schema.of(ROW_ID_COLUMN)), vectors);
+    }
+
+    /** Reader that streams values from a JSON value */
+    private static class JsonReader
+    {
+        private final Closeable closable;
+        private final JsonParser parser;
+        private final JsonPointer pathPointer;
+        private boolean pathFound;
+        private boolean insideArray = false;
+        private boolean endFound = false;
+
+        JsonReader(ValueVector value, int row, JsonPointer pathPointer) throws IOException
+        {
+            this.pathPointer = pathPointer;
+            this.pathFound = pathPointer == null;
+
+            Closeable closable = null;
+            if (value.type()
+                    .getType() == Type.Any)
+            {
+                // See if we have a wrapped reader/inputstram. Some catalogs can wrap a lazy reader for a file etc.
+                Object obj = value.getAny(row);
+                if (obj instanceof Reader r)
+                {
+                    closable = r;
+                    this.parser = IsJsonFunction.MAPPER.createParser(r);
+                }
+                else if (obj instanceof InputStream is)
+                {
+                    closable = is;
+                    // Jackson determines encoding based on BOM
+                    this.parser = IsJsonFunction.MAPPER.createParser(is);
+                }
+                else
+                {
+                    this.parser = IsJsonFunction.MAPPER.createParser(value.valueAsString(row));
+                }
+            }
+            else
+            {
+                this.parser = IsJsonFunction.MAPPER.createParser(value.valueAsString(row));
+            }
+            this.closable = closable;
+        }
+
+        void close()
+        {
+            IOUtils.closeQuietly(closable, parser);
+        }
 
-                    allMaps = allMaps
-                            && currentToken == JsonToken.START_OBJECT;
-                    // Lazy creation of batch
-                    if (batch == null)
+        /** Read values into provided batch until it reaches batch size. Returns true if there might be more values to read. */
+        boolean read(List<Object> batch, int batchSize, BooleanSupplier abort) throws IOException
+        {
+            if (endFound)
+            {
+                return false;
+            }
+
+            // First stream until we find path pointer
+            if (!pathFound)
+            {
+                while (!pathFound
+                        && parser.nextToken() != null)
+                {
+                    if (abort.getAsBoolean())
                     {
-                        batch = new ArrayList<>(batchSize);
+                        return false;
                     }
-                    batch.add(parser.readValueAs(Object.class));
 
-                    if (batch.size() >= batchSize)
+                    // We only support pointers to objects/arrays
+                    boolean isNestedStart = parser.isExpectedStartArrayToken()
+                            || parser.isExpectedStartObjectToken();
+                    if (isNestedStart)
                     {
-                        break;
+                        JsonPointer currentPath = JsonPointer.forPath(parser.getParsingContext(), false);
+                        pathFound = pathPointer.equals(currentPath);
+
+                        // Mark that we are inside an array because this token will be lost otherwise
+                        if (pathFound
+                                && parser.isExpectedStartArrayToken())
+                        {
+                            insideArray = true;
+                            // Move the parse into the first array item
+                            parser.nextToken();
+                        }
                     }
-                } while (parser.nextToken() != null);
+                }
 
-                if (batch == null)
+                // No path found => we're done
+                if (!pathFound)
                 {
                     endFound = true;
                     return false;
                 }
+            }
 
-                final boolean maps;
-                final List<String> columns;
-                if (allMaps)
+            //@formatter:off
+            /*
+             * Object Input:
+             * {
+             *   "key": 123,
+             *   "key2": 456
+             * }
+             *
+             * Result
+             * key   key2
+             * 123   456
+             *
+             * Array object input:
+             * [
+             * {
+             *   "key": 123,
+             *   "key2": 456
+             * },
+             * {
+             *   "key": 1230,
+             *   "key2": 4560
+             * }
+             * ]
+             *
+             * Result
+             * key   key2
+             * 123   456
+             * 1230  4560
+             *
+             * Array scalar input
+             * [
+             *   1,
+             *   2,
+             *   [],
+             *   {}
+             * ]
+             *
+             * Result
+             *
+             * value
+             * 1,
+             * 2,
+             * [],
+             * {}
+             *
+             */
+            //@formatter:on
+
+            // Start the parser
+            if (parser.currentToken() == null)
+            {
+                parser.nextToken();
+                if (parser.currentToken() == null)
                 {
-                    columns = batch.stream()
-                            .map(m -> (Map<String, Object>) m)
-                            .flatMap(m -> m.keySet()
-                                    .stream())
-                            .distinct()
-                            .collect(toList());
-                    maps = true;
+                    endFound = true;
+                    return false;
                 }
-                else
+            }
+
+            do
+            {
+                if (abort.getAsBoolean())
                 {
-                    columns = List.of("Value");
-                    maps = false;
+                    return false;
                 }
 
-                final List<Object> theBatch = batch;
-                final Schema schema = new Schema(columns.stream()
-                        .map(c -> new Column(c, ResolvedType.of(Type.Any)))
-                        .toList());
+                JsonToken currentToken = parser.currentToken();
 
-                next = new ObjectTupleVector(schema, batch.size(), (row, col) ->
+                // If we have an end object then we're done
+                // happens if we have a pointer in the middle of a json string
+                // and we have read one object and then end up with the parents end object
+                if (currentToken == JsonToken.END_OBJECT)
                 {
-                    Object rowValue = theBatch.get(row);
+                    endFound = true;
+                    break;
+                }
 
-                    if (maps)
-                    {
-                        String columnName = columns.get(col);
-                        return ((Map<String, Object>) rowValue).get(columnName);
-                    }
+                if (!insideArray
+                        && currentToken == JsonToken.START_ARRAY)
+                {
+                    insideArray = true;
+                    continue;
+                }
+                // We are done, we reached the end of the top array
+                else if (insideArray
+                        && currentToken == JsonToken.END_ARRAY)
+                {
+                    endFound = true;
+                    break;
+                }
 
-                    return rowValue;
-                });
+                batch.add(parser.readValueAs(Object.class));
 
-                return true;
-            }
-        };
+                if (batch.size() >= batchSize)
+                {
+                    break;
+                }
+            } while (parser.nextToken() != null);
+
+            return !endFound;
+        }
     }
 }
@@ -12,12 +12,14 @@
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 
 /** Range table valued function that emits row in range */
 class RangeFunction extends TableFunctionInfo
 {
     private static final Schema SCHEMA = Schema.of(Column.of("Value", ResolvedType.of(Type.Int)));
+    private static final Schema BATCH_SCHEMA = Schema.of(Column.of("Value", ResolvedType.of(Type.Int)), ROW_ID_COLUMN);
 
     RangeFunction()
     {
@@ -138,6 +140,113 @@ private boolean setNext()
         };
     }
 
+    @Override
+    public boolean isBatchSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public TupleIterator executeBatch(IExecutionContext context, String catalogAlias, List<IExpression> arguments, FunctionData data, TupleVector input)
+    {
+        final ValueVector from = arguments.size() <= 1 ? null
+                : arguments.get(0)
+                        .eval(input, context);
+        final ValueVector to = arguments.get(arguments.size() - 1)
+                .eval(input, context);
+        final int rowCount = input.getRowCount();
+        final int batchSize = context.getBatchSize(data.getOptions());
+
+        return new TupleIterator()
+        {
+            /** Current input row */
+            private int row = -1;
+            /** Next value to emit for current row */
+            private int value;
+            /** Stop value (exclusive) for current row */
+            private int stop;
+            private TupleVector next;
+
+            @Override
+            public TupleVector next()
+            {
+                if (next == null)
+                {
+                    throw new NoSuchElementException();
+                }
+                TupleVector result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return setNext();
+            }
+
+            private boolean setNext()
+            {
+                if (next != null)
+                {
+                    return true;
+                }
+
+                MutableValueVector values = null;
+                MutableValueVector rowIds = null;
+                int count = 0;
+                while (count < batchSize)
+                {
+                    // Move to next input row
+                    if (value >= stop)
+                    {
+                        row++;
+                        if (row >= rowCount)
+                        {
+                            break;
+                        }
+                        if (from != null
+                                && from.isNull(row))
+                        {
+                            throw new IllegalArgumentException("From argument to range cannot be null.");
+                        }
+                        else if (to.isNull(row))
+                        {
+                            throw new IllegalArgumentException("To argument to range cannot be null.");
+                        }
+                        value = from != null ? from.getInt(row)
+                                : 0;
+                        stop = to.getInt(row);
+                        continue;
+                    }
+
+                    if (values == null)
+                    {
+                        values = context.getVectorFactory()
+                                .getMutableVector(ResolvedType.of(Type.Int), batchSize);
+                        rowIds = context.getVectorFactory()
+                                .getMutableVector(ResolvedType.of(Type.Int), batchSize);
+                    }
+
+                    int length = Math.min(stop - value, batchSize - count);
+                    for (int i = 0; i < length; i++)
+                    {
+                        values.setInt(count, value++);
+                        rowIds.setInt(count, row);
+                        count++;
+                    }
+                }
+
+                if (count == 0)
+                {
+                    return false;
+                }
+                next = TupleVector.of(BATCH_SCHEMA, List.of(values, rowIds));
+                return true;
+            }
+        };
+    }
+
     private TupleVector getVector(Schema schema, int start, int stop)
     {
         int rowCount = Math.max(stop - start, 0);
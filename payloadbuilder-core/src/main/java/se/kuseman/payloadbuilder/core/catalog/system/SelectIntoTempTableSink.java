@@ -5,6 +5,7 @@
 import java.time.Duration;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -14,6 +15,7 @@
 import se.kuseman.payloadbuilder.api.catalog.IDatasink;
 import se.kuseman.payloadbuilder.api.catalog.Index;
 import se.kuseman.payloadbuilder.api.catalog.Index.ColumnsType;
+import se.kuseman.payloadbuilder.api.catalog.Index.IndexType;
 import se.kuseman.payloadbuilder.api.catalog.Option;
 import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
@@ -193,7 +195,9 @@ else if (!expression.getType()
                         columns.add(columnsVector.getString(j)
                                 .toString());
                     }
-                    indices.add(new Index(table, columns, ColumnsType.ALL));
+                    // Single column indices can be used for range seeks as well. The sorted range index is built on demand by the temporary table
+                    indices.add(new Index(table, columns, ColumnsType.ALL, columns.size() == 1 ? EnumSet.of(IndexType.SEEK_EQ, IndexType.SEEK_RANGE)
+                            : EnumSet.of(IndexType.SEEK_EQ)));
                 }
             }
             else if (qname.equalsIgnoreCase(CACHEPREFIX))
@@ -161,7 +161,7 @@ public void appendGroup(TupleVector input, ValueVector groupIds, ValueVector sel
                 int groupId = groupIds.getInt(i);
                 ValueVector selection = selections.getArray(i);
 
-                UTF8String existing = result.size() > groupId ? (UTF8String) result.valueAsObject(i)
+                UTF8String existing = result.size() > groupId ? (UTF8String) result.valueAsObject(groupId)
                         : null;
                 ValueVector array = value.eval(input, selection, context);
 
@@ -182,6 +182,62 @@ public ValueVector combine(IExecutionContext context)
         {
             return result;
         }
+
+        @Override
+        public boolean supportsMerge()
+        {
+            return true;
+        }
+
+        @Override
+        public void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+        {
+            Aggregator that = (Aggregator) partial;
+            if (delimiterString == null)
+            {
+                delimiterString = that.delimiterString;
+            }
+
+            int groupCount = groupIds.size();
+            if (result == null)
+            {
+                result = context.getVectorFactory()
+                        .getMutableVector(ResolvedType.of(Type.String), groupCount);
+            }
+
+            List<UTF8String> strings = new ArrayList<>(2);
+            for (int i = 0; i < groupCount; i++)
+            {
+                int groupId = groupIds.getInt(i);
+                int partialGroupId = partialGroupIds.getInt(i);
+
+                UTF8String existing = result.size() > groupId ? (UTF8String) result.valueAsObject(groupId)
+                        : null;
+                UTF8String partialValue = that.result != null
+                        && that.result.size() > partialGroupId ? (UTF8String) that.result.valueAsObject(partialGroupId)
+                                : null;
+
+                strings.clear();
+                if (existing != null)
+                {
+                    strings.add(existing);
+                }
+                if (partialValue != null)
+                {
+                    strings.add(partialValue);
+                }
+
+                if (strings.isEmpty())
+                {
+                    result.setNull(groupId);
+                }
+                else
+                {
+                    result.setString(groupId, strings.size() == 1 ? strings.get(0)
+                            : UTF8String.concat(delimiterString, strings));
+                }
+            }
+        }
     }
 
     /** Aggregate provided vector */
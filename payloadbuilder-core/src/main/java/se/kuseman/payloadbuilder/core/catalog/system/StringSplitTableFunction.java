@@ -23,6 +23,7 @@
 class StringSplitTableFunction extends TableFunctionInfo
 {
     private static final Schema SCHEMA = Schema.of(Column.of("Value", ResolvedType.of(Type.String)), Column.of("Ordinal", ResolvedType.of(Type.Int)));
+    private static final Schema BATCH_SCHEMA = Schema.of(Column.of("Value", ResolvedType.of(Type.String)), Column.of("Ordinal", ResolvedType.of(Type.Int)), ROW_ID_COLUMN);
 
     StringSplitTableFunction()
     {
@@ -77,4 +78,68 @@ public TupleIterator execute(IExecutionContext context, String catalogAlias, Lis
 
         return TupleIterator.singleton(TupleVector.of(SCHEMA, List.of(resultVector, ValueVector.range(0, length))));
     }
+
+    @Override
+    public boolean isBatchSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public TupleIterator executeBatch(IExecutionContext context, String catalogAlias, List<IExpression> arguments, FunctionData data, TupleVector input)
+    {
+        final ValueVector value = arguments.get(0)
+                .eval(input, context);
+        final ValueVector separator = arguments.get(1)
+                .eval(input, context);
+
+        int rowCount = input.getRowCount();
+        MutableValueVector resultVector = null;
+        MutableValueVector ordinals = null;
+        MutableValueVector rowIds = null;
+        int count = 0;
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (value.isNull(i)
+                    || separator.isNull(i))
+            {
+                continue;
+            }
+
+            String strValue = value.getString(i)
+                    .toString();
+            if (isBlank(strValue))
+            {
+                continue;
+            }
+
+            String[] parts = StringUtils.split(strValue, separator.getString(i)
+                    .toString());
+            if (resultVector == null)
+            {
+                resultVector = context.getVectorFactory()
+                        .getMutableVector(ResolvedType.of(Type.String), rowCount);
+                ordinals = context.getVectorFactory()
+                        .getMutableVector(ResolvedType.of(Type.Int), rowCount);
+                rowIds = context.getVectorFactory()
+                        .getMutableVector(ResolvedType.of(Type.Int), rowCount);
+            }
+
+            int length = parts.length;
+            for (int j = 0; j < length; j++)
+            {
+                resultVector.setString(count, UTF8String.from(parts[j]));
+                ordinals.setInt(count, j);
+                rowIds.setInt(count, i);
+                count++;
+            }
+        }
+
+        if (count == 0)
+        {
+            return TupleIterator.EMPTY;
+        }
+
+        return TupleIterator.singleton(TupleVector.of(BATCH_SCHEMA, List.of(resultVector, ordinals, rowIds)));
+    }
 }
@@ -71,7 +71,8 @@ public class SystemCatalog extends Catalog
             Column.of("misses",     ResolvedType.of(se.kuseman.payloadbuilder.api.catalog.Column.Type.Int)),
             Column.of("miss_ratio", ResolvedType.of(se.kuseman.payloadbuilder.api.catalog.Column.Type.Float)),
             Column.of("type",       ResolvedType.of(se.kuseman.payloadbuilder.api.catalog.Column.Type.String)),
-            Column.of("provider",   ResolvedType.of(se.kuseman.payloadbuilder.api.catalog.Column.Type.String)));
+            Column.of("provider",   ResolvedType.of(se.kuseman.payloadbuilder.api.catalog.Column.Type.String)),
+            Column.of("evictions",  ResolvedType.of(se.kuseman.payloadbuilder.api.catalog.Column.Type.Int)));
     
     private static final Schema CACHE_KEYS_SCHEMA = Schema.of(
             Column.of("name",        ResolvedType.of(se.kuseman.payloadbuilder.api.catalog.Column.Type.String)),
@@ -295,7 +296,7 @@ else if ("caches".equalsIgnoreCase(type))
                 vector = ctx ->
                 {
                     QuerySession querySession = (QuerySession) ctx.getSession();
-                    List<Pair<CacheProvider, Cache>> caches = asList(querySession.getTempTableCache(), querySession.getGenericCache()).stream()
+                    List<Pair<CacheProvider, Cache>> caches = asList(querySession.getTempTableCache(), querySession.getGenericCache(), querySession.getSeekCache()).stream()
                             .flatMap(p -> p.getCaches()
                                     .stream()
                                     .map(c -> Pair.of(p, c)))
@@ -338,6 +339,9 @@ else if ("caches".equalsIgnoreCase(type))
                             case 7:
                                 return pair.getKey()
                                         .getName();
+                            case 8:
+                                return pair.getValue()
+                                        .getEvictionCount();
                         }
 
                         throw new IllegalArgumentException("Illegal column index: " + col);
@@ -352,7 +356,7 @@ else if ("cachekeys".equalsIgnoreCase(type))
                     QuerySession querySession = (QuerySession) ctx.getSession();
 
                     final List<Triple<CacheProvider, Cache, Cache.CacheEntry>> cacheKeys = new ArrayList<>();
-                    for (CacheProvider provider : asList(querySession.getTempTableCache(), querySession.getGenericCache()))
+                    for (CacheProvider provider : asList(querySession.getTempTableCache(), querySession.getGenericCache(), querySession.getSeekCache()))
                     {
                         for (Cache cache : provider.getCaches())
                         {
@@ -47,10 +47,15 @@ public ExecutionContext(QuerySession session)
     }
 
     private ExecutionContext(ExecutionContext source)
+    {
+        this(source, new StatementContext(source.statementContext));
+    }
+
+    private ExecutionContext(ExecutionContext source, StatementContext statementContext)
     {
         this.session = source.session;
         this.variables = source.variables;
-        this.statementContext = new StatementContext(source.statementContext);
+        this.statementContext = statementContext;
         this.vectorFactory = source.vectorFactory;
         this.expressionFactory = source.expressionFactory;
     }
@@ -131,4 +136,13 @@ public ExecutionContext copy()
     {
         return new ExecutionContext(this);
     }
+
+    /**
+     * Copy this context for execution on a worker thread. The copy has it's own node data and lambda values so it can be used concurrently with this context. Node data of the worker is merged back
+     * with {@link StatementContext#mergeWorkerContext(StatementContext)} when the worker is done.
+     */
+    public ExecutionContext copyForWorker()
+    {
+        return new ExecutionContext(this, StatementContext.workerCopy(statementContext));
+    }
 }
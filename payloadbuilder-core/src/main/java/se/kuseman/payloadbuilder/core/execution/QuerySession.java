@@ -13,6 +13,7 @@
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
 
@@ -36,7 +37,9 @@
 import se.kuseman.payloadbuilder.core.cache.CacheType;
 import se.kuseman.payloadbuilder.core.cache.GenericCache;
 import se.kuseman.payloadbuilder.core.cache.InMemoryGenericCache;
+import se.kuseman.payloadbuilder.core.cache.InMemorySeekCache;
 import se.kuseman.payloadbuilder.core.cache.InMemoryTempTableCache;
+import se.kuseman.payloadbuilder.core.cache.SeekCache;
 import se.kuseman.payloadbuilder.core.cache.TempTableCache;
 import se.kuseman.payloadbuilder.core.catalog.CatalogRegistry;
 import se.kuseman.payloadbuilder.core.catalog.system.SystemCatalog;
@@ -66,6 +69,43 @@ public class QuerySession implements IQuerySession
 
     /** Force no inner cache for non correlated nested loops */
     public static final String FORCE_NO_INNER_CACHE = "force_no_inner_cache";
+
+    /**
+     * Number of radix partitions used by hash matches. When set to a value above 1 the hash table is split into partitions that are built and probed in parallel on the sessions executor.
+     */
+    public static final String HASH_MATCH_PARTITIONS = "hash_match_partitions";
+
+    /**
+     * Number of partitions used by hash aggregates. When set to a value above 1 input vectors are pre aggregated in parallel and the partial results are merged into hash partitioned group tables in
+     * parallel on the sessions executor.
+     */
+    public static final String HASH_AGGREGATE_PARTITIONS = "hash_aggregate_partitions";
+
+    /**
+     * Memory budget in bytes per operator. When an operator's in memory state exceeds this budget the state is spilled to temporary files on local disk. Zero or no value means unbounded.
+     */
+    public static final String OPERATOR_MEMORY_BUDGET = "operator_memory_budget";
+
+    /**
+     * Enable parallel exchanges. When enabled the inputs of hash matches and concatenations are executed on the sessions executor and the produced vectors are handed to the consuming operator
+     * through a bounded queue.
+     */
+    public static final String PARALLEL_EXCHANGE = "parallel_exchange";
+
+    /**
+     * Execute the inputs of concatenations (UNION ALL) concurrently on the sessions executor. Each input buffers a bounded number of vectors. The output is emitted in input order unless
+     * {@link #CONCURRENT_CONCATENATION_ARRIVAL_ORDER} is set.
+     */
+    public static final String CONCURRENT_CONCATENATION = "concurrent_concatenation";
+
+    /** Emit the output of concurrent concatenations in the order the vectors are produced instead of input order. */
+    public static final String CONCURRENT_CONCATENATION_ARRIVAL_ORDER = "concurrent_concatenation_arrival_order";
+
+    /**
+     * Compile filter predicates and projection expressions into generated JVM classes. Arithmetics, comparisons and logical operators on primitive types are then evaluated in one loop per vector
+     * instead of walking the expression tree. Expressions that cannot be compiled are interpreted as usual.
+     */
+    public static final String COMPILE_EXPRESSIONS = "compile_expressions";
     /* End system properties */
 
     /* Compile fields */
@@ -88,9 +128,11 @@ public class QuerySession implements IQuerySession
 
     private TempTableCache tempTableCache = new InMemoryTempTableCache();
     private GenericCache genericCache = new InMemoryGenericCache("QuerySession");
+    private SeekCache seekCache = new InMemorySeekCache();
     private long lastQueryExecutionTime;
     private long lastQueryRowCount;
     private VectorFactory vectorFactory = new VectorFactory(new BufferAllocator());
+    private ForkJoinPool executorService = ForkJoinPool.commonPool();
 
     public QuerySession(CatalogRegistry catalogRegistry)
     {
@@ -152,6 +194,21 @@ public void setVectorFactory(VectorFactory vectorFactory)
         this.vectorFactory = requireNonNull(vectorFactory);
     }
 
+    /** Return the executor service used by operators that performs work in parallel */
+    public ForkJoinPool getExecutorService()
+    {
+        return executorService;
+    }
+
+    /**
+     * Set the executor service used by operators that performs work in parallel. Operators blocks on work from other operators in the same pool (ie. nested exchanges) with managed blocks which
+     * only compensates for the blocked threads in fork join pools, this is why a fork join pool is required. Use the parallelism of the pool to limit the number of active threads.
+     */
+    public void setExecutorService(ForkJoinPool executorService)
+    {
+        this.executorService = requireNonNull(executorService, "Executor service cannot be null");
+    }
+
     /**
      * Get default catalog for this session
      *
@@ -543,6 +600,18 @@ public void setGenericCache(GenericCache genericCache)
         this.genericCache = requireNonNull(genericCache, "Cache cannot be null");
     }
 
+    /** Return seek cache */
+    public SeekCache getSeekCache()
+    {
+        return seekCache;
+    }
+
+    /** Set seek cache */
+    public void setSeekCache(SeekCache seekCache)
+    {
+        this.seekCache = requireNonNull(seekCache, "Cache cannot be null");
+    }
+
     /** Return cache with provided type */
     public CacheProvider getCache(CacheType type)
     {
@@ -550,6 +619,7 @@ public CacheProvider getCache(CacheType type)
         {
             case GENERIC -> genericCache;
             case TEMPTABLE -> tempTableCache;
+            case SEEK -> seekCache;
             default -> throw new IllegalArgumentException("Unknown cache type " + type);
         };
     }
@@ -67,12 +67,29 @@ public StatementContext()
 
     StatementContext(StatementContext source)
     {
-        this.nodeDataById = source.nodeDataById;
+        this(source, source.nodeDataById);
         this.lambdaValues = source.lambdaValues;
+    }
+
+    private StatementContext(StatementContext source, Map<Integer, NodeData> nodeDataById)
+    {
+        this.nodeDataById = nodeDataById;
         this.now = source.now;
         this.nowUtc = source.nowUtc;
     }
 
+    /** Create a copy of provided context that is used by a worker thread. Node data and lambda values are not shared with the source. */
+    static StatementContext workerCopy(StatementContext source)
+    {
+        StatementContext result = new StatementContext(source, new ConcurrentHashMap<>());
+        result.lambdaValues = source.lambdaValues != null ? new ArrayList<>(source.lambdaValues)
+                : null;
+        result.rowCount = source.rowCount;
+        result.outerTupleVector = source.outerTupleVector;
+        result.indexSeekTupleVector = source.indexSeekTupleVector;
+        return result;
+    }
+
     private void setNow()
     {
         Instant now = Instant.now();
@@ -120,12 +137,16 @@ public <T extends NodeData> T getOrCreateNodeData(Integer nodeId, final Supplier
         // NOTE! If using computeIfAbsent here the calls from AnalyzeOperator/AnalyzeProjection
         // causes ALOT of allocations of LambdaForm's when flight recording, cannot understand why.
         // Might be related to hot code since analyze code is called much more often
-        // So this is not thread safe atm. Might introduce locking and change to an array based solution instead
+        // putIfAbsent is used since worker contexts can be merged into this context from other threads
         T res = (T) nodeDataById.get(nodeId);
         if (res == null)
         {
             res = creator.get();
-            nodeDataById.put(nodeId, res);
+            T existing = (T) nodeDataById.putIfAbsent(nodeId, res);
+            if (existing != null)
+            {
+                res = existing;
+            }
         }
         return res;
     }
@@ -262,20 +283,30 @@ public void setLambdaValue(int lambdaId, ValueVector vector)
     }
 
     /** Merge this context's node data with provided context's */
-    public void mergeNodeData(StatementContext context)
+    public synchronized void mergeNodeData(StatementContext context)
     {
         // Merge nodes
         for (Entry<Integer, NodeData> e : context.nodeDataById.entrySet())
         {
-            NodeData existing = nodeDataById.get(e.getKey());
+            NodeData existing = nodeDataById.putIfAbsent(e.getKey(), e.getValue());
             if (existing != null)
             {
                 existing.merge(e.getValue());
             }
-            else
+        }
+    }
+
+    /** Merge a worker context created with {@link #workerCopy(StatementContext)} into this context. Merges node data and runtime schemas. */
+    public synchronized void mergeWorkerContext(StatementContext worker)
+    {
+        mergeNodeData(worker);
+        if (worker.runtimeSchemaByTableSourceReferenceId != null)
+        {
+            if (runtimeSchemaByTableSourceReferenceId == null)
             {
-                nodeDataById.put(e.getKey(), e.getValue());
+                runtimeSchemaByTableSourceReferenceId = new HashMap<>();
             }
+            worker.runtimeSchemaByTableSourceReferenceId.forEach(runtimeSchemaByTableSourceReferenceId::putIfAbsent);
         }
     }
 
@@ -3,16 +3,24 @@
 import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.ArrayUtils;
 
 import se.kuseman.payloadbuilder.api.catalog.Column;
 import se.kuseman.payloadbuilder.api.catalog.Index;
 import se.kuseman.payloadbuilder.api.catalog.Index.ColumnsType;
+import se.kuseman.payloadbuilder.api.catalog.Index.IndexType;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
 import se.kuseman.payloadbuilder.api.execution.ISeekPredicate;
@@ -21,26 +29,98 @@
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.core.QueryException;
 
 import it.unimi.dsi.fastutil.Hash.Strategy;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.ints.IntList;
-import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
-
-/** Holder for temporary table data */
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+
+/**
+ * Holder for temporary table data.
+ *
+ * <pre>
+ * Indices are hash tables from key to a group of rows. The rows of all groups are stored in one array ordered by group (CSR-style)
+ * to avoid one list per key. Single column Int/Long indices uses primitive keys.
+ * Range seeks ({@link IndexType#SEEK_RANGE}) uses a separate sorted array of the non null row ordinals that is built on first range access.
+ * </pre>
+ */
 public class TemporaryTable
 {
     private static final HashStrategy STRATEGY = new HashStrategy();
     private final TupleVector vector;
     private final List<Index> indices;
-    private final Map<Index, IndicesData> indicesData;
+    /** Indexed data. Each index is built on first access */
+    private final Map<Index, LazyIndex> indicesData;
 
+    /** Create a temporary table with indices that are built on first index access */
     public TemporaryTable(TupleVector vector, List<Index> indices)
+    {
+        this(vector, indices, null);
+    }
+
+    /**
+     * Create a temporary table
+     *
+     * @param vector Tuple vector of table
+     * @param indices Indices of table
+     * @param executor Executor used to build all indices in parallel upfront, typically the sessions executor. If null each index is built on first access of that index. Indices are always
+     *            validated upfront.
+     */
+    public TemporaryTable(TupleVector vector, List<Index> indices, ExecutorService executor)
     {
         this.vector = requireNonNull(vector, "vector");
         this.indices = requireNonNull(indices, "indices");
-        this.indicesData = index();
+        int[][] ordinals = validateIndices();
+        if (indices.isEmpty())
+        {
+            this.indicesData = emptyMap();
+            return;
+        }
+
+        Map<Index, LazyIndex> data = new HashMap<>(indices.size());
+        for (int i = 0; i < indices.size(); i++)
+        {
+            data.put(indices.get(i), new LazyIndex(ordinals[i]));
+        }
+        this.indicesData = data;
+        if (executor != null)
+        {
+            buildIndices(executor, data.values());
+        }
+    }
+
+    /** Build provided indices on executor and wait for all of them to complete */
+    private static void buildIndices(ExecutorService executor, Collection<LazyIndex> indices)
+    {
+        List<Callable<IndexData>> tasks = new ArrayList<>(indices.size());
+        for (LazyIndex index : indices)
+        {
+            tasks.add(index::get);
+        }
+        try
+        {
+            for (Future<IndexData> future : executor.invokeAll(tasks))
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+            throw new QueryException("Interrupted while building indices", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException re)
+            {
+                throw re;
+            }
+            throw new QueryException("Error building indices", e.getCause());
+        }
     }
 
     /** Return the temporary tables tuple vector */
@@ -61,13 +141,11 @@ public TupleIterator getIndexIterator(IExecutionContext context, ISeekPredicate
         {
             throw new IllegalArgumentException("This tempoarary table does not have any indices");
         }
-        final IndicesData data = indicesData.get(seekPredicate.getIndex());
-
-        if (data == null)
+        LazyIndex lazyIndex = indicesData.get(seekPredicate.getIndex());
+        if (lazyIndex == null)
         {
             throw new IllegalArgumentException("This tempoarary table does not have index: " + seekPredicate.getIndex());
         }
-        final Object2ObjectMap<IndexKey, IntList> table = data.map;
 
         List<ISeekKey> seekKeys = seekPredicate.getSeekKeys(context);
         int size = seekKeys.size();
@@ -78,9 +156,23 @@ public TupleIterator getIndexIterator(IExecutionContext context, ISeekPredicate
                     .getValue();
         }
 
+        if (seekPredicate.isRangeSeek())
+        {
+            if (!seekPredicate.getIndex()
+                    .supports(IndexType.SEEK_RANGE))
+            {
+                throw new IllegalArgumentException("Index: " + seekPredicate.getIndex() + " does not support " + IndexType.SEEK_RANGE);
+            }
+            ValueVector selection = lazyIndex.getSorted()
+                    .getSelection(seekKeys, vectors);
+            return selection.size() == 0 ? TupleIterator.EMPTY
+                    : TupleIterator.singleton(new IndexTupleVector(vector, selection));
+        }
+
+        final IndexData data = lazyIndex.get();
+
         final int valuesSzie = vectors[0].size();
         final int rowCount = valuesSzie * data.averageRowCount;
-        final Column.Type[] types = data.columnTypes;
 
         return new TupleIterator()
         {
@@ -126,72 +218,36 @@ private boolean setNext()
                         return false;
                     }
 
-                    IntList list = table.get(new IndexKey(vectors, index++, types));
-                    if (list == null)
+                    int group = data.getGroup(vectors, index++);
+                    if (group < 0)
                     {
                         continue;
                     }
 
-                    next = new IndexTupleVector(vector, list);
+                    int from = data.offsets[group];
+                    next = new IndexTupleVector(vector, VectorUtils.convertToSelectionVector(data.rows, from, data.offsets[group + 1] - from));
                 }
                 return true;
             }
         };
     }
 
-    private Map<Index, IndicesData> index()
+    /** Validate indices and return the column ordinals of each index */
+    private int[][] validateIndices()
     {
-        if (indices.isEmpty())
-        {
-            return emptyMap();
-        }
-
-        int rowCount = vector.getRowCount();
+        boolean hasRows = vector.getRowCount() > 0;
         int size = indices.size();
-        Map<Index, IndicesData> result = new HashMap<>(size);
-
+        int[][] result = new int[size][];
         for (int i = 0; i < size; i++)
         {
-            Index currentIndex = indices.get(i);
-
-            if (currentIndex.getColumnsType() != ColumnsType.ALL)
+            Index index = indices.get(i);
+            if (index.getColumnsType() != ColumnsType.ALL)
             {
                 throw new IllegalArgumentException("Temporary table indices must have " + ColumnsType.ALL + " columns type");
             }
-
-            Object2ObjectMap<IndexKey, IntList> table = new Object2ObjectOpenCustomHashMap<IndexKey, IntList>(STRATEGY);
-
-            int[] ordinals = rowCount > 0 ? getOrdinals(currentIndex)
+            result[i] = hasRows ? getOrdinals(index)
                     : ArrayUtils.EMPTY_INT_ARRAY;
-            int ordinalsSize = ordinals.length;
-            ValueVector[] vectors = new ValueVector[ordinalsSize];
-            Column.Type[] types = new Column.Type[ordinalsSize];
-            for (int j = 0; j < ordinalsSize; j++)
-            {
-                ValueVector column = vector.getColumn(ordinals[j]);
-                vectors[j] = column;
-                types[j] = column.type()
-                        .getType();
-            }
-            // Index all rows for current index
-            for (int j = 0; j < rowCount; j++)
-            {
-                table.computeIfAbsent(new IndexKey(vectors, j, null), k -> new IntArrayList())
-                        .add(j);
-            }
-
-            int total = 0;
-            for (IntList l : table.values())
-            {
-                total += l != null ? l.size()
-                        : 0;
-            }
-            int averageRowCount = table.size() > 0 ? total / table.size()
-                    : 0;
-
-            result.put(currentIndex, new IndicesData(table, averageRowCount, types));
         }
-
         return result;
     }
 
@@ -227,6 +283,372 @@ private int[] getOrdinals(Index index)
         return result;
     }
 
+    /** Index that is built on first access */
+    private class LazyIndex
+    {
+        private final int[] ordinals;
+        private volatile IndexData data;
+        private volatile SortedIndexData sorted;
+
+        LazyIndex(int[] ordinals)
+        {
+            this.ordinals = ordinals;
+        }
+
+        IndexData get()
+        {
+            IndexData result = data;
+            if (result == null)
+            {
+                synchronized (this)
+                {
+                    result = data;
+                    if (result == null)
+                    {
+                        result = build();
+                        data = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        SortedIndexData getSorted()
+        {
+            SortedIndexData result = sorted;
+            if (result == null)
+            {
+                synchronized (this)
+                {
+                    result = sorted;
+                    if (result == null)
+                    {
+                        if (ordinals.length > 1)
+                        {
+                            throw new IllegalArgumentException("Range seeks are only supported on single column indices");
+                        }
+                        result = new SortedIndexData(ordinals.length == 0 ? null
+                                : vector.getColumn(ordinals[0]));
+                        sorted = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        private IndexData build()
+        {
+            int size = ordinals.length;
+            ValueVector[] vectors = new ValueVector[size];
+            Column.Type[] types = new Column.Type[size];
+            for (int i = 0; i < size; i++)
+            {
+                ValueVector column = vector.getColumn(ordinals[i]);
+                vectors[i] = column;
+                types[i] = column.type()
+                        .getType();
+            }
+            if (size == 1
+                    && (types[0] == Column.Type.Int
+                            || types[0] == Column.Type.Long))
+            {
+                return new PrimitiveIndexData(vectors[0], types[0]);
+            }
+            return new GenericIndexData(vectors, types);
+        }
+    }
+
+    /** Base class for index data. The rows of group N are found in {@link #rows} between {@link #offsets}[N] (inclusive) and {@link #offsets}[N + 1] (exclusive) */
+    private abstract static class IndexData
+    {
+        int[] rows;
+        int[] offsets;
+        /** The average row count for index entries. Is used to estimate the number of rows an index iterator will return. */
+        int averageRowCount;
+
+        /** Return group of provided seek row. Returns -1 if the seek row does not exist in index */
+        abstract int getGroup(ValueVector[] seekVectors, int row);
+
+        /** Build the row arrays from each rows group */
+        void build(int[] rowGroups, IntArrayList groupCounts)
+        {
+            int groupCount = groupCounts.size();
+            final int rowCount = rowGroups.length;
+            offsets = new int[groupCount + 1];
+            for (int i = 0; i < groupCount; i++)
+            {
+                offsets[i + 1] = offsets[i] + groupCounts.getInt(i);
+            }
+            // Fill each group in row order
+            int[] positions = new int[groupCount];
+            System.arraycopy(offsets, 0, positions, 0, groupCount);
+            rows = new int[rowCount];
+            for (int i = 0; i < rowCount; i++)
+            {
+                rows[positions[rowGroups[i]]++] = i;
+            }
+            averageRowCount = groupCount > 0 ? rowCount / groupCount
+                    : 0;
+        }
+    }
+
+    /** Index data of a single Int or Long column */
+    private static class PrimitiveIndexData extends IndexData
+    {
+        private final ValueVector column;
+        private final Column.Type type;
+        private final Long2IntOpenHashMap groups;
+        /** Group of null values. -1 if column has no nulls */
+        private int nullGroup = -1;
+
+        PrimitiveIndexData(ValueVector column, Column.Type type)
+        {
+            this.column = column;
+            this.type = type;
+            this.groups = new Long2IntOpenHashMap();
+            this.groups.defaultReturnValue(-1);
+            boolean hasNulls = column.hasNulls();
+            boolean isInt = type == Column.Type.Int;
+            int rowCount = column.size();
+            int[] rowGroups = new int[rowCount];
+            IntArrayList groupCounts = new IntArrayList();
+            for (int i = 0; i < rowCount; i++)
+            {
+                int group;
+                if (hasNulls
+                        && column.isNull(i))
+                {
+                    if (nullGroup < 0)
+                    {
+                        nullGroup = groupCounts.size();
+                        groupCounts.add(0);
+                    }
+                    group = nullGroup;
+                }
+                else
+                {
+                    long key = isInt ? column.getInt(i)
+                            : column.getLong(i);
+                    group = groups.putIfAbsent(key, groupCounts.size());
+                    if (group < 0)
+                    {
+                        group = groupCounts.size();
+                        groupCounts.add(0);
+                    }
+                }
+                rowGroups[i] = group;
+                groupCounts.set(group, groupCounts.getInt(group) + 1);
+            }
+            build(rowGroups, groupCounts);
+        }
+
+        @Override
+        int getGroup(ValueVector[] seekVectors, int row)
+        {
+            ValueVector seek = seekVectors[0];
+            if (seek.isNull(row))
+            {
+                return nullGroup;
+            }
+            Column.Type seekType = seek.type()
+                    .getType();
+            // Convert the seek value to the index type
+            long key = type == Column.Type.Int ? seek.getInt(row)
+                    : seek.getLong(row);
+            int group = groups.get(key);
+            if (group < 0
+                    || seekType == type)
+            {
+                return group;
+            }
+
+            // Seek value is of another type, verify the match with the promoted type since the conversion might be lossy
+            Column.Type resultType = seekType.getPrecedence() > type.getPrecedence() ? seekType
+                    : type;
+            return VectorUtils.equals(seek, column, resultType, row, rows[offsets[group]], false) ? group
+                    : -1;
+        }
+    }
+
+    /** Index data of arbitrary columns */
+    private static class GenericIndexData extends IndexData
+    {
+        private final Object2IntOpenCustomHashMap<IndexKey> groups;
+        /** The types that the index was hashed with to get properly hash keys when seeking. */
+        private final Column.Type[] columnTypes;
+
+        GenericIndexData(ValueVector[] vectors, Column.Type[] columnTypes)
+        {
+            this.columnTypes = columnTypes;
+            this.groups = new Object2IntOpenCustomHashMap<>(STRATEGY);
+            this.groups.defaultReturnValue(-1);
+            int rowCount = vectors.length > 0 ? vectors[0].size()
+                    : 0;
+            int[] rowGroups = new int[rowCount];
+            IntArrayList groupCounts = new IntArrayList();
+            for (int i = 0; i < rowCount; i++)
+            {
+                int group = groups.putIfAbsent(new IndexKey(vectors, i, null), groupCounts.size());
+                if (group < 0)
+                {
+                    group = groupCounts.size();
+                    groupCounts.add(0);
+                }
+                rowGroups[i] = group;
+                groupCounts.set(group, groupCounts.getInt(group) + 1);
+            }
+            build(rowGroups, groupCounts);
+        }
+
+        @Override
+        int getGroup(ValueVector[] seekVectors, int row)
+        {
+            return groups.getInt(new IndexKey(seekVectors, row, columnTypes));
+        }
+    }
+
+    /** Index data used for range seeks. Contains the non null rows of a single column sorted by value */
+    private static class SortedIndexData
+    {
+        private final ValueVector column;
+        private final Column.Type type;
+        private final int[] rows;
+
+        SortedIndexData(ValueVector column)
+        {
+            this.column = column;
+            if (column == null)
+            {
+                this.type = null;
+                this.rows = ArrayUtils.EMPTY_INT_ARRAY;
+                return;
+            }
+            this.type = column.type()
+                    .getType();
+            int rowCount = column.size();
+            IntArrayList nonNullRows = new IntArrayList(rowCount);
+            boolean hasNulls = column.hasNulls();
+            for (int i = 0; i < rowCount; i++)
+            {
+                if (!hasNulls
+                        || !column.isNull(i))
+                {
+                    nonNullRows.add(i);
+                }
+            }
+            this.rows = nonNullRows.toIntArray();
+            IntArrays.quickSort(rows, (a, b) -> VectorUtils.compare(column, column, type, a, b));
+        }
+
+        /**
+         * Return selection of rows matching provided seek keys. Each seek row is a range where all keys bounds must be met. Overlapping ranges are merged to not return any row multiple times.
+         */
+        ValueVector getSelection(List<ISeekKey> seekKeys, ValueVector[] vectors)
+        {
+            if (rows.length == 0)
+            {
+                return ValueVector.empty(ResolvedType.of(Column.Type.Int));
+            }
+            int keyCount = seekKeys.size();
+            int seekRowCount = vectors[0].size();
+            // Ranges of positions in sorted rows, [from, to)
+            IntArrayList ranges = new IntArrayList();
+            seekRows: for (int row = 0; row < seekRowCount; row++)
+            {
+                int from = 0;
+                int to = rows.length;
+                for (int i = 0; i < keyCount; i++)
+                {
+                    ValueVector seek = vectors[i];
+                    // A null bound can never be met
+                    if (seek.isNull(row))
+                    {
+                        continue seekRows;
+                    }
+                    IComparisonExpression.Type comparisonType = seekKeys.get(i)
+                            .getComparisonType();
+                    switch (comparisonType)
+                    {
+                        case GREATER_THAN -> from = Math.max(from, search(seek, row, false));
+                        case GREATER_THAN_EQUAL -> from = Math.max(from, search(seek, row, true));
+                        case LESS_THAN -> to = Math.min(to, search(seek, row, true));
+                        case LESS_THAN_EQUAL -> to = Math.min(to, search(seek, row, false));
+                        case EQUAL ->
+                        {
+                            from = Math.max(from, search(seek, row, true));
+                            to = Math.min(to, search(seek, row, false));
+                        }
+                        default -> throw new IllegalArgumentException("Unsupported range seek comparison type: " + comparisonType);
+                    }
+                }
+                if (from < to)
+                {
+                    ranges.add(from);
+                    ranges.add(to);
+                }
+            }
+
+            int rangeCount = ranges.size() / 2;
+            if (rangeCount == 0)
+            {
+                return ValueVector.empty(ResolvedType.of(Column.Type.Int));
+            }
+            else if (rangeCount == 1)
+            {
+                return VectorUtils.convertToSelectionVector(rows, ranges.getInt(0), ranges.getInt(1) - ranges.getInt(0));
+            }
+
+            // Sort ranges on start and merge overlapping ones
+            int[] order = new int[rangeCount];
+            for (int i = 0; i < rangeCount; i++)
+            {
+                order[i] = i;
+            }
+            IntArrays.quickSort(order, (a, b) -> Integer.compare(ranges.getInt(a * 2), ranges.getInt(b * 2)));
+            IntArrayList result = new IntArrayList();
+            int end = 0;
+            for (int i = 0; i < rangeCount; i++)
+            {
+                int from = Math.max(end, ranges.getInt(order[i] * 2));
+                int to = ranges.getInt(order[i] * 2 + 1);
+                if (from < to)
+                {
+                    result.addElements(result.size(), rows, from, to - from);
+                    end = to;
+                }
+            }
+            return VectorUtils.convertToSelectionVector(result);
+        }
+
+        /** Return the first position in sorted rows whose value is greater than (or equal to if inclusive) provided seek value */
+        private int search(ValueVector seek, int seekRow, boolean inclusive)
+        {
+            Column.Type seekType = seek.type()
+                    .getType();
+            // Compare with the promoted type
+            Column.Type compareType = seekType.getPrecedence() > type.getPrecedence() ? seekType
+                    : type;
+            int low = 0;
+            int high = rows.length;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                int c = VectorUtils.compare(column, seek, compareType, rows[mid], seekRow);
+                if (c < 0
+                        || (!inclusive
+                                && c == 0))
+                {
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
     /** Tuple vector that wraps temporary table with an indexed list of rows */
     static class IndexTupleVector implements TupleVector
     {
@@ -234,10 +656,10 @@ static class IndexTupleVector implements TupleVector
         final ValueVector selection;
         private final ValueVector[] columns;
 
-        IndexTupleVector(TupleVector vector, IntList rows)
+        IndexTupleVector(TupleVector vector, ValueVector selection)
         {
             this.vector = vector;
-            this.selection = VectorUtils.convertToSelectionVector(rows);
+            this.selection = selection;
             this.columns = new ValueVector[vector.getSchema()
                     .getSize()];
         }
@@ -304,15 +726,4 @@ public boolean equals(IndexKey a, IndexKey b)
                     : types;
         }
     }
-
-    /**
-     * Indices data with data and statistics.
-     *
-     * @param map Map with data
-     * @param averageRowCount The average row count for index entries in map. Is used to estimate the number of rows an index iterator will return.
-     * @param columnTypes The types that the index was hashed with to get properly hash keys when seeking.
-     */
-    private record IndicesData(Object2ObjectMap<IndexKey, IntList> map, int averageRowCount, Column.Type[] columnTypes)
-    {
-    }
 }
@@ -27,6 +27,7 @@
 import se.kuseman.payloadbuilder.api.execution.UTF8String;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.core.common.SchemaUtils;
+import se.kuseman.payloadbuilder.core.execution.vector.MutableStringVector;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
@@ -36,6 +37,8 @@
 {
     private static final int START = 17;
     private static final int CONSTANT = 37;
+    /** Estimated fixed size in bytes of a vector regardless of rows */
+    private static final int ESTIMATED_VECTOR_OVERHEAD = 64;
 
     /**
      * Tries to determine a known type of this vector if the vectors type is ANY. Picks the first non null value. NOTE! There could be mixed types in vector so it's just an estimation
@@ -257,8 +260,16 @@ public static int hash(ValueVector[] vectors, Column.Type[] types, boolean[] has
                             .hashCode();
                     break;
                 case String:
-                    hash = hash * CONSTANT + vv.getString(row)
-                            .hashCode();
+                    // Hash directly on the buffer without creating a string instance
+                    if (vv instanceof MutableStringVector msv)
+                    {
+                        hash = hash * CONSTANT + msv.hashCode(row);
+                    }
+                    else
+                    {
+                        hash = hash * CONSTANT + vv.getString(row)
+                                .hashCode();
+                    }
                     break;
                 case DateTime:
                     hash = hash * CONSTANT + (int) vv.getDateTime(row)
@@ -454,8 +465,7 @@ else if (aNull)
             // NOTE! Use compare instead of equals here else we will get weird results
             case Decimal -> vector1.getDecimal(row1)
                     .compareTo(vector2.getDecimal(row2)) == 0;
-            case String -> vector1.getString(row1)
-                    .equals(vector2.getString(row2));
+            case String -> equalsString(vector1, vector2, row1, row2);
             case DateTime -> vector1.getDateTime(row1)
                     .equals(vector2.getDateTime(row2));
             case DateTimeOffset -> vector1.getDateTimeOffset(row1)
@@ -466,6 +476,19 @@ else if (aNull)
         };
     }
 
+    private static boolean equalsString(ValueVector vector1, ValueVector vector2, int row1, int row2)
+    {
+        // Rows of vectors sharing the same dictionary are equal if their codes are equal
+        ValueVector dictionary = vector1.getDictionary();
+        if (dictionary != null
+                && dictionary == vector2.getDictionary())
+        {
+            return vector1.getDictionaryCode(row1) == vector2.getDictionaryCode(row2);
+        }
+        return vector1.getString(row1)
+                .equals(vector2.getString(row2));
+    }
+
     /**
      * Compare values to two rows. NOTE! Doesn't take nulls into consideration
      *
@@ -574,11 +597,18 @@ public int getInt(int row)
 
     /** Convert provided int array to a integer {@link ValueVector} */
     public static ValueVector convertToSelectionVector(int[] selection, int size)
+    {
+        return convertToSelectionVector(selection, 0, size);
+    }
+
+    /** Convert a range of provided int array to a integer {@link ValueVector} */
+    public static ValueVector convertToSelectionVector(int[] selection, int offset, int size)
     {
         requireNonNull(selection);
-        if (size > selection.length)
+        if (offset < 0
+                || offset + size > selection.length)
         {
-            throw new IllegalArgumentException("Size out of bounds. Array size: " + selection.length + ", size: " + size);
+            throw new IllegalArgumentException("Size out of bounds. Array size: " + selection.length + ", offset: " + offset + ", size: " + size);
         }
         return new ValueVector()
         {
@@ -603,11 +633,44 @@ public boolean isNull(int row)
             @Override
             public int getInt(int row)
             {
-                return selection[row];
+                return selection[offset + row];
             }
         };
     }
 
+    /**
+     * Estimates the heap size in bytes of provided tuple vector. The estimate is based on row count and column types and is meant to be used for memory budgets and not as an exact measure.
+     */
+    public static long estimateSize(TupleVector vector)
+    {
+        int rowCount = vector.getRowCount();
+        long rowSize = 0;
+        for (Column column : vector.getSchema()
+                .getColumns())
+        {
+            rowSize += estimateSize(column.getType()
+                    .getType());
+        }
+        return ESTIMATED_VECTOR_OVERHEAD + rowCount * rowSize;
+    }
+
+    /** Estimates the heap size in bytes of a single value of provided type */
+    public static int estimateSize(Type type)
+    {
+        return switch (type)
+        {
+            case Boolean -> 1;
+            case Int, Float -> 4;
+            case Long, Double, DateTime -> 8;
+            case Decimal, DateTimeOffset -> 24;
+            case String -> 48;
+            case Any -> 32;
+            // Nested structures, we cannot know the size without traversing them
+            case Array, Object, Table -> 128;
+            default -> 16;
+        };
+    }
+
     /** Converts provided value to a {@link ValueVector}. Transforms List/Collections/Arrays to value vector */
     public static ValueVector convertToValueVector(Object value)
     {
@@ -763,4 +826,98 @@ public Schema getSchema()
         return value;
     }
 
+    /**
+     * Resolve columns of type {@link Type#Any} to their actual type. Used when writing payloads since those cannot be written with columns of type Any.
+     *
+     * @throws IllegalArgumentException if a column contains values of different or unsupported types
+     */
+    public static TupleVector resolveAnyColumns(TupleVector vector)
+    {
+        Schema schema = vector.getSchema();
+        int size = schema.getSize();
+        ValueVector[] columns = null;
+        List<Column> resolvedColumns = null;
+        for (int i = 0; i < size; i++)
+        {
+            ValueVector column = vector.getColumn(i);
+            if (column.type()
+                    .getType() != Type.Any)
+            {
+                continue;
+            }
+
+            if (columns == null)
+            {
+                columns = new ValueVector[size];
+                resolvedColumns = new ArrayList<>(schema.getColumns());
+            }
+
+            Type type = getAnyType(column);
+            if (type == Type.Any)
+            {
+                if (!isAllNull(column))
+                {
+                    throw new IllegalArgumentException("Column '" + schema.getColumns()
+                            .get(i)
+                            .getName() + "' has values of an unsupported type");
+                }
+                // All values are null, type doesn't matter
+                type = Type.Int;
+            }
+            ResolvedType resolvedType = ResolvedType.of(type);
+            columns[i] = new ValueVectorAdapter(column)
+            {
+                @Override
+                public ResolvedType type()
+                {
+                    return resolvedType;
+                }
+            };
+            resolvedColumns.set(i, new Column(schema.getColumns()
+                    .get(i)
+                    .getName(), resolvedType));
+        }
+
+        if (columns == null)
+        {
+            return vector;
+        }
+
+        final ValueVector[] resolved = columns;
+        final Schema resolvedSchema = new Schema(resolvedColumns);
+        return new TupleVector()
+        {
+            @Override
+            public Schema getSchema()
+            {
+                return resolvedSchema;
+            }
+
+            @Override
+            public int getRowCount()
+            {
+                return vector.getRowCount();
+            }
+
+            @Override
+            public ValueVector getColumn(int column)
+            {
+                return resolved[column] != null ? resolved[column]
+                        : vector.getColumn(column);
+            }
+        };
+    }
+
+    private static boolean isAllNull(ValueVector vector)
+    {
+        int size = vector.size();
+        for (int i = 0; i < size; i++)
+        {
+            if (!vector.isNull(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
 }
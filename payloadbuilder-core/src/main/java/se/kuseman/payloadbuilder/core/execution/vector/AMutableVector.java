@@ -3,6 +3,7 @@
 import static java.util.Objects.requireNonNull;
 
 import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
 
 /** Base class for mutable vectors */
@@ -67,6 +68,35 @@ public void setNull(int row)
         nullBuffer.put(row, true);
     }
 
+    /** Mark all rows that are null in provided vector as null in this vector. Null buffers of mutable vectors are combined word by word */
+    void orNulls(ValueVector vector, int rowCount)
+    {
+        if (vector instanceof AMutableVector that
+                && that.size >= rowCount)
+        {
+            if (!that.hasNulls())
+            {
+                return;
+            }
+            size = Math.max(size, rowCount);
+            if (nullBuffer == null)
+            {
+                nullBuffer = factory.getAllocator()
+                        .getBitBuffer(estimatedCapacity);
+            }
+            nullBuffer.or(that.nullBuffer);
+            return;
+        }
+        // Other vectors are checked row by row since not all vectors reports hasNulls correctly
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (vector.isNull(i))
+            {
+                setNull(i);
+            }
+        }
+    }
+
     protected void removeNull(int row)
     {
         if (nullBuffer == null)
@@ -93,13 +123,14 @@ static AMutableVector getMutableVector(ResolvedType type, VectorFactory factory,
                 return new MutableFloatVector(factory, estimatedSize);
             case Double:
                 return new MutableDoubleVector(factory, estimatedSize);
+            case String:
+                return new MutableStringVector(factory, estimatedSize);
             case Any:
             case Array:
             case DateTime:
             case DateTimeOffset:
             case Decimal:
             case Object:
-            case String:
             case Table:
                 return new MutableObjectVector(factory, estimatedSize, type);
             // No default case here!!!
@@ -27,6 +27,18 @@ boolean get(int index)
         return bitSet.get(index);
     }
 
+    /** Set all bits that are set in provided buffer. Performed word by word */
+    void or(BitBuffer buffer)
+    {
+        bitSet.or(buffer.bitSet);
+    }
+
+    /** Set all bits that are set in provided words. Bit n is stored at bit n % 64 of word n / 64 */
+    void or(long[] words)
+    {
+        bitSet.or(BitSet.valueOf(words));
+    }
+
     void clear()
     {
         bitSet.clear();
@@ -116,6 +116,15 @@ public Object[] getObjectBuffer(int capacity)
         return new Object[capacity];
     }
 
+    /** Get byte buffer */
+    public byte[] getByteBuffer(int capacity)
+    {
+        statistics.byteAllocationSum += capacity;
+        statistics.byteAllocationCount++;
+
+        return new byte[capacity];
+    }
+
     /** Get bit buffer */
     public BitBuffer getBitBuffer(int capacity)
     {
@@ -146,7 +155,9 @@ public Statistics getStatistics()
                 Column.of("Double count", Type.Int),
                 Column.of("Double sum", Type.Int),
                 Column.of("Object count", Type.Int),
-                Column.of("Object sum", Type.Int)
+                Column.of("Object sum", Type.Int),
+                Column.of("Byte count", Type.Int),
+                Column.of("Byte sum", Type.Int)
                 );
         //@formatter:on
 
@@ -168,6 +179,9 @@ public Statistics getStatistics()
         private int objectAllocationCount;
         private int objectAllocationSum;
 
+        private int byteAllocationCount;
+        private int byteAllocationSum;
+
         public int getBitAllocationCount()
         {
             return bitAllocationCount;
@@ -228,6 +242,16 @@ public int getObjectAllocationSum()
             return objectAllocationSum;
         }
 
+        public int getByteAllocationCount()
+        {
+            return byteAllocationCount;
+        }
+
+        public int getByteAllocationSum()
+        {
+            return byteAllocationSum;
+        }
+
         /** Return a {@link ObjectVector} representation of this statistics instance */
         public ObjectVector asObject()
         {
@@ -262,6 +286,10 @@ public ValueVector getValue(int ordinal)
                             return ValueVector.literalInt(objectAllocationCount, 1);
                         case 11:
                             return ValueVector.literalInt(objectAllocationSum, 1);
+                        case 12:
+                            return ValueVector.literalInt(byteAllocationCount, 1);
+                        case 13:
+                            return ValueVector.literalInt(byteAllocationSum, 1);
                         default:
                             throw new IllegalArgumentException("Invaild ordinal");
                     }
@@ -0,0 +1,55 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+
+/** Definition of the SIMD kernels used by {@link SimdKernels}. Implemented by {@code VectorApiKernels} that is compiled separately since it requires the incubating Vector API. */
+interface IVectorKernels
+{
+    /**
+     * Compare int rows and set the bits of matching rows in words.
+     *
+     * @param operation Comparison operation
+     * @param left Left values
+     * @param right Right values. If null then rightValue is compared with all rows
+     * @param rightValue Value compared when right is null
+     * @param rowCount Number of rows to compare
+     * @param words Result bits
+     */
+    void compareInt(IComparisonExpression.Type operation, int[] left, int[] right, int rightValue, int rowCount, long[] words);
+
+    /** Compare long rows and set the bits of matching rows in words. See {@link #compareInt(IComparisonExpression.Type, int[], int[], int, int, long[])} */
+    void compareLong(IComparisonExpression.Type operation, long[] left, long[] right, long rightValue, int rowCount, long[] words);
+
+    /**
+     * Compare float rows for equality and set the bits of matching rows in words. Only {@link IComparisonExpression.Type#EQUAL} and {@link IComparisonExpression.Type#NOT_EQUAL} are supported since
+     * the other comparisons uses {@link Float#compare(float, float)} which differs from IEEE comparison for NaN and -0.0
+     */
+    void equalsFloat(boolean equal, float[] left, float[] right, float rightValue, int rowCount, long[] words);
+
+    /** Compare double rows for equality and set the bits of matching rows in words. See {@link #equalsFloat(boolean, float[], float[], float, int, long[])} */
+    void equalsDouble(boolean equal, double[] left, double[] right, double rightValue, int rowCount, long[] words);
+
+    /**
+     * Sum int values. Lanes are checked for overflow and if any lane overflows the sum is calculated row by row with {@link Math#addExact(int, int)} which throws if the sum overflows.
+     *
+     * @param values Values to sum
+     * @param offset Index of the first value to sum
+     * @param rowCount Number of values to sum
+     */
+    int sumInt(int[] values, int offset, int rowCount);
+
+    /** Sum long values. See {@link #sumInt(int[], int, int)} */
+    long sumLong(long[] values, int offset, int rowCount);
+
+    /** Sum float values. See {@link #sumInt(int[], int, int)}. NOTE! Values are added in a different order than a scalar loop which can give a different rounding */
+    float sumFloat(float[] values, int offset, int rowCount);
+
+    /** Sum double values. See {@link #sumFloat(float[], int, int)} */
+    double sumDouble(double[] values, int offset, int rowCount);
+
+    /** Return min or max of int values. See {@link #sumInt(int[], int, int)} for arguments. NOTE! rowCount must be greater than zero */
+    int minMaxInt(boolean min, int[] values, int offset, int rowCount);
+
+    /** Return min or max of long values. See {@link #minMaxInt(boolean, int[], int, int)} */
+    long minMaxLong(boolean min, long[] values, int offset, int rowCount);
+}
@@ -50,6 +50,14 @@ public void copy(int startRow, ValueVector source, int sourceRow, int length)
         }
     }
 
+    /** Set size of vector and return the value buffer. Used by kernels that writes values straight into the buffer. */
+    BitBuffer getBuffer(int size)
+    {
+        ensureSize(size);
+        this.size = Math.max(this.size, size);
+        return valueBuffer;
+    }
+
     private void ensureSize(int limit)
     {
         if (valueBuffer == null)
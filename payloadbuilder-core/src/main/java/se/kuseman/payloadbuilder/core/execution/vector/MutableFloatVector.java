@@ -52,6 +52,23 @@ public void copy(int startRow, ValueVector source, int sourceRow, int length)
         }
     }
 
+    /** Set size of vector and return the value buffer. Used by kernels that writes values straight into the buffer. */
+    FloatBuffer getBuffer(int size)
+    {
+        ensureSize(size);
+        this.size = Math.max(this.size, size);
+        return buffer;
+    }
+
+    /** Return the array backing the value buffer or null if the buffer isn't backed by an accessible array. Used by the SIMD kernels. */
+    float[] getBackingArray()
+    {
+        return buffer != null
+                && buffer.hasArray()
+                && buffer.arrayOffset() == 0 ? buffer.array()
+                        : null;
+    }
+
     private void ensureSize(int limit)
     {
         if (buffer == null)
@@ -0,0 +1,420 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.io.doubleparser.JavaFloatParser;
+
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.UTF8String;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * A mutable string vector. All values are stored as utf8 in one contiguous byte buffer. Strings returned from {@link #getString(int)} are views over the buffer. Written bytes are never modified,
+ * values that are overwritten are appended to the end of the buffer, this makes returned views valid even if the vector is mutated afterwards. Vectors with a large enough estimated capacity starts
+ * out dictionary encoded where each distinct value is stored once and each row only has a code into the dictionary (see {@link #getDictionary()}). If the values turns out to have a high cardinality
+ * the dictionary is abandoned and the vector continues with an offset and length per row.
+ */
+public class MutableStringVector extends AMutableVector
+{
+    /** Average string length in bytes used when sizing the initial byte buffer */
+    private static final int ESTIMATED_STRING_LENGTH = 16;
+    /** Max size of the initial byte buffer */
+    private static final int MAX_INITIAL_BYTES_SIZE = 1 << 20;
+    /** Min estimated capacity for a vector to be dictionary encoded. Small vectors won't gain anything from a dictionary */
+    static final int DICTIONARY_MIN_CAPACITY = 64;
+    /** Max number of values in a dictionary */
+    static final int DICTIONARY_MAX_SIZE = 1 << 16;
+    /** Dictionary size where the ratio between distinct values and rows starts to be checked */
+    static final int DICTIONARY_RATIO_MIN_SIZE = 256;
+
+    private byte[] bytes;
+    private int bytesSize;
+    /* Plain encoding, offset and length per row */
+    private IntBuffer offsets;
+    private IntBuffer lengths;
+    /* Dictionary encoding, code per row. Null when vector is not dictionary encoded */
+    private IntBuffer codes;
+    private Dictionary dictionary;
+    /* Mapping from codes of the last copied source dictionary to codes of this dictionary */
+    private ValueVector remapDictionary;
+    private int[] remapCodes;
+
+    MutableStringVector(VectorFactory factory, int estimatedCapacity)
+    {
+        super(factory, estimatedCapacity, ResolvedType.STRING);
+        if (estimatedCapacity >= DICTIONARY_MIN_CAPACITY)
+        {
+            dictionary = new Dictionary();
+        }
+    }
+
+    @Override
+    public void setString(int row, UTF8String value)
+    {
+        if (value == null)
+        {
+            setNull(row);
+            return;
+        }
+        if (dictionary != null)
+        {
+            int code = encode(value);
+            if (code >= 0)
+            {
+                setCode(row, code);
+                return;
+            }
+        }
+        ensureSize(row + 1);
+        int length = value.getByteLength();
+        int offset = append(value, length);
+        setRow(row, offset, length);
+    }
+
+    @Override
+    public void setAny(int row, Object value)
+    {
+        if (value == null)
+        {
+            setNull(row);
+            return;
+        }
+        setString(row, UTF8String.from(value));
+    }
+
+    @Override
+    public void copy(int startRow, ValueVector source, int sourceRow, int length)
+    {
+        ensureSize(startRow + length);
+        boolean hasNulls = source.hasNulls();
+        // Copy bytes straight between the buffers
+        if (dictionary == null
+                && source instanceof MutableStringVector that
+                && that.dictionary == null)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                int sr = sourceRow + i;
+                int dr = startRow + i;
+                if (hasNulls
+                        && that.isNull(sr))
+                {
+                    setNull(dr);
+                    continue;
+                }
+                int byteLength = that.lengths.get(sr);
+                ensureBytes(byteLength);
+                System.arraycopy(that.bytes, that.offsets.get(sr), bytes, bytesSize, byteLength);
+                setRow(dr, bytesSize, byteLength);
+                bytesSize += byteLength;
+            }
+            return;
+        }
+
+        ValueVector sourceDictionary = source.getDictionary();
+        for (int i = 0; i < length; i++)
+        {
+            int sr = sourceRow + i;
+            int dr = startRow + i;
+            if (hasNulls
+                    && source.isNull(sr))
+            {
+                setNull(dr);
+                continue;
+            }
+            // Translate the code of the source dictionary without looking up the value
+            if (dictionary != null
+                    && sourceDictionary != null)
+            {
+                int code = remapCode(sourceDictionary, source.getDictionaryCode(sr));
+                if (code >= 0)
+                {
+                    setCode(dr, code);
+                    continue;
+                }
+            }
+            setString(dr, source.getString(sr));
+        }
+    }
+
+    @Override
+    public UTF8String getString(int row)
+    {
+        if (isNull(row))
+        {
+            return null;
+        }
+        if (dictionary != null)
+        {
+            return dictionary.values.get(codes.get(row));
+        }
+        return UTF8String.utf8(bytes, offsets.get(row), lengths.get(row));
+    }
+
+    @Override
+    public float getFloat(int row)
+    {
+        return JavaFloatParser.parseFloat(getString(row).toString());
+    }
+
+    @Override
+    public ValueVector getDictionary()
+    {
+        return dictionary;
+    }
+
+    @Override
+    public int getDictionaryCode(int row)
+    {
+        if (dictionary == null)
+        {
+            throw new IllegalArgumentException("Vector is not dictionary encoded");
+        }
+        return codes.get(row);
+    }
+
+    /** Return the hash code of provided row. Equals the hash code of the {@link UTF8String} at the row but is calculated directly on the buffer. */
+    public int hashCode(int row)
+    {
+        if (dictionary != null)
+        {
+            // The dictionary strings caches their hash
+            return dictionary.values.get(codes.get(row))
+                    .hashCode();
+        }
+        return UTF8String.hashCode(bytes, offsets.get(row), lengths.get(row));
+    }
+
+    @Override
+    public void setNull(int row)
+    {
+        fillNulls(row);
+        super.setNull(row);
+    }
+
+    /** Return code of provided value. Value is added to dictionary if missing. Returns -1 if the dictionary was abandoned */
+    private int encode(UTF8String value)
+    {
+        int code = dictionary.codes.getInt(value);
+        if (code >= 0)
+        {
+            return code;
+        }
+
+        int dictionarySize = dictionary.values.size();
+        if (dictionarySize >= DICTIONARY_MAX_SIZE
+                || (dictionarySize >= DICTIONARY_RATIO_MIN_SIZE
+                        && dictionarySize * 2 > size))
+        {
+            decode();
+            return -1;
+        }
+
+        int length = value.getByteLength();
+        int offset = append(value, length);
+        dictionary.offsets.add(offset);
+        dictionary.lengths.add(length);
+        UTF8String dictionaryValue = UTF8String.utf8(bytes, offset, length);
+        dictionary.values.add(dictionaryValue);
+        dictionary.codes.put(dictionaryValue, dictionarySize);
+        return dictionarySize;
+    }
+
+    /** Return code of this dictionary for a code in another dictionary. Returns -1 if the dictionary was abandoned */
+    private int remapCode(ValueVector sourceDictionary, int sourceCode)
+    {
+        if (remapDictionary != sourceDictionary)
+        {
+            remapDictionary = sourceDictionary;
+            remapCodes = null;
+        }
+        if (remapCodes == null
+                || remapCodes.length <= sourceCode)
+        {
+            int oldLength = remapCodes == null ? 0
+                    : remapCodes.length;
+            remapCodes = remapCodes == null ? new int[sourceDictionary.size()]
+                    : Arrays.copyOf(remapCodes, sourceDictionary.size());
+            Arrays.fill(remapCodes, oldLength, remapCodes.length, -1);
+        }
+
+        int code = remapCodes[sourceCode];
+        if (code < 0)
+        {
+            code = encode(sourceDictionary.getString(sourceCode));
+            if (code >= 0)
+            {
+                remapCodes[sourceCode] = code;
+            }
+        }
+        return code;
+    }
+
+    /** Abandon the dictionary and switch to plain encoding. The values bytes are already in the buffer so only offsets and lengths are created */
+    private void decode()
+    {
+        final Dictionary oldDictionary = dictionary;
+        final IntBuffer oldCodes = codes;
+        dictionary = null;
+        codes = null;
+        remapDictionary = null;
+        remapCodes = null;
+        if (oldCodes == null)
+        {
+            return;
+        }
+
+        ensureSize(oldCodes.limit());
+        for (int row = 0; row < size; row++)
+        {
+            if (isNull(row))
+            {
+                continue;
+            }
+            int code = oldCodes.get(row);
+            offsets.put(row, oldDictionary.offsets.getInt(code));
+            lengths.put(row, oldDictionary.lengths.getInt(code));
+        }
+    }
+
+    private int append(UTF8String value, int length)
+    {
+        ensureBytes(length);
+        int offset = bytesSize;
+        value.getBytes(bytes, offset);
+        bytesSize += length;
+        return offset;
+    }
+
+    private void setCode(int row, int code)
+    {
+        ensureSize(row + 1);
+        fillNulls(row);
+        size = Math.max(size, row + 1);
+        codes.put(row, code);
+        removeNull(row);
+    }
+
+    private void setRow(int row, int offset, int length)
+    {
+        fillNulls(row);
+        size = Math.max(size, row + 1);
+        offsets.put(row, offset);
+        lengths.put(row, length);
+        removeNull(row);
+    }
+
+    /** Rows that are skipped when writing at a row beyond current size are nulls */
+    private void fillNulls(int row)
+    {
+        for (int i = size; i < row; i++)
+        {
+            super.setNull(i);
+        }
+    }
+
+    private void ensureBytes(int length)
+    {
+        int limit = bytesSize + length;
+        if (bytes == null)
+        {
+            bytes = factory.getAllocator()
+                    .getByteBuffer((int) Math.max(Math.min((long) estimatedCapacity * ESTIMATED_STRING_LENGTH, MAX_INITIAL_BYTES_SIZE), limit));
+        }
+        else if (bytes.length < limit)
+        {
+            byte[] newBytes = factory.getAllocator()
+                    .getByteBuffer(Math.max(limit, bytes.length * 2));
+            System.arraycopy(bytes, 0, newBytes, 0, bytesSize);
+            bytes = newBytes;
+        }
+    }
+
+    private void ensureSize(int limit)
+    {
+        if (dictionary != null)
+        {
+            codes = ensureSize(codes, limit);
+        }
+        else
+        {
+            offsets = ensureSize(offsets, limit);
+            lengths = ensureSize(lengths, limit);
+        }
+    }
+
+    private IntBuffer ensureSize(IntBuffer buffer, int limit)
+    {
+        if (buffer == null)
+        {
+            return factory.getAllocator()
+                    .getIntBuffer(Math.max(estimatedCapacity, limit));
+        }
+        else if (buffer.limit() < limit)
+        {
+            IntBuffer newBuffer = factory.getAllocator()
+                    .getIntBuffer(Math.max(estimatedCapacity, limit * 2));
+            newBuffer.put(buffer);
+            newBuffer.position(0);
+            return newBuffer;
+        }
+        return buffer;
+    }
+
+    /** Dictionary of a vector. Contains each distinct value once, the row of a value is it's code */
+    private static class Dictionary implements ValueVector
+    {
+        private final Object2IntOpenHashMap<UTF8String> codes = new Object2IntOpenHashMap<>();
+        private final List<UTF8String> values = new ArrayList<>();
+        /* Offsets and lengths of the values in the vectors byte buffer */
+        private final IntArrayList offsets = new IntArrayList();
+        private final IntArrayList lengths = new IntArrayList();
+
+        Dictionary()
+        {
+            codes.defaultReturnValue(-1);
+        }
+
+        @Override
+        public ResolvedType type()
+        {
+            return ResolvedType.STRING;
+        }
+
+        @Override
+        public int size()
+        {
+            return values.size();
+        }
+
+        @Override
+        public boolean hasNulls()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isNull(int row)
+        {
+            return false;
+        }
+
+        @Override
+        public UTF8String getString(int row)
+        {
+            return values.get(row);
+        }
+
+        @Override
+        public int getDictionaryCode(UTF8String value)
+        {
+            return codes.getInt(value);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+
+/**
+ * Materialized kernels for arithmetic and comparison expressions on primitive vectors. The operation is resolved once per vector and then each row is computed in a tight loop that writes straight
+ * into the buffer of the result vector. Nulls of the inputs are combined into the result first (word by word for mutable vectors) and null rows are skipped when computing values.
+ */
+public final class PrimitiveKernels
+{
+    private PrimitiveKernels()
+    {
+    }
+
+    /** Returns true if provided type can be handled by the kernels */
+    public static boolean supports(Type type)
+    {
+        return type == Type.Int
+                || type == Type.Long
+                || type == Type.Float
+                || type == Type.Double;
+    }
+
+    /**
+     * Perform arithmetic operation on all rows of left and right.
+     *
+     * @param factory Factory used to allocate result vector
+     * @param operation The arithmetic operation
+     * @param type The result type. Left and right values are read as this type. Must be a type that is supported according to {@link #supports(Type)}
+     * @param left Left vector
+     * @param right Right vector
+     * @param rowCount Number of rows to process
+     */
+    public static ValueVector arithmetic(VectorFactory factory, IArithmeticBinaryExpression.Type operation, Type type, ValueVector left, ValueVector right, int rowCount)
+    {
+        return switch (type)
+        {
+            case Int -> arithmeticInt(factory, operation, left, right, rowCount);
+            case Long -> arithmeticLong(factory, operation, left, right, rowCount);
+            case Float -> arithmeticFloat(factory, operation, left, right, rowCount);
+            case Double -> arithmeticDouble(factory, operation, left, right, rowCount);
+            default -> throw new IllegalArgumentException("Unsupported kernel type " + type);
+        };
+    }
+
+    /**
+     * Perform comparison on all rows of left and right. Equality is compared with == and the other comparisons with the compare method of the type, same as
+     * {@link se.kuseman.payloadbuilder.core.execution.VectorUtils}. Inputs without nulls are compared with {@link SimdKernels} when enabled.
+     *
+     * @param factory Factory used to allocate result vector
+     * @param operation The comparison operation
+     * @param type The type to compare values as. Must be a type that is supported according to {@link #supports(Type)}
+     * @param left Left vector
+     * @param right Right vector
+     * @param rowCount Number of rows to process
+     */
+    public static ValueVector compare(VectorFactory factory, IComparisonExpression.Type operation, Type type, ValueVector left, ValueVector right, int rowCount)
+    {
+        MutableBooleanVector result = new MutableBooleanVector(factory, rowCount);
+        BitBuffer buffer = result.getBuffer(rowCount);
+        boolean hasNulls = orNulls(result, left, right, rowCount);
+        if (!hasNulls
+                && SimdKernels.compare(operation, type, left, right, rowCount, buffer))
+        {
+            return result;
+        }
+
+        boolean equality = operation == IComparisonExpression.Type.EQUAL
+                || operation == IComparisonExpression.Type.NOT_EQUAL;
+        boolean equal = operation == IComparisonExpression.Type.EQUAL;
+        // Bit mask with the result for each sign of the comparison (less, equal, greater)
+        int mask = switch (operation)
+        {
+            case GREATER_THAN -> 0b100;
+            case GREATER_THAN_EQUAL -> 0b110;
+            case LESS_THAN -> 0b001;
+            case LESS_THAN_EQUAL -> 0b011;
+            default -> 0;
+        };
+
+        switch (type)
+        {
+            case Int:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, equality ? (left.getInt(i) == right.getInt(i)) == equal
+                                : isSet(mask, Integer.compare(left.getInt(i), right.getInt(i))));
+                    }
+                }
+                break;
+            case Long:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, equality ? (left.getLong(i) == right.getLong(i)) == equal
+                                : isSet(mask, Long.compare(left.getLong(i), right.getLong(i))));
+                    }
+                }
+                break;
+            case Float:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, equality ? (left.getFloat(i) == right.getFloat(i)) == equal
+                                : isSet(mask, Float.compare(left.getFloat(i), right.getFloat(i))));
+                    }
+                }
+                break;
+            case Double:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, equality ? (left.getDouble(i) == right.getDouble(i)) == equal
+                                : isSet(mask, Double.compare(left.getDouble(i), right.getDouble(i))));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported kernel type " + type);
+        }
+        return result;
+    }
+
+    private static boolean isSet(int mask, int compareResult)
+    {
+        return ((mask >>> (Integer.signum(compareResult) + 1)) & 1) != 0;
+    }
+
+    private static ValueVector arithmeticInt(VectorFactory factory, IArithmeticBinaryExpression.Type operation, ValueVector left, ValueVector right, int rowCount)
+    {
+        MutableIntVector result = new MutableIntVector(factory, rowCount);
+        IntBuffer buffer = result.getBuffer(rowCount);
+        boolean hasNulls = orNulls(result, left, right, rowCount);
+        switch (operation)
+        {
+            case ADD:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.addExact(left.getInt(i), right.getInt(i)));
+                    }
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.subtractExact(left.getInt(i), right.getInt(i)));
+                    }
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.multiplyExact(left.getInt(i), right.getInt(i)));
+                    }
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.floorDiv(left.getInt(i), right.getInt(i)));
+                    }
+                }
+                break;
+            case MODULUS:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.floorMod(left.getInt(i), right.getInt(i)));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+        return result;
+    }
+
+    private static ValueVector arithmeticLong(VectorFactory factory, IArithmeticBinaryExpression.Type operation, ValueVector left, ValueVector right, int rowCount)
+    {
+        MutableLongVector result = new MutableLongVector(factory, rowCount);
+        LongBuffer buffer = result.getBuffer(rowCount);
+        boolean hasNulls = orNulls(result, left, right, rowCount);
+        switch (operation)
+        {
+            case ADD:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.addExact(left.getLong(i), right.getLong(i)));
+                    }
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.subtractExact(left.getLong(i), right.getLong(i)));
+                    }
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.multiplyExact(left.getLong(i), right.getLong(i)));
+                    }
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.floorDiv(left.getLong(i), right.getLong(i)));
+                    }
+                }
+                break;
+            case MODULUS:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, Math.floorMod(left.getLong(i), right.getLong(i)));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+        return result;
+    }
+
+    private static ValueVector arithmeticFloat(VectorFactory factory, IArithmeticBinaryExpression.Type operation, ValueVector left, ValueVector right, int rowCount)
+    {
+        MutableFloatVector result = new MutableFloatVector(factory, rowCount);
+        FloatBuffer buffer = result.getBuffer(rowCount);
+        boolean hasNulls = orNulls(result, left, right, rowCount);
+        switch (operation)
+        {
+            case ADD:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getFloat(i) + right.getFloat(i));
+                    }
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getFloat(i) - right.getFloat(i));
+                    }
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getFloat(i) * right.getFloat(i));
+                    }
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getFloat(i) / right.getFloat(i));
+                    }
+                }
+                break;
+            case MODULUS:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getFloat(i) % right.getFloat(i));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+        return result;
+    }
+
+    private static ValueVector arithmeticDouble(VectorFactory factory, IArithmeticBinaryExpression.Type operation, ValueVector left, ValueVector right, int rowCount)
+    {
+        MutableDoubleVector result = new MutableDoubleVector(factory, rowCount);
+        DoubleBuffer buffer = result.getBuffer(rowCount);
+        boolean hasNulls = orNulls(result, left, right, rowCount);
+        switch (operation)
+        {
+            case ADD:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getDouble(i) + right.getDouble(i));
+                    }
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getDouble(i) - right.getDouble(i));
+                    }
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getDouble(i) * right.getDouble(i));
+                    }
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getDouble(i) / right.getDouble(i));
+                    }
+                }
+                break;
+            case MODULUS:
+                for (int i = 0; i < rowCount; i++)
+                {
+                    if (!hasNulls
+                            || !result.isNull(i))
+                    {
+                        buffer.put(i, left.getDouble(i) % right.getDouble(i));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+        return result;
+    }
+
+    /** Mark rows that are null in left or right as null in result. Returns true if result has nulls */
+    private static boolean orNulls(AMutableVector result, ValueVector left, ValueVector right, int rowCount)
+    {
+        result.orNulls(left, rowCount);
+        result.orNulls(right, rowCount);
+        return result.hasNulls();
+    }
+}
@@ -0,0 +1,225 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+
+/**
+ * SIMD kernels for comparisons and aggregations on primitive vectors implemented with the incubating Vector API. The kernels are only compiled with the simd Maven profile and are enabled when the
+ * JVM is started with {@code --add-modules jdk.incubator.vector} and system property {@value #PROPERTY} is set to true. Kernels are only applied on vectors without nulls that are backed by
+ * primitive arrays, all other vectors are processed by the scalar implementations.
+ */
+public final class SimdKernels
+{
+    /** System property that enables the SIMD kernels */
+    public static final String PROPERTY = "payloadbuilder.simd";
+    private static final IVectorKernels KERNELS = loadKernels();
+    private static final boolean AVAILABLE = KERNELS != null;
+    private static boolean enabled = AVAILABLE
+            && Boolean.getBoolean(PROPERTY);
+
+    private SimdKernels()
+    {
+    }
+
+    /** Returns true if SIMD kernels are enabled */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /** Enable or disable SIMD kernels. Kernels can only be enabled if the vector module is available. Returns the previous state */
+    static boolean setEnabled(boolean value)
+    {
+        boolean previous = enabled;
+        enabled = AVAILABLE
+                && value;
+        return previous;
+    }
+
+    /**
+     * Returns true if all rows of provided vector can be aggregated with the SIMD kernels as provided type. That is kernels are enabled, the vector has no nulls and is backed by an array of the type,
+     * either directly or through a selection of contiguous rows.
+     */
+    public static boolean supports(ValueVector vector, Type type)
+    {
+        return enabled
+                && getArray(vector, type) != null;
+    }
+
+    /** Sum all rows of an int vector. Vector must be supported according to {@link #supports(ValueVector, Type)}. Throws {@link ArithmeticException} on overflow */
+    public static int sumInt(ValueVector vector)
+    {
+        return KERNELS.sumInt((int[]) getArray(vector, Type.Int), getOffset(vector), vector.size());
+    }
+
+    /** Sum all rows of a long vector. Vector must be supported according to {@link #supports(ValueVector, Type)}. Throws {@link ArithmeticException} on overflow */
+    public static long sumLong(ValueVector vector)
+    {
+        return KERNELS.sumLong((long[]) getArray(vector, Type.Long), getOffset(vector), vector.size());
+    }
+
+    /** Sum all rows of a float vector. Vector must be supported according to {@link #supports(ValueVector, Type)} */
+    public static float sumFloat(ValueVector vector)
+    {
+        return KERNELS.sumFloat((float[]) getArray(vector, Type.Float), getOffset(vector), vector.size());
+    }
+
+    /** Sum all rows of a double vector. Vector must be supported according to {@link #supports(ValueVector, Type)} */
+    public static double sumDouble(ValueVector vector)
+    {
+        return KERNELS.sumDouble((double[]) getArray(vector, Type.Double), getOffset(vector), vector.size());
+    }
+
+    /** Return min or max of all rows of a non empty int vector. Vector must be supported according to {@link #supports(ValueVector, Type)} */
+    public static int minMaxInt(ValueVector vector, boolean min)
+    {
+        return KERNELS.minMaxInt(min, (int[]) getArray(vector, Type.Int), getOffset(vector), vector.size());
+    }
+
+    /** Return min or max of all rows of a non empty long vector. Vector must be supported according to {@link #supports(ValueVector, Type)} */
+    public static long minMaxLong(ValueVector vector, boolean min)
+    {
+        return KERNELS.minMaxLong(min, (long[]) getArray(vector, Type.Long), getOffset(vector), vector.size());
+    }
+
+    /**
+     * Compare left and right and set matching rows in result. Float and double are only supported for equality since the other comparisons doesn't follow IEEE. Left must be backed by an array and
+     * right by an array or be a literal. Neither can have nulls.
+     *
+     * @return True if the comparison was performed otherwise false and the scalar kernel should be used.
+     */
+    static boolean compare(IComparisonExpression.Type operation, Type type, ValueVector left, ValueVector right, int rowCount, BitBuffer result)
+    {
+        boolean equality = operation == IComparisonExpression.Type.EQUAL
+                || operation == IComparisonExpression.Type.NOT_EQUAL;
+        if (!enabled
+                || rowCount == 0
+                || left instanceof SelectedValueVector
+                || right instanceof SelectedValueVector
+                || (!equality
+                        && (type == Type.Float
+                                || type == Type.Double)))
+        {
+            return false;
+        }
+
+        Object leftArray = left.size() >= rowCount ? getArray(left, type)
+                : null;
+        if (leftArray == null)
+        {
+            return false;
+        }
+        boolean literal = right instanceof ValueVector.LiteralValueVector
+                && !right.isNull(0);
+        Object rightArray = literal ? null
+                : right.size() >= rowCount ? getArray(right, type)
+                        : null;
+        if (!literal
+                && rightArray == null)
+        {
+            return false;
+        }
+
+        long[] words = new long[(rowCount + 63) >>> 6];
+        boolean equal = operation == IComparisonExpression.Type.EQUAL;
+        switch (type)
+        {
+            case Int:
+                KERNELS.compareInt(operation, (int[]) leftArray, (int[]) rightArray, literal ? right.getInt(0)
+                        : 0, rowCount, words);
+                break;
+            case Long:
+                KERNELS.compareLong(operation, (long[]) leftArray, (long[]) rightArray, literal ? right.getLong(0)
+                        : 0, rowCount, words);
+                break;
+            case Float:
+                KERNELS.equalsFloat(equal, (float[]) leftArray, (float[]) rightArray, literal ? right.getFloat(0)
+                        : 0, rowCount, words);
+                break;
+            case Double:
+                KERNELS.equalsDouble(equal, (double[]) leftArray, (double[]) rightArray, literal ? right.getDouble(0)
+                        : 0, rowCount, words);
+                break;
+            default:
+                return false;
+        }
+        result.or(words);
+        return true;
+    }
+
+    /** Load the Vector API kernels. Returns null if the vector module is not available or if the kernels was not compiled */
+    private static IVectorKernels loadKernels()
+    {
+        if (ModuleLayer.boot()
+                .findModule("jdk.incubator.vector")
+                .isEmpty())
+        {
+            return null;
+        }
+        try
+        {
+            return (IVectorKernels) Class.forName(SimdKernels.class.getPackageName() + ".VectorApiKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            return null;
+        }
+    }
+
+    /** Return the first row of the wrapped vector if vector is a selection */
+    private static int getOffset(ValueVector vector)
+    {
+        return vector instanceof SelectedValueVector selected
+                && vector.size() > 0 ? selected.getSelection()[0]
+                        : 0;
+    }
+
+    /**
+     * Return the array backing provided vector or the vector wrapped by a selection. Returns null if the vector has nulls or isn't backed by an array of provided type. Selections must be a
+     * contiguous range of rows since the kernels doesn't use gather loads.
+     */
+    private static Object getArray(ValueVector vector, Type type)
+    {
+        ValueVector source = vector;
+        if (vector instanceof SelectedValueVector selected)
+        {
+            source = selected.getVector();
+            int[] selection = selected.getSelection();
+            int length = selection.length;
+            if (length > 0
+                    && (selection[0] < 0
+                            || selection[0] + length > source.size()))
+            {
+                return null;
+            }
+            for (int i = 1; i < length; i++)
+            {
+                if (selection[i] != selection[0] + i)
+                {
+                    return null;
+                }
+            }
+        }
+        if (!(source instanceof AMutableVector)
+                || source.hasNulls())
+        {
+            return null;
+        }
+        return switch (type)
+        {
+            case Int -> source instanceof MutableIntVector v ? v.getBackingArray()
+                    : null;
+            case Long -> source instanceof MutableLongVector v ? v.getBackingArray()
+                    : null;
+            case Float -> source instanceof MutableFloatVector v ? v.getBackingArray()
+                    : null;
+            case Double -> source instanceof MutableDoubleVector v ? v.getBackingArray()
+                    : null;
+            default -> null;
+        };
+    }
+}
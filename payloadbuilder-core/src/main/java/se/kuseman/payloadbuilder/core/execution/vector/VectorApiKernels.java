@@ -0,0 +1,339 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels implemented with the incubating Vector API. This is the only class that references jdk.incubator.vector, it's only compiled with the simd profile and is loaded by {@link SimdKernels} when
+ * the module is available. Arrays are processed in chunks of the preferred species length and the tail rows are processed with scalar code. Only contiguous rows are processed, gather loads with an
+ * index map crashes C2 compiled code on JDK 17.
+ */
+final class VectorApiKernels implements IVectorKernels
+{
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void compareInt(IComparisonExpression.Type operation, int[] left, int[] right, int rightValue, int rowCount, long[] words)
+    {
+        VectorOperators.Comparison comparison = getComparison(operation);
+        int length = INT_SPECIES.length();
+        int bound = INT_SPECIES.loopBound(rowCount);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            IntVector l = IntVector.fromArray(INT_SPECIES, left, i);
+            long bits = right != null ? l.compare(comparison, IntVector.fromArray(INT_SPECIES, right, i))
+                    .toLong()
+                    : l.compare(comparison, rightValue)
+                            .toLong();
+            words[i >>> 6] |= bits << (i & 63);
+        }
+        for (; i < rowCount; i++)
+        {
+            if (matches(operation, Integer.compare(left[i], right != null ? right[i]
+                    : rightValue)))
+            {
+                words[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    @Override
+    public void compareLong(IComparisonExpression.Type operation, long[] left, long[] right, long rightValue, int rowCount, long[] words)
+    {
+        VectorOperators.Comparison comparison = getComparison(operation);
+        int length = LONG_SPECIES.length();
+        int bound = LONG_SPECIES.loopBound(rowCount);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            LongVector l = LongVector.fromArray(LONG_SPECIES, left, i);
+            long bits = right != null ? l.compare(comparison, LongVector.fromArray(LONG_SPECIES, right, i))
+                    .toLong()
+                    : l.compare(comparison, rightValue)
+                            .toLong();
+            words[i >>> 6] |= bits << (i & 63);
+        }
+        for (; i < rowCount; i++)
+        {
+            if (matches(operation, Long.compare(left[i], right != null ? right[i]
+                    : rightValue)))
+            {
+                words[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    @Override
+    public void equalsFloat(boolean equal, float[] left, float[] right, float rightValue, int rowCount, long[] words)
+    {
+        int length = FLOAT_SPECIES.length();
+        int bound = FLOAT_SPECIES.loopBound(rowCount);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            FloatVector l = FloatVector.fromArray(FLOAT_SPECIES, left, i);
+            long bits = right != null ? l.compare(VectorOperators.EQ, FloatVector.fromArray(FLOAT_SPECIES, right, i))
+                    .toLong()
+                    : l.compare(VectorOperators.EQ, rightValue)
+                            .toLong();
+            words[i >>> 6] |= (equal ? bits
+                    : ~bits & lanes(length)) << (i & 63);
+        }
+        for (; i < rowCount; i++)
+        {
+            if ((left[i] == (right != null ? right[i]
+                    : rightValue)) == equal)
+            {
+                words[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    @Override
+    public void equalsDouble(boolean equal, double[] left, double[] right, double rightValue, int rowCount, long[] words)
+    {
+        int length = DOUBLE_SPECIES.length();
+        int bound = DOUBLE_SPECIES.loopBound(rowCount);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            DoubleVector l = DoubleVector.fromArray(DOUBLE_SPECIES, left, i);
+            long bits = right != null ? l.compare(VectorOperators.EQ, DoubleVector.fromArray(DOUBLE_SPECIES, right, i))
+                    .toLong()
+                    : l.compare(VectorOperators.EQ, rightValue)
+                            .toLong();
+            words[i >>> 6] |= (equal ? bits
+                    : ~bits & lanes(length)) << (i & 63);
+        }
+        for (; i < rowCount; i++)
+        {
+            if ((left[i] == (right != null ? right[i]
+                    : rightValue)) == equal)
+            {
+                words[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    @Override
+    public int sumInt(int[] values, int offset, int rowCount)
+    {
+        int length = INT_SPECIES.length();
+        int bound = INT_SPECIES.loopBound(rowCount);
+        IntVector sum = IntVector.zero(INT_SPECIES);
+        IntVector overflow = IntVector.zero(INT_SPECIES);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            IntVector v = IntVector.fromArray(INT_SPECIES, values, offset + i);
+            IntVector result = sum.add(v);
+            // Overflow if both operands has a different sign than the result
+            overflow = overflow.or(sum.lanewise(VectorOperators.XOR, result)
+                    .and(v.lanewise(VectorOperators.XOR, result)));
+            sum = result;
+        }
+
+        boolean overflowed = overflow.compare(VectorOperators.LT, 0)
+                .anyTrue();
+        long result = 0;
+        if (!overflowed)
+        {
+            for (int lane = 0; lane < length; lane++)
+            {
+                result += sum.lane(lane);
+            }
+            for (; i < rowCount; i++)
+            {
+                result += values[offset + i];
+            }
+            overflowed = result != (int) result;
+        }
+        if (overflowed)
+        {
+            int exact = 0;
+            for (int j = 0; j < rowCount; j++)
+            {
+                exact = Math.addExact(exact, values[offset + j]);
+            }
+            return exact;
+        }
+        return (int) result;
+    }
+
+    @Override
+    public long sumLong(long[] values, int offset, int rowCount)
+    {
+        int length = LONG_SPECIES.length();
+        int bound = LONG_SPECIES.loopBound(rowCount);
+        LongVector sum = LongVector.zero(LONG_SPECIES);
+        LongVector overflow = LongVector.zero(LONG_SPECIES);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            LongVector v = LongVector.fromArray(LONG_SPECIES, values, offset + i);
+            LongVector result = sum.add(v);
+            overflow = overflow.or(sum.lanewise(VectorOperators.XOR, result)
+                    .and(v.lanewise(VectorOperators.XOR, result)));
+            sum = result;
+        }
+
+        long result = 0;
+        boolean overflowed = overflow.compare(VectorOperators.LT, 0)
+                .anyTrue();
+        for (int lane = 0; lane < length
+                && !overflowed; lane++)
+        {
+            long value = sum.lane(lane);
+            long r = result + value;
+            overflowed = ((result ^ r) & (value ^ r)) < 0;
+            result = r;
+        }
+        for (; i < rowCount
+                && !overflowed; i++)
+        {
+            long value = values[offset + i];
+            long r = result + value;
+            overflowed = ((result ^ r) & (value ^ r)) < 0;
+            result = r;
+        }
+        if (overflowed)
+        {
+            long exact = 0;
+            for (int j = 0; j < rowCount; j++)
+            {
+                exact = Math.addExact(exact, values[offset + j]);
+            }
+            return exact;
+        }
+        return result;
+    }
+
+    @Override
+    public float sumFloat(float[] values, int offset, int rowCount)
+    {
+        int length = FLOAT_SPECIES.length();
+        int bound = FLOAT_SPECIES.loopBound(rowCount);
+        FloatVector sum = FloatVector.zero(FLOAT_SPECIES);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            sum = sum.add(FloatVector.fromArray(FLOAT_SPECIES, values, offset + i));
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < rowCount; i++)
+        {
+            result += values[offset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public double sumDouble(double[] values, int offset, int rowCount)
+    {
+        int length = DOUBLE_SPECIES.length();
+        int bound = DOUBLE_SPECIES.loopBound(rowCount);
+        DoubleVector sum = DoubleVector.zero(DOUBLE_SPECIES);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            sum = sum.add(DoubleVector.fromArray(DOUBLE_SPECIES, values, offset + i));
+        }
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < rowCount; i++)
+        {
+            result += values[offset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public int minMaxInt(boolean min, int[] values, int offset, int rowCount)
+    {
+        VectorOperators.Associative operator = min ? VectorOperators.MIN
+                : VectorOperators.MAX;
+        int length = INT_SPECIES.length();
+        int bound = INT_SPECIES.loopBound(rowCount);
+        IntVector acc = IntVector.broadcast(INT_SPECIES, min ? Integer.MAX_VALUE
+                : Integer.MIN_VALUE);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            acc = acc.lanewise(operator, IntVector.fromArray(INT_SPECIES, values, offset + i));
+        }
+        int result = acc.reduceLanes(operator);
+        for (; i < rowCount; i++)
+        {
+            result = min ? Math.min(result, values[offset + i])
+                    : Math.max(result, values[offset + i]);
+        }
+        return result;
+    }
+
+    @Override
+    public long minMaxLong(boolean min, long[] values, int offset, int rowCount)
+    {
+        VectorOperators.Associative operator = min ? VectorOperators.MIN
+                : VectorOperators.MAX;
+        int length = LONG_SPECIES.length();
+        int bound = LONG_SPECIES.loopBound(rowCount);
+        LongVector acc = LongVector.broadcast(LONG_SPECIES, min ? Long.MAX_VALUE
+                : Long.MIN_VALUE);
+        int i = 0;
+        for (; i < bound; i += length)
+        {
+            acc = acc.lanewise(operator, LongVector.fromArray(LONG_SPECIES, values, offset + i));
+        }
+        long result = acc.reduceLanes(operator);
+        for (; i < rowCount; i++)
+        {
+            result = min ? Math.min(result, values[offset + i])
+                    : Math.max(result, values[offset + i]);
+        }
+        return result;
+    }
+
+    /** Return a mask with the lowest length bits set */
+    private static long lanes(int length)
+    {
+        return length == 64 ? -1L
+                : (1L << length) - 1;
+    }
+
+    private static VectorOperators.Comparison getComparison(IComparisonExpression.Type operation)
+    {
+        return switch (operation)
+        {
+            case EQUAL -> VectorOperators.EQ;
+            case NOT_EQUAL -> VectorOperators.NE;
+            case GREATER_THAN -> VectorOperators.GT;
+            case GREATER_THAN_EQUAL -> VectorOperators.GE;
+            case LESS_THAN -> VectorOperators.LT;
+            case LESS_THAN_EQUAL -> VectorOperators.LE;
+            default -> throw new IllegalArgumentException("Unsupported operation " + operation);
+        };
+    }
+
+    private static boolean matches(IComparisonExpression.Type operation, int compareResult)
+    {
+        return switch (operation)
+        {
+            case EQUAL -> compareResult == 0;
+            case NOT_EQUAL -> compareResult != 0;
+            case GREATER_THAN -> compareResult > 0;
+            case GREATER_THAN_EQUAL -> compareResult >= 0;
+            case LESS_THAN -> compareResult < 0;
+            case LESS_THAN_EQUAL -> compareResult <= 0;
+            default -> throw new IllegalArgumentException("Unsupported operation " + operation);
+        };
+    }
+}
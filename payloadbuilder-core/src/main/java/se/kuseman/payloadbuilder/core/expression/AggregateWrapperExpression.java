@@ -182,6 +182,42 @@ public void appendGroup(TupleVector input, ValueVector groupIds, ValueVector sel
             }
         }
 
+        @Override
+        public boolean supportsMerge()
+        {
+            return true;
+        }
+
+        @Override
+        public void merge(IAggregator partial, ValueVector groupIds, ValueVector partialGroupIds, IExecutionContext context)
+        {
+            MutableValueVector partialResult = ((ExpressionAggregator) partial).result;
+            int groupCount = groupIds.size();
+            if (result == null)
+            {
+                result = context.getVectorFactory()
+                        .getMutableVector(ResolvedType.of(Type.Any), groupCount);
+            }
+
+            for (int i = 0; i < groupCount; i++)
+            {
+                int groupId = groupIds.getInt(i);
+                int partialGroupId = partialGroupIds.getInt(i);
+                // Same as when appending, the latest input with values for the group wins
+                Object groupResult = partialResult != null
+                        && partialGroupId < partialResult.size() ? partialResult.valueAsObject(partialGroupId)
+                                : null;
+                if (groupResult != null)
+                {
+                    result.setAny(groupId, groupResult);
+                }
+                else if (result.size() <= groupId)
+                {
+                    result.setNull(groupId);
+                }
+            }
+        }
+
         @Override
         public ValueVector combine(IExecutionContext context)
         {
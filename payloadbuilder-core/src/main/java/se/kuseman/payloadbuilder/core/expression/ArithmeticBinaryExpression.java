@@ -13,6 +13,8 @@
 import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.execution.ExpressionMath;
+import se.kuseman.payloadbuilder.core.execution.vector.PrimitiveKernels;
+import se.kuseman.payloadbuilder.core.execution.vector.VectorFactory;
 
 /** Expression that handles arithmetics +/- etc. */
 public class ArithmeticBinaryExpression extends ABinaryExpression implements IArithmeticBinaryExpression
@@ -86,7 +88,10 @@ public ResolvedType getType()
     @Override
     public ValueVector eval(TupleVector input, IExecutionContext context)
     {
-        return eval(input, ValueVector.range(0, input.getRowCount()), context);
+        // Evaluate children without selection to let kernels operate on the vectors as is
+        ValueVector lvv = left.eval(input, context);
+        ValueVector rvv = right.eval(input, context);
+        return eval(lvv, rvv, input.getRowCount(), context);
     }
 
     @Override
@@ -94,8 +99,30 @@ public ValueVector eval(TupleVector input, ValueVector selection, IExecutionCont
     {
         ValueVector lvv = left.eval(input, selection, context);
         ValueVector rvv = right.eval(input, selection, context);
-        final int rowCount = selection.size();
+        return eval(lvv, rvv, selection.size(), context);
+    }
+
+    private ValueVector eval(ValueVector lvv, ValueVector rvv, int rowCount, IExecutionContext context)
+    {
         final Column.Type resultType = getType(lvv.type(), rvv.type()).getType();
+        // Primitive results are materialized by kernels, lazy evaluation is used for the other types and when the kernel fails
+        if (context != null
+                && context.getVectorFactory() instanceof VectorFactory factory
+                && PrimitiveKernels.supports(lvv.type()
+                        .getType())
+                && PrimitiveKernels.supports(rvv.type()
+                        .getType()))
+        {
+            try
+            {
+                return PrimitiveKernels.arithmetic(factory, type, resultType, lvv, rvv, rowCount);
+            }
+            catch (ArithmeticException e)
+            {
+                // Overflow or division by zero, fall back to lazy evaluation to only fail when the affected row is read
+            }
+        }
+
         return new ValueVector()
         {
             @Override
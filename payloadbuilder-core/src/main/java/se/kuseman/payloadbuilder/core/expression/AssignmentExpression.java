@@ -105,6 +105,16 @@ public ValueVector eval(TupleVector input, IExecutionContext context)
         int size = input.getRowCount();
         MutableValueVector result = context.getVectorFactory()
                 .getMutableVector(expression.getType(), 1);
+        // Copy any previous value since the expression might reference the variable and is evaluated
+        // before the result is copied
+        ValueVector old = ((ExecutionContext) context).getVariableValue(variable);
+        if (old != null
+                && old.size() > 0
+                && old.type()
+                        .equals(result.type()))
+        {
+            result.copy(0, old, 0, 1);
+        }
         // We need set the result vector into context before we loop all rows
         // since we might have expressions that references the variable in question
         // ie. @var = @var + 1
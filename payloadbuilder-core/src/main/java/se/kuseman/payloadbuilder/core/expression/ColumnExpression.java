@@ -99,6 +99,12 @@ public ColumnExpression(ColumnExpression source, int ordinal)
         this(source.alias, source.column, source.resolvedType, source.columnReference, ordinal, source.outerReference, source.lambdaId, source.columnType);
     }
 
+    /** Copy column expression but change the outer reference flag */
+    public ColumnExpression(ColumnExpression source, boolean outerReference)
+    {
+        this(source.alias, source.column, source.resolvedType, source.columnReference, source.ordinal, outerReference, source.lambdaId, source.columnType);
+    }
+
     @Override
     public String getColumn()
     {
@@ -11,6 +11,8 @@
 import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+import se.kuseman.payloadbuilder.core.execution.vector.PrimitiveKernels;
+import se.kuseman.payloadbuilder.core.execution.vector.VectorFactory;
 
 /** Comparison expression */
 public class ComparisonExpression extends ABinaryExpression implements IComparisonExpression, Invertable
@@ -110,6 +112,11 @@ public ValueVector eval(TupleVector input, ValueVector selection, IExecutionCont
 
         size = rightSelection.size();
         Column.Type resultType = getVectorComparisonType(leftVector, rightVector);
+        if (evalDictionaryEquality(leftVector, rightVector, resultType, leftRows, size, resultVector))
+        {
+            return resultVector;
+        }
+
         for (int i = 0; i < size; i++)
         {
             int row = leftRows[i];
@@ -130,9 +137,80 @@ public ValueVector eval(TupleVector input, ValueVector selection, IExecutionCont
     @Override
     public ValueVector eval(TupleVector input, IExecutionContext context)
     {
+        // Primitive inputs are evaluated without selection and compared by kernels. Only applicable when the right side is cheap to evaluate for all rows
+        // since the selection path skips right side evaluation of rows where left is null
+        if (context != null
+                && (right instanceof ColumnExpression
+                        || right instanceof LiteralExpression)
+                && context.getVectorFactory() instanceof VectorFactory factory
+                && PrimitiveKernels.supports(left.getType()
+                        .getType())
+                && PrimitiveKernels.supports(right.getType()
+                        .getType()))
+        {
+            ValueVector leftVector = left.eval(input, context);
+            ValueVector rightVector = right.eval(input, context);
+            int rowCount = input.getRowCount();
+            Column.Type resultType = getVectorComparisonType(leftVector, rightVector);
+            if (PrimitiveKernels.supports(leftVector.type()
+                    .getType())
+                    && PrimitiveKernels.supports(rightVector.type()
+                            .getType()))
+            {
+                return PrimitiveKernels.compare(factory, type, resultType, leftVector, rightVector, rowCount);
+            }
+
+            // Runtime types differs from the planned ones
+            MutableValueVector resultVector = factory.getMutableVector(ResolvedType.of(Column.Type.Boolean), rowCount);
+            for (int i = 0; i < rowCount; i++)
+            {
+                if (leftVector.isNull(i)
+                        || rightVector.isNull(i))
+                {
+                    resultVector.setNull(i);
+                }
+                else
+                {
+                    resultVector.setBoolean(i, compare(leftVector, rightVector, resultType, i, i));
+                }
+            }
+            return resultVector;
+        }
+
         return eval(input, ValueVector.range(0, input.getRowCount()), context);
     }
 
+    /**
+     * Evaluate equality between a dictionary encoded vector and a constant on the dictionary codes. The constant is looked up in the dictionary once and then only the codes are compared. Returns
+     * false if not applicable
+     */
+    private boolean evalDictionaryEquality(ValueVector leftVector, ValueVector rightVector, Column.Type resultType, int[] leftRows, int size, MutableValueVector resultVector)
+    {
+        if (resultType != Column.Type.String
+                || !(type == Type.EQUAL
+                        || type == Type.NOT_EQUAL))
+        {
+            return false;
+        }
+
+        ValueVector dictionary = leftVector.getDictionary();
+        if (dictionary == null
+                || !right.isConstant()
+                || rightVector.isNull(0))
+        {
+            return false;
+        }
+
+        int code = dictionary.getDictionaryCode(rightVector.getString(0));
+        boolean equal = type == Type.EQUAL;
+        for (int i = 0; i < size; i++)
+        {
+            int row = leftRows[i];
+            resultVector.setBoolean(row, (leftVector.getDictionaryCode(row) == code) == equal);
+        }
+        return true;
+    }
+
     private Column.Type getVectorComparisonType(ValueVector lvv, ValueVector rvv)
     {
         // Determine which type to use for vectors
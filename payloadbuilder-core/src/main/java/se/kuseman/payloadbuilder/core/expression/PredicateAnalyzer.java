@@ -195,6 +195,14 @@ public List<AnalyzePair> getEquiPairs(TableSourceReference tableSource)
                     .collect(toList());
         }
 
+        /** Returns pairs that are of Comparison range type (&gt;, &gt;=, &lt;, &lt;=) and referencing provided table source on one side only */
+        public List<AnalyzePair> getRangePairs(TableSourceReference tableSource)
+        {
+            return pairs.stream()
+                    .filter(p -> p.isRange(tableSource))
+                    .collect(toList());
+        }
+
         private boolean isNotNull(AnalyzePair pair)
         {
             if (pair.getType() != IPredicate.Type.NULL)
@@ -439,6 +447,42 @@ public boolean isEqui(TableSourceReference tableSource)
                 return false;
             }
 
+            return isSingleSided(tableSource);
+        }
+
+        /**
+         * Checks if this pair is a RANGE pair for provided table source
+         *
+         * <pre>
+         * A RANGE pair is a pair with type GREATER_THAN(_EQUAL) or LESS_THAN(_EQUAL)
+         * and have provided table source referenced single handedly
+         * on either side and is not referenced on the other side.
+         *
+         * Ie.
+         * {@code
+         * a.ts           > 10                    range
+         * 10             <= a.ts                 range
+         * a.ts           >= s.from_ts            range
+         * a.ts           > a.other_ts            not range
+         * a.ts           = 10                    not range
+         * }
+         * </pre>
+         */
+        public boolean isRange(TableSourceReference tableSource)
+        {
+            if (comparisonType != IComparisonExpression.Type.GREATER_THAN
+                    && comparisonType != IComparisonExpression.Type.GREATER_THAN_EQUAL
+                    && comparisonType != IComparisonExpression.Type.LESS_THAN
+                    && comparisonType != IComparisonExpression.Type.LESS_THAN_EQUAL)
+            {
+                return false;
+            }
+
+            return isSingleSided(tableSource);
+        }
+
+        private boolean isSingleSided(TableSourceReference tableSource)
+        {
             if (left.isSingleTableSource(tableSource, false))
             {
                 return !right.tableSources.contains(tableSource);
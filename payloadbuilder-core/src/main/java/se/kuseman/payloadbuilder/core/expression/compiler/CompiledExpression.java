@@ -0,0 +1,265 @@
+package se.kuseman.payloadbuilder.core.expression.compiler;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.expression.compiler.ExpressionCompiler.Node;
+
+/**
+ * An expression compiled by {@link ExpressionCompiler}. Kernels are generated lazily for each combination of leaf types that is seen runtime and are cached for the life time of this instance, which
+ * is the life time of the plan it belongs to. If the leaf types are not supported by the compiler the expression falls back to interpretation.
+ */
+public class CompiledExpression
+{
+    /** Marker for leaf types that cannot be compiled */
+    private static final Kernel UNSUPPORTED = new Kernel(null, null);
+
+    private final IExpression expression;
+    private final Node root;
+    private final List<IExpression> leaves;
+    private final Map<List<Column.Type>, Kernel> kernels = new ConcurrentHashMap<>();
+    /** Set when unsupported leaf types are seen. Types usually don't change between vectors so we stop trying to compile */
+    private volatile boolean interpret;
+
+    CompiledExpression(IExpression expression, Node root, List<IExpression> leaves)
+    {
+        this.expression = requireNonNull(expression, "expression");
+        this.root = requireNonNull(root, "root");
+        this.leaves = requireNonNull(leaves, "leaves");
+    }
+
+    public IExpression getExpression()
+    {
+        return expression;
+    }
+
+    /** Evaluate expression against provided input */
+    public ValueVector eval(TupleVector input, IExecutionContext context)
+    {
+        if (interpret)
+        {
+            return expression.eval(input, context);
+        }
+
+        int rowCount = input.getRowCount();
+        int size = leaves.size();
+        ValueVector[] vectors = new ValueVector[size];
+        Column.Type[] types = new Column.Type[size];
+        for (int i = 0; i < size; i++)
+        {
+            vectors[i] = leaves.get(i)
+                    .eval(input, context);
+            types[i] = vectors[i].type()
+                    .getType();
+        }
+
+        Kernel kernel = kernels.computeIfAbsent(Arrays.asList(types), k ->
+        {
+            Column.Type resultType = ExpressionCompiler.getType(root, types);
+            if (resultType == null)
+            {
+                return UNSUPPORTED;
+            }
+            return new Kernel(ExpressionCompiler.generate(root, types), resultType);
+        });
+
+        if (kernel == UNSUPPORTED)
+        {
+            interpret = true;
+            return expression.eval(input, context);
+        }
+
+        Object[] values = new Object[size];
+        boolean[][] nulls = new boolean[size][];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = getValues(vectors[i], types[i], rowCount, nulls, i);
+        }
+
+        Object result = createArray(kernel.resultType, rowCount);
+        boolean[] resultNulls = new boolean[rowCount];
+        try
+        {
+            kernel.kernel.eval(rowCount, values, nulls, result, resultNulls);
+        }
+        catch (ArithmeticException e)
+        {
+            // Overflow or division by zero, interpret the expression to only fail when the affected row is read
+            return expression.eval(input, context);
+        }
+        return new ArrayVector(ResolvedType.of(kernel.resultType), rowCount, result, resultNulls);
+    }
+
+    @Override
+    public String toString()
+    {
+        return expression.toString();
+    }
+
+    /** Copy the values of vector into a primitive array. Null rows are marked in the nulls array which is created on the first null */
+    private static Object getValues(ValueVector vector, Column.Type type, int rowCount, boolean[][] nulls, int index)
+    {
+        Object values = createArray(type, rowCount);
+        for (int row = 0; row < rowCount; row++)
+        {
+            if (vector.isNull(row))
+            {
+                if (nulls[index] == null)
+                {
+                    nulls[index] = new boolean[rowCount];
+                }
+                nulls[index][row] = true;
+                continue;
+            }
+            switch (type)
+            {
+                case Boolean:
+                    ((boolean[]) values)[row] = vector.getBoolean(row);
+                    break;
+                case Int:
+                    ((int[]) values)[row] = vector.getInt(row);
+                    break;
+                case Long:
+                    ((long[]) values)[row] = vector.getLong(row);
+                    break;
+                case Float:
+                    ((float[]) values)[row] = vector.getFloat(row);
+                    break;
+                default:
+                    ((double[]) values)[row] = vector.getDouble(row);
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private static Object createArray(Column.Type type, int size)
+    {
+        return switch (type)
+        {
+            case Boolean -> new boolean[size];
+            case Int -> new int[size];
+            case Long -> new long[size];
+            case Float -> new float[size];
+            case Double -> new double[size];
+            default -> throw new IllegalArgumentException("Unsupported type " + type);
+        };
+    }
+
+    /** Generated kernel along with its result type */
+    private record Kernel(ExpressionKernel kernel, Column.Type resultType)
+    {
+    }
+
+    /** Value vector over the primitive arrays produced by a kernel */
+    private static class ArrayVector implements ValueVector
+    {
+        private final ResolvedType type;
+        private final int size;
+        private final Object values;
+        private final boolean[] nulls;
+        private final boolean hasNulls;
+
+        ArrayVector(ResolvedType type, int size, Object values, boolean[] nulls)
+        {
+            this.type = type;
+            this.size = size;
+            this.values = values;
+            this.nulls = nulls;
+            boolean hasNulls = false;
+            for (int i = 0; i < size; i++)
+            {
+                if (nulls[i])
+                {
+                    hasNulls = true;
+                    break;
+                }
+            }
+            this.hasNulls = hasNulls;
+        }
+
+        @Override
+        public ResolvedType type()
+        {
+            return type;
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public boolean hasNulls()
+        {
+            return hasNulls;
+        }
+
+        @Override
+        public boolean isNull(int row)
+        {
+            return nulls[row];
+        }
+
+        @Override
+        public boolean getBoolean(int row)
+        {
+            if (values instanceof boolean[] booleans)
+            {
+                return booleans[row];
+            }
+            return ValueVector.super.getBoolean(row);
+        }
+
+        @Override
+        public int getInt(int row)
+        {
+            if (values instanceof int[] ints)
+            {
+                return ints[row];
+            }
+            return ValueVector.super.getInt(row);
+        }
+
+        @Override
+        public long getLong(int row)
+        {
+            if (values instanceof long[] longs)
+            {
+                return longs[row];
+            }
+            return ValueVector.super.getLong(row);
+        }
+
+        @Override
+        public float getFloat(int row)
+        {
+            if (values instanceof float[] floats)
+            {
+                return floats[row];
+            }
+            return ValueVector.super.getFloat(row);
+        }
+
+        @Override
+        public double getDouble(int row)
+        {
+            if (values instanceof double[] doubles)
+            {
+                return doubles[row];
+            }
+            return ValueVector.super.getDouble(row);
+        }
+    }
+}
@@ -0,0 +1,727 @@
+package se.kuseman.payloadbuilder.core.expression.compiler;
+
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.BALOAD;
+import static org.objectweb.asm.Opcodes.BASTORE;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.DADD;
+import static org.objectweb.asm.Opcodes.DALOAD;
+import static org.objectweb.asm.Opcodes.DASTORE;
+import static org.objectweb.asm.Opcodes.DCMPL;
+import static org.objectweb.asm.Opcodes.DDIV;
+import static org.objectweb.asm.Opcodes.DMUL;
+import static org.objectweb.asm.Opcodes.DREM;
+import static org.objectweb.asm.Opcodes.DSUB;
+import static org.objectweb.asm.Opcodes.F2D;
+import static org.objectweb.asm.Opcodes.FADD;
+import static org.objectweb.asm.Opcodes.FALOAD;
+import static org.objectweb.asm.Opcodes.FASTORE;
+import static org.objectweb.asm.Opcodes.FCMPL;
+import static org.objectweb.asm.Opcodes.FDIV;
+import static org.objectweb.asm.Opcodes.FMUL;
+import static org.objectweb.asm.Opcodes.FREM;
+import static org.objectweb.asm.Opcodes.FSUB;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.I2D;
+import static org.objectweb.asm.Opcodes.I2F;
+import static org.objectweb.asm.Opcodes.I2L;
+import static org.objectweb.asm.Opcodes.IALOAD;
+import static org.objectweb.asm.Opcodes.IASTORE;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.ICONST_2;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFGE;
+import static org.objectweb.asm.Opcodes.IFGT;
+import static org.objectweb.asm.Opcodes.IFLE;
+import static org.objectweb.asm.Opcodes.IFLT;
+import static org.objectweb.asm.Opcodes.IFNE;
+import static org.objectweb.asm.Opcodes.IFNULL;
+import static org.objectweb.asm.Opcodes.IF_ICMPEQ;
+import static org.objectweb.asm.Opcodes.IF_ICMPGE;
+import static org.objectweb.asm.Opcodes.IF_ICMPNE;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.L2D;
+import static org.objectweb.asm.Opcodes.L2F;
+import static org.objectweb.asm.Opcodes.LALOAD;
+import static org.objectweb.asm.Opcodes.LASTORE;
+import static org.objectweb.asm.Opcodes.LCMP;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V17;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.api.expression.ILogicalBinaryExpression;
+import se.kuseman.payloadbuilder.core.expression.AliasExpression;
+import se.kuseman.payloadbuilder.core.expression.ArithmeticBinaryExpression;
+import se.kuseman.payloadbuilder.core.expression.ColumnExpression;
+import se.kuseman.payloadbuilder.core.expression.ComparisonExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralBooleanExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralDoubleExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralFloatExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralIntegerExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralLongExpression;
+import se.kuseman.payloadbuilder.core.expression.LogicalBinaryExpression;
+import se.kuseman.payloadbuilder.core.expression.LogicalNotExpression;
+import se.kuseman.payloadbuilder.core.expression.NestedExpression;
+import se.kuseman.payloadbuilder.core.expression.VariableExpression;
+
+/**
+ * Compiler that generates a JVM class for an expression tree. Arithmetics, comparisons and logical operators on primitive types are compiled into a single loop over primitive arrays. All other
+ * expressions are leaves of the compiled tree and are evaluated by the interpreter before the generated loop is executed. Leaf types are not known until runtime so a class is generated for each
+ * combination of leaf types, see {@link CompiledExpression}.
+ */
+public final class ExpressionCompiler
+{
+    private static final String KERNEL_NAME = Type.getInternalName(ExpressionKernel.class);
+    private static final String GENERATED_NAME = KERNEL_NAME.substring(0, KERNEL_NAME.lastIndexOf('/') + 1) + "GeneratedKernel";
+    private static final String EVAL_DESCRIPTOR = "(I[Ljava/lang/Object;[[ZLjava/lang/Object;[Z)V";
+    /* Local slots of the eval method arguments */
+    private static final int ROW_COUNT_SLOT = 1;
+    private static final int VALUES_SLOT = 2;
+    private static final int NULLS_SLOT = 3;
+    private static final int RESULT_SLOT = 4;
+    private static final int RESULT_NULLS_SLOT = 5;
+
+    private ExpressionCompiler()
+    {
+    }
+
+    /** Compile provided expression. Returns null if the expression cannot be compiled or if there is nothing to gain from compiling it */
+    public static CompiledExpression compile(IExpression expression)
+    {
+        IExpression actual = expression instanceof AliasExpression ae ? ae.getExpression()
+                : expression;
+        List<IExpression> leaves = new ArrayList<>();
+        Node root = analyze(actual, leaves, false);
+        if (root == null
+                || root instanceof Leaf
+                || root instanceof Literal)
+        {
+            return null;
+        }
+        return new CompiledExpression(expression, root, leaves);
+    }
+
+    /**
+     * Analyze expression and return the node to compile. Returns null if expression cannot be compiled.
+     *
+     * @param conditional True if the expression is only evaluated for some rows by the interpreter, ie. right side of AND/OR. Only leaves without side effects are allowed in these since leaves are
+     * evaluated for all rows.
+     */
+    private static Node analyze(IExpression expression, List<IExpression> leaves, boolean conditional)
+    {
+        if (expression instanceof NestedExpression ne)
+        {
+            return analyze(ne.getExpression(), leaves, conditional);
+        }
+        else if (expression instanceof LiteralIntegerExpression le)
+        {
+            return new Literal(Column.Type.Int, le.getValue());
+        }
+        else if (expression instanceof LiteralLongExpression le)
+        {
+            return new Literal(Column.Type.Long, le.getValue());
+        }
+        else if (expression instanceof LiteralFloatExpression le)
+        {
+            return new Literal(Column.Type.Float, le.getValue());
+        }
+        else if (expression instanceof LiteralDoubleExpression le)
+        {
+            return new Literal(Column.Type.Double, le.getValue());
+        }
+        else if (expression instanceof LiteralBooleanExpression le)
+        {
+            return new Literal(Column.Type.Boolean, le.getValue() ? ExpressionKernel.TRUE
+                    : ExpressionKernel.FALSE);
+        }
+        else if (expression instanceof ArithmeticBinaryExpression ae)
+        {
+            return binary(ae.getArithmeticType(), ae.getLeft(), ae.getRight(), leaves, conditional, conditional);
+        }
+        else if (expression instanceof ComparisonExpression ce)
+        {
+            // Right side is only evaluated for non null rows on left side
+            return binary(ce.getComparisonType(), ce.getLeft(), ce.getRight(), leaves, conditional, true);
+        }
+        else if (expression instanceof LogicalBinaryExpression le)
+        {
+            // Right side is only evaluated for rows where the result is not known from left side
+            return binary(le.getLogicalType(), le.getLeft(), le.getRight(), leaves, conditional, true);
+        }
+        else if (expression instanceof LogicalNotExpression ne)
+        {
+            Node child = analyze(ne.getExpression(), leaves, conditional);
+            return child != null ? new Not(child)
+                    : null;
+        }
+        else if (conditional
+                && !(expression instanceof ColumnExpression
+                        || expression instanceof VariableExpression
+                        || expression instanceof LiteralExpression))
+        {
+            return null;
+        }
+
+        int index = leaves.indexOf(expression);
+        if (index < 0)
+        {
+            index = leaves.size();
+            leaves.add(expression);
+        }
+        return new Leaf(index);
+    }
+
+    private static Node binary(Object operator, IExpression left, IExpression right, List<IExpression> leaves, boolean leftConditional, boolean rightConditional)
+    {
+        Node leftNode = analyze(left, leaves, leftConditional);
+        if (leftNode == null)
+        {
+            return null;
+        }
+        Node rightNode = analyze(right, leaves, rightConditional);
+        if (rightNode == null)
+        {
+            return null;
+        }
+        return new Binary(operator, leftNode, rightNode);
+    }
+
+    /** Return the type that provided node produces with provided leaf types. Returns null if the types are not supported */
+    static Column.Type getType(Node node, Column.Type[] leafTypes)
+    {
+        if (node instanceof Leaf leaf)
+        {
+            Column.Type type = leafTypes[leaf.index];
+            return isNumber(type)
+                    || type == Column.Type.Boolean ? type
+                            : null;
+        }
+        else if (node instanceof Literal literal)
+        {
+            return literal.type;
+        }
+        else if (node instanceof Not not)
+        {
+            return getType(not.child, leafTypes) == Column.Type.Boolean ? Column.Type.Boolean
+                    : null;
+        }
+
+        Binary binary = (Binary) node;
+        Column.Type left = getType(binary.left, leafTypes);
+        Column.Type right = getType(binary.right, leafTypes);
+        if (binary.operator instanceof ILogicalBinaryExpression.Type)
+        {
+            return left == Column.Type.Boolean
+                    && right == Column.Type.Boolean ? Column.Type.Boolean
+                            : null;
+        }
+        else if (!isNumber(left)
+                || !isNumber(right))
+        {
+            return null;
+        }
+        else if (binary.operator instanceof IComparisonExpression.Type)
+        {
+            return Column.Type.Boolean;
+        }
+        return promote(left, right);
+    }
+
+    /** Generate a kernel for provided node with provided leaf types. Types must be validated with {@link #getType(Node, Column.Type[])} before calling this method. */
+    static ExpressionKernel generate(Node root, Column.Type[] leafTypes)
+    {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS)
+        {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2)
+            {
+                // Only arrays are merged in generated code
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V17, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, GENERATED_NAME, null, KERNEL_NAME, null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, KERNEL_NAME, "<init>", "()V", false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "eval", EVAL_DESCRIPTOR, null, null);
+        mv.visitCode();
+        new Generator(mv, leafTypes).generate(root);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+
+        try
+        {
+            Class<?> clazz = MethodHandles.lookup()
+                    .defineHiddenClass(cw.toByteArray(), true)
+                    .lookupClass();
+            return (ExpressionKernel) clazz.getConstructor()
+                    .newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Error generating kernel", e);
+        }
+    }
+
+    static boolean isNumber(Column.Type type)
+    {
+        return type == Column.Type.Int
+                || type == Column.Type.Long
+                || type == Column.Type.Float
+                || type == Column.Type.Double;
+    }
+
+    /** Promote types with the same rules as the interpreter, the type with highest precedence wins */
+    private static Column.Type promote(Column.Type left, Column.Type right)
+    {
+        return right.getPrecedence() > left.getPrecedence() ? right
+                : left;
+    }
+
+    /** Node of a compiled expression tree */
+    sealed interface Node permits Leaf, Literal, Binary, Not
+    {
+    }
+
+    /** Expression that is evaluated by the interpreter. Index is the index in the kernels input arrays */
+    record Leaf(int index) implements Node
+    {
+    }
+
+    /** Literal value. Booleans are stored as ints */
+    record Literal(Column.Type type, Object value) implements Node
+    {
+    }
+
+    /** Arithmetic, comparison or logical operation */
+    record Binary(Object operator, Node left, Node right) implements Node
+    {
+    }
+
+    /** Logical not */
+    record Not(Node child) implements Node
+    {
+    }
+
+    /** Generator of the eval method of a kernel */
+    private static class Generator
+    {
+        private final MethodVisitor mv;
+        private final Column.Type[] leafTypes;
+        private final int[] valueSlots;
+        private final int[] nullSlots;
+        private int nextSlot = RESULT_NULLS_SLOT + 1;
+        private int rowSlot;
+
+        Generator(MethodVisitor mv, Column.Type[] leafTypes)
+        {
+            this.mv = mv;
+            this.leafTypes = leafTypes;
+            this.valueSlots = new int[leafTypes.length];
+            this.nullSlots = new int[leafTypes.length];
+        }
+
+        void generate(Node root)
+        {
+            Column.Type resultType = getType(root, leafTypes);
+
+            // Load the input arrays into typed locals
+            for (int i = 0; i < leafTypes.length; i++)
+            {
+                valueSlots[i] = nextSlot++;
+                mv.visitVarInsn(ALOAD, VALUES_SLOT);
+                mv.visitLdcInsn(i);
+                mv.visitInsn(AALOAD);
+                mv.visitTypeInsn(CHECKCAST, getArrayDescriptor(leafTypes[i]));
+                mv.visitVarInsn(ASTORE, valueSlots[i]);
+
+                nullSlots[i] = nextSlot++;
+                mv.visitVarInsn(ALOAD, NULLS_SLOT);
+                mv.visitLdcInsn(i);
+                mv.visitInsn(AALOAD);
+                mv.visitVarInsn(ASTORE, nullSlots[i]);
+            }
+            int resultSlot = nextSlot++;
+            mv.visitVarInsn(ALOAD, RESULT_SLOT);
+            mv.visitTypeInsn(CHECKCAST, getArrayDescriptor(resultType));
+            mv.visitVarInsn(ASTORE, resultSlot);
+
+            rowSlot = nextSlot++;
+            mv.visitInsn(ICONST_0);
+            mv.visitVarInsn(ISTORE, rowSlot);
+
+            Label loop = new Label();
+            Label next = new Label();
+            Label end = new Label();
+            mv.visitLabel(loop);
+            mv.visitVarInsn(ILOAD, rowSlot);
+            mv.visitVarInsn(ILOAD, ROW_COUNT_SLOT);
+            mv.visitJumpInsn(IF_ICMPGE, end);
+
+            if (resultType == Column.Type.Boolean)
+            {
+                mv.visitVarInsn(ALOAD, resultSlot);
+                mv.visitVarInsn(ALOAD, RESULT_NULLS_SLOT);
+                mv.visitVarInsn(ILOAD, rowSlot);
+                emitBoolean(root);
+                mv.visitMethodInsn(INVOKESTATIC, KERNEL_NAME, "setBoolean", "([Z[ZII)V", false);
+            }
+            else
+            {
+                // Numeric expressions are null if any leaf is null and are then not computed
+                Label nullRow = new Label();
+                emitNullCheck(root, nullRow);
+                mv.visitVarInsn(ALOAD, resultSlot);
+                mv.visitVarInsn(ILOAD, rowSlot);
+                emitNumber(root, resultType);
+                mv.visitInsn(getStoreOpcode(resultType));
+                mv.visitJumpInsn(GOTO, next);
+                mv.visitLabel(nullRow);
+                mv.visitVarInsn(ALOAD, RESULT_NULLS_SLOT);
+                mv.visitVarInsn(ILOAD, rowSlot);
+                mv.visitInsn(ICONST_1);
+                mv.visitInsn(BASTORE);
+            }
+
+            mv.visitLabel(next);
+            mv.visitIincInsn(rowSlot, 1);
+            mv.visitJumpInsn(GOTO, loop);
+            mv.visitLabel(end);
+            mv.visitInsn(RETURN);
+        }
+
+        /** Emit code that pushes the boolean value of node as an int (0 = false, 1 = true, 2 = null) */
+        private void emitBoolean(Node node)
+        {
+            if (node instanceof Literal literal)
+            {
+                mv.visitLdcInsn(literal.value);
+                return;
+            }
+            else if (node instanceof Not not)
+            {
+                emitBoolean(not.child);
+                mv.visitMethodInsn(INVOKESTATIC, KERNEL_NAME, "not", "(I)I", false);
+                return;
+            }
+
+            Label nullValue = new Label();
+            Label end = new Label();
+            if (node instanceof Leaf leaf)
+            {
+                emitNullCheck(node, nullValue);
+                mv.visitVarInsn(ALOAD, valueSlots[leaf.index]);
+                mv.visitVarInsn(ILOAD, rowSlot);
+                mv.visitInsn(BALOAD);
+                mv.visitJumpInsn(GOTO, end);
+            }
+            else
+            {
+                Binary binary = (Binary) node;
+                if (binary.operator instanceof ILogicalBinaryExpression.Type logicalType)
+                {
+                    emitLogical(logicalType, binary);
+                    return;
+                }
+
+                // Comparisons are null if any leaf is null and are then not computed
+                emitNullCheck(node, nullValue);
+                Column.Type type = promote(getType(binary.left, leafTypes), getType(binary.right, leafTypes));
+                emitNumber(binary.left, type);
+                emitNumber(binary.right, type);
+                emitComparison((IComparisonExpression.Type) binary.operator, type);
+                mv.visitJumpInsn(GOTO, end);
+            }
+            mv.visitLabel(nullValue);
+            mv.visitInsn(ICONST_2);
+            mv.visitLabel(end);
+        }
+
+        /** Emit logical AND/OR. Right side is only evaluated if the result cannot be determined from left side */
+        private void emitLogical(ILogicalBinaryExpression.Type type, Binary binary)
+        {
+            final boolean and = type == ILogicalBinaryExpression.Type.AND;
+            final int leftSlot = nextSlot++;
+            final Label shortCircuit = new Label();
+            final Label end = new Label();
+
+            emitBoolean(binary.left);
+            mv.visitVarInsn(ISTORE, leftSlot);
+            mv.visitVarInsn(ILOAD, leftSlot);
+            if (and)
+            {
+                // false AND ? => false
+                mv.visitJumpInsn(IFEQ, shortCircuit);
+            }
+            else
+            {
+                // true OR ? => true
+                mv.visitInsn(ICONST_1);
+                mv.visitJumpInsn(IF_ICMPEQ, shortCircuit);
+            }
+            mv.visitVarInsn(ILOAD, leftSlot);
+            emitBoolean(binary.right);
+            mv.visitMethodInsn(INVOKESTATIC, KERNEL_NAME, and ? "and"
+                    : "or", "(II)I", false);
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(shortCircuit);
+            mv.visitInsn(and ? ICONST_0
+                    : ICONST_1);
+            mv.visitLabel(end);
+        }
+
+        /** Emit comparison of the two values on stack. Equality uses == and ordering uses compare, same as the interpreter */
+        private void emitComparison(IComparisonExpression.Type operator, Column.Type type)
+        {
+            if (operator == IComparisonExpression.Type.EQUAL
+                    || operator == IComparisonExpression.Type.NOT_EQUAL)
+            {
+                boolean equal = operator == IComparisonExpression.Type.EQUAL;
+                if (type == Column.Type.Int)
+                {
+                    emitCondition(equal ? IF_ICMPEQ
+                            : IF_ICMPNE);
+                    return;
+                }
+                mv.visitInsn(switch (type)
+                {
+                    case Long -> LCMP;
+                    case Float -> FCMPL;
+                    default -> DCMPL;
+                });
+                emitCondition(equal ? IFEQ
+                        : IFNE);
+                return;
+            }
+
+            String owner = switch (type)
+            {
+                case Int -> "java/lang/Integer";
+                case Long -> "java/lang/Long";
+                case Float -> "java/lang/Float";
+                default -> "java/lang/Double";
+            };
+            String descriptor = "(" + getDescriptor(type) + getDescriptor(type) + ")I";
+            mv.visitMethodInsn(INVOKESTATIC, owner, "compare", descriptor, false);
+            emitCondition(switch (operator)
+            {
+                case GREATER_THAN -> IFGT;
+                case GREATER_THAN_EQUAL -> IFGE;
+                case LESS_THAN -> IFLT;
+                case LESS_THAN_EQUAL -> IFLE;
+                default -> throw new IllegalArgumentException("Unsupported operator " + operator);
+            });
+        }
+
+        /** Emit code that pushes 1 if the jump opcode jumps otherwise 0 */
+        private void emitCondition(int jumpOpcode)
+        {
+            Label isTrue = new Label();
+            Label end = new Label();
+            mv.visitJumpInsn(jumpOpcode, isTrue);
+            mv.visitInsn(ICONST_0);
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(isTrue);
+            mv.visitInsn(ICONST_1);
+            mv.visitLabel(end);
+        }
+
+        /** Emit code that pushes the numeric value of node as provided type */
+        private void emitNumber(Node node, Column.Type type)
+        {
+            Column.Type nodeType;
+            if (node instanceof Leaf leaf)
+            {
+                nodeType = leafTypes[leaf.index];
+                mv.visitVarInsn(ALOAD, valueSlots[leaf.index]);
+                mv.visitVarInsn(ILOAD, rowSlot);
+                mv.visitInsn(getLoadOpcode(nodeType));
+            }
+            else if (node instanceof Literal literal)
+            {
+                nodeType = literal.type;
+                mv.visitLdcInsn(literal.value);
+            }
+            else
+            {
+                Binary binary = (Binary) node;
+                nodeType = getType(node, leafTypes);
+                emitNumber(binary.left, nodeType);
+                emitNumber(binary.right, nodeType);
+                emitArithmetic((IArithmeticBinaryExpression.Type) binary.operator, nodeType);
+            }
+            emitConversion(nodeType, type);
+        }
+
+        /** Emit arithmetic of the two values on stack. Ints and longs uses exact operations and floor division, same as the interpreter */
+        private void emitArithmetic(IArithmeticBinaryExpression.Type operator, Column.Type type)
+        {
+            if (type == Column.Type.Int
+                    || type == Column.Type.Long)
+            {
+                String name = switch (operator)
+                {
+                    case ADD -> "addExact";
+                    case SUBTRACT -> "subtractExact";
+                    case MULTIPLY -> "multiplyExact";
+                    case DIVIDE -> "floorDiv";
+                    case MODULUS -> "floorMod";
+                    default -> throw new IllegalArgumentException("Unsupported operator " + operator);
+                };
+                String descriptor = type == Column.Type.Int ? "(II)I"
+                        : "(JJ)J";
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", name, descriptor, false);
+                return;
+            }
+
+            boolean isFloat = type == Column.Type.Float;
+            mv.visitInsn(switch (operator)
+            {
+                case ADD -> isFloat ? FADD
+                        : DADD;
+                case SUBTRACT -> isFloat ? FSUB
+                        : DSUB;
+                case MULTIPLY -> isFloat ? FMUL
+                        : DMUL;
+                case DIVIDE -> isFloat ? FDIV
+                        : DDIV;
+                case MODULUS -> isFloat ? FREM
+                        : DREM;
+                default -> throw new IllegalArgumentException("Unsupported operator " + operator);
+            });
+        }
+
+        /** Emit widening of the value on stack */
+        private void emitConversion(Column.Type from, Column.Type to)
+        {
+            if (from == to)
+            {
+                return;
+            }
+            switch (from)
+            {
+                case Int:
+                    mv.visitInsn(to == Column.Type.Long ? I2L
+                            : to == Column.Type.Float ? I2F
+                                    : I2D);
+                    break;
+                case Long:
+                    mv.visitInsn(to == Column.Type.Float ? L2F
+                            : L2D);
+                    break;
+                case Float:
+                    mv.visitInsn(F2D);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Cannot convert " + from + " to " + to);
+            }
+        }
+
+        /** Emit a jump to provided label if any leaf of node is null */
+        private void emitNullCheck(Node node, Label isNull)
+        {
+            BitSet leaves = new BitSet();
+            collectLeaves(node, leaves);
+            for (int index = leaves.nextSetBit(0); index >= 0; index = leaves.nextSetBit(index + 1))
+            {
+                Label notNull = new Label();
+                mv.visitVarInsn(ALOAD, nullSlots[index]);
+                mv.visitJumpInsn(IFNULL, notNull);
+                mv.visitVarInsn(ALOAD, nullSlots[index]);
+                mv.visitVarInsn(ILOAD, rowSlot);
+                mv.visitInsn(BALOAD);
+                mv.visitJumpInsn(IFNE, isNull);
+                mv.visitLabel(notNull);
+            }
+        }
+
+        private void collectLeaves(Node node, BitSet leaves)
+        {
+            if (node instanceof Leaf leaf)
+            {
+                leaves.set(leaf.index);
+            }
+            else if (node instanceof Binary binary)
+            {
+                collectLeaves(binary.left, leaves);
+                collectLeaves(binary.right, leaves);
+            }
+            else if (node instanceof Not not)
+            {
+                collectLeaves(not.child, leaves);
+            }
+        }
+    }
+
+    private static String getDescriptor(Column.Type type)
+    {
+        return switch (type)
+        {
+            case Boolean -> "Z";
+            case Int -> "I";
+            case Long -> "J";
+            case Float -> "F";
+            case Double -> "D";
+            default -> throw new IllegalArgumentException("Unsupported type " + type);
+        };
+    }
+
+    private static String getArrayDescriptor(Column.Type type)
+    {
+        return "[" + getDescriptor(type);
+    }
+
+    private static int getLoadOpcode(Column.Type type)
+    {
+        return switch (type)
+        {
+            case Int -> IALOAD;
+            case Long -> LALOAD;
+            case Float -> FALOAD;
+            case Double -> DALOAD;
+            default -> BALOAD;
+        };
+    }
+
+    private static int getStoreOpcode(Column.Type type)
+    {
+        return switch (type)
+        {
+            case Int -> IASTORE;
+            case Long -> LASTORE;
+            case Float -> FASTORE;
+            case Double -> DASTORE;
+            default -> BASTORE;
+        };
+    }
+}
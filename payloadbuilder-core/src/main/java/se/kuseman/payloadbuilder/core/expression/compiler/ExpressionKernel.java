@@ -0,0 +1,67 @@
+package se.kuseman.payloadbuilder.core.expression.compiler;
+
+/**
+ * Base class of kernels generated by {@link ExpressionCompiler}. A kernel evaluates a whole batch in one loop over primitive arrays. Boolean values are handled as ints in generated code where 0 is
+ * false, 1 is true and 2 is null to be able to implement three valued logic without branching on vectors.
+ */
+public abstract class ExpressionKernel
+{
+    static final int FALSE = 0;
+    static final int TRUE = 1;
+    static final int NULL = 2;
+
+    /**
+     * Evaluate kernel.
+     *
+     * @param rowCount Number of rows to evaluate
+     * @param values Primitive arrays with the values for each input of the kernel
+     * @param nulls Null flags for each input of the kernel. An entry is null if the input doesn't have any nulls
+     * @param result Primitive array to write the results into
+     * @param resultNulls Null flags of the result
+     */
+    public abstract void eval(int rowCount, Object[] values, boolean[][] nulls, Object result, boolean[] resultNulls);
+
+    /** AND of two boolean values. Called from generated code when left side is not false */
+    public static int and(int left, int right)
+    {
+        if (right == FALSE)
+        {
+            return FALSE;
+        }
+        return left == NULL
+                || right == NULL ? NULL
+                        : TRUE;
+    }
+
+    /** OR of two boolean values. Called from generated code when left side is not true */
+    public static int or(int left, int right)
+    {
+        if (right == TRUE)
+        {
+            return TRUE;
+        }
+        return left == NULL
+                || right == NULL ? NULL
+                        : FALSE;
+    }
+
+    /** NOT of a boolean value */
+    public static int not(int value)
+    {
+        return value == NULL ? NULL
+                : 1 - value;
+    }
+
+    /** Set a boolean value into result */
+    public static void setBoolean(boolean[] values, boolean[] nulls, int row, int value)
+    {
+        if (value == NULL)
+        {
+            nulls[row] = true;
+        }
+        else
+        {
+            values[row] = value == TRUE;
+        }
+    }
+}
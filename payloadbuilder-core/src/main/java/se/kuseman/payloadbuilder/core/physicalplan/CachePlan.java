@@ -150,5 +150,18 @@ public String toString()
     static class CacheNodeData extends NodeData
     {
         TupleVector tupleVector;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof CacheNodeData data)
+            {
+                if (tupleVector == null)
+                {
+                    tupleVector = data.tupleVector;
+                }
+            }
+        }
     }
 }
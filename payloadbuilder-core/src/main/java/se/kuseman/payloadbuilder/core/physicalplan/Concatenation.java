@@ -2,9 +2,12 @@
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import se.kuseman.payloadbuilder.api.catalog.IDatasource;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
@@ -14,6 +17,8 @@
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.core.common.DescribableNode;
 import se.kuseman.payloadbuilder.core.common.SchemaUtils;
+import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
+import se.kuseman.payloadbuilder.core.physicalplan.Exchange.Producer;
 
 /** Concat inputs into a single output stream. UNION ALL etc. */
 public class Concatenation implements IPhysicalPlan
@@ -21,12 +26,19 @@ public class Concatenation implements IPhysicalPlan
     private final int nodeId;
     private final Schema plannedSchema;
     private final List<IPhysicalPlan> inputs;
+    private final ExecutionMode executionMode;
 
     public Concatenation(int nodeId, Schema schema, List<IPhysicalPlan> inputs)
+    {
+        this(nodeId, schema, inputs, ExecutionMode.SEQUENTIAL);
+    }
+
+    public Concatenation(int nodeId, Schema schema, List<IPhysicalPlan> inputs, ExecutionMode executionMode)
     {
         this.nodeId = nodeId;
         this.plannedSchema = requireNonNull(schema, "schema");
         this.inputs = requireNonNull(inputs, "inputs");
+        this.executionMode = requireNonNull(executionMode, "executionMode");
         if (inputs.size() <= 1)
         {
             throw new IllegalArgumentException("Size of inputs should be 1 or greater");
@@ -45,103 +57,231 @@ public Schema getSchema()
         return plannedSchema;
     }
 
+    public ExecutionMode getExecutionMode()
+    {
+        return executionMode;
+    }
+
     @Override
     public TupleIterator execute(IExecutionContext context)
     {
-        return new TupleIterator()
+        if (executionMode == ExecutionMode.SEQUENTIAL)
         {
-            private int inputIndex = 0;
-            private TupleIterator inputIterator;
-            private TupleVector next;
-            private Schema schema = null;
+            return new SequentialIterator(context);
+        }
+
+        // Start all inputs up front, each input is buffered with the same number of vectors as an exchange
+        List<Producer> producers = new ArrayList<>(inputs.size());
+        BlockingQueue<TupleVector> sharedQueue = executionMode == ExecutionMode.CONCURRENT_ARRIVAL_ORDER ? new ArrayBlockingQueue<>(Exchange.DEFAULT_QUEUE_SIZE * inputs.size())
+                : null;
+        for (IPhysicalPlan input : inputs)
+        {
+            BlockingQueue<TupleVector> queue = sharedQueue != null ? sharedQueue
+                    : new ArrayBlockingQueue<>(Exchange.DEFAULT_QUEUE_SIZE);
+            producers.add(new Producer(input, (ExecutionContext) context, queue));
+        }
+        producers.forEach(Producer::start);
+        return sharedQueue != null ? new ArrivalOrderIterator(context, producers, sharedQueue)
+                : new InputOrderIterator(context, producers);
+    }
 
-            @Override
-            public TupleVector next()
+    /** Base iterator that wraps the vectors from the inputs with the resulting schema */
+    private abstract class ConcatenationIterator implements TupleIterator
+    {
+        private TupleVector next;
+        private Schema schema = null;
+
+        /** Return next vector from inputs or null if there are no more vectors */
+        abstract TupleVector nextVector();
+
+        @Override
+        public TupleVector next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            final TupleVector result = next;
+            // Use schema from first input
+            if (schema == null)
             {
-                if (next == null)
+                // TODO: might be weird since we will also get the columnreferences which if wrong for other vectors than form the first input
+                schema = SchemaUtils.isAsterisk(plannedSchema) ? result.getSchema()
+                        : plannedSchema;
+
+            }
+            next = null;
+            return new TupleVector()
+            {
+                @Override
+                public Schema getSchema()
                 {
-                    throw new NoSuchElementException();
+                    return schema;
                 }
-                final TupleVector result = next;
-                // Use schema from first input
-                if (schema == null)
-                {
-                    // TODO: might be weird since we will also get the columnreferences which if wrong for other vectors than form the first input
-                    schema = SchemaUtils.isAsterisk(plannedSchema) ? result.getSchema()
-                            : plannedSchema;
 
+                @Override
+                public int getRowCount()
+                {
+                    return result.getRowCount();
                 }
-                next = null;
-                return new TupleVector()
+
+                @Override
+                public ValueVector getColumn(int column)
                 {
-                    @Override
-                    public Schema getSchema()
-                    {
-                        return schema;
-                    }
+                    return result.getColumn(column);
+                }
+            };
+        }
 
-                    @Override
-                    public int getRowCount()
-                    {
-                        return result.getRowCount();
-                    }
+        @Override
+        public boolean hasNext()
+        {
+            if (next == null)
+            {
+                next = nextVector();
+            }
+            return next != null;
+        }
+    }
+
+    /** Iterator that executes the inputs one at a time */
+    private class SequentialIterator extends ConcatenationIterator
+    {
+        private final IExecutionContext context;
+        private int inputIndex = 0;
+        private TupleIterator inputIterator;
+
+        SequentialIterator(IExecutionContext context)
+        {
+            this.context = context;
+        }
 
-                    @Override
-                    public ValueVector getColumn(int column)
+        @Override
+        TupleVector nextVector()
+        {
+            while (true)
+            {
+                // Move to next input
+                if (inputIterator == null)
+                {
+                    if (inputIndex >= inputs.size())
                     {
-                        return result.getColumn(column);
+                        return null;
                     }
-                };
+                    inputIterator = inputs.get(inputIndex)
+                            .execute(context);
+                    inputIndex++;
+                }
+                else if (!inputIterator.hasNext())
+                {
+                    inputIterator.close();
+                    inputIterator = null;
+                    continue;
+                }
+
+                return inputIterator.next();
             }
+        }
 
-            @Override
-            public boolean hasNext()
+        @Override
+        public void close()
+        {
+            if (inputIterator != null)
             {
-                return setNext();
+                inputIterator.close();
             }
+        }
+    }
+
+    /** Iterator that consumes concurrently executed inputs in input order */
+    private class InputOrderIterator extends ConcatenationIterator
+    {
+        private final IExecutionContext context;
+        private final List<Producer> producers;
+        private int inputIndex = 0;
 
-            @Override
-            public void close()
+        InputOrderIterator(IExecutionContext context, List<Producer> producers)
+        {
+            this.context = context;
+            this.producers = producers;
+        }
+
+        @Override
+        TupleVector nextVector()
+        {
+            while (inputIndex < producers.size()
+                    && !context.getSession()
+                            .abortQuery())
             {
-                if (inputIterator != null)
+                Producer producer = producers.get(inputIndex);
+                TupleVector vector = producer.take();
+                if (vector == Exchange.END)
                 {
-                    inputIterator.close();
+                    producer.throwIfError();
+                    inputIndex++;
+                    continue;
                 }
+                return vector;
             }
+            return null;
+        }
+
+        @Override
+        public void close()
+        {
+            producers.forEach(Producer::close);
+        }
+    }
 
-            private boolean setNext()
+    /** Iterator that consumes concurrently executed inputs in the order the vectors arrives */
+    private class ArrivalOrderIterator extends ConcatenationIterator
+    {
+        private final IExecutionContext context;
+        private final List<Producer> producers;
+        private final BlockingQueue<TupleVector> queue;
+        private int remaining;
+
+        ArrivalOrderIterator(IExecutionContext context, List<Producer> producers, BlockingQueue<TupleVector> queue)
+        {
+            this.context = context;
+            this.producers = producers;
+            this.queue = queue;
+            this.remaining = producers.size();
+        }
+
+        @Override
+        TupleVector nextVector()
+        {
+            while (remaining > 0)
             {
-                while (next == null)
+                TupleVector vector = Producer.take(context, queue);
+                if (vector == Exchange.END)
                 {
-                    // Move to next input
-                    if (inputIterator == null)
-                    {
-                        if (inputIndex >= inputs.size())
-                        {
-                            return false;
-                        }
-                        inputIterator = inputs.get(inputIndex)
-                                .execute(context);
-                        inputIndex++;
-                    }
-                    else if (!inputIterator.hasNext())
-                    {
-                        inputIterator.close();
-                        inputIterator = null;
-                        continue;
-                    }
-
-                    next = inputIterator.next();
+                    // We don't know which producer that completed so check all of them to fail as early as possible
+                    producers.forEach(Producer::throwIfError);
+                    remaining--;
+                    continue;
                 }
-                return true;
+                return vector;
             }
-        };
+            return null;
+        }
+
+        @Override
+        public void close()
+        {
+            producers.forEach(Producer::close);
+        }
     }
 
     @Override
     public Map<String, Object> getDescribeProperties(IExecutionContext context)
     {
-        return Map.of(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(plannedSchema));
+        if (executionMode == ExecutionMode.SEQUENTIAL)
+        {
+            return Map.of(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(plannedSchema));
+        }
+        return Map.of(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(plannedSchema), "Execution Mode", executionMode);
     }
 
     @Override
@@ -176,7 +316,8 @@ else if (obj == this)
         else if (obj instanceof Concatenation that)
         {
             return plannedSchema.equals(that.plannedSchema)
-                    && inputs.equals(that.inputs);
+                    && inputs.equals(that.inputs)
+                    && executionMode == that.executionMode;
         }
         return false;
     }
@@ -186,4 +327,15 @@ public String toString()
     {
         return "Concatenation";
     }
+
+    /** Execution mode of the inputs */
+    public enum ExecutionMode
+    {
+        /** Inputs are executed one at a time in input order */
+        SEQUENTIAL,
+        /** All inputs are executed concurrently on the sessions executor. Vectors are emitted in input order */
+        CONCURRENT_INPUT_ORDER,
+        /** All inputs are executed concurrently on the sessions executor. Vectors are emitted in the order they are produced */
+        CONCURRENT_ARRIVAL_ORDER
+    }
 }
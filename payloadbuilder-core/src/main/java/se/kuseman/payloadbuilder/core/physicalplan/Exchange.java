@@ -0,0 +1,502 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.NodeData;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.core.QueryException;
+import se.kuseman.payloadbuilder.core.common.DescribableNode;
+import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
+
+/**
+ * Gather exchange. Executes the input on the sessions executor and hands the produced vectors to the consumer through a bounded queue. This makes it possible to run independent sub trees (ie.
+ * both inputs of a join) concurrently.
+ *
+ * <pre>
+ * The input is executed with a worker copy of the execution context that has it's own node data. When the input is
+ * completed the node data is merged back into the consumers context.
+ * </pre>
+ */
+public class Exchange implements IPhysicalPlan
+{
+    /** Default number of vectors that can be buffered between producer and consumer */
+    static final int DEFAULT_QUEUE_SIZE = 4;
+    /** Poll interval used when waiting on the queue to be able to detect closing and aborted queries */
+    static final long POLL_INTERVAL_MS = 10;
+    /** Marker that is put on the queue when the producer is done */
+    static final TupleVector END = new TupleVector()
+    {
+        @Override
+        public Schema getSchema()
+        {
+            return Schema.EMPTY;
+        }
+
+        @Override
+        public int getRowCount()
+        {
+            return 0;
+        }
+
+        @Override
+        public ValueVector getColumn(int column)
+        {
+            throw new IllegalArgumentException("End marker has no columns");
+        }
+    };
+
+    private final int nodeId;
+    private final IPhysicalPlan input;
+    private final int queueSize;
+
+    public Exchange(int nodeId, IPhysicalPlan input)
+    {
+        this(nodeId, input, DEFAULT_QUEUE_SIZE);
+    }
+
+    public Exchange(int nodeId, IPhysicalPlan input, int queueSize)
+    {
+        this.nodeId = nodeId;
+        this.input = requireNonNull(input, "input");
+        this.queueSize = queueSize;
+        if (queueSize <= 0)
+        {
+            throw new IllegalArgumentException("Queue size must be greater than zero");
+        }
+    }
+
+    @Override
+    public int getNodeId()
+    {
+        return nodeId;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Exchange";
+    }
+
+    @Override
+    public Schema getSchema()
+    {
+        return input.getSchema();
+    }
+
+    public IPhysicalPlan getInput()
+    {
+        return input;
+    }
+
+    @Override
+    public Map<String, Object> getDescribeProperties(IExecutionContext context)
+    {
+        Data data = context.getStatementContext()
+                .getNodeData(nodeId);
+        if (data == null)
+        {
+            return Map.of("Queue Size", queueSize);
+        }
+        return Map.of("Queue Size", queueSize, "Producer Wait Time", DurationFormatUtils.formatDurationHMS(data.producerWaitTime), "Consumer Wait Time",
+                DurationFormatUtils.formatDurationHMS(data.consumerWaitTime));
+    }
+
+    @Override
+    public TupleIterator execute(IExecutionContext context)
+    {
+        Data data = context.getStatementContext()
+                .getOrCreateNodeData(nodeId, Data::new);
+        Producer producer = new Producer(input, (ExecutionContext) context, new ArrayBlockingQueue<>(queueSize));
+        producer.start();
+        return new ExchangeIterator(producer, data);
+    }
+
+    /**
+     * Producer that executes an input on the sessions executor and puts the vectors on a queue. When the input is completed an {@link #END} marker is put on the queue. Several producers can share
+     * the same queue.
+     */
+    static class Producer implements Runnable
+    {
+        private final IPhysicalPlan input;
+        private final ExecutionContext context;
+        private final ExecutionContext workerContext;
+        private final BlockingQueue<TupleVector> queue;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch executed = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        /** The executed input iterator. Used by consumer to fetch estimates */
+        private volatile TupleIterator iterator;
+        private volatile boolean closed;
+        private volatile Throwable error;
+        /** Time in milliseconds the producer waited for free space in queue */
+        private volatile long waitTime;
+
+        Producer(IPhysicalPlan input, ExecutionContext context, BlockingQueue<TupleVector> queue)
+        {
+            this.input = input;
+            this.context = context;
+            this.workerContext = context.copyForWorker();
+            this.queue = queue;
+        }
+
+        /** Start the producer on the sessions executor */
+        void start()
+        {
+            context.getSession()
+                    .getExecutorService()
+                    .execute(this);
+        }
+
+        @Override
+        public void run()
+        {
+            // Consumer was closed before we started
+            if (!started.compareAndSet(false, true))
+            {
+                return;
+            }
+
+            long waitTimeNanos = 0;
+            TupleIterator it = null;
+            try
+            {
+                try
+                {
+                    it = input.execute(workerContext);
+                    iterator = it;
+                }
+                finally
+                {
+                    executed.countDown();
+                }
+                while (!closed
+                        && !context.getSession()
+                                .abortQuery()
+                        && it.hasNext())
+                {
+                    TupleVector vector = it.next();
+                    long time = System.nanoTime();
+                    put(vector);
+                    waitTimeNanos += System.nanoTime() - time;
+                }
+            }
+            catch (Throwable e)
+            {
+                error = e;
+            }
+            finally
+            {
+                if (it != null)
+                {
+                    try
+                    {
+                        it.close();
+                    }
+                    catch (Throwable e)
+                    {
+                        if (error == null)
+                        {
+                            error = e;
+                        }
+                    }
+                }
+                waitTime = TimeUnit.MILLISECONDS.convert(waitTimeNanos, TimeUnit.NANOSECONDS);
+                try
+                {
+                    context.getStatementContext()
+                            .mergeWorkerContext(workerContext.getStatementContext());
+                    put(END);
+                }
+                finally
+                {
+                    completed.countDown();
+                }
+            }
+        }
+
+        /** Put vector on queue. Returns when the vector is put or when the consumer is closed. */
+        private void put(TupleVector vector)
+        {
+            block(() ->
+            {
+                while (!closed)
+                {
+                    if (queue.offer(vector, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS))
+                    {
+                        break;
+                    }
+                }
+            });
+        }
+
+        /** Take next vector from this producers queue. Returns null if query was aborted. */
+        TupleVector take()
+        {
+            return take(context, queue);
+        }
+
+        /** Take next vector from provided queue. Returns null if query was aborted. */
+        static TupleVector take(IExecutionContext context, BlockingQueue<TupleVector> queue)
+        {
+            TupleVector[] result = new TupleVector[1];
+            block(() ->
+            {
+                while (result[0] == null
+                        && !context.getSession()
+                                .abortQuery())
+                {
+                    result[0] = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+            });
+            return result[0];
+        }
+
+        /** Rethrow the error of the input if any. Should be called after the {@link #END} marker of this producer is consumed. */
+        void throwIfError()
+        {
+            Throwable e = error;
+            if (e instanceof RuntimeException re)
+            {
+                throw re;
+            }
+            else if (e instanceof Error err)
+            {
+                throw err;
+            }
+            else if (e != null)
+            {
+                throw new QueryException("Error executing input", e);
+            }
+        }
+
+        /** Return time in milliseconds the producer waited for free space in queue. */
+        long getWaitTime()
+        {
+            return waitTime;
+        }
+
+        /** Return the executed input iterator. Waits for the input to be executed. Returns null if the input failed to execute */
+        TupleIterator getIterator()
+        {
+            block(executed::await);
+            return iterator;
+        }
+
+        /** Close producer and wait for it to complete */
+        void close()
+        {
+            closed = true;
+            queue.clear();
+            // Producer never started, nothing to wait for
+            if (started.compareAndSet(false, true))
+            {
+                executed.countDown();
+                return;
+            }
+            block(completed::await);
+        }
+    }
+
+    /** Iterator that consumes the vectors from the producer */
+    private static class ExchangeIterator implements TupleIterator
+    {
+        private final Producer producer;
+        private final Data data;
+        private TupleVector next;
+        private boolean done;
+        private boolean closed;
+
+        ExchangeIterator(Producer producer, Data data)
+        {
+            this.producer = producer;
+            this.data = data;
+        }
+
+        @Override
+        public TupleVector next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            TupleVector result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next != null)
+            {
+                return true;
+            }
+            else if (done)
+            {
+                return false;
+            }
+
+            long time = System.nanoTime();
+            TupleVector vector = producer.take();
+            data.consumerWaitTime += TimeUnit.MILLISECONDS.convert(System.nanoTime() - time, TimeUnit.NANOSECONDS);
+            if (vector == null
+                    || vector == END)
+            {
+                done = true;
+                producer.throwIfError();
+                return false;
+            }
+
+            next = vector;
+            return true;
+        }
+
+        @Override
+        public int estimatedBatchCount()
+        {
+            TupleIterator iterator = producer.getIterator();
+            return iterator != null ? iterator.estimatedBatchCount()
+                    : -1;
+        }
+
+        @Override
+        public int estimatedRowCount()
+        {
+            // Operators uses the estimates to choose strategy (ie. which side to hash in a hash match) so delegate to the input
+            TupleIterator iterator = producer.getIterator();
+            return iterator != null ? iterator.estimatedRowCount()
+                    : -1;
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            producer.close();
+            data.producerWaitTime += producer.getWaitTime();
+        }
+    }
+
+    /** Run provided blocker as a managed block to let fork join pools compensate for the blocked thread */
+    static void block(Blocker blocker)
+    {
+        try
+        {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker()
+            {
+                boolean releasable;
+
+                @Override
+                public boolean block() throws InterruptedException
+                {
+                    blocker.block();
+                    releasable = true;
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable()
+                {
+                    return releasable;
+                }
+            });
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+            throw new QueryException("Interrupted while waiting for exchange", e);
+        }
+    }
+
+    @FunctionalInterface
+    interface Blocker
+    {
+        void block() throws InterruptedException;
+    }
+
+    @Override
+    public List<IPhysicalPlan> getChildren()
+    {
+        return singletonList(input);
+    }
+
+    @Override
+    public List<DescribableNode> getChildNodes()
+    {
+        return singletonList(input);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return input.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == null)
+        {
+            return false;
+        }
+        else if (obj == this)
+        {
+            return true;
+        }
+        else if (obj instanceof Exchange that)
+        {
+            return nodeId == that.nodeId
+                    && input.equals(that.input)
+                    && queueSize == that.queueSize;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Exchange (" + nodeId + ")";
+    }
+
+    /** Node data of exchange */
+    static class Data extends NodeData
+    {
+        /** Time the producer waited for free space in queue */
+        long producerWaitTime;
+        /** Time the consumer waited for vectors */
+        long consumerWaitTime;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof Data data)
+            {
+                producerWaitTime += data.producerWaitTime;
+                consumerWaitTime += data.consumerWaitTime;
+            }
+        }
+    }
+}
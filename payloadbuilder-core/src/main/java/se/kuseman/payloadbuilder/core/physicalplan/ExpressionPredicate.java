@@ -8,15 +8,30 @@
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.expression.compiler.CompiledExpression;
+import se.kuseman.payloadbuilder.core.expression.compiler.ExpressionCompiler;
 
 /** Expression based predicate */
 public class ExpressionPredicate implements BiFunction<TupleVector, IExecutionContext, ValueVector>
 {
     private final IExpression predicate;
+    private final CompiledExpression compiledPredicate;
 
     public ExpressionPredicate(IExpression predicate)
+    {
+        this(predicate, false);
+    }
+
+    /**
+     * Create a predicate.
+     *
+     * @param compile True if the predicate should be compiled with {@link ExpressionCompiler}. Predicates that cannot be compiled are interpreted.
+     */
+    public ExpressionPredicate(IExpression predicate, boolean compile)
     {
         this.predicate = requireNonNull(predicate, "predicate");
+        this.compiledPredicate = compile ? ExpressionCompiler.compile(predicate)
+                : null;
     }
 
     public IExpression getPredicate()
@@ -27,6 +42,10 @@ public IExpression getPredicate()
     @Override
     public ValueVector apply(TupleVector t, IExecutionContext u)
     {
+        if (compiledPredicate != null)
+        {
+            return compiledPredicate.eval(t, u);
+        }
         return predicate.eval(t, u);
     }
 
@@ -15,6 +15,7 @@
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 
 import se.kuseman.payloadbuilder.api.catalog.Column.Type;
@@ -27,6 +28,7 @@
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedTupleVector;
 import se.kuseman.payloadbuilder.api.expression.IAggregator;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
@@ -41,14 +43,50 @@
 import se.kuseman.payloadbuilder.core.expression.IAggregateExpression;
 
 import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
 
-/** Plan for a group by. Aggregates input with hashing of provided expressions and outputs a projected result. */
+/**
+ * Plan for a group by. Aggregates input with hashing of provided expressions and outputs a projected result. When having more than one partition each input vector is pre aggregated in parallel and
+ * the partial results are then merged into hash partitioned group tables in parallel. When having a memory budget and the groups exceeds it, rows of new groups are partitioned by hash and spilled to
+ * disk and the spilled partitions are aggregated one by one after the in memory groups.
+ */
 public class HashAggregate implements IPhysicalPlan
 {
+    /** Estimated size in bytes of a group excluding it's key values. Group key, row list and table entry */
+    private static final int ESTIMATED_GROUP_OVERHEAD = 96;
+    /** Estimated size in bytes of the state of a group in an aggregator */
+    private static final int ESTIMATED_AGGREGATOR_GROUP_SIZE = 16;
+
+    private static final Hash.Strategy<GroupKey> GROUP_KEY_STRATEGY = new Hash.Strategy<GroupKey>()
+    {
+        @Override
+        public int hashCode(GroupKey o)
+        {
+            return o.hashCode();
+        }
+
+        @Override
+        public boolean equals(GroupKey a, GroupKey b)
+        {
+            if (a == null
+                    || b == null)
+            {
+                return a == b;
+            }
+
+            return a.equals(b);
+        }
+    };
+
     private final int nodeId;
     private final IPhysicalPlan input;
     private final List<IAggregateExpression> projectionExpressions;
@@ -57,8 +95,28 @@ public class HashAggregate implements IPhysicalPlan
     private final boolean hasAsteriskProjection;
     private final boolean hasAsteriskSchema;
     private TableSourceReference parentTableSource;
+    private final int partitionCount;
+    private final long memoryBudget;
 
     public HashAggregate(int nodeId, IPhysicalPlan input, List<IExpression> aggregateExpressions, List<IAggregateExpression> projectionExpressions, TableSourceReference parentTableSource)
+    {
+        this(nodeId, input, aggregateExpressions, projectionExpressions, parentTableSource, 1);
+    }
+
+    public HashAggregate(int nodeId, IPhysicalPlan input, List<IExpression> aggregateExpressions, List<IAggregateExpression> projectionExpressions, TableSourceReference parentTableSource,
+            int partitionCount)
+    {
+        this(nodeId, input, aggregateExpressions, projectionExpressions, parentTableSource, partitionCount, 0);
+    }
+
+    /**
+     * Create a hash aggregate
+     *
+     * @param partitionCount Number of partitions used for parallel aggregation. 1 or less means serial aggregation
+     * @param memoryBudget Memory budget in bytes for the groups. When exceeded new groups are spilled to disk. 0 means unbounded. Only applies to serial aggregation.
+     */
+    public HashAggregate(int nodeId, IPhysicalPlan input, List<IExpression> aggregateExpressions, List<IAggregateExpression> projectionExpressions, TableSourceReference parentTableSource,
+            int partitionCount, long memoryBudget)
     {
         this.nodeId = nodeId;
         this.input = requireNonNull(input, "input");
@@ -72,6 +130,8 @@ public HashAggregate(int nodeId, IPhysicalPlan input, List<IExpression> aggregat
         this.hasAsteriskSchema = hasAsteriskProjection
                 || SchemaUtils.isAsterisk(schema);
         this.parentTableSource = parentTableSource;
+        this.partitionCount = HashMatch.normalizePartitionCount(partitionCount);
+        this.memoryBudget = memoryBudget;
         if ((aggregateExpressions.isEmpty()
                 && !projectionExpressions.isEmpty())
                 || (!aggregateExpressions.isEmpty()
@@ -87,6 +147,16 @@ public int getNodeId()
         return nodeId;
     }
 
+    int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
     @Override
     public String getName()
     {
@@ -105,10 +175,12 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
         Schema schema = getSchema();
         if (aggregateExpressions.isEmpty())
         {
-            return ofEntries(true, entry(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(schema)), entry("Hash time", DurationFormatUtils.formatDurationHMS(hashTime)));
+            Map<String, Object> properties = ofEntries(true, entry(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(schema)), entry("Hash time", DurationFormatUtils.formatDurationHMS(hashTime)));
+            appendSpillProperties(properties, data);
+            return properties;
         }
 
-        return ofEntries(true, entry("Group By", aggregateExpressions.stream()
+        Map<String, Object> properties = ofEntries(true, entry("Group By", aggregateExpressions.stream()
                 .map(e -> e.toString())
                 .collect(toList())), entry(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(schema)), entry(IDatasource.DEFINED_VALUES,
                         projectionExpressions.stream()
@@ -137,6 +209,28 @@ else if (ee instanceof HasAlias)
                                 })
                                 .collect(joining(", "))),
                 entry("Hash Time", DurationFormatUtils.formatDurationHMS(hashTime)));
+        if (partitionCount > 1)
+        {
+            properties.put("Partitions", partitionCount);
+        }
+        appendSpillProperties(properties, data);
+        return properties;
+    }
+
+    private void appendSpillProperties(Map<String, Object> properties, Data data)
+    {
+        if (memoryBudget > 0)
+        {
+            properties.put("Memory Budget", FileUtils.byteCountToDisplaySize(memoryBudget));
+        }
+        if (data != null
+                && data.spillCount > 0)
+        {
+            properties.put("Spill Count", data.spillCount);
+            properties.put("Spilled Rows", data.spilledRows);
+            properties.put("Spilled Bytes", FileUtils.byteCountToDisplaySize(data.spilledBytes));
+            properties.put("Spill Time", DurationFormatUtils.formatDurationHMS(TimeUnit.MILLISECONDS.convert(data.spillTime, TimeUnit.NANOSECONDS)));
+        }
     }
 
     @Override
@@ -158,30 +252,25 @@ public TupleIterator execute(IExecutionContext context)
                 .getOrCreateNodeData(nodeId, () -> new Data());
         // CSON
 
-        /* Table for all groups */
-        Object2ObjectMap<GroupKey, IntList> table = new Object2ObjectOpenCustomHashMap<>(new Hash.Strategy<GroupKey>()
+        boolean distinct = aggregateExpressions.isEmpty();
+        if (!distinct
+                && partitionCount > 1
+                && supportsMerge())
         {
-            @Override
-            public int hashCode(GroupKey o)
-            {
-                return o.hashCode();
-            }
-
-            @Override
-            public boolean equals(GroupKey a, GroupKey b)
-            {
-                if (a == null
-                        || b == null)
-                {
-                    return a == b;
-                }
+            return executeParallel(context, iterator, data, outerTupleVector);
+        }
 
-                return a.equals(b);
-            }
-        });
+        return aggregate(context, iterator, data, outerTupleVector, memoryBudget > 0);
+    }
 
+    /** Aggregate input serially. If spill is enabled then rows of new groups are spilled to disk when memory budget is exceeded */
+    private TupleIterator aggregate(IExecutionContext context, TupleIterator iterator, Data data, TupleVector outerTupleVector, boolean spillEnabled)
+    {
         boolean distinct = aggregateExpressions.isEmpty();
 
+        /* Table for all groups */
+        Object2ObjectMap<GroupKey, IntList> table = new Object2ObjectOpenCustomHashMap<>(GROUP_KEY_STRATEGY);
+
         int aggregationSize = aggregateExpressions.size();
         ValueVector[] aggregateVectors = null;
         if (!distinct)
@@ -193,6 +282,14 @@ public boolean equals(GroupKey a, GroupKey b)
         Schema runtimeSchema = null;
         int groupCounter = 0;
         List<? extends IExpression> actualExpressions = null;
+        /* Estimated size of all groups in table */
+        long tableSize = 0;
+        /* Spill files for the partitions when memory budget was exceeded */
+        SpillFile[] spillFiles = null;
+        /* Specialized table used instead of the generic one when grouping on primitive types */
+        PrimitiveGroupTable primitiveTable = null;
+        boolean primitiveTableResolved = false;
+        IntList skippedRows = new IntArrayList();
         try
         {
             while (iterator.hasNext())
@@ -261,40 +358,146 @@ public boolean equals(GroupKey a, GroupKey b)
                     }
                 }
 
-                GroupKey key = new GroupKey(-1, aggregateVectors, types, hasNulls);
+                long groupSize = spillEnabled ? estimateGroupSize(types, aggregators)
+                        : 0;
+                IntList[] spillRows = null;
 
-                // Group all input rows
                 int count = vector.getRowCount();
-                for (int i = 0; i < count; i++)
+
+                if (!distinct
+                        && !primitiveTableResolved)
+                {
+                    primitiveTableResolved = true;
+                    primitiveTable = PrimitiveGroupTable.create(types);
+                }
+                else if (primitiveTable != null
+                        && !primitiveTable.supports(types))
+                {
+                    // Key types changed between vectors, continue with the generic table
+                    primitiveTable.migrate(table);
+                    groupCounter = primitiveTable.size();
+                    primitiveTable = null;
+                }
+
+                if (primitiveTable != null)
                 {
-                    key.row = i;
+                    int maxNewGroups = Integer.MAX_VALUE;
+                    if (spillFiles != null)
+                    {
+                        maxNewGroups = 0;
+                    }
+                    else if (spillEnabled)
+                    {
+                        // Budget is exceeded by the first group that doesn't fit
+                        maxNewGroups = (int) Math.min(Integer.MAX_VALUE, (memoryBudget - tableSize) / groupSize + 1);
+                    }
 
-                    IntList intList = table.get(key);
-                    // Create a new group if row does not exists in table
-                    if (intList == null)
+                    int groupCountBefore = primitiveTable.size();
+                    skippedRows.clear();
+                    primitiveTable.group(aggregateVectors, count, maxNewGroups, skippedRows);
+                    tableSize += (long) (primitiveTable.size() - groupCountBefore) * groupSize;
+                    if (spillEnabled
+                            && spillFiles == null
+                            && tableSize > memoryBudget)
                     {
-                        ValueVector[] rowValues = new ValueVector[vectorSize];
-                        for (int j = 0; j < vectorSize; j++)
+                        spillFiles = new SpillFile[HashMatch.SPILL_PARTITION_COUNT];
+                        data.spillCount++;
+                    }
+
+                    // Rows of new groups that didn't fit into memory
+                    int skippedCount = skippedRows.size();
+                    if (skippedCount > 0)
+                    {
+                        spillRows = new IntList[HashMatch.SPILL_PARTITION_COUNT];
+                        for (int i = 0; i < skippedCount; i++)
                         {
-                            MutableValueVector resultVector = context.getVectorFactory()
-                                    .getMutableVector(aggregateVectors[j].type(), 1);
-                            resultVector.copy(0, aggregateVectors[j], i);
-                            rowValues[j] = resultVector;
+                            int row = skippedRows.getInt(i);
+                            int hash = VectorUtils.hash(aggregateVectors, types, hasNulls, row);
+                            HashMatch.addPartitionRow(spillRows, HashCommon.mix(hash) & (HashMatch.SPILL_PARTITION_COUNT - 1), row);
                         }
+                    }
+                }
+                else
+                {
+                    GroupKey key = new GroupKey(-1, aggregateVectors, types, hasNulls);
 
-                        // TODO: find a good estimate of avg group row count
-                        intList = new IntArrayList();
-                        GroupKey groupKey = new GroupKey(groupCounter++, rowValues, types, hasNulls);
-                        groupKey.row = 0;
-                        table.put(groupKey, intList);
+                    // Group all input rows
+                    for (int i = 0; i < count; i++)
+                    {
+                        key.row = i;
+
+                        IntList intList = table.get(key);
+                        // Create a new group if row does not exists in table
+                        if (intList == null)
+                        {
+                            // Memory budget is exceeded, no more groups are added to the table
+                            if (spillFiles != null)
+                            {
+                                if (spillRows == null)
+                                {
+                                    spillRows = new IntList[HashMatch.SPILL_PARTITION_COUNT];
+                                }
+                                HashMatch.addPartitionRow(spillRows, HashCommon.mix(key.hashCode()) & (HashMatch.SPILL_PARTITION_COUNT - 1), i);
+                                continue;
+                            }
+
+                            ValueVector[] rowValues = new ValueVector[vectorSize];
+                            for (int j = 0; j < vectorSize; j++)
+                            {
+                                MutableValueVector resultVector = context.getVectorFactory()
+                                        .getMutableVector(aggregateVectors[j].type(), 1);
+                                resultVector.copy(0, aggregateVectors[j], i);
+                                rowValues[j] = resultVector;
+                            }
+
+                            // TODO: find a good estimate of avg group row count
+                            intList = new IntArrayList();
+                            GroupKey groupKey = new GroupKey(groupCounter++, rowValues, types, hasNulls);
+                            groupKey.row = 0;
+                            table.put(groupKey, intList);
+
+                            tableSize += groupSize;
+                            if (spillEnabled
+                                    && tableSize > memoryBudget)
+                            {
+                                spillFiles = new SpillFile[HashMatch.SPILL_PARTITION_COUNT];
+                                data.spillCount++;
+                            }
+                        }
+                        intList.add(i);
                     }
-                    intList.add(i);
+                }
+
+                if (spillRows != null)
+                {
+                    spillRows(vector, spillRows, spillFiles, data);
                 }
 
                 data.hashTime += TimeUnit.MILLISECONDS.convert(System.nanoTime() - time, TimeUnit.NANOSECONDS);
                 time = System.nanoTime();
 
-                if (!distinct)
+                if (primitiveTable != null)
+                {
+                    // Aggregate the groups of current vector
+                    IntList groupIds = primitiveTable.getGroupIds();
+                    List<IntList> groupRows = primitiveTable.getGroupRows();
+                    int groupCount = groupIds.size();
+                    if (groupCount > 0)
+                    {
+                        MutableValueVector selections = context.getVectorFactory()
+                                .getMutableVector(ResolvedType.array(Type.Int), groupCount);
+                        for (int i = 0; i < groupCount; i++)
+                        {
+                            selections.setArray(i, VectorUtils.convertToSelectionVector(groupRows.get(i)));
+                        }
+                        ValueVector groupIdsVector = VectorUtils.convertToSelectionVector(groupIds);
+                        for (IAggregator agg : aggregators)
+                        {
+                            agg.appendGroup(vector, groupIdsVector, selections, context);
+                        }
+                    }
+                }
+                else if (!distinct)
                 {
                     // Aggregate current vector
                     MutableValueVector groupIds = context.getVectorFactory()
@@ -322,18 +525,37 @@ public boolean equals(GroupKey a, GroupKey b)
                 data.aggregateTime += TimeUnit.MILLISECONDS.convert(System.nanoTime() - time, TimeUnit.NANOSECONDS);
             }
         }
+        catch (RuntimeException e)
+        {
+            closeSpillFiles(spillFiles);
+            throw e;
+        }
         finally
         {
             iterator.close();
         }
 
-        if (table.isEmpty())
+        int groupCount = primitiveTable != null ? primitiveTable.size()
+                : table.size();
+        TupleIterator result = createResult(context, table, groupCount, runtimeSchema, aggregators, actualExpressions);
+        if (spillFiles == null)
+        {
+            return result;
+        }
+        return createSpilledIterator(context, result, spillFiles, data, outerTupleVector);
+    }
+
+    /** Create result iterator from a group table */
+    private TupleIterator createResult(IExecutionContext context, Object2ObjectMap<GroupKey, IntList> table, int groupCount, Schema runtimeSchema, IAggregator[] aggregators,
+            List<? extends IExpression> actualExpressions)
+    {
+        if (groupCount == 0)
         {
             return TupleIterator.EMPTY;
         }
 
         // Distinct then we have unique rows in tables all keys
-        if (distinct)
+        if (aggregateExpressions.isEmpty())
         {
             final List<GroupKey> keys = new ArrayList<>(table.keySet());
             final Schema s = runtimeSchema;
@@ -381,7 +603,7 @@ else if (index >= keys.size())
 
         final Schema s = hasAsteriskSchema ? SchemaUtils.getSchema(parentTableSource, actualExpressions, result, true)
                 : schema;
-        final int groupSize = table.size();
+        final int groupSize = groupCount;
         return TupleIterator.singleton(new TupleVector()
         {
             @Override
@@ -404,6 +626,382 @@ public ValueVector getColumn(int column)
         });
     }
 
+    /** Estimate the size of a group with provided key types */
+    private long estimateGroupSize(Type[] types, IAggregator[] aggregators)
+    {
+        long size = ESTIMATED_GROUP_OVERHEAD;
+        for (Type type : types)
+        {
+            size += VectorUtils.estimateSize(type);
+        }
+        if (aggregators != null)
+        {
+            size += (long) aggregators.length * ESTIMATED_AGGREGATOR_GROUP_SIZE;
+        }
+        return size;
+    }
+
+    /** Write the partitioned rows of provided vector to the partitions spill files */
+    private void spillRows(TupleVector vector, IntList[] partitionRows, SpillFile[] spillFiles, Data data)
+    {
+        final long start = System.nanoTime();
+        for (int p = 0; p < HashMatch.SPILL_PARTITION_COUNT; p++)
+        {
+            if (partitionRows[p] == null)
+            {
+                continue;
+            }
+            if (spillFiles[p] == null)
+            {
+                spillFiles[p] = new SpillFile();
+            }
+            data.spilledBytes += spillFiles[p].write(SelectedTupleVector.select(vector, VectorUtils.convertToSelectionVector(partitionRows[p])));
+            data.spilledRows += partitionRows[p].size();
+        }
+        data.spillTime += System.nanoTime() - start;
+    }
+
+    /** Return an iterator that returns the in memory result followed by the aggregated spilled partitions one by one */
+    private TupleIterator createSpilledIterator(IExecutionContext context, TupleIterator result, SpillFile[] spillFiles, Data data, TupleVector outerTupleVector)
+    {
+        return new TupleIterator()
+        {
+            private TupleIterator current = result;
+            private int partition;
+
+            @Override
+            public boolean hasNext()
+            {
+                while (!current.hasNext())
+                {
+                    current.close();
+                    current = TupleIterator.EMPTY;
+                    if (partition >= HashMatch.SPILL_PARTITION_COUNT)
+                    {
+                        return false;
+                    }
+                    SpillFile file = spillFiles[partition];
+                    spillFiles[partition++] = null;
+                    if (file != null)
+                    {
+                        // Spilling is disabled for the partitions. A skewed partition that exceeds the budget stays in memory
+                        current = aggregate(context, file.iterator(), data, outerTupleVector, false);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public TupleVector next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            @Override
+            public void close()
+            {
+                current.close();
+                closeSpillFiles(spillFiles);
+            }
+        };
+    }
+
+    private static void closeSpillFiles(SpillFile[] spillFiles)
+    {
+        if (spillFiles == null)
+        {
+            return;
+        }
+        for (int i = 0; i < spillFiles.length; i++)
+        {
+            if (spillFiles[i] != null)
+            {
+                spillFiles[i].close();
+                spillFiles[i] = null;
+            }
+        }
+    }
+
+    /** Returns true if all aggregators of this plan can be merged. Otherwise the aggregation cannot be performed in parallel */
+    private boolean supportsMerge()
+    {
+        for (IAggregateExpression expression : projectionExpressions)
+        {
+            if (!expression.createAggregator()
+                    .supportsMerge())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Execute aggregation in parallel. Input is consumed in rounds of up to partition count vectors. Each vector in a round is pre aggregated into a partial result in its own task. The partials are
+     * then merged into the partition tables with one task per partition where each partition only handles the groups whose hash belongs to it. The output is ordered by the groups first appearance in
+     * input to yield the same result as the serial aggregation.
+     */
+    private TupleIterator executeParallel(IExecutionContext context, TupleIterator iterator, Data data, TupleVector outerTupleVector)
+    {
+        Partition[] partitions = new Partition[partitionCount];
+        int shift = Integer.SIZE - Integer.numberOfTrailingZeros(partitionCount);
+        List<? extends IExpression> actualExpressions = null;
+        List<TupleVector> round = new ArrayList<>(partitionCount);
+        int batchCount = 0;
+        try
+        {
+            while (iterator.hasNext())
+            {
+                TupleVector vector = iterator.next();
+                if (vector.getRowCount() == 0)
+                {
+                    continue;
+                }
+
+                if (actualExpressions == null)
+                {
+                    Schema outerSchema = outerTupleVector != null ? outerTupleVector.getSchema()
+                            : null;
+                    actualExpressions = hasAsteriskProjection ? ProjectionUtils.expandExpressions(projectionExpressions, outerSchema, vector.getSchema())
+                            : projectionExpressions;
+                    for (int i = 0; i < partitionCount; i++)
+                    {
+                        partitions[i] = new Partition(actualExpressions);
+                    }
+                }
+
+                round.add(vector);
+                if (round.size() == partitionCount)
+                {
+                    aggregateRound(context, data, round, batchCount, actualExpressions, partitions, shift);
+                    batchCount += round.size();
+                    round.clear();
+                    if (context.getSession()
+                            .abortQuery())
+                    {
+                        return TupleIterator.EMPTY;
+                    }
+                }
+            }
+
+            if (!round.isEmpty())
+            {
+                aggregateRound(context, data, round, batchCount, actualExpressions, partitions, shift);
+            }
+        }
+        finally
+        {
+            iterator.close();
+        }
+
+        if (actualExpressions == null
+                || context.getSession()
+                        .abortQuery())
+        {
+            return TupleIterator.EMPTY;
+        }
+
+        final long time = System.nanoTime();
+        int groupCount = 0;
+        for (Partition partition : partitions)
+        {
+            groupCount += partition.firstSeen.size();
+        }
+        if (groupCount == 0)
+        {
+            return TupleIterator.EMPTY;
+        }
+
+        // Order all groups by their first appearance in input
+        long[] firstSeen = new long[groupCount];
+        int[] groupPartitions = new int[groupCount];
+        int[] groupIds = new int[groupCount];
+        int index = 0;
+        for (int p = 0; p < partitionCount; p++)
+        {
+            LongList partitionFirstSeen = partitions[p].firstSeen;
+            int size = partitionFirstSeen.size();
+            for (int i = 0; i < size; i++)
+            {
+                firstSeen[index] = partitionFirstSeen.getLong(i);
+                groupPartitions[index] = p;
+                groupIds[index] = i;
+                index++;
+            }
+        }
+        int[] order = new int[groupCount];
+        for (int i = 0; i < groupCount; i++)
+        {
+            order[i] = i;
+        }
+        LongArrays.radixSortIndirect(order, firstSeen, false);
+
+        int projectionSize = actualExpressions.size();
+        ValueVector[][] partitionResults = new ValueVector[partitionCount][];
+        for (int p = 0; p < partitionCount; p++)
+        {
+            if (!partitions[p].firstSeen.isEmpty())
+            {
+                partitionResults[p] = new ValueVector[projectionSize];
+                for (int i = 0; i < projectionSize; i++)
+                {
+                    partitionResults[p][i] = partitions[p].aggregators[i].combine(context);
+                }
+            }
+        }
+
+        final ValueVector[] result = new ValueVector[projectionSize];
+        for (int i = 0; i < projectionSize; i++)
+        {
+            ResolvedType type = null;
+            for (ValueVector[] partitionResult : partitionResults)
+            {
+                if (partitionResult == null)
+                {
+                    continue;
+                }
+                ResolvedType partitionType = partitionResult[i].type();
+                type = type == null
+                        || type.equals(partitionType) ? partitionType
+                                : ResolvedType.of(Type.Any);
+            }
+
+            MutableValueVector resultVector = context.getVectorFactory()
+                    .getMutableVector(type, groupCount);
+            for (int row = 0; row < groupCount; row++)
+            {
+                int group = order[row];
+                resultVector.copy(row, partitionResults[groupPartitions[group]][i], groupIds[group]);
+            }
+            result[i] = resultVector;
+        }
+        data.aggregateTime += TimeUnit.MILLISECONDS.convert(System.nanoTime() - time, TimeUnit.NANOSECONDS);
+
+        final Schema s = hasAsteriskSchema ? SchemaUtils.getSchema(parentTableSource, actualExpressions, result, true)
+                : schema;
+        final int groupSize = groupCount;
+        return TupleIterator.singleton(new TupleVector()
+        {
+            @Override
+            public Schema getSchema()
+            {
+                return s;
+            }
+
+            @Override
+            public int getRowCount()
+            {
+                return groupSize;
+            }
+
+            @Override
+            public ValueVector getColumn(int column)
+            {
+                return result[column];
+            }
+        });
+    }
+
+    /**
+     * Pre aggregate all vectors in round in parallel and then merge the partials into the partitions in parallel. Each task is executed with it's own worker context that is merged back when the
+     * round is completed.
+     */
+    private void aggregateRound(IExecutionContext context, Data data, List<TupleVector> round, int batchOffset, List<? extends IExpression> actualExpressions, Partition[] partitions,
+            int shift)
+    {
+        long time = System.nanoTime();
+        List<PlanUtils.WorkerTask<Partial>> preAggregateTasks = new ArrayList<>(round.size());
+        for (TupleVector vector : round)
+        {
+            preAggregateTasks.add(workerContext -> preAggregate(workerContext, vector, actualExpressions));
+        }
+        final List<Partial> partials = PlanUtils.invokeAll(context, preAggregateTasks);
+        if (context.getSession()
+                .abortQuery())
+        {
+            return;
+        }
+        data.hashTime += TimeUnit.MILLISECONDS.convert(System.nanoTime() - time, TimeUnit.NANOSECONDS);
+
+        time = System.nanoTime();
+        List<PlanUtils.WorkerTask<Void>> mergeTasks = new ArrayList<>(partitionCount);
+        for (int p = 0; p < partitionCount; p++)
+        {
+            final int partition = p;
+            mergeTasks.add(workerContext ->
+            {
+                partitions[partition].merge(workerContext, partials, batchOffset, partition, shift);
+                return null;
+            });
+        }
+        PlanUtils.invokeAll(context, mergeTasks);
+        data.aggregateTime += TimeUnit.MILLISECONDS.convert(System.nanoTime() - time, TimeUnit.NANOSECONDS);
+    }
+
+    /** Group and aggregate a single input vector into a partial result */
+    private Partial preAggregate(IExecutionContext context, TupleVector vector, List<? extends IExpression> actualExpressions)
+    {
+        int aggregationSize = aggregateExpressions.size();
+        ValueVector[] aggregateVectors = new ValueVector[aggregationSize];
+        Type[] types = new Type[aggregationSize];
+        boolean[] hasNulls = new boolean[aggregationSize];
+        for (int i = 0; i < aggregationSize; i++)
+        {
+            aggregateVectors[i] = aggregateExpressions.get(i)
+                    .eval(vector, context);
+            types[i] = aggregateVectors[i].type()
+                    .getType();
+            hasNulls[i] = aggregateVectors[i].hasNulls();
+        }
+
+        // The partial keys points to the first row of the group in the input vector
+        Object2ObjectMap<GroupKey, IntList> table = new Object2ObjectOpenCustomHashMap<>(GROUP_KEY_STRATEGY);
+        List<GroupKey> keys = new ArrayList<>();
+        GroupKey key = new GroupKey(-1, aggregateVectors, types, hasNulls);
+        int rowCount = vector.getRowCount();
+        for (int i = 0; i < rowCount; i++)
+        {
+            key.row = i;
+            IntList rows = table.get(key);
+            if (rows == null)
+            {
+                GroupKey groupKey = new GroupKey(keys.size(), aggregateVectors, types, hasNulls);
+                groupKey.row = i;
+                rows = new IntArrayList();
+                table.put(groupKey, rows);
+                keys.add(groupKey);
+            }
+            rows.add(i);
+        }
+
+        int groupCount = keys.size();
+        int[] hashes = new int[groupCount];
+        MutableValueVector groupIds = context.getVectorFactory()
+                .getMutableVector(ResolvedType.of(Type.Int), groupCount);
+        MutableValueVector selections = context.getVectorFactory()
+                .getMutableVector(ResolvedType.array(Type.Int), groupCount);
+        for (int i = 0; i < groupCount; i++)
+        {
+            GroupKey groupKey = keys.get(i);
+            hashes[i] = groupKey.hashCode();
+            groupIds.setInt(i, i);
+            selections.setArray(i, VectorUtils.convertToSelectionVector(table.get(groupKey)));
+        }
+
+        int projectionSize = actualExpressions.size();
+        IAggregator[] aggregators = new IAggregator[projectionSize];
+        for (int i = 0; i < projectionSize; i++)
+        {
+            aggregators[i] = ((IAggregateExpression) actualExpressions.get(i)).createAggregator();
+            aggregators[i].appendGroup(vector, groupIds, selections, context);
+        }
+        return new Partial(keys, hashes, aggregators);
+    }
+
     @Override
     public List<IPhysicalPlan> getChildren()
     {
@@ -440,7 +1038,9 @@ else if (obj instanceof HashAggregate)
                     && input.equals(that.input)
                     && aggregateExpressions.equals(that.aggregateExpressions)
                     && projectionExpressions.equals(that.projectionExpressions)
-                    && Objects.equals(parentTableSource, that.parentTableSource);
+                    && Objects.equals(parentTableSource, that.parentTableSource)
+                    && partitionCount == that.partitionCount
+                    && memoryBudget == that.memoryBudget;
         }
         return false;
     }
@@ -453,7 +1053,15 @@ public String toString()
             return "Distinct (" + nodeId + ")";
         }
 
-        return "HashAggregate (" + nodeId + "), on: " + aggregateExpressions + ", projection: " + projectionExpressions;
+        return "HashAggregate (" + nodeId
+               + "), on: "
+               + aggregateExpressions
+               + ", projection: "
+               + projectionExpressions
+               + (partitionCount > 1 ? ", partitions: " + partitionCount
+                       : "")
+               + (memoryBudget > 0 ? ", memoryBudget: " + memoryBudget
+                       : "");
     }
 
     /** Node data */
@@ -461,6 +1069,118 @@ static class Data extends NodeData
     {
         long hashTime;
         long aggregateTime;
+        /** Spill statistics. Number of times the memory budget was exceeded along with spilled rows/bytes/time */
+        int spillCount;
+        long spilledRows;
+        long spilledBytes;
+        long spillTime;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof Data data)
+            {
+                hashTime += data.hashTime;
+                aggregateTime += data.aggregateTime;
+                spillCount += data.spillCount;
+                spilledRows += data.spilledRows;
+                spilledBytes += data.spilledBytes;
+                spillTime += data.spillTime;
+            }
+        }
+    }
+
+    /** Pre aggregated result of a single input vector */
+    private static class Partial
+    {
+        /** Group keys where the key's group id is the group's index in the aggregators */
+        final List<GroupKey> keys;
+        final int[] hashes;
+        final IAggregator[] aggregators;
+
+        Partial(List<GroupKey> keys, int[] hashes, IAggregator[] aggregators)
+        {
+            this.keys = keys;
+            this.hashes = hashes;
+            this.aggregators = aggregators;
+        }
+    }
+
+    /** A hash partition of the groups. Is only accessed by one thread at a time */
+    private static class Partition
+    {
+        final Object2IntMap<GroupKey> groups = new Object2IntOpenCustomHashMap<>(GROUP_KEY_STRATEGY);
+        final IAggregator[] aggregators;
+        /** First appearance in input for each group. Batch number in the high bits and row in the low bits */
+        final LongList firstSeen = new LongArrayList();
+
+        Partition(List<? extends IExpression> actualExpressions)
+        {
+            int size = actualExpressions.size();
+            aggregators = new IAggregator[size];
+            for (int i = 0; i < size; i++)
+            {
+                aggregators[i] = ((IAggregateExpression) actualExpressions.get(i)).createAggregator();
+            }
+            groups.defaultReturnValue(-1);
+        }
+
+        /** Merge all groups that belongs to this partition from provided partials. */
+        void merge(IExecutionContext context, List<Partial> partials, int batchOffset, int partition, int shift)
+        {
+            int partialCount = partials.size();
+            for (int b = 0; b < partialCount; b++)
+            {
+                Partial partial = partials.get(b);
+                int groupCount = partial.keys.size();
+                IntList groupIds = new IntArrayList();
+                IntList partialGroupIds = new IntArrayList();
+                for (int i = 0; i < groupCount; i++)
+                {
+                    if ((HashCommon.mix(partial.hashes[i]) >>> shift) != partition)
+                    {
+                        continue;
+                    }
+
+                    GroupKey key = partial.keys.get(i);
+                    int groupId = groups.getInt(key);
+                    if (groupId < 0)
+                    {
+                        int size = key.rowValues.length;
+                        ValueVector[] rowValues = new ValueVector[size];
+                        for (int j = 0; j < size; j++)
+                        {
+                            MutableValueVector resultVector = context.getVectorFactory()
+                                    .getMutableVector(key.rowValues[j].type(), 1);
+                            resultVector.copy(0, key.rowValues[j], key.row);
+                            rowValues[j] = resultVector;
+                        }
+
+                        groupId = firstSeen.size();
+                        GroupKey groupKey = new GroupKey(groupId, rowValues, key.types, key.hasNulls);
+                        groupKey.row = 0;
+                        groups.put(groupKey, groupId);
+                        firstSeen.add(((long) (batchOffset + b) << 32) | key.row);
+                    }
+                    groupIds.add(groupId);
+                    partialGroupIds.add(i);
+                }
+
+                if (groupIds.isEmpty())
+                {
+                    continue;
+                }
+
+                ValueVector groupIdsVector = VectorUtils.convertToSelectionVector(groupIds);
+                ValueVector partialGroupIdsVector = VectorUtils.convertToSelectionVector(partialGroupIds);
+                int size = aggregators.length;
+                for (int i = 0; i < size; i++)
+                {
+                    aggregators[i].merge(partial.aggregators[i], groupIdsVector, partialGroupIdsVector, context);
+                }
+            }
+        }
     }
 
     static class GroupKey
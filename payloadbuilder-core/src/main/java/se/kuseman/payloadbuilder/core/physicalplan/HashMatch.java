@@ -16,7 +16,8 @@
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 
-import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.collections4.IteratorUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 
 import se.kuseman.payloadbuilder.api.catalog.Column;
@@ -37,7 +38,7 @@
 import se.kuseman.payloadbuilder.core.execution.ValueVectorAdapter;
 import se.kuseman.payloadbuilder.core.execution.VectorUtils;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntArraySet;
@@ -47,8 +48,16 @@
 /** Hash match physical plan. Used in left/inner joins where we have an equi condition. */
 public class HashMatch implements IPhysicalPlan
 {
-    /** If inner input size is unkown and outer is known and above this threshold, we take a chance and hash the inner */
-    private static final int OUTER_ROW_THRESHOLD = 10_000;
+    /**
+     * Max number of rows that is buffered from an input with unknown size when deciding which side to hash. If neither side is exhausted within this limit the inner is hashed.
+     */
+    static final int OBSERVE_ROW_LIMIT = 10_000;
+    /** Max number of partitions allowed when using partitioned mode */
+    static final int MAX_PARTITION_COUNT = 256;
+    /** Min number of rows that is hashed per task in partitioned mode */
+    private static final int MIN_HASH_CHUNK_SIZE = 4096;
+    /** Number of partitions written to disk when the memory budget is exceeded */
+    static final int SPILL_PARTITION_COUNT = 32;
 
     private final int nodeId;
     private final IPhysicalPlan outer;
@@ -66,6 +75,14 @@ public class HashMatch implements IPhysicalPlan
      * Should outer reference be pushed into context before executing inner. This is used when having a seek predicate
      */
     private final boolean pushOuterReference;
+    /**
+     * Number of radix partitions of the hash table. When above 1 the table is split into partitions by the hash and each partition is built and probed in parallel.
+     */
+    private final int partitionCount;
+    /**
+     * Memory budget in bytes of the hash table. When exceeded both inputs are partitioned to disk and joined partition by partition (grace hash join). Zero means unbounded.
+     */
+    private final long memoryBudget;
 
     private final boolean isAsteriskSchema;
     private final boolean isAsteriskInnerSchema;
@@ -84,6 +101,41 @@ public HashMatch(
             boolean emitEmptyOuterRows,
             boolean pushOuterReference)
     //@formatter:on
+    {
+        this(nodeId, outer, inner, outerHashFunction, innerHashFunction, condition, populateAlias, emitEmptyOuterRows, pushOuterReference, 1);
+    }
+
+    //@formatter:off
+    public HashMatch(
+            int nodeId,
+            IPhysicalPlan outer,
+            IPhysicalPlan inner,
+            List<IExpression> outerHashFunction,
+            List<IExpression> innerHashFunction,
+            BiFunction<TupleVector, IExecutionContext, ValueVector> condition,
+            String populateAlias,
+            boolean emitEmptyOuterRows,
+            boolean pushOuterReference,
+            int partitionCount)
+    //@formatter:on
+    {
+        this(nodeId, outer, inner, outerHashFunction, innerHashFunction, condition, populateAlias, emitEmptyOuterRows, pushOuterReference, partitionCount, 0);
+    }
+
+    //@formatter:off
+    public HashMatch(
+            int nodeId,
+            IPhysicalPlan outer,
+            IPhysicalPlan inner,
+            List<IExpression> outerHashFunction,
+            List<IExpression> innerHashFunction,
+            BiFunction<TupleVector, IExecutionContext, ValueVector> condition,
+            String populateAlias,
+            boolean emitEmptyOuterRows,
+            boolean pushOuterReference,
+            int partitionCount,
+            long memoryBudget)
+    //@formatter:on
     {
         this.nodeId = nodeId;
         this.outer = requireNonNull(outer, "outer");
@@ -94,6 +146,8 @@ public HashMatch(
         this.populateAlias = populateAlias;
         this.emitEmptyOuterRows = emitEmptyOuterRows;
         this.pushOuterReference = pushOuterReference;
+        this.partitionCount = normalizePartitionCount(partitionCount);
+        this.memoryBudget = memoryBudget;
 
         if (outerHashFunction.size() != innerHashFunction.size())
         {
@@ -106,12 +160,32 @@ public HashMatch(
         this.isAsteriskInnerSchema = SchemaUtils.isAsterisk(inner.getSchema());
     }
 
+    /** Normalizes a partition count to the closest power of two that is equal or larger than provided count, capped at {@link #MAX_PARTITION_COUNT} */
+    static int normalizePartitionCount(int partitionCount)
+    {
+        if (partitionCount <= 1)
+        {
+            return 1;
+        }
+        return Math.min(MAX_PARTITION_COUNT, Integer.highestOneBit(partitionCount - 1) << 1);
+    }
+
     @Override
     public int getNodeId()
     {
         return nodeId;
     }
 
+    int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
     @Override
     public String getName()
     {
@@ -135,6 +209,21 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
                         : "Inner");
                 properties.put("Probe Side", nodeData.outerIsHash ? "Inner"
                         : "Outer");
+                properties.put("Hash Side Decision", nodeData.hashSideDecision);
+            }
+            if (nodeData.partitionRowCount != null)
+            {
+                properties.put("Partition Build Times", formatPartitionTimes(nodeData.partitionBuildTime));
+                properties.put("Partition Probe Times", formatPartitionTimes(nodeData.partitionProbeTime));
+                properties.put("Partition Rows", Arrays.toString(nodeData.partitionRowCount));
+                properties.put("Partition Skew", String.format("%.2f", nodeData.getSkew()));
+            }
+            if (nodeData.spillCount > 0)
+            {
+                properties.put("Spill Count", nodeData.spillCount);
+                properties.put("Spilled Rows", nodeData.spilledRows);
+                properties.put("Spilled Bytes", FileUtils.byteCountToDisplaySize(nodeData.spilledBytes));
+                properties.put("Spill Time", DurationFormatUtils.formatDurationHMS(TimeUnit.MILLISECONDS.convert(nodeData.spillTime, TimeUnit.NANOSECONDS)));
             }
         }
 
@@ -144,10 +233,33 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
         properties.put("Populate", populateAlias != null);
         properties.put("Logical Operator", emitEmptyOuterRows ? "LEFT JOIN"
                 : "INNER JOIN");
+        if (partitionCount > 1)
+        {
+            properties.put("Partitions", partitionCount);
+        }
+        if (memoryBudget > 0)
+        {
+            properties.put("Memory Budget", FileUtils.byteCountToDisplaySize(memoryBudget));
+        }
 
         return properties;
     }
 
+    private static String formatPartitionTimes(long[] times)
+    {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < times.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(DurationFormatUtils.formatDurationHMS(TimeUnit.MILLISECONDS.convert(times[i], TimeUnit.NANOSECONDS)));
+        }
+        return sb.append("]")
+                .toString();
+    }
+
     @Override
     public Schema getSchema()
     {
@@ -166,18 +278,6 @@ private Schema getSchema(boolean cartesian)
     @Override
     public TupleIterator execute(IExecutionContext context)
     {
-        /*
-         * Adaptive join - index seek
-         * 
-         * TupleIterator outer = outer.execute(context);
-         * 
-         * TupleVector nextOuter = outer.next();
-         * 
-         * ((ExecutionContext) context).getStatementContext().setIndexSeekTupleVector(nextOuter);
-         * 
-         * TupleIterator inner = inner.execute(context);
-         * 
-         */
         TupleIterator outerIt = outer.execute(context);
         if (!outerIt.hasNext())
         {
@@ -223,14 +323,24 @@ public TupleIterator execute(IExecutionContext context)
         /** Move to next batch. Create non matching vectors on left join etc. */
         NextBatch,
 
+        /** Memory budget was exceeded and inputs are spilled to disk. Join spilled partitions one by one. */
+        JoinSpilled,
+
         /** End phase. Close streams etc. */
         End
     }
 
     TupleIterator createIterator(IExecutionContext context, final TupleIterator topOuterIt, final TupleIterator topInnerIt, TupleVector currentOuter)
+    {
+        // Spilling is not supported for indexed joins since we only hash one outer batch at a time
+        return createIterator(context, topOuterIt, topInnerIt, currentOuter, memoryBudget > 0
+                && !pushOuterReference);
+    }
+
+    private TupleIterator createIterator(IExecutionContext context, final TupleIterator topOuterIt, final TupleIterator topInnerIt, TupleVector currentOuter, boolean spillEnabled)
     {
         final HashNodeData nodeData = context.getStatementContext()
-                .getOrCreateNodeData(nodeId, () -> new HashNodeData());
+                .getOrCreateNodeData(nodeId, () -> new HashNodeData(partitionCount));
 
         return new TupleIterator()
         {
@@ -251,7 +361,7 @@ TupleIterator createIterator(IExecutionContext context, final TupleIterator topO
             private ReplicatedTupleVector replicatedTupleVectorOuter = new ReplicatedTupleVector(true);
             private ReplicatedTupleVector replicatedTupleVectorInner = new ReplicatedTupleVector(false);
 
-            private Int2ObjectMap<HashValue> table;
+            private HashTable table;
             private boolean outerIsHash;
 
             private TupleIterator outerIt = topOuterIt;
@@ -270,6 +380,16 @@ TupleIterator createIterator(IExecutionContext context, final TupleIterator topO
             private List<TupleVector> emptyVectors;
             private int emptyVectorsIndex;
 
+            /** Vectors added to the table along with their estimated size. Only tracked when spilling is enabled. */
+            private List<TupleVector> tableVectors;
+            private long tableSize;
+            /** Spilled partitions of outer and inner input when memory budget was exceeded */
+            private SpillFile[] outerSpillFiles;
+            private SpillFile[] innerSpillFiles;
+            private int spilledPartition;
+            /** Iterator of the current joined spilled partition */
+            private TupleIterator spilledPartitionIt;
+
             private IteratorState state = IteratorState.Start;
 
             @Override
@@ -295,6 +415,11 @@ public void close()
                 {
                     outerIt.close();
                 }
+                if (spilledPartitionIt != null)
+                {
+                    spilledPartitionIt.close();
+                }
+                closeSpillFiles();
             }
 
             @Override
@@ -334,6 +459,10 @@ private boolean setNext()
                         case NextBatch:
                             nextBatch();
                             break;
+                        case JoinSpilled:
+                            // Hash and probe times are measured by the partition iterators
+                            joinSpilled();
+                            break;
                         case ProbeInner:
                             probeInner();
                             nodeData.probeTime += System.nanoTime() - time;
@@ -356,41 +485,115 @@ private boolean setNext()
             /** Handle start state */
             private void start()
             {
+                // Clear the types before each hash
+                Arrays.fill(hashFunctionTypes, null);
+
                 /* Find out which side to hash/probe */
-                int outerRowCount = outerIt.estimatedRowCount();
 
                 // If we have indexed join then we use the outer references as row count
-                if (pushOuterReference)
-                {
-                    outerRowCount = outerReference.getRowCount();
-                }
+                int outerRowCount = pushOuterReference ? outerReference.getRowCount()
+                        : outerIt.estimatedRowCount();
+                int innerRowCount = innerIt.estimatedRowCount();
 
-                // Hash inner if inner is less than outer
-                // or inner is unkown and outer goes above a thres hold
-                // then we assume that inner is lower
                 // TODO: force option
-
-                // Clear the types before each hash
-                Arrays.fill(hashFunctionTypes, null);
-
-                int innerRowCount = innerIt.estimatedRowCount();
-                if ((innerRowCount >= 0
-                        && innerRowCount < outerRowCount)
-                        || (innerRowCount < 0
-                                && outerRowCount > OUTER_ROW_THRESHOLD))
+                if (outerRowCount >= 0
+                        && innerRowCount >= 0)
                 {
-                    state = IteratorState.HashInner;
-                    outerIsHash = false;
+                    // Hash inner if inner is less than outer
+                    outerIsHash = innerRowCount >= outerRowCount;
+                    nodeData.hashSideDecision = "Estimated";
                 }
                 else
                 {
-                    state = IteratorState.HashOuter;
-                    outerIsHash = true;
+                    observe(outerRowCount, innerRowCount);
                 }
 
+                state = outerIsHash ? IteratorState.HashOuter
+                        : IteratorState.HashInner;
                 nodeData.outerIsHash = outerIsHash;
             }
 
+            /**
+             * Decide hash side from observed cardinalities. Buffers the first batches of the inputs that has unknown sizes until we either know which side is smallest or we reach
+             * {@link #OBSERVE_ROW_LIMIT}. The buffered batches are replayed when hashing/probing.
+             */
+            private void observe(int outerEstimatedRowCount, int innerEstimatedRowCount)
+            {
+                ObservingTupleIterator observedOuter = null;
+                ObservingTupleIterator observedInner = null;
+                if (outerEstimatedRowCount < 0)
+                {
+                    // First outer vector is already consumed
+                    observedOuter = new ObservingTupleIterator(outerIt, outerReference.getRowCount());
+                    outerIt = observedOuter;
+                }
+                if (innerEstimatedRowCount < 0)
+                {
+                    observedInner = new ObservingTupleIterator(innerIt, 0);
+                    innerIt = observedInner;
+                }
+
+                int outerRowCount = outerEstimatedRowCount;
+                int innerRowCount = innerEstimatedRowCount;
+                while (!context.getSession()
+                        .abortQuery())
+                {
+                    outerRowCount = observedOuter != null ? observedOuter.getRowCount()
+                            : outerEstimatedRowCount;
+                    innerRowCount = observedInner != null ? observedInner.getRowCount()
+                            : innerEstimatedRowCount;
+                    boolean outerKnown = observedOuter == null
+                            || observedOuter.exhausted;
+                    boolean innerKnown = observedInner == null
+                            || observedInner.exhausted;
+
+                    // Both sides known or the unknown side is already larger than the known one
+                    if ((outerKnown
+                            && innerKnown)
+                            || (outerKnown
+                                    && innerRowCount > outerRowCount)
+                            || (innerKnown
+                                    && outerRowCount > innerRowCount))
+                    {
+                        break;
+                    }
+
+                    // Read from the unknown side that has observed the least rows
+                    boolean readOuter = !outerKnown
+                            && outerRowCount < OBSERVE_ROW_LIMIT
+                            && (innerKnown
+                                    || outerRowCount <= innerRowCount);
+                    boolean readInner = !readOuter
+                            && !innerKnown
+                            && innerRowCount < OBSERVE_ROW_LIMIT;
+                    if (readOuter)
+                    {
+                        observedOuter.observeNext();
+                    }
+                    else if (readInner)
+                    {
+                        observedInner.observeNext();
+                    }
+                    else
+                    {
+                        break;
+                    }
+                }
+
+                boolean outerKnown = observedOuter == null
+                        || observedOuter.exhausted;
+                boolean innerKnown = observedInner == null
+                        || observedInner.exhausted;
+
+                // Neither side is known then both are large and we take a chance and hash the inner
+                outerIsHash = (outerKnown
+                        || innerKnown)
+                        && innerRowCount >= outerRowCount;
+                nodeData.hashSideDecision = String.format("Observed (Outer: %s%d, Inner: %s%d)", outerKnown ? ""
+                        : ">= ", outerRowCount, innerKnown ? ""
+                                : ">= ", innerRowCount);
+            }
+
             /** Handle next batch state */
             private void nextBatch()
             {
@@ -509,6 +712,12 @@ private void hashInner()
                                 .getSize(), vector)
                                 : vector;
                         addToTable(vectorId++, evalVector, vector, null, innerHashFunction);
+                        if (spillEnabled
+                                && exceedsMemoryBudget(vector))
+                        {
+                            spill();
+                            return;
+                        }
                         if (populateAlias != null)
                         {
                             break;
@@ -567,6 +776,12 @@ private void hashOuter()
                         // One matched set per vector
                         BitSet matchedSet = new BitSet();
                         int addedSize = addToTable(vectorId++, vector, vector, matchedSet, outerHashFunction);
+                        if (spillEnabled
+                                && exceedsMemoryBudget(vector))
+                        {
+                            spill();
+                            return;
+                        }
                         if (addedSize <= 0
                                 && emitEmptyOuterRows)
                         {
@@ -595,7 +810,8 @@ else if (emptyVectors.size() == 1)
                 }
                 finally
                 {
-                    if (!pushOuterReference)
+                    if (!pushOuterReference
+                            && outerIt != null)
                     {
                         outerIt.close();
                         // Clear this reference, it's not needed anymore
@@ -640,7 +856,7 @@ private void probeInner()
                 }
 
                 if (inner.getRowCount() == 0
-                        || MapUtils.isEmpty(table))
+                        || HashTable.isNullOrEmpty(table))
                 {
                     state = IteratorState.NextBatch;
                     return;
@@ -660,54 +876,56 @@ private void probeInner()
                 int rowCount = inner.getRowCount();
                 ITupleVectorBuilder builder = null;
 
-                rows: for (int probeRow = 0; probeRow < rowCount; probeRow++)
+                if (table.isPartitioned())
                 {
-                    for (int j = 0; j < hashSize; j++)
+                    // Probe and evaluate the condition in parallel then collect the result in row order
+                    ProbeMatch[] matches = probePartitioned(vectors, rowCount, inner);
+                    for (int probeRow = 0; probeRow < rowCount; probeRow++)
                     {
-                        // Any null value in hash keys and we can skip it since
-                        // there can never be any matches
-                        if (vectors[j].isNull(probeRow))
+                        for (ProbeMatch match = matches[probeRow]; match != null; match = match.next)
                         {
-                            continue rows;
+                            replicatedTupleVectorOuter.init(match.bucket.vector, inner, match.bucket, probeRow, isAsteriskSchema, cartesianSchema);
+                            builder = appendMatchOuterHash(builder, match.bucket, match.filter, match.cardinality, probeRow, rowCount);
                         }
                     }
+                }
+                else
+                {
+                    rows: for (int probeRow = 0; probeRow < rowCount; probeRow++)
+                    {
+                        for (int j = 0; j < hashSize; j++)
+                        {
+                            // Any null value in hash keys and we can skip it since
+                            // there can never be any matches
+                            if (vectors[j].isNull(probeRow))
+                            {
+                                continue rows;
+                            }
+                        }
 
-                    int hash = VectorUtils.hash(vectors, hashFunctionTypes, probeRow);
-                    HashValue value = table.get(hash);
+                        int hash = VectorUtils.hash(vectors, hashFunctionTypes, probeRow);
+                        HashValue value = table.get(hash);
 
-                    // No matches for current row
-                    if (value == null)
-                    {
-                        continue;
-                    }
+                        // No matches for current row
+                        if (value == null)
+                        {
+                            continue;
+                        }
 
-                    int bucketSize = value.buckets.size();
-                    for (int b = 0; b < bucketSize; b++)
-                    {
-                        HashValueBucket bucket = value.buckets.get(b);
+                        int bucketSize = value.buckets.size();
+                        for (int b = 0; b < bucketSize; b++)
+                        {
+                            HashValueBucket bucket = value.buckets.get(b);
 
-                        replicatedTupleVectorOuter.init(bucket.vector, inner, bucket, probeRow, isAsteriskSchema, cartesianSchema);
+                            replicatedTupleVectorOuter.init(bucket.vector, inner, bucket, probeRow, isAsteriskSchema, cartesianSchema);
 
-                        // Matches between outer / inner
-                        ValueVector filter = condition.apply(replicatedTupleVectorOuter, context);
+                            // Matches between outer / inner
+                            ValueVector filter = condition.apply(replicatedTupleVectorOuter, context);
 
-                        int cardinality = filter.getCardinality();
-                        if (cardinality > 0)
-                        {
-                            bucket.markMatch(filter);
-                            if (populateAlias == null)
+                            int cardinality = filter.getCardinality();
+                            if (cardinality > 0)
                             {
-                                if (builder == null)
-                                {
-                                    int resultSize = estimateBufferSize(bucket.vector.getRowCount(), rowCount, cardinality);
-                                    builder = context.getVectorFactory()
-                                            .getTupleVectorBuilder(resultSize);
-                                }
-                                builder.append(replicatedTupleVectorOuter, filter);
-                            }
-                            else
-                            {
-                                bucket.markPopulatedMatchesOuterHash(filter, probeRow);
+                                builder = appendMatchOuterHash(builder, bucket, filter, cardinality, probeRow, rowCount);
                             }
                         }
                     }
@@ -734,7 +952,7 @@ private void probeOuter()
                 /*
                  * If there wasn't any entires in the tabla that means all inner rows was null etc. Start to stream out empty outer rows
                  */
-                if (MapUtils.isEmpty(table))
+                if (HashTable.isNullOrEmpty(table))
                 {
                     // Inner join or no more outer vectors => we're done
                     if (!emitEmptyOuterRows
@@ -784,119 +1002,515 @@ private void probeOuter()
                 int rowCount = outer.getRowCount();
                 ITupleVectorBuilder builder = null;
 
-                if (innerPopulateMatches != null)
+                // Reset populated matches from previous vector. These cannot be re-used since the vectors can differ in size
+                // and a non null entry marks a populated row
+                innerPopulateMatches = null;
+
+                if (outerMatchedFilter != null)
+                {
+                    outerMatchedFilter.clear();
+                }
+
+                if (table.isPartitioned())
+                {
+                    // Probe and evaluate the condition in parallel then collect the result in row order
+                    ProbeMatch[] matches = probePartitioned(vectors, rowCount, outer);
+                    for (int i = 0; i < rowCount; i++)
+                    {
+                        for (ProbeMatch match = matches[i]; match != null; match = match.next)
+                        {
+                            replicatedTupleVectorInner.init(outer, match.bucket.vector, match.bucket, i, isAsteriskSchema, cartesianSchema);
+                            builder = appendMatchInnerHash(builder, match.bucket, match.filter, match.cardinality, i, rowCount);
+                        }
+                    }
+                }
+                else
+                {
+                    rows: for (int i = 0; i < rowCount; i++)
+                    {
+                        for (int j = 0; j < hashSize; j++)
+                        {
+                            // Any null value in hash keys and we can skip it since
+                            // there can never be any matches
+                            if (vectors[j].isNull(i))
+                            {
+                                continue rows;
+                            }
+                        }
+
+                        int hash = VectorUtils.hash(vectors, hashFunctionTypes, i);
+                        HashValue value = table.get(hash);
+
+                        // No matches for current row
+                        if (value == null)
+                        {
+                            continue;
+                        }
+
+                        int bucketSize = value.buckets.size();
+                        for (int b = 0; b < bucketSize; b++)
+                        {
+                            HashValueBucket bucket = value.buckets.get(b);
+
+                            replicatedTupleVectorInner.init(outer, bucket.vector, bucket, i, isAsteriskSchema, cartesianSchema);
+
+                            // Matches between outer / inner
+                            ValueVector filter = condition.apply(replicatedTupleVectorInner, context);
+
+                            int cardinality = filter.getCardinality();
+                            if (cardinality > 0)
+                            {
+                                builder = appendMatchInnerHash(builder, bucket, filter, cardinality, i, rowCount);
+                            }
+                        }
+                    }
+                }
+
+                TupleVector result = null;
+                if (builder != null)
+                {
+                    result = builder.build();
+                }
+                // Append populated matches
+                else if (populateAlias != null
+                        && innerPopulateMatches != null)
+                {
+                    result = buildPopulatedVectorInnerHashMode(outer, innerPopulateMatches);
+                }
+
+                // Outer is probed then we can build a non matched vector from current probed vector
+                if (emitEmptyOuterRows)
+                {
+                    TupleVector nonMatchedVector = buildNonMatchedOuterVectorInnerHashMode(outer, outerMatchedFilter, rowCount);
+                    // If there was no joined result, set the non matched result to next
+                    // to skip one iteration in loop
+                    if (result == null)
+                    {
+                        result = nonMatchedVector;
+                    }
+                    else
+                    {
+                        nonMatchedOuterNext = nonMatchedVector;
+                    }
+                }
+
+                next = result;
+                state = IteratorState.NextBatch;
+            }
+
+            /** Handle a match in outer hash mode. Marks matches and appends the result to builder. */
+            private ITupleVectorBuilder appendMatchOuterHash(ITupleVectorBuilder builder, HashValueBucket bucket, ValueVector filter, int cardinality, int probeRow, int rowCount)
+            {
+                bucket.markMatch(filter);
+                if (populateAlias == null)
+                {
+                    ITupleVectorBuilder result = builder;
+                    if (result == null)
+                    {
+                        int resultSize = estimateBufferSize(bucket.vector.getRowCount(), rowCount, cardinality);
+                        result = context.getVectorFactory()
+                                .getTupleVectorBuilder(resultSize);
+                    }
+                    result.append(replicatedTupleVectorOuter, filter);
+                    return result;
+                }
+
+                bucket.markPopulatedMatchesOuterHash(filter, probeRow);
+                return builder;
+            }
+
+            /** Handle a match in inner hash mode. Marks matches and appends the result to builder. */
+            private ITupleVectorBuilder appendMatchInnerHash(ITupleVectorBuilder builder, HashValueBucket bucket, ValueVector filter, int cardinality, int probeRow, int rowCount)
+            {
+                if (emitEmptyOuterRows)
+                {
+                    if (outerMatchedFilter == null)
+                    {
+                        outerMatchedFilter = new BitSet(rowCount);
+                    }
+
+                    outerMatchedFilter.set(probeRow);
+                }
+                if (populateAlias == null)
+                {
+                    ITupleVectorBuilder result = builder;
+                    if (result == null)
+                    {
+                        int resultSize = estimateBufferSize(bucket.vector.getRowCount(), rowCount, cardinality);
+                        result = context.getVectorFactory()
+                                .getTupleVectorBuilder(resultSize);
+                    }
+                    result.append(replicatedTupleVectorInner, filter);
+                    return result;
+                }
+
+                if (innerPopulateMatches == null)
+                {
+                    innerPopulateMatches = new ArrayList<>(Collections.nCopies(rowCount, null));
+                }
+                HashValueBucket.markPopulatedMatchesInnerHash(bucket, innerPopulateMatches, filter, probeRow);
+                return builder;
+            }
+
+            /**
+             * Splits the rows of provided hash vectors into the tables partitions. Hashes are calculated in parallel and the rows are then grouped per partition in ascending row order.
+             */
+            private RadixPartitions partitionRows(ValueVector[] vectors, int rowCount)
+            {
+                final int partitions = table.getPartitionCount();
+                final int[] hashes = new int[rowCount];
+                final int[] rowPartitions = new int[rowCount];
+                final boolean[] hasNulls = new boolean[hashSize];
+                for (int i = 0; i < hashSize; i++)
+                {
+                    hasNulls[i] = vectors[i].hasNulls();
+                }
+
+                int chunkSize = Math.max(MIN_HASH_CHUNK_SIZE, (rowCount + partitions - 1) / partitions);
+                List<PlanUtils.WorkerTask<Void>> tasks = new ArrayList<>(partitions);
+                for (int start = 0; start < rowCount; start += chunkSize)
+                {
+                    final int from = start;
+                    final int to = Math.min(rowCount, start + chunkSize);
+                    tasks.add(c ->
+                    {
+                        rows: for (int row = from; row < to; row++)
+                        {
+                            for (int j = 0; j < hashSize; j++)
+                            {
+                                // Null values can never match, exclude those rows
+                                if (hasNulls[j]
+                                        && vectors[j].isNull(row))
+                                {
+                                    rowPartitions[row] = -1;
+                                    continue rows;
+                                }
+                            }
+                            int hash = VectorUtils.hash(vectors, hashFunctionTypes, hasNulls, row);
+                            hashes[row] = hash;
+                            rowPartitions[row] = table.partition(hash);
+                        }
+                        return null;
+                    });
+                }
+                PlanUtils.invokeAll(context, tasks);
+                if (context.getSession()
+                        .abortQuery())
+                {
+                    // Hashes are not complete, return empty partitions
+                    return new RadixPartitions(hashes, new int[0], new int[partitions + 1]);
+                }
+
+                // Counting sort of the rows by partition
+                int[] offsets = new int[partitions + 1];
+                for (int row = 0; row < rowCount; row++)
+                {
+                    if (rowPartitions[row] >= 0)
+                    {
+                        offsets[rowPartitions[row] + 1]++;
+                    }
+                }
+                for (int p = 0; p < partitions; p++)
+                {
+                    offsets[p + 1] += offsets[p];
+                }
+                int[] positions = Arrays.copyOf(offsets, partitions);
+                int[] rows = new int[offsets[partitions]];
+                for (int row = 0; row < rowCount; row++)
+                {
+                    int partition = rowPartitions[row];
+                    if (partition >= 0)
+                    {
+                        rows[positions[partition]++] = row;
+                    }
+                }
+                return new RadixPartitions(hashes, rows, offsets);
+            }
+
+            /** Build hash table partitions in parallel */
+            private int addToTablePartitioned(int vectorId, ValueVector[] vectors, int rowCount, TupleVector tableVector, BitSet matchedSet)
+            {
+                RadixPartitions radixPartitions = partitionRows(vectors, rowCount);
+                int partitions = table.getPartitionCount();
+                List<PlanUtils.WorkerTask<Void>> tasks = new ArrayList<>(partitions);
+                for (int p = 0; p < partitions; p++)
+                {
+                    final int partition = p;
+                    final int from = radixPartitions.offsets[p];
+                    final int to = radixPartitions.offsets[p + 1];
+                    if (from == to)
+                    {
+                        continue;
+                    }
+                    tasks.add(c ->
+                    {
+                        long start = System.nanoTime();
+                        Int2ObjectOpenHashMap<HashValue> partitionTable = table.partitions[partition];
+                        for (int i = from; i < to; i++)
+                        {
+                            int row = radixPartitions.rows[i];
+                            partitionTable.computeIfAbsent(radixPartitions.hashes[row], k -> new HashValue())
+                                    .add(vectorId, tableVector, matchedSet, row);
+                        }
+                        nodeData.partitionBuildTime[partition] += System.nanoTime() - start;
+                        nodeData.partitionRowCount[partition] += to - from;
+                        return null;
+                    });
+                }
+                PlanUtils.invokeAll(context, tasks);
+                return radixPartitions.rows.length;
+            }
+
+            /**
+             * Probe provided vectors against the partitioned table. Each partition is probed in parallel and the join condition is evaluated on the worker with the workers own context. Returns the
+             * matches per probe row with the filter materialized since the replicated vectors is reused.
+             */
+            private ProbeMatch[] probePartitioned(ValueVector[] vectors, int rowCount, TupleVector probeVector)
+            {
+                RadixPartitions radixPartitions = partitionRows(vectors, rowCount);
+                ProbeMatch[] matches = new ProbeMatch[rowCount];
+                int partitions = table.getPartitionCount();
+                List<PlanUtils.WorkerTask<Void>> tasks = new ArrayList<>(partitions);
+                for (int p = 0; p < partitions; p++)
+                {
+                    final int partition = p;
+                    final int from = radixPartitions.offsets[p];
+                    final int to = radixPartitions.offsets[p + 1];
+                    if (from == to
+                            || table.partitions[p].isEmpty())
+                    {
+                        continue;
+                    }
+                    tasks.add(workerContext ->
+                    {
+                        long start = System.nanoTime();
+                        Int2ObjectOpenHashMap<HashValue> partitionTable = table.partitions[partition];
+                        ReplicatedTupleVector replicated = new ReplicatedTupleVector(outerIsHash);
+                        for (int i = from; i < to; i++)
+                        {
+                            int row = radixPartitions.rows[i];
+                            HashValue value = partitionTable.get(radixPartitions.hashes[row]);
+                            if (value == null)
+                            {
+                                continue;
+                            }
+                            ProbeMatch last = null;
+                            int bucketSize = value.buckets.size();
+                            for (int b = 0; b < bucketSize; b++)
+                            {
+                                HashValueBucket bucket = value.buckets.get(b);
+                                if (outerIsHash)
+                                {
+                                    replicated.init(bucket.vector, probeVector, bucket, row, isAsteriskSchema, cartesianSchema);
+                                }
+                                else
+                                {
+                                    replicated.init(probeVector, bucket.vector, bucket, row, isAsteriskSchema, cartesianSchema);
+                                }
+                                ValueVector filter = condition.apply(replicated, workerContext);
+                                ProbeMatch match = ProbeMatch.create(bucket, filter);
+                                if (match == null)
+                                {
+                                    continue;
+                                }
+                                if (last == null)
+                                {
+                                    matches[row] = match;
+                                }
+                                else
+                                {
+                                    last.next = match;
+                                }
+                                last = match;
+                            }
+                        }
+                        nodeData.partitionProbeTime[partition] += System.nanoTime() - start;
+                        return null;
+                    });
+                }
+                PlanUtils.invokeAll(context, tasks);
+                return matches;
+            }
+
+            /** Track provided vector that was added to table. Returns true if the table exceeds the memory budget */
+            private boolean exceedsMemoryBudget(TupleVector vector)
+            {
+                if (tableVectors == null)
+                {
+                    tableVectors = new ArrayList<>();
+                }
+                tableVectors.add(vector);
+                tableSize += VectorUtils.estimateSize(vector);
+                return tableSize > memoryBudget;
+            }
+
+            /**
+             * Spill both inputs to disk. All rows are partitioned by the hash of the join keys so all matching rows ends up in the same partition. The hashed vectors are spilled first followed by
+             * the rest of the hash side and finally the whole probe side. After this the partitions are joined one by one in memory.
+             */
+            private void spill()
+            {
+                final long start = System.nanoTime();
+                final List<TupleVector> vectors = tableVectors;
+                outerSpillFiles = new SpillFile[SPILL_PARTITION_COUNT];
+                innerSpillFiles = new SpillFile[SPILL_PARTITION_COUNT];
+                table = null;
+                tableVectors = null;
+                tableSize = 0;
+                emptyVectors = null;
+                emptyVectorsIndex = 0;
+
+                for (TupleVector vector : vectors)
+                {
+                    spillVector(vector, outerIsHash);
+                }
+
+                if (outerReference != null)
+                {
+                    spillVector(outerReference, true);
+                    outerReference = null;
+                }
+                while (outerIt != null
+                        && outerIt.hasNext())
+                {
+                    spillVector(outerIt.next(), true);
+                }
+                while (innerIt != null
+                        && innerIt.hasNext())
+                {
+                    spillVector(innerIt.next(), false);
+                }
+
+                if (outerIt != null)
+                {
+                    outerIt.close();
+                    outerIt = null;
+                }
+                if (innerIt != null)
+                {
+                    innerIt.close();
+                    innerIt = null;
+                }
+
+                nodeData.spillCount++;
+                nodeData.spillTime += System.nanoTime() - start;
+                state = IteratorState.JoinSpilled;
+            }
+
+            /** Partition rows of provided vector by it's hash and write to the sides spill files */
+            private void spillVector(TupleVector vector, boolean isOuter)
+            {
+                int rowCount = vector.getRowCount();
+                if (rowCount == 0)
                 {
-                    int s = innerPopulateMatches.size();
-                    for (int i = 0; i < s; i++)
-                    {
-                        BitSet bitSet = innerPopulateMatches.get(i);
-                        if (bitSet != null)
-                        {
-                            bitSet.clear();
-                        }
-                    }
+                    return;
                 }
 
-                if (outerMatchedFilter != null)
+                TupleVector evalVector = isOuter
+                        || isAsteriskSchema ? vector
+                                : new InnerTupleVector(cartesianSchema, outer.getSchema()
+                                        .getSize(), vector);
+                List<IExpression> hashFunction = isOuter ? outerHashFunction
+                        : innerHashFunction;
+                ValueVector[] vectors = new ValueVector[hashSize];
+                for (int i = 0; i < hashSize; i++)
                 {
-                    outerMatchedFilter.clear();
+                    vectors[i] = hashFunction.get(i)
+                            .eval(evalVector, context);
                 }
 
-                rows: for (int i = 0; i < rowCount; i++)
+                IntList[] partitionRows = new IntList[SPILL_PARTITION_COUNT];
+                rows: for (int row = 0; row < rowCount; row++)
                 {
                     for (int j = 0; j < hashSize; j++)
                     {
-                        // Any null value in hash keys and we can skip it since
-                        // there can never be any matches
-                        if (vectors[j].isNull(i))
+                        if (vectors[j].isNull(row))
                         {
+                            // Null keys can never match but outer rows are still needed on left joins, put those in the first partition
+                            if (isOuter
+                                    && emitEmptyOuterRows)
+                            {
+                                addPartitionRow(partitionRows, 0, row);
+                            }
                             continue rows;
                         }
                     }
 
-                    int hash = VectorUtils.hash(vectors, hashFunctionTypes, i);
-                    HashValue value = table.get(hash);
+                    int hash = VectorUtils.hash(vectors, hashFunctionTypes, row);
+                    // Use the low bits of the mixed hash since the partitioned table uses the high bits
+                    addPartitionRow(partitionRows, HashCommon.mix(hash) & (SPILL_PARTITION_COUNT - 1), row);
+                }
 
-                    // No matches for current row
-                    if (value == null)
+                SpillFile[] files = isOuter ? outerSpillFiles
+                        : innerSpillFiles;
+                for (int p = 0; p < SPILL_PARTITION_COUNT; p++)
+                {
+                    if (partitionRows[p] == null)
                     {
                         continue;
                     }
-
-                    int bucketSize = value.buckets.size();
-                    for (int b = 0; b < bucketSize; b++)
+                    if (files[p] == null)
                     {
-                        HashValueBucket bucket = value.buckets.get(b);
-
-                        replicatedTupleVectorInner.init(outer, bucket.vector, bucket, i, isAsteriskSchema, cartesianSchema);
-
-                        // Matches between outer / inner
-                        ValueVector filter = condition.apply(replicatedTupleVectorInner, context);
-
-                        int cardinality = filter.getCardinality();
-                        if (cardinality > 0)
-                        {
-                            if (emitEmptyOuterRows)
-                            {
-                                if (outerMatchedFilter == null)
-                                {
-                                    outerMatchedFilter = new BitSet(rowCount);
-                                }
-
-                                outerMatchedFilter.set(i);
-                            }
-                            if (populateAlias == null)
-                            {
-                                if (builder == null)
-                                {
-                                    int resultSize = estimateBufferSize(bucket.vector.getRowCount(), rowCount, cardinality);
-                                    builder = context.getVectorFactory()
-                                            .getTupleVectorBuilder(resultSize);
-                                }
-                                builder.append(replicatedTupleVectorInner, filter);
-                            }
-                            else
-                            {
-                                if (innerPopulateMatches == null)
-                                {
-                                    innerPopulateMatches = new ArrayList<>(Collections.nCopies(rowCount, null));
-                                }
-                                HashValueBucket.markPopulatedMatchesInnerHash(bucket, innerPopulateMatches, filter, i);
-                            }
-                        }
+                        files[p] = new SpillFile();
                     }
+                    nodeData.spilledBytes += files[p].write(SelectedTupleVector.select(vector, VectorUtils.convertToSelectionVector(partitionRows[p])));
+                    nodeData.spilledRows += partitionRows[p].size();
                 }
+            }
 
-                TupleVector result = null;
-                if (builder != null)
-                {
-                    result = builder.build();
-                }
-                // Append populated matches
-                else if (populateAlias != null
-                        && innerPopulateMatches != null)
+            /** Handle join spilled state. Joins the spilled partitions one at a time with an in memory hash match */
+            private void joinSpilled()
+            {
+                if (spilledPartitionIt != null)
                 {
-                    result = buildPopulatedVectorInnerHashMode(outer, innerPopulateMatches);
+                    if (spilledPartitionIt.hasNext())
+                    {
+                        next = spilledPartitionIt.next();
+                        return;
+                    }
+                    spilledPartitionIt.close();
+                    spilledPartitionIt = null;
                 }
 
-                // Outer is probed then we can build a non matched vector from current probed vector
-                if (emitEmptyOuterRows)
+                while (spilledPartition < SPILL_PARTITION_COUNT)
                 {
-                    TupleVector nonMatchedVector = buildNonMatchedOuterVectorInnerHashMode(outer, outerMatchedFilter, rowCount);
-                    // If there was no joined result, set the non matched result to next
-                    // to skip one iteration in loop
-                    if (result == null)
-                    {
-                        result = nonMatchedVector;
-                    }
-                    else
+                    int partition = spilledPartition++;
+                    SpillFile outerFile = outerSpillFiles[partition];
+                    SpillFile innerFile = innerSpillFiles[partition];
+                    outerSpillFiles[partition] = null;
+                    innerSpillFiles[partition] = null;
+
+                    // No outer rows or no inner rows on a inner join => there cannot be any result from this partition
+                    if (outerFile == null
+                            || (innerFile == null
+                                    && !emitEmptyOuterRows))
                     {
-                        nonMatchedOuterNext = nonMatchedVector;
+                        closeSpillFile(outerFile);
+                        closeSpillFile(innerFile);
+                        continue;
                     }
+
+                    TupleIterator partitionOuterIt = outerFile.iterator();
+                    TupleIterator partitionInnerIt = innerFile != null ? innerFile.iterator()
+                            : TupleIterator.EMPTY;
+                    // Spilling is disabled for the partitions. A skewed partition that exceeds the budget stays in memory
+                    spilledPartitionIt = createIterator(context, partitionOuterIt, partitionInnerIt, partitionOuterIt.next(), false);
+                    return;
                 }
 
-                next = result;
-                state = IteratorState.NextBatch;
+                state = IteratorState.End;
+            }
+
+            private void closeSpillFiles()
+            {
+                for (int i = 0; outerSpillFiles != null
+                        && i < SPILL_PARTITION_COUNT; i++)
+                {
+                    closeSpillFile(outerSpillFiles[i]);
+                    closeSpillFile(innerSpillFiles[i]);
+                }
+                outerSpillFiles = null;
+                innerSpillFiles = null;
             }
 
             private int estimateBufferSize(int hashTupleVectorRowCount, int probeRowCount, int cardinality)
@@ -939,6 +1553,15 @@ private int addToTable(int vectorId, TupleVector evalVector, TupleVector tableVe
 
                 }
 
+                if (partitionCount > 1)
+                {
+                    if (table == null)
+                    {
+                        table = new HashTable(partitionCount);
+                    }
+                    return addToTablePartitioned(vectorId, vectors, rowCount, tableVector, matchedSet);
+                }
+
                 int rowsAdded = 0;
                 // Add rows to table
                 rows: for (int i = 0; i < rowCount; i++)
@@ -953,11 +1576,11 @@ private int addToTable(int vectorId, TupleVector evalVector, TupleVector tableVe
 
                     if (table == null)
                     {
-                        table = new Int2ObjectOpenHashMap<HashValue>();
+                        table = new HashTable(1);
                     }
 
                     int h = VectorUtils.hash(vectors, hashFunctionTypes, i);
-                    table.computeIfAbsent(h, k -> new HashValue())
+                    table.partitions[0].computeIfAbsent(h, k -> new HashValue())
                             .add(vectorId, tableVector, matchedSet, i);
                     rowsAdded++;
                 }
@@ -1153,7 +1776,7 @@ private TupleVector buildNonMatchedOuterVectorOuterHashMode()
                     return createNonMatchedOuterVector(vector);
                 }
 
-                if (MapUtils.isEmpty(table))
+                if (HashTable.isNullOrEmpty(table))
                 {
                     return null;
                 }
@@ -1307,6 +1930,23 @@ public ValueVector getColumn(int column)
         };
     }
 
+    static void addPartitionRow(IntList[] partitionRows, int partition, int row)
+    {
+        if (partitionRows[partition] == null)
+        {
+            partitionRows[partition] = new IntArrayList();
+        }
+        partitionRows[partition].add(row);
+    }
+
+    private static void closeSpillFile(SpillFile file)
+    {
+        if (file != null)
+        {
+            file.close();
+        }
+    }
+
     // CSOFF
     private Schema getSchema(Schema outerSchema, Schema innerSchema)
     // CSON
@@ -1511,6 +2151,81 @@ protected int getRow(int row)
         }
     }
 
+    /** Iterator that buffers vectors from an input with unknown size to observe it's cardinality. Buffered vectors are returned before the rest of the input. */
+    private static class ObservingTupleIterator implements TupleIterator
+    {
+        private final TupleIterator iterator;
+        private final List<TupleVector> buffer = new ArrayList<>();
+        private int index;
+        private int rowCount;
+        private boolean exhausted;
+
+        ObservingTupleIterator(TupleIterator iterator, int rowCount)
+        {
+            this.iterator = iterator;
+            this.rowCount = rowCount;
+        }
+
+        /** Buffer next vector from input. */
+        void observeNext()
+        {
+            if (!iterator.hasNext())
+            {
+                exhausted = true;
+                return;
+            }
+            TupleVector vector = iterator.next();
+            buffer.add(vector);
+            rowCount += vector.getRowCount();
+        }
+
+        /** Return observed row count. This is the total row count if the input is exhausted */
+        int getRowCount()
+        {
+            return rowCount;
+        }
+
+        @Override
+        public TupleVector next()
+        {
+            if (index < buffer.size())
+            {
+                TupleVector vector = buffer.get(index);
+                // Release the reference
+                buffer.set(index++, null);
+                return vector;
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return index < buffer.size()
+                    || (!exhausted
+                            && iterator.hasNext());
+        }
+
+        @Override
+        public int estimatedBatchCount()
+        {
+            return iterator.estimatedBatchCount();
+        }
+
+        @Override
+        public int estimatedRowCount()
+        {
+            return exhausted ? rowCount
+                    : iterator.estimatedRowCount();
+        }
+
+        @Override
+        public void close()
+        {
+            iterator.close();
+        }
+    }
+
     /** Node data for hash match */
     private static class HashNodeData extends NodeData
     {
@@ -1519,6 +2234,249 @@ private static class HashNodeData extends NodeData
         long probeTime;
 
         Boolean outerIsHash;
+        /** How the hash side was decided. Either by estimated row counts or by observing the first batches of the inputs */
+        String hashSideDecision;
+
+        /** Statistics per partition. Only set when running in partitioned mode */
+        long[] partitionBuildTime;
+        long[] partitionProbeTime;
+        long[] partitionRowCount;
+
+        /** Spill statistics. Number of times the hash table was spilled to disk along with rows/bytes/time */
+        int spillCount;
+        long spilledRows;
+        long spilledBytes;
+        long spillTime;
+
+        HashNodeData(int partitionCount)
+        {
+            if (partitionCount > 1)
+            {
+                partitionBuildTime = new long[partitionCount];
+                partitionProbeTime = new long[partitionCount];
+                partitionRowCount = new long[partitionCount];
+            }
+        }
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof HashNodeData data)
+            {
+                hashTime += data.hashTime;
+                probeTime += data.probeTime;
+                if (outerIsHash == null)
+                {
+                    outerIsHash = data.outerIsHash;
+                    hashSideDecision = data.hashSideDecision;
+                }
+                partitionBuildTime = add(partitionBuildTime, data.partitionBuildTime);
+                partitionProbeTime = add(partitionProbeTime, data.partitionProbeTime);
+                partitionRowCount = add(partitionRowCount, data.partitionRowCount);
+                spillCount += data.spillCount;
+                spilledRows += data.spilledRows;
+                spilledBytes += data.spilledBytes;
+                spillTime += data.spillTime;
+            }
+        }
+
+        /** Add values of other partition statistics to target. Returns other if target is null */
+        private static long[] add(long[] target, long[] other)
+        {
+            if (target == null)
+            {
+                return other;
+            }
+            if (other != null)
+            {
+                for (int i = 0; i < Math.min(target.length, other.length); i++)
+                {
+                    target[i] += other[i];
+                }
+            }
+            return target;
+        }
+
+        /** Return the skew of the partitions. Calculated as the largest partition row count divided by the average row count */
+        double getSkew()
+        {
+            long max = 0;
+            long sum = 0;
+            for (long count : partitionRowCount)
+            {
+                max = Math.max(max, count);
+                sum += count;
+            }
+            if (sum == 0)
+            {
+                return 0;
+            }
+            return max / ((double) sum / partitionRowCount.length);
+        }
+    }
+
+    /**
+     * Hash table split into radix partitions. The partition is picked from the high bits of the mixed hash since the low bits are used by the underlying maps to resolve slots.
+     */
+    private static class HashTable
+    {
+        private final Int2ObjectOpenHashMap<HashValue>[] partitions;
+        private final int shift;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        HashTable(int partitionCount)
+        {
+            partitions = new Int2ObjectOpenHashMap[partitionCount];
+            for (int i = 0; i < partitionCount; i++)
+            {
+                partitions[i] = new Int2ObjectOpenHashMap<>();
+            }
+            shift = Integer.SIZE - Integer.numberOfTrailingZeros(partitionCount);
+        }
+
+        static boolean isNullOrEmpty(HashTable table)
+        {
+            return table == null
+                    || table.isEmpty();
+        }
+
+        boolean isPartitioned()
+        {
+            return partitions.length > 1;
+        }
+
+        int getPartitionCount()
+        {
+            return partitions.length;
+        }
+
+        int partition(int hash)
+        {
+            if (partitions.length == 1)
+            {
+                return 0;
+            }
+            return HashCommon.mix(hash) >>> shift;
+        }
+
+        HashValue get(int hash)
+        {
+            return partitions[partition(hash)].get(hash);
+        }
+
+        boolean isEmpty()
+        {
+            for (Int2ObjectOpenHashMap<HashValue> partition : partitions)
+            {
+                if (!partition.isEmpty())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int size()
+        {
+            int size = 0;
+            for (Int2ObjectOpenHashMap<HashValue> partition : partitions)
+            {
+                size += partition.size();
+            }
+            return size;
+        }
+
+        void clear()
+        {
+            for (Int2ObjectOpenHashMap<HashValue> partition : partitions)
+            {
+                partition.clear();
+            }
+        }
+
+        Iterable<HashValue> values()
+        {
+            if (partitions.length == 1)
+            {
+                return partitions[0].values();
+            }
+            return () -> IteratorUtils.chainedIterator(Arrays.stream(partitions)
+                    .map(p -> p.values()
+                            .iterator())
+                    .toList());
+        }
+    }
+
+    /** Rows of a vector grouped by partition. Rows for partition N are found in rows[offsets[N]] to rows[offsets[N + 1]] */
+    private record RadixPartitions(int[] hashes, int[] rows, int[] offsets)
+    {
+    }
+
+    /** A matching bucket along with the materialized condition filter for a probed row. Chained to form a list of matches for a row. */
+    private static class ProbeMatch
+    {
+        private final HashValueBucket bucket;
+        private final ValueVector filter;
+        private final int cardinality;
+        private ProbeMatch next;
+
+        ProbeMatch(HashValueBucket bucket, ValueVector filter, int cardinality)
+        {
+            this.bucket = bucket;
+            this.filter = filter;
+            this.cardinality = cardinality;
+        }
+
+        /** Create a match from provided filter. Returns null if there are no matching rows in filter */
+        static ProbeMatch create(HashValueBucket bucket, ValueVector filter)
+        {
+            BitSet bitSet = null;
+            int size = filter.size();
+            for (int i = 0; i < size; i++)
+            {
+                if (filter.getPredicateBoolean(i))
+                {
+                    if (bitSet == null)
+                    {
+                        bitSet = new BitSet(size);
+                    }
+                    bitSet.set(i);
+                }
+            }
+            if (bitSet == null)
+            {
+                return null;
+            }
+            final BitSet bits = bitSet;
+            ValueVector materialized = new ValueVector()
+            {
+                @Override
+                public ResolvedType type()
+                {
+                    return ResolvedType.of(Column.Type.Boolean);
+                }
+
+                @Override
+                public int size()
+                {
+                    return size;
+                }
+
+                @Override
+                public boolean isNull(int row)
+                {
+                    return false;
+                }
+
+                @Override
+                public boolean getBoolean(int row)
+                {
+                    return bits.get(row);
+                }
+            };
+            return new ProbeMatch(bucket, materialized, bits.cardinality());
+        }
     }
 
     /** Bucket in {@link HashValue} with row indices along with owning vector */
@@ -1727,7 +2685,9 @@ else if (obj instanceof HashMatch that)
                     && condition.equals(that.condition)
                     && Objects.equals(populateAlias, that.populateAlias)
                     && emitEmptyOuterRows == that.emitEmptyOuterRows
-                    && pushOuterReference == that.pushOuterReference;
+                    && pushOuterReference == that.pushOuterReference
+                    && partitionCount == that.partitionCount
+                    && memoryBudget == that.memoryBudget;
 
         }
         return false;
@@ -1749,6 +2709,10 @@ public String toString()
                + (populateAlias != null ? ", populate (" + populateAlias + ")"
                        : "")
                + (pushOuterReference ? ", pushOuterReference"
+                       : "")
+               + (partitionCount > 1 ? ", partitions: " + partitionCount
+                       : "")
+               + (memoryBudget > 0 ? ", memoryBudget: " + memoryBudget
                        : "");
     }
 }
@@ -1,35 +1,89 @@
 package se.kuseman.payloadbuilder.core.physicalplan;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.time.DurationFormatUtils;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
 import se.kuseman.payloadbuilder.api.catalog.IDatasource;
 import se.kuseman.payloadbuilder.api.catalog.Option;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
 import se.kuseman.payloadbuilder.api.execution.ISeekPredicate;
 import se.kuseman.payloadbuilder.api.execution.ISeekPredicate.ISeekKey;
+import se.kuseman.payloadbuilder.api.execution.NodeData;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
+import se.kuseman.payloadbuilder.core.QueryException;
+import se.kuseman.payloadbuilder.core.cache.SeekCache;
 import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
+import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
 import se.kuseman.payloadbuilder.core.execution.StatementContext;
 
-/** Seek operator that seeks a datasource with a set of seek keys */
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+/**
+ * Seek operator that seeks a datasource with a set of seek keys.
+ *
+ * <pre>
+ * When the seek keys are split into batches the batches can be prefetched on the sessions executor by using table option
+ * {@link #PREFETCH_BATCHES}. This keeps a number of batches in flight concurrently which hides the latency of remote
+ * data sources. Batches are delivered in seek key order unless {@link #PREFETCH_ORDERED} is set to false.
+ * </pre>
+ */
 public class IndexSeek extends TableScan
 {
+    /** Table option with number of seek batches to keep in flight concurrently */
+    public static final QualifiedName PREFETCH_BATCHES = QualifiedName.of("prefetch_batches");
+    /** Table option that controls if prefetched batches should be delivered in seek key order. Defaults to true */
+    public static final QualifiedName PREFETCH_ORDERED = QualifiedName.of("prefetch_ordered");
+    /** Table option with the TTL (see {@link Duration#parse(CharSequence)}) of cached seek results. Enables the sessions {@link SeekCache} for this seek */
+    public static final QualifiedName SEEK_CACHE_TTL = QualifiedName.of("seek_cache_ttl");
+    /**
+     * Table option with the name of the seek cache to use. Defaults to the table name along with the index columns. Queries that seeks the same table with different predicates or projections
+     * should use different names
+     */
+    public static final QualifiedName SEEK_CACHE_NAME = QualifiedName.of("seek_cache_name");
+
     private final ISeekPredicate seekPredicate;
+    /** Node id of the prefetch statistics. The node data of {@link #nodeId} belongs to the datasource. Negative if statistics are not collected */
+    private final int prefetchNodeId;
 
     public IndexSeek(int nodeId, Schema schema, TableSourceReference tableSource, String catalogAlias, ISeekPredicate seekPredicate, IDatasource datasource, List<Option> options)
+    {
+        this(nodeId, schema, tableSource, catalogAlias, seekPredicate, datasource, options, -1);
+    }
+
+    /**
+     * Create an index seek
+     *
+     * @param prefetchNodeId Node id where statistics of prefetched batches are stored. Must not be the same as nodeId since that node data is owned by the datasource. If negative no statistics
+     * are collected.
+     */
+    public IndexSeek(int nodeId, Schema schema, TableSourceReference tableSource, String catalogAlias, ISeekPredicate seekPredicate, IDatasource datasource, List<Option> options, int prefetchNodeId)
     {
         super(nodeId, schema, tableSource, catalogAlias, datasource, options);
         this.seekPredicate = requireNonNull(seekPredicate, "seekPredicate");
+        if (prefetchNodeId >= 0
+                && prefetchNodeId == nodeId)
+        {
+            throw new IllegalArgumentException("Prefetch node id must differ from node id");
+        }
+        this.prefetchNodeId = prefetchNodeId;
     }
 
     @Override
@@ -50,6 +104,30 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
         {
             properties.put("Batch Size", batchSize);
         }
+        SeekResultCache seekResultCache = getSeekResultCache(context);
+        if (seekResultCache != null)
+        {
+            properties.put("Seek Cache", seekResultCache.getName()
+                    .toString());
+            properties.put("Seek Cache TTL", String.valueOf(seekResultCache.getTtl()));
+        }
+        int prefetchBatches = getPrefetchBatches(context);
+        if (prefetchBatches > 1)
+        {
+            properties.put("Prefetch Batches", prefetchBatches);
+            properties.put("Prefetch Ordered", isPrefetchOrdered(context));
+        }
+        Data data = prefetchNodeId >= 0 ? context.getStatementContext()
+                .getNodeData(prefetchNodeId)
+                : null;
+        if (data != null
+                && data.batchCount > 0)
+        {
+            properties.put("Batch Count", data.batchCount);
+            properties.put("Avg. Batch Latency", DurationFormatUtils.formatDurationHMS(data.batchTime / data.batchCount));
+            properties.put("Max. Batch Latency", DurationFormatUtils.formatDurationHMS(data.maxBatchTime));
+            properties.put("Max. In Flight", data.maxInFlight);
+        }
         return properties;
     }
 
@@ -66,12 +144,25 @@ public TupleIterator execute(IExecutionContext context)
         int seekKeySize = seekKeys.get(0)
                 .getValue()
                 .size();
+        // Range seeks are not batched since overlapping ranges in different batches would return the same rows multiple times
         if (batchSize < 0
-                || seekKeySize <= batchSize)
+                || seekKeySize <= batchSize
+                || seekPredicate.isRangeSeek())
         {
             return super.execute(context);
         }
 
+        int prefetchBatches = getPrefetchBatches(context);
+        if (prefetchBatches > 1)
+        {
+            // Batches are executed with worker contexts so clear any seek keys to make sure they are not misused
+            ((StatementContext) context.getStatementContext()).setIndexSeekKeys(tableSource.getId(), null);
+            Data data = prefetchNodeId >= 0 ? context.getStatementContext()
+                    .getOrCreateNodeData(prefetchNodeId, Data::new)
+                    : new Data();
+            return new PrefetchIterator(context, data, seekKeys, seekKeySize, batchSize, prefetchBatches, isPrefetchOrdered(context));
+        }
+
         final StatementContext statementContext = (StatementContext) context.getStatementContext();
 
         return new TupleIterator()
@@ -141,18 +232,8 @@ private boolean setNext()
                         }
                         currentRow = end;
 
-                        // Construct batch seek keys
-                        int size = seekKeys.size();
-                        List<ISeekKey> batchSeekKeys = new ArrayList<>(size);
-                        ValueVector selection = ValueVector.range(start, end);
-                        for (int i = 0; i < size; i++)
-                        {
-                            ISeekKey seekKey = seekKeys.get(i);
-                            ValueVector batchVector = SelectedValueVector.select(seekKey.getValue(), selection);
-                            batchSeekKeys.add(() -> batchVector);
-                        }
-                        statementContext.setIndexSeekKeys(tableSource.getId(), batchSeekKeys);
-                        currentIterator = datasource.execute(context);
+                        statementContext.setIndexSeekKeys(tableSource.getId(), getBatchSeekKeys(seekKeys, start, end));
+                        currentIterator = executeDatasource(context);
                         // Clear any seek keys after we executed the data source to make sure they are not misused
                         statementContext.setIndexSeekKeys(tableSource.getId(), null);
                         continue;
@@ -165,40 +246,398 @@ else if (!currentIterator.hasNext())
                     }
 
                     // Concat the data source up to batch size, this might happen if catalog don't implement batch size correct
-                    TupleVector vector = PlanUtils.concat(context, currentIterator, batchSize);
-                    Schema vectorSchema = vector.getSchema();
-                    validate(vectorSchema, vector.getRowCount());
+                    next = wrap(PlanUtils.concat(context, currentIterator, batchSize));
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    protected TupleIterator executeDatasource(IExecutionContext context)
+    {
+        SeekResultCache seekResultCache = getSeekResultCache(context);
+        if (seekResultCache == null)
+        {
+            return datasource.execute(context);
+        }
+        return seekResultCache.execute(context, datasource);
+    }
+
+    /** Return seek result cache if enabled by options otherwise null */
+    private SeekResultCache getSeekResultCache(IExecutionContext context)
+    {
+        // Results are cached per seek key row which only is correct for equal seeks
+        if (seekPredicate.isRangeSeek())
+        {
+            return null;
+        }
+        ValueVector ttlValue = context.getOption(SEEK_CACHE_TTL, options);
+        if (ttlValue == null
+                || ttlValue.isNull(0))
+        {
+            return null;
+        }
+
+        Duration ttl;
+        try
+        {
+            ttl = Duration.parse(String.valueOf(ttlValue.valueAsObject(0)));
+        }
+        catch (DateTimeParseException e)
+        {
+            throw new IllegalArgumentException(String.valueOf(ttlValue.valueAsObject(0)) + " cannot be parsed as a Duration. See java.time.Duration#parse");
+        }
+
+        QualifiedName name;
+        ValueVector nameValue = context.getOption(SEEK_CACHE_NAME, options);
+        if (nameValue != null
+                && !nameValue.isNull(0))
+        {
+            name = QualifiedName.of(nameValue.valueAsObject(0));
+        }
+        else
+        {
+            name = tableSource.getName()
+                    .extend(String.join(",", seekPredicate.getIndexColumns()));
+            if (!isBlank(tableSource.getCatalogAlias()))
+            {
+                name = name.prepend(tableSource.getCatalogAlias());
+            }
+        }
+        return new SeekResultCache(name, ttl, tableSource.getId(), seekPredicate);
+    }
+
+    private int getPrefetchBatches(IExecutionContext context)
+    {
+        ValueVector v = context.getOption(PREFETCH_BATCHES, options);
+        if (v == null
+                || v.isNull(0))
+        {
+            return 0;
+        }
+        return v.getInt(0);
+    }
+
+    private boolean isPrefetchOrdered(IExecutionContext context)
+    {
+        ValueVector v = context.getOption(PREFETCH_ORDERED, options);
+        return v == null
+                || v.isNull(0)
+                || v.getBoolean(0);
+    }
+
+    /** Construct seek keys for the rows between start (inclusive) and end (exclusive) */
+    private static List<ISeekKey> getBatchSeekKeys(List<ISeekKey> seekKeys, int start, int end)
+    {
+        int size = seekKeys.size();
+        List<ISeekKey> batchSeekKeys = new ArrayList<>(size);
+        ValueVector selection = ValueVector.range(start, end);
+        for (int i = 0; i < size; i++)
+        {
+            ISeekKey seekKey = seekKeys.get(i);
+            ValueVector batchVector = SelectedValueVector.select(seekKey.getValue(), selection);
+            batchSeekKeys.add(() -> batchVector);
+        }
+        return batchSeekKeys;
+    }
+
+    /** Validate and wrap a vector from the data source with the resulting schema */
+    private TupleVector wrap(TupleVector vector)
+    {
+        Schema vectorSchema = vector.getSchema();
+        validate(vectorSchema, vector.getRowCount());
+
+        // If asterisk schema then recreate the schema and attach a table source to make resolved columns properly detect it
+        // if not use the planned schema which already has table source attached
+        final Schema actualSchema = asteriskSchema ? TableScan.recreateSchema(tableSource, vectorSchema)
+                : schema;
+
+        return new TupleVector()
+        {
+            @Override
+            public Schema getSchema()
+            {
+                return actualSchema;
+            }
+
+            @Override
+            public int getRowCount()
+            {
+                return vector.getRowCount();
+            }
+
+            @Override
+            public ValueVector getColumn(int column)
+            {
+                return vector.getColumn(column);
+            }
+        };
+    }
+
+    /** Iterator that keeps a number of seek batches in flight on the sessions executor */
+    private class PrefetchIterator implements TupleIterator
+    {
+        private final IExecutionContext context;
+        private final StatementContext statementContext;
+        private final Data data;
+        private final List<ISeekKey> seekKeys;
+        private final int seekKeySize;
+        private final int batchSize;
+        private final int prefetchBatches;
+        private final boolean ordered;
+        /** Completed batches. Batches puts them self here when done */
+        private final BlockingQueue<Batch> completed = new LinkedBlockingQueue<>();
+        /** Completed batches that arrived before their turn when delivering in order */
+        private final Int2ObjectOpenHashMap<Batch> pending = new Int2ObjectOpenHashMap<>();
+
+        private int currentRow;
+        /** Number of submitted batches */
+        private int submitted;
+        /** Number of batches that is received from the completed queue */
+        private int received;
+        /** Number of submitted batches that is not yet consumed */
+        private int inFlight;
+        /** Index of next batch to consume when delivering in order */
+        private int nextBatch;
+        private Batch current;
+        private int currentIndex;
+        private TupleVector next;
+        private volatile boolean closed;
+
+        PrefetchIterator(IExecutionContext context, Data data, List<ISeekKey> seekKeys, int seekKeySize, int batchSize, int prefetchBatches, boolean ordered)
+        {
+            this.context = context;
+            this.statementContext = (StatementContext) context.getStatementContext();
+            this.data = data;
+            this.seekKeys = seekKeys;
+            this.seekKeySize = seekKeySize;
+            this.batchSize = batchSize;
+            this.prefetchBatches = prefetchBatches;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public int estimatedBatchCount()
+        {
+            return (int) Math.ceil(seekKeySize / (float) batchSize);
+        }
+
+        @Override
+        public int estimatedRowCount()
+        {
+            // NOTE! We will at least have seek key size, but mostly likely more
+            return seekKeySize;
+        }
+
+        @Override
+        public TupleVector next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            TupleVector r = next;
+            next = null;
+            return r;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (next == null)
+            {
+                if (current != null
+                        && currentIndex < current.vectors.size())
+                {
+                    next = wrap(current.vectors.get(currentIndex++));
+                    continue;
+                }
+
+                current = null;
+                submit();
+                if (inFlight == 0
+                        || context.getSession()
+                                .abortQuery())
+                {
+                    return false;
+                }
+
+                current = take();
+                if (current == null)
+                {
+                    // Aborted
+                    return false;
+                }
+                inFlight--;
+                currentIndex = 0;
+                data.batchCount++;
+                data.batchTime += current.time;
+                data.maxBatchTime = Math.max(data.maxBatchTime, current.time);
+                current.throwIfError();
+            }
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+            // Wait for all running batches to complete to make sure the data source is not used after we're closed
+            while (received < submitted)
+            {
+                if (poll() == null)
+                {
+                    break;
+                }
+            }
+            pending.clear();
+            current = null;
+        }
+
+        /** Submit batches until we reached the number of in flight batches */
+        private void submit()
+        {
+            while (inFlight < prefetchBatches
+                    && currentRow < seekKeySize)
+            {
+                int start = currentRow;
+                int end = Math.min(currentRow + batchSize, seekKeySize);
+                currentRow = end;
+
+                Batch batch = new Batch(submitted++, ((ExecutionContext) context).copyForWorker(), getBatchSeekKeys(seekKeys, start, end));
+                inFlight++;
+                data.maxInFlight = Math.max(data.maxInFlight, inFlight);
+                ((ExecutionContext) context).getSession()
+                        .getExecutorService()
+                        .execute(batch);
+            }
+        }
+
+        /** Take next batch to consume. Returns null if the query was aborted */
+        private Batch take()
+        {
+            if (!ordered)
+            {
+                return poll();
+            }
+
+            Batch batch = pending.remove(nextBatch);
+            while (batch == null)
+            {
+                batch = poll();
+                if (batch == null)
+                {
+                    return null;
+                }
+                else if (batch.index != nextBatch)
+                {
+                    pending.put(batch.index, batch);
+                    batch = null;
+                }
+            }
+            nextBatch++;
+            return batch;
+        }
+
+        /** Poll next completed batch. Returns null if the query was aborted */
+        private Batch poll()
+        {
+            Batch[] result = new Batch[1];
+            Exchange.block(() ->
+            {
+                while (result[0] == null
+                        && !context.getSession()
+                                .abortQuery())
+                {
+                    result[0] = completed.poll(Exchange.POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+            });
+            if (result[0] != null)
+            {
+                received++;
+            }
+            return result[0];
+        }
 
-                    // If asterisk schema then recreate the schema and attach a table source to make resolved columns properly detect it
-                    // if not use the planned schema which already has table source attached
-                    final Schema actualSchema = asteriskSchema ? TableScan.recreateSchema(tableSource, vectorSchema)
-                            : schema;
+        /** A seek batch that is executed on a worker context */
+        private class Batch implements Runnable
+        {
+            private final int index;
+            private final ExecutionContext workerContext;
+            private final List<ISeekKey> batchSeekKeys;
+            private final List<TupleVector> vectors = new ArrayList<>();
+            private long time;
+            private Throwable error;
 
-                    next = new TupleVector()
+            Batch(int index, ExecutionContext workerContext, List<ISeekKey> batchSeekKeys)
+            {
+                this.index = index;
+                this.workerContext = workerContext;
+                this.batchSeekKeys = batchSeekKeys;
+            }
+
+            @Override
+            public void run()
+            {
+                long start = System.nanoTime();
+                TupleIterator iterator = null;
+                try
+                {
+                    workerContext.getStatementContext()
+                            .setIndexSeekKeys(tableSource.getId(), batchSeekKeys);
+                    iterator = executeDatasource(workerContext);
+                    while (!closed
+                            && !context.getSession()
+                                    .abortQuery()
+                            && iterator.hasNext())
                     {
-                        @Override
-                        public Schema getSchema()
+                        // Concat the data source up to batch size, this might happen if catalog don't implement batch size correct
+                        vectors.add(PlanUtils.concat(workerContext, iterator, batchSize));
+                    }
+                }
+                catch (Throwable e)
+                {
+                    error = e;
+                }
+                finally
+                {
+                    if (iterator != null)
+                    {
+                        try
                         {
-                            return actualSchema;
+                            iterator.close();
                         }
-
-                        @Override
-                        public int getRowCount()
+                        catch (Throwable e)
                         {
-                            return vector.getRowCount();
+                            if (error == null)
+                            {
+                                error = e;
+                            }
                         }
+                    }
+                    time = TimeUnit.MILLISECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    statementContext.mergeWorkerContext(workerContext.getStatementContext());
+                    completed.add(this);
+                }
+            }
 
-                        @Override
-                        public ValueVector getColumn(int column)
-                        {
-                            return vector.getColumn(column);
-                        }
-                    };
-                    // }
+            void throwIfError()
+            {
+                if (error instanceof RuntimeException re)
+                {
+                    throw re;
+                }
+                else if (error instanceof Error err)
+                {
+                    throw err;
+                }
+                else if (error != null)
+                {
+                    throw new QueryException("Error executing seek batch", error);
                 }
-                return true;
             }
-        };
+        }
     }
 
     @Override
@@ -221,7 +660,8 @@ else if (obj == this)
         else if (obj instanceof IndexSeek that)
         {
             return super.equals(obj)
-                    && seekPredicate.equals(that.seekPredicate);
+                    && seekPredicate.equals(that.seekPredicate)
+                    && prefetchNodeId == that.prefetchNodeId;
         }
         return false;
     }
@@ -237,4 +677,28 @@ public String toString()
                 .append(")");
         return sb.toString();
     }
+
+    /** Node data of index seek stored under the prefetch node id. Populated when batches are prefetched */
+    static class Data extends NodeData
+    {
+        long batchCount;
+        /** Total time spent executing seek batches */
+        long batchTime;
+        long maxBatchTime;
+        /** Max number of batches that was in flight concurrently */
+        int maxInFlight;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof Data data)
+            {
+                batchCount += data.batchCount;
+                batchTime += data.batchTime;
+                maxBatchTime = Math.max(maxBatchTime, data.maxBatchTime);
+                maxInFlight = Math.max(maxInFlight, data.maxInFlight);
+            }
+        }
+    }
 }
@@ -29,6 +29,7 @@
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.execution.vector.ITupleVectorBuilder;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
 import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
 import se.kuseman.payloadbuilder.core.common.DescribableNode;
 import se.kuseman.payloadbuilder.core.common.SchemaUtils;
@@ -72,6 +73,10 @@
  *    - No condition
  *    - Populate
  *    - Don't emit empty outer rows
+ *
+ *  -- Batched operations.
+ *  -- When the inner is a table function that supports batched execution, the applies above (without populate) executes the inner
+ *     once per outer batch and uses the returned row ids to combine inner rows with the outer rows that produced them.
  * </pre>
  */
 public class NestedLoop implements IPhysicalPlan
@@ -93,6 +98,8 @@ public class NestedLoop implements IPhysicalPlan
     private final boolean switchedInputs;
     /** The outer schema if this join is a correlated type */
     private final Schema outerSchema;
+    /** Inner is a table function that can be executed once per outer batch instead of once per outer row */
+    private final boolean batchedApply;
 
     private final Schema schema;
     private final Schema cartesianSchema;
@@ -127,6 +134,11 @@ private NestedLoop(
         this.switchedInputs = switchedInputs;
         this.outerSchema = requireNonNull(outerSchema, "outerSchema");
         this.outerSchemaOriginatesFromAsteriskInput = SchemaUtils.originatesFromAsteriskInput(outerSchema);
+        this.batchedApply = !this.outerReferences.isEmpty()
+                && condition == null
+                && populateAlias == null
+                && inner instanceof TableFunctionScan scan
+                && scan.isBatchSupported();
 
         if (switchedInputs
                 && (condition != null
@@ -250,6 +262,10 @@ public Map<String, Object> getDescribeProperties(IExecutionContext context)
         properties.put("Switched Inputs", switchedInputs);
         properties.put("Outer References", outerReferences);
         properties.put("Populate", populateAlias != null);
+        if (batchedApply)
+        {
+            properties.put("Batched", true);
+        }
         properties.put("Logical Operator", emitEmptyOuterRows ? "LEFT JOIN"
                 : "INNER JOIN");
 
@@ -294,6 +310,13 @@ public TupleIterator execute(IExecutionContext context)
 
         if (!outerReferences.isEmpty())
         {
+            // A batched apply can only be used when we don't have an outer tuple vector since that one is row based
+            // and hence our outer references cannot be connected to the whole outer batch
+            if (batchedApply
+                    && outerTupleVector == null)
+            {
+                return new BatchTupleIterator((ExecutionContext) context, outerIt, nodeData);
+            }
             return new LoopTupleIterator((ExecutionContext) context, outerIt, outerTupleVector, nodeData);
         }
         else if (populateAlias != null)
@@ -1053,6 +1076,197 @@ else if (currentOuter == null)
         }
     }
 
+    /**
+     * Create a batched loop iterator where inner is executed once per outer vector.
+     *
+     * <pre>
+     * Usage:
+     *  - CROSS APPLY
+     *  - OUTER APPLY
+     * Inner is a table function that supports batched execution. The whole outer vector is pushed as outer reference
+     * and each inner row carries the row id of the outer row that produced it.
+     * </pre>
+     */
+    private class BatchTupleIterator implements TupleIterator
+    {
+        private final ExecutionContext context;
+        private final TupleIterator iterator;
+        private final LoopNodeData nodeData;
+        private final TableFunctionScan scan = (TableFunctionScan) inner;
+        private final OuterTupleVector outerTupleVector = new OuterTupleVector(null, outerSchema, outerSchemaOriginatesFromAsteriskInput);
+
+        private TupleVector currentOuter;
+        private TupleIterator innerIt;
+        private TupleVector next;
+        /** Bit set to keep track of outer matches. Used in outer applies to know what outer indices to return */
+        private BitSet outerMatches;
+
+        // The inner schema used when emitting empty outer row, will be the plan schema from start
+        // but if there are inner matches before the un matched ones we switch
+        private Schema innerSchema = inner.getSchema();
+        private boolean innerSchemaAsterisk = SchemaUtils.isAsterisk(innerSchema);
+
+        BatchTupleIterator(ExecutionContext context, TupleIterator iterator, LoopNodeData nodeData)
+        {
+            this.context = context;
+            this.iterator = iterator;
+            this.nodeData = nodeData;
+        }
+
+        @Override
+        public TupleVector next()
+        {
+            if (next == null)
+            {
+                throw new NoSuchElementException();
+            }
+            TupleVector result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return setNext();
+        }
+
+        @Override
+        public void close()
+        {
+            iterator.close();
+            if (innerIt != null)
+            {
+                innerIt.close();
+            }
+        }
+
+        private boolean setNext()
+        {
+            while (next == null)
+            {
+                if (context.getSession()
+                        .abortQuery())
+                {
+                    return false;
+                }
+
+                if (innerIt == null)
+                {
+                    if (!iterator.hasNext())
+                    {
+                        return false;
+                    }
+
+                    currentOuter = iterator.next();
+                    int rowCount = currentOuter.getRowCount();
+                    if (rowCount <= 0)
+                    {
+                        currentOuter = null;
+                        continue;
+                    }
+
+                    if (emitEmptyOuterRows)
+                    {
+                        outerMatches = new BitSet(rowCount);
+                    }
+
+                    outerTupleVector.init(currentOuter);
+                    // Make a copy of the execution context here because we mutate the outer tuple vector
+                    ExecutionContext executionContext = context.copy();
+                    executionContext.getStatementContext()
+                            .setOuterTupleVector(outerTupleVector);
+                    innerIt = scan.executeBatch(executionContext, currentOuter);
+                    continue;
+                }
+                else if (!innerIt.hasNext())
+                {
+                    innerIt.close();
+                    innerIt = null;
+                    next = emitEmptyOuterRows ? createUnmatchedOuterTuple(context, innerSchema, outerMatches, currentOuter)
+                            : null;
+                    currentOuter = null;
+                    continue;
+                }
+
+                TupleVector innerVector = innerIt.next();
+                if (innerVector.getRowCount() <= 0)
+                {
+                    continue;
+                }
+
+                final long time = System.nanoTime();
+                ApplyTupleVector vector = new ApplyTupleVector(currentOuter, innerVector);
+                // Use the first vectors schema as inner
+                if (innerSchemaAsterisk)
+                {
+                    innerSchema = vector.innerSchema;
+                    innerSchemaAsterisk = false;
+                }
+                if (emitEmptyOuterRows)
+                {
+                    ValueVector rowIds = vector.rowIds;
+                    int rowCount = rowIds.size();
+                    for (int i = 0; i < rowCount; i++)
+                    {
+                        outerMatches.set(rowIds.getInt(i));
+                    }
+                }
+                next = vector;
+                nodeData.tupleBuildTime += TimeUnit.MILLISECONDS.convert(System.nanoTime() - time, TimeUnit.NANOSECONDS);
+            }
+
+            return true;
+        }
+    }
+
+    /** Tuple vector that combines an inner vector returned from a batched execution with the outer rows that produced it */
+    private static class ApplyTupleVector implements TupleVector
+    {
+        private final TupleVector outer;
+        private final TupleVector inner;
+        private final ValueVector rowIds;
+        private final Schema innerSchema;
+        private final Schema schema;
+        private final int outerSize;
+
+        ApplyTupleVector(TupleVector outer, TupleVector inner)
+        {
+            List<Column> innerColumns = inner.getSchema()
+                    .getColumns();
+            int rowIdOrdinal = innerColumns.size() - 1;
+            this.outer = outer;
+            this.inner = inner;
+            this.rowIds = inner.getColumn(rowIdOrdinal);
+            this.innerSchema = new Schema(innerColumns.subList(0, rowIdOrdinal));
+            this.schema = SchemaUtils.joinSchema(outer.getSchema(), innerSchema);
+            this.outerSize = outer.getSchema()
+                    .getSize();
+        }
+
+        @Override
+        public int getRowCount()
+        {
+            return inner.getRowCount();
+        }
+
+        @Override
+        public Schema getSchema()
+        {
+            return schema;
+        }
+
+        @Override
+        public ValueVector getColumn(int column)
+        {
+            if (column < outerSize)
+            {
+                return SelectedValueVector.select(outer.getColumn(column), rowIds);
+            }
+            return inner.getColumn(column - outerSize);
+        }
+    }
+
     /** Creates a tuple vector with non matched outer rows. Used i left joins */
     private TupleVector createUnmatchedOuterTuple(ExecutionContext context, Schema innerSchema, BitSet outerMatches, TupleVector outer)
     {
@@ -1163,6 +1377,17 @@ private static class LoopNodeData extends NodeData
     {
         long predicateTime;
         long tupleBuildTime;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof LoopNodeData data)
+            {
+                predicateTime += data.predicateTime;
+                tupleBuildTime += data.tupleBuildTime;
+            }
+        }
     }
 
     /** Vector implementation used when having outer references chain in loop */
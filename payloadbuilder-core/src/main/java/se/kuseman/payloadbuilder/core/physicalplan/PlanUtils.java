@@ -1,13 +1,24 @@
 package se.kuseman.payloadbuilder.core.physicalplan;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.vector.ChainedTupleVector;
 import se.kuseman.payloadbuilder.api.execution.vector.ITupleVectorBuilder;
+import se.kuseman.payloadbuilder.core.QueryException;
+import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
+import se.kuseman.payloadbuilder.core.execution.QuerySession;
 
 /** Utils for plans */
 public class PlanUtils
@@ -119,4 +130,137 @@ else if (vector != null)
         }
         return TupleVector.EMPTY;
     }
+
+    /**
+     * Run provided tasks on the sessions executor and wait for all of them to complete. Each task gets it's own worker copy of the context since the context is not thread safe, the worker contexts
+     * are merged back into the context when all tasks are completed. Results are returned in the same order as the tasks. If any task fails the first exception is re-thrown on the calling thread. If
+     * the query is aborted no more tasks are started, running tasks are cancelled and an empty list is returned. Callers must check for abort before using the result.
+     */
+    static <T> List<T> invokeAll(IExecutionContext context, List<WorkerTask<T>> tasks)
+    {
+        if (tasks.isEmpty()
+                || context.getSession()
+                        .abortQuery())
+        {
+            return emptyList();
+        }
+        else if (tasks.size() == 1)
+        {
+            try
+            {
+                return singletonList(tasks.get(0)
+                        .call(context));
+            }
+            catch (RuntimeException e)
+            {
+                throw e;
+            }
+            catch (Exception e)
+            {
+                throw new QueryException("Error executing task", e);
+            }
+        }
+
+        ExecutionContext executionContext = (ExecutionContext) context;
+        ExecutorService executor = ((QuerySession) context.getSession()).getExecutorService();
+        int size = tasks.size();
+        List<ExecutionContext> workerContexts = new ArrayList<>(size);
+        List<Future<T>> futures = new ArrayList<>(size);
+        boolean completed = false;
+        try
+        {
+            for (WorkerTask<T> task : tasks)
+            {
+                if (context.getSession()
+                        .abortQuery())
+                {
+                    return emptyList();
+                }
+                ExecutionContext workerContext = executionContext.copyForWorker();
+                workerContexts.add(workerContext);
+                futures.add(executor.submit(() -> task.call(workerContext)));
+            }
+
+            List<T> result = new ArrayList<>(size);
+            for (Future<T> future : futures)
+            {
+                if (!await(context, future))
+                {
+                    return emptyList();
+                }
+                result.add(getResult(future));
+            }
+
+            for (ExecutionContext workerContext : workerContexts)
+            {
+                executionContext.getStatementContext()
+                        .mergeWorkerContext(workerContext.getStatementContext());
+            }
+            completed = true;
+            return result;
+        }
+        finally
+        {
+            if (!completed)
+            {
+                for (Future<T> future : futures)
+                {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for provided future to complete. Returns false if the query was aborted while waiting. Waits in a managed block since the calling thread might be a worker of the same pool as the task.
+     */
+    private static boolean await(IExecutionContext context, Future<?> future)
+    {
+        Exchange.block(() ->
+        {
+            while (!future.isDone()
+                    && !context.getSession()
+                            .abortQuery())
+            {
+                try
+                {
+                    future.get(Exchange.POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException | ExecutionException e)
+                {
+                    // Check abort and wait again, failures are re-thrown when the result is fetched
+                }
+            }
+        });
+        return future.isDone();
+    }
+
+    private static <T> T getResult(Future<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+            throw new QueryException("Interrupted while waiting for tasks", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException re)
+            {
+                throw re;
+            }
+            throw new QueryException("Error executing task", e.getCause());
+        }
+    }
+
+    /** Task executed by {@link PlanUtils#invokeAll(IExecutionContext, List)}. The provided context is owned by the task and is safe to use on the worker thread. */
+    @FunctionalInterface
+    interface WorkerTask<T>
+    {
+        T call(IExecutionContext context) throws Exception;
+    }
 }
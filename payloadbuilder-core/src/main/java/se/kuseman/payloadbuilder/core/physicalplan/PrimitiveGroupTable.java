@@ -0,0 +1,476 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.UTF8String;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.core.physicalplan.HashAggregate.GroupKey;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+
+/**
+ * Group table specialized for grouping on a single Int, Long or String column or on two Int columns. Keys are mapped to group ids in primitive hash maps without allocating a {@link GroupKey} per
+ * row. Group ids are assigned in order of first appearance.
+ */
+abstract class PrimitiveGroupTable
+{
+    private final Type[] types;
+    private int groupCount;
+
+    /* State of the last grouped vector. Stamps marks which groups that has rows in the current vector */
+    private int stamp;
+    private int[] stamps = new int[16];
+    private int[] localIndices = new int[16];
+    private final IntList groupIds = new IntArrayList();
+    private final List<IntList> groupRows = new ArrayList<>();
+
+    PrimitiveGroupTable(Type... types)
+    {
+        this.types = types;
+    }
+
+    /** Create a table for provided key types. Returns null if the types are not supported */
+    static PrimitiveGroupTable create(Type[] types)
+    {
+        if (types.length == 1)
+        {
+            return switch (types[0])
+            {
+                case Int -> new IntTable();
+                case Long -> new LongTable();
+                case String -> new StringTable();
+                default -> null;
+            };
+        }
+        else if (types.length == 2
+                && types[0] == Type.Int
+                && types[1] == Type.Int)
+        {
+            return new IntPairTable();
+        }
+        return null;
+    }
+
+    /** Returns true if this table can group keys of provided types */
+    boolean supports(Type[] types)
+    {
+        return Arrays.equals(this.types, types);
+    }
+
+    /** Return number of groups in table */
+    int size()
+    {
+        return groupCount;
+    }
+
+    /**
+     * Group all rows of provided key vectors. New groups are created until max new groups is reached, rows belonging to further new groups are added to skipped rows. The groups of the vector and
+     * their rows are available from {@link #getGroupIds()} and {@link #getGroupRows()} until next call.
+     */
+    void group(ValueVector[] keys, int rowCount, int maxNewGroups, IntList skippedRows)
+    {
+        stamp++;
+        groupIds.clear();
+        int groupLimit = (int) Math.min(Integer.MAX_VALUE, (long) groupCount + maxNewGroups);
+        groupRows(keys, rowCount, groupLimit, skippedRows);
+    }
+
+    /** Return the group ids of the last grouped vector */
+    IntList getGroupIds()
+    {
+        return groupIds;
+    }
+
+    /** Return the rows for each group of the last grouped vector. Same order as {@link #getGroupIds()} */
+    List<IntList> getGroupRows()
+    {
+        return groupRows;
+    }
+
+    /** Move all groups of this table into a generic group table. Used when key types changes between vectors */
+    abstract void migrate(Object2ObjectMap<GroupKey, IntList> table);
+
+    /** Group rows. Rows of groups that doesn't exist are skipped when the group limit is reached */
+    protected abstract void groupRows(ValueVector[] keys, int rowCount, int groupLimit, IntList skippedRows);
+
+    /** Create a new group if group limit is not reached. Returns -1 otherwise */
+    protected final int newGroup(int groupLimit)
+    {
+        if (groupCount >= groupLimit)
+        {
+            return -1;
+        }
+        return groupCount++;
+    }
+
+    /** Add row to group. Adds the row to skipped rows if group is -1 */
+    protected final void add(int groupId, int row, IntList skippedRows)
+    {
+        if (groupId < 0)
+        {
+            skippedRows.add(row);
+            return;
+        }
+
+        if (groupId >= stamps.length)
+        {
+            int length = Math.max(groupId + 1, stamps.length * 2);
+            stamps = Arrays.copyOf(stamps, length);
+            localIndices = Arrays.copyOf(localIndices, length);
+        }
+
+        int localIndex;
+        if (stamps[groupId] != stamp)
+        {
+            stamps[groupId] = stamp;
+            localIndex = groupIds.size();
+            localIndices[groupId] = localIndex;
+            groupIds.add(groupId);
+            // Row lists are reused between vectors
+            if (localIndex == groupRows.size())
+            {
+                groupRows.add(new IntArrayList());
+            }
+            else
+            {
+                groupRows.get(localIndex)
+                        .clear();
+            }
+        }
+        else
+        {
+            localIndex = localIndices[groupId];
+        }
+        groupRows.get(localIndex)
+                .add(row);
+    }
+
+    /** Put a group into a generic table */
+    protected final void put(Object2ObjectMap<GroupKey, IntList> table, int groupId, ValueVector... values)
+    {
+        boolean[] hasNulls = new boolean[values.length];
+        Arrays.fill(hasNulls, true);
+        GroupKey key = new GroupKey(groupId, values, types, hasNulls);
+        key.row = 0;
+        table.put(key, new IntArrayList());
+    }
+
+    /** Table for a single int key */
+    private static class IntTable extends PrimitiveGroupTable
+    {
+        private final Int2IntOpenHashMap groups = new Int2IntOpenHashMap();
+        private int nullGroupId = -1;
+
+        IntTable()
+        {
+            super(Type.Int);
+            groups.defaultReturnValue(-1);
+        }
+
+        @Override
+        protected void groupRows(ValueVector[] keys, int rowCount, int groupLimit, IntList skippedRows)
+        {
+            ValueVector vector = keys[0];
+            boolean hasNulls = vector.hasNulls();
+            for (int row = 0; row < rowCount; row++)
+            {
+                if (hasNulls
+                        && vector.isNull(row))
+                {
+                    if (nullGroupId < 0)
+                    {
+                        nullGroupId = newGroup(groupLimit);
+                    }
+                    add(nullGroupId, row, skippedRows);
+                    continue;
+                }
+
+                int key = vector.getInt(row);
+                int groupId = groups.get(key);
+                if (groupId < 0)
+                {
+                    groupId = newGroup(groupLimit);
+                    if (groupId >= 0)
+                    {
+                        groups.put(key, groupId);
+                    }
+                }
+                add(groupId, row, skippedRows);
+            }
+        }
+
+        @Override
+        void migrate(Object2ObjectMap<GroupKey, IntList> table)
+        {
+            if (nullGroupId >= 0)
+            {
+                put(table, nullGroupId, ValueVector.literalNull(ResolvedType.of(Type.Int), 1));
+            }
+            for (Int2IntMap.Entry e : groups.int2IntEntrySet())
+            {
+                put(table, e.getIntValue(), ValueVector.literalInt(e.getIntKey(), 1));
+            }
+        }
+    }
+
+    /** Table for a single long key */
+    private static class LongTable extends PrimitiveGroupTable
+    {
+        private final Long2IntOpenHashMap groups = new Long2IntOpenHashMap();
+        private int nullGroupId = -1;
+
+        LongTable()
+        {
+            super(Type.Long);
+            groups.defaultReturnValue(-1);
+        }
+
+        @Override
+        protected void groupRows(ValueVector[] keys, int rowCount, int groupLimit, IntList skippedRows)
+        {
+            ValueVector vector = keys[0];
+            boolean hasNulls = vector.hasNulls();
+            for (int row = 0; row < rowCount; row++)
+            {
+                if (hasNulls
+                        && vector.isNull(row))
+                {
+                    if (nullGroupId < 0)
+                    {
+                        nullGroupId = newGroup(groupLimit);
+                    }
+                    add(nullGroupId, row, skippedRows);
+                    continue;
+                }
+
+                long key = vector.getLong(row);
+                int groupId = groups.get(key);
+                if (groupId < 0)
+                {
+                    groupId = newGroup(groupLimit);
+                    if (groupId >= 0)
+                    {
+                        groups.put(key, groupId);
+                    }
+                }
+                add(groupId, row, skippedRows);
+            }
+        }
+
+        @Override
+        void migrate(Object2ObjectMap<GroupKey, IntList> table)
+        {
+            if (nullGroupId >= 0)
+            {
+                put(table, nullGroupId, ValueVector.literalNull(ResolvedType.of(Type.Long), 1));
+            }
+            for (Long2IntMap.Entry e : groups.long2IntEntrySet())
+            {
+                put(table, e.getIntValue(), ValueVector.literalLong(e.getLongKey(), 1));
+            }
+        }
+    }
+
+    /**
+     * Table for a single string key. Strings are hashed and compared on their utf8 bytes. For dictionary encoded vectors each dictionary code is mapped to it's group once and the rows are then
+     * grouped on the codes.
+     */
+    private static class StringTable extends PrimitiveGroupTable
+    {
+        private final Object2IntOpenHashMap<UTF8String> groups = new Object2IntOpenHashMap<>();
+        private int nullGroupId = -1;
+        /* Group ids for the codes of the last grouped dictionary. -1 if code is not resolved */
+        private ValueVector dictionary;
+        private int[] codeGroupIds;
+
+        StringTable()
+        {
+            super(Type.String);
+            groups.defaultReturnValue(-1);
+        }
+
+        @Override
+        protected void groupRows(ValueVector[] keys, int rowCount, int groupLimit, IntList skippedRows)
+        {
+            ValueVector vector = keys[0];
+            boolean hasNulls = vector.hasNulls();
+            ValueVector vectorDictionary = vector.getDictionary();
+            if (vectorDictionary != null)
+            {
+                prepareDictionary(vectorDictionary);
+            }
+            for (int row = 0; row < rowCount; row++)
+            {
+                if (hasNulls
+                        && vector.isNull(row))
+                {
+                    if (nullGroupId < 0)
+                    {
+                        nullGroupId = newGroup(groupLimit);
+                    }
+                    add(nullGroupId, row, skippedRows);
+                    continue;
+                }
+
+                int groupId;
+                if (vectorDictionary != null)
+                {
+                    int code = vector.getDictionaryCode(row);
+                    groupId = codeGroupIds[code];
+                    if (groupId < 0)
+                    {
+                        groupId = getGroupId(vectorDictionary.getString(code), groupLimit);
+                        codeGroupIds[code] = groupId;
+                    }
+                }
+                else
+                {
+                    groupId = getGroupId(vector.getString(row), groupLimit);
+                }
+                add(groupId, row, skippedRows);
+            }
+        }
+
+        private void prepareDictionary(ValueVector vectorDictionary)
+        {
+            int dictionarySize = vectorDictionary.size();
+            if (dictionary != vectorDictionary)
+            {
+                dictionary = vectorDictionary;
+                codeGroupIds = new int[dictionarySize];
+                Arrays.fill(codeGroupIds, -1);
+            }
+            else if (codeGroupIds.length < dictionarySize)
+            {
+                // Dictionary has grown since last vector
+                int length = codeGroupIds.length;
+                codeGroupIds = Arrays.copyOf(codeGroupIds, dictionarySize);
+                Arrays.fill(codeGroupIds, length, dictionarySize, -1);
+            }
+        }
+
+        private int getGroupId(UTF8String key, int groupLimit)
+        {
+            int groupId = groups.getInt(key);
+            if (groupId < 0)
+            {
+                groupId = newGroup(groupLimit);
+                if (groupId >= 0)
+                {
+                    // Copy byte backed strings to not retain the vectors underlying buffer
+                    groups.put(key.hasString() ? key
+                            : UTF8String.utf8(key.getBytes()), groupId);
+                }
+            }
+            return groupId;
+        }
+
+        @Override
+        void migrate(Object2ObjectMap<GroupKey, IntList> table)
+        {
+            if (nullGroupId >= 0)
+            {
+                put(table, nullGroupId, ValueVector.literalNull(ResolvedType.of(Type.String), 1));
+            }
+            for (Object2IntMap.Entry<UTF8String> e : groups.object2IntEntrySet())
+            {
+                put(table, e.getIntValue(), ValueVector.literalString(e.getKey(), 1));
+            }
+        }
+    }
+
+    /** Table for two int keys. Keys are packed into a long and there is one map for each combination of null keys */
+    private static class IntPairTable extends PrimitiveGroupTable
+    {
+        private final Long2IntOpenHashMap[] groups = new Long2IntOpenHashMap[4];
+
+        IntPairTable()
+        {
+            super(Type.Int, Type.Int);
+        }
+
+        @Override
+        protected void groupRows(ValueVector[] keys, int rowCount, int groupLimit, IntList skippedRows)
+        {
+            ValueVector first = keys[0];
+            ValueVector second = keys[1];
+            boolean hasNulls = first.hasNulls()
+                    || second.hasNulls();
+            for (int row = 0; row < rowCount; row++)
+            {
+                int nullMask = 0;
+                long key = 0;
+                if (hasNulls
+                        && first.isNull(row))
+                {
+                    nullMask |= 1;
+                }
+                else
+                {
+                    key = (long) first.getInt(row) << 32;
+                }
+                if (hasNulls
+                        && second.isNull(row))
+                {
+                    nullMask |= 2;
+                }
+                else
+                {
+                    key |= second.getInt(row) & 0xFFFFFFFFL;
+                }
+
+                Long2IntOpenHashMap map = groups[nullMask];
+                if (map == null)
+                {
+                    map = new Long2IntOpenHashMap();
+                    map.defaultReturnValue(-1);
+                    groups[nullMask] = map;
+                }
+
+                int groupId = map.get(key);
+                if (groupId < 0)
+                {
+                    groupId = newGroup(groupLimit);
+                    if (groupId >= 0)
+                    {
+                        map.put(key, groupId);
+                    }
+                }
+                add(groupId, row, skippedRows);
+            }
+        }
+
+        @Override
+        void migrate(Object2ObjectMap<GroupKey, IntList> table)
+        {
+            for (int nullMask = 0; nullMask < groups.length; nullMask++)
+            {
+                if (groups[nullMask] == null)
+                {
+                    continue;
+                }
+                for (Long2IntMap.Entry e : groups[nullMask].long2IntEntrySet())
+                {
+                    long key = e.getLongKey();
+                    ValueVector first = (nullMask & 1) != 0 ? ValueVector.literalNull(ResolvedType.of(Type.Int), 1)
+                            : ValueVector.literalInt((int) (key >>> 32), 1);
+                    ValueVector second = (nullMask & 2) != 0 ? ValueVector.literalNull(ResolvedType.of(Type.Int), 1)
+                            : ValueVector.literalInt((int) key, 1);
+                    put(table, e.getIntValue(), first, second);
+                }
+            }
+        }
+    }
+}
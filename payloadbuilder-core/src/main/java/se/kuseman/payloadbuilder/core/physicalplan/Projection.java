@@ -24,6 +24,8 @@
 import se.kuseman.payloadbuilder.core.execution.StatementContext;
 import se.kuseman.payloadbuilder.core.expression.AliasExpression;
 import se.kuseman.payloadbuilder.core.expression.AsteriskExpression;
+import se.kuseman.payloadbuilder.core.expression.compiler.CompiledExpression;
+import se.kuseman.payloadbuilder.core.expression.compiler.ExpressionCompiler;
 
 /** Projection of a plan that projects a list of expression */
 public class Projection implements IPhysicalPlan
@@ -35,8 +37,20 @@ public class Projection implements IPhysicalPlan
     private final boolean hasAsteriskProjection;
     private final boolean hasAsteriskSchemaOrInput;
     private final TableSourceReference parentTableSource;
+    /** Compiled expressions, null if compilation is not enabled. An entry is null if the expression could not be compiled */
+    private final CompiledExpression[] compiledExpressions;
 
     public Projection(int nodeId, IPhysicalPlan input, Schema schema, List<IExpression> expressions, TableSourceReference parentTableSource)
+    {
+        this(nodeId, input, schema, expressions, parentTableSource, false);
+    }
+
+    /**
+     * Create a projection.
+     *
+     * @param compileExpressions True if expressions should be compiled with {@link ExpressionCompiler}. Asterisk projections are never compiled since they are expanded runtime.
+     */
+    public Projection(int nodeId, IPhysicalPlan input, Schema schema, List<IExpression> expressions, TableSourceReference parentTableSource, boolean compileExpressions)
     {
         this.nodeId = nodeId;
         this.input = requireNonNull(input, "input");
@@ -52,6 +66,12 @@ public Projection(int nodeId, IPhysicalPlan input, Schema schema, List<IExpressi
         {
             throw new IllegalArgumentException("Schema size doesn't match epxressions size");
         }
+
+        this.compiledExpressions = compileExpressions
+                && !hasAsteriskProjection ? expressions.stream()
+                        .map(ExpressionCompiler::compile)
+                        .toArray(CompiledExpression[]::new)
+                        : null;
     }
 
     public IPhysicalPlan getInput()
@@ -126,8 +146,10 @@ public TupleVector next()
                 final ValueVector[] vectors = new ValueVector[expressionSize];
                 for (int i = 0; i < expressionSize; i++)
                 {
-                    vectors[i] = actualExpressions.get(i)
-                            .eval(vector, context);
+                    vectors[i] = compiledExpressions != null
+                            && compiledExpressions[i] != null ? compiledExpressions[i].eval(vector, context)
+                                    : actualExpressions.get(i)
+                                            .eval(vector, context);
                 }
                 final Schema schema = hasAsteriskSchemaOrInput ? SchemaUtils.getSchema(parentTableSource, actualExpressions, vectors, false)
                         : Projection.this.schema;
@@ -0,0 +1,294 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.IDatasource;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.ISeekPredicate;
+import se.kuseman.payloadbuilder.api.execution.ISeekPredicate.ISeekKey;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.UTF8String;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.ITupleVectorBuilder;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedTupleVector;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
+import se.kuseman.payloadbuilder.core.cache.SeekCache;
+import se.kuseman.payloadbuilder.core.execution.QuerySession;
+import se.kuseman.payloadbuilder.core.execution.StatementContext;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+
+/**
+ * Lookup cache between {@link IndexSeek} and it's data source. Rows returned by the data source are cached per seek key in the sessions {@link SeekCache}. Cached keys are served locally and only
+ * the missing keys are sent to the data source.
+ *
+ * <pre>
+ * The rows are mapped back to their seek key by the index columns of the returned vectors. If the index columns are missing
+ * or a row cannot be mapped to a requested key (ie. a data source that compares case insensitive) nothing is cached for that
+ * execution and the rows are returned as is.
+ * </pre>
+ */
+class SeekResultCache
+{
+    private final QualifiedName name;
+    private final Duration ttl;
+    private final int tableSourceId;
+    private final ISeekPredicate seekPredicate;
+
+    SeekResultCache(QualifiedName name, Duration ttl, int tableSourceId, ISeekPredicate seekPredicate)
+    {
+        this.name = requireNonNull(name, "name");
+        this.ttl = ttl;
+        this.tableSourceId = tableSourceId;
+        this.seekPredicate = requireNonNull(seekPredicate, "seekPredicate");
+    }
+
+    QualifiedName getName()
+    {
+        return name;
+    }
+
+    Duration getTtl()
+    {
+        return ttl;
+    }
+
+    /** Execute provided data source with the seek keys from context that is not found in cache */
+    TupleIterator execute(IExecutionContext context, IDatasource datasource)
+    {
+        SeekCache cache = ((QuerySession) context.getSession()).getSeekCache();
+        StatementContext statementContext = (StatementContext) context.getStatementContext();
+        // Batched seeks have their keys in context
+        List<ISeekKey> seekKeys = statementContext.getIndexSeekKeys(tableSourceId);
+        if (seekKeys == null)
+        {
+            seekKeys = seekPredicate.getSeekKeys(context);
+        }
+        int keyCount = seekKeys.size();
+        ValueVector[] keyVectors = new ValueVector[keyCount];
+        for (int i = 0; i < keyCount; i++)
+        {
+            keyVectors[i] = seekKeys.get(i)
+                    .getValue();
+        }
+
+        int rowCount = keyVectors[0].size();
+        ITupleVectorBuilder builder = context.getVectorFactory()
+                .getTupleVectorBuilder(rowCount);
+        IntList missingRows = new IntArrayList();
+        List<Object> missingKeys = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++)
+        {
+            Object key = getKey(keyVectors, row);
+            TupleVector cached = key != null ? cache.get(name, key)
+                    : null;
+            if (cached != null)
+            {
+                builder.append(cached);
+                continue;
+            }
+            missingRows.add(row);
+            missingKeys.add(key);
+        }
+
+        if (!missingRows.isEmpty())
+        {
+            TupleVector fetched = fetch(context, statementContext, datasource, seekKeys, keyVectors, missingRows);
+            builder.append(fetched);
+            cacheRows(context, cache, fetched, missingKeys);
+        }
+
+        TupleVector result = builder.build();
+        return result.getRowCount() > 0 ? TupleIterator.singleton(result)
+                : TupleIterator.EMPTY;
+    }
+
+    /** Execute data source with the missing seek keys and return the materialized result */
+    private TupleVector fetch(IExecutionContext context, StatementContext statementContext, IDatasource datasource, List<ISeekKey> seekKeys, ValueVector[] keyVectors, IntList missingRows)
+    {
+        if (missingRows.size() < keyVectors[0].size())
+        {
+            ValueVector selection = VectorUtils.convertToSelectionVector(missingRows);
+            List<ISeekKey> missingSeekKeys = new ArrayList<>(keyVectors.length);
+            for (ValueVector keyVector : keyVectors)
+            {
+                ValueVector missingVector = SelectedValueVector.select(keyVector, selection);
+                missingSeekKeys.add(() -> missingVector);
+            }
+            statementContext.setIndexSeekKeys(tableSourceId, missingSeekKeys);
+        }
+        else
+        {
+            statementContext.setIndexSeekKeys(tableSourceId, seekKeys);
+        }
+
+        TupleIterator iterator = datasource.execute(context);
+        try
+        {
+            // Materialize to not keep any references to the data source in cache
+            ITupleVectorBuilder builder = context.getVectorFactory()
+                    .getTupleVectorBuilder(missingRows.size());
+            while (iterator.hasNext())
+            {
+                builder.append(iterator.next());
+            }
+            return builder.build();
+        }
+        finally
+        {
+            iterator.close();
+        }
+    }
+
+    /** Map the fetched rows back to their seek keys and put them in cache */
+    private void cacheRows(IExecutionContext context, SeekCache cache, TupleVector fetched, List<Object> missingKeys)
+    {
+        List<String> indexColumns = seekPredicate.getIndexColumns();
+        int[] ordinals = getOrdinals(fetched.getSchema(), indexColumns);
+        if (ordinals == null)
+        {
+            return;
+        }
+
+        ValueVector[] columns = new ValueVector[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++)
+        {
+            columns[i] = fetched.getColumn(ordinals[i]);
+        }
+
+        Map<Object, IntList> rowsByKey = new HashMap<>(missingKeys.size());
+        for (Object key : missingKeys)
+        {
+            if (key != null)
+            {
+                rowsByKey.put(key, new IntArrayList());
+            }
+        }
+
+        int rowCount = fetched.getRowCount();
+        for (int row = 0; row < rowCount; row++)
+        {
+            Object key = getKey(columns, row);
+            IntList rows = key != null ? rowsByKey.get(key)
+                    : null;
+            if (rows == null)
+            {
+                // Row that doesn't match any of our keys, we cannot safely cache anything
+                return;
+            }
+            rows.add(row);
+        }
+
+        for (Map.Entry<Object, IntList> e : rowsByKey.entrySet())
+        {
+            IntList rows = e.getValue();
+            TupleVector keyRows = TupleVector.EMPTY;
+            if (!rows.isEmpty())
+            {
+                ITupleVectorBuilder builder = context.getVectorFactory()
+                        .getTupleVectorBuilder(rows.size());
+                builder.append(SelectedTupleVector.select(fetched, VectorUtils.convertToSelectionVector(rows)));
+                keyRows = builder.build();
+            }
+            cache.put(name, e.getKey(), keyRows, ttl);
+        }
+    }
+
+    private static int[] getOrdinals(Schema schema, List<String> indexColumns)
+    {
+        int[] ordinals = new int[indexColumns.size()];
+        List<Column> columns = schema.getColumns();
+        for (int i = 0; i < ordinals.length; i++)
+        {
+            ordinals[i] = -1;
+            for (int j = 0; j < columns.size(); j++)
+            {
+                if (columns.get(j)
+                        .getName()
+                        .equalsIgnoreCase(indexColumns.get(i)))
+                {
+                    ordinals[i] = j;
+                    break;
+                }
+            }
+            if (ordinals[i] < 0)
+            {
+                return null;
+            }
+        }
+        return ordinals;
+    }
+
+    /** Return cache key for provided row. Returns null if any of the values is null since those are never cached. */
+    static Object getKey(ValueVector[] vectors, int row)
+    {
+        if (vectors.length == 1)
+        {
+            return getKeyValue(vectors[0], row);
+        }
+        Object[] values = new Object[vectors.length];
+        for (int i = 0; i < vectors.length; i++)
+        {
+            values[i] = getKeyValue(vectors[i], row);
+            if (values[i] == null)
+            {
+                return null;
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    /** Return a normalized key value. Integral and decimal numbers are widened and strings are converted to java strings to be able to match keys and rows of different types */
+    private static Object getKeyValue(ValueVector vector, int row)
+    {
+        if (vector.isNull(row))
+        {
+            return null;
+        }
+        return switch (vector.type()
+                .getType())
+        {
+            case Int, Long -> vector.getLong(row);
+            case Float, Double -> vector.getDouble(row);
+            case Boolean -> vector.getBoolean(row);
+            case String -> vector.getString(row)
+                    .toString();
+            default -> normalize(vector.getAny(row));
+        };
+    }
+
+    private static Object normalize(Object value)
+    {
+        if (value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte)
+        {
+            return ((Number) value).longValue();
+        }
+        else if (value instanceof Float
+                || value instanceof Double)
+        {
+            return ((Number) value).doubleValue();
+        }
+        else if (value instanceof UTF8String
+                || value instanceof CharSequence)
+        {
+            return value.toString();
+        }
+        return value;
+    }
+}
@@ -4,22 +4,32 @@
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
-import static se.kuseman.payloadbuilder.api.utils.MapUtils.entry;
-import static se.kuseman.payloadbuilder.api.utils.MapUtils.ofEntries;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.time.DurationFormatUtils;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
 import se.kuseman.payloadbuilder.api.catalog.IDatasource;
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.NullOrder;
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
-import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.NodeData;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.ITupleVectorBuilder;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedTupleVector;
 import se.kuseman.payloadbuilder.core.QueryException;
 import se.kuseman.payloadbuilder.core.common.DescribableNode;
 import se.kuseman.payloadbuilder.core.common.SortItem;
@@ -27,20 +37,36 @@
 import se.kuseman.payloadbuilder.core.execution.VectorUtils;
 import se.kuseman.payloadbuilder.core.expression.LiteralIntegerExpression;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 
 /** Sort plan */
 public class Sort implements IPhysicalPlan
 {
+    /** Number of rows per batch written to spilled runs and emitted when merging runs */
+    static final int MERGE_BATCH_SIZE = 1000;
+
     private final int nodeId;
     private final IPhysicalPlan input;
     private final List<SortItem> sortItems;
+    /**
+     * Memory budget in bytes of the sort. When exceeded the input is sorted in runs that are spilled to disk and then merged. Zero means unbounded.
+     */
+    private final long memoryBudget;
 
     public Sort(int nodeId, IPhysicalPlan input, List<SortItem> sortItems)
+    {
+        this(nodeId, input, sortItems, 0);
+    }
+
+    public Sort(int nodeId, IPhysicalPlan input, List<SortItem> sortItems, long memoryBudget)
     {
         this.nodeId = nodeId;
         this.input = requireNonNull(input, "input");
         this.sortItems = requireNonNull(sortItems, "sortItems");
+        this.memoryBudget = memoryBudget;
     }
 
     @Override
@@ -55,13 +81,45 @@ public String getName()
         return "Sort";
     }
 
+    public IPhysicalPlan getInput()
+    {
+        return input;
+    }
+
+    public List<SortItem> getSortItems()
+    {
+        return sortItems;
+    }
+
+    long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
     @Override
     public Map<String, Object> getDescribeProperties(IExecutionContext context)
     {
-        return ofEntries(true, entry("Order By", sortItems.stream()
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("Order By", sortItems.stream()
                 .map(si -> si.getExpression()
                         .toString() + " " + si.getOrder())
-                .collect(toList())), entry(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(input.getSchema())));
+                .collect(toList()));
+        properties.put(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(input.getSchema()));
+        if (memoryBudget > 0)
+        {
+            properties.put("Memory Budget", FileUtils.byteCountToDisplaySize(memoryBudget));
+        }
+        SortNodeData nodeData = context.getStatementContext()
+                .getNodeData(nodeId);
+        if (nodeData != null
+                && nodeData.spilledRuns > 0)
+        {
+            properties.put("Spilled Runs", nodeData.spilledRuns);
+            properties.put("Spilled Rows", nodeData.spilledRows);
+            properties.put("Spilled Bytes", FileUtils.byteCountToDisplaySize(nodeData.spilledBytes));
+            properties.put("Spill Time", DurationFormatUtils.formatDurationHMS(TimeUnit.MILLISECONDS.convert(nodeData.spillTime, TimeUnit.NANOSECONDS)));
+        }
+        return properties;
     }
 
     @Override
@@ -74,8 +132,15 @@ public Schema getSchema()
     public TupleIterator execute(IExecutionContext context)
     {
         TupleIterator it = input.execute(context);
-        TupleVector all = PlanUtils.concat(context, it);
+        if (memoryBudget <= 0)
+        {
+            return sortInMemory(context, PlanUtils.concat(context, it));
+        }
+        return sortExternal(context, it);
+    }
 
+    private TupleIterator sortInMemory(IExecutionContext context, TupleVector all)
+    {
         if (all.getRowCount() == 0)
         {
             return TupleIterator.EMPTY;
@@ -85,83 +150,8 @@ else if (all.getRowCount() == 1)
             return TupleIterator.singleton(all);
         }
 
-        final int itemSize = sortItems.size();
-        final ValueVector[] expressionVectors = new ValueVector[itemSize];
-
         final int rowCount = all.getRowCount();
-        // Result array to store the resulting sorted index of the value vector
-        // Start with input order
-        final int[] sortIndices = IntStream.range(0, rowCount)
-                .toArray();
-
-        IntArrays.mergeSort(sortIndices, (a, b) ->
-        {
-            for (int i = 0; i < itemSize; i++)
-            {
-                SortItem sortItem = sortItems.get(i);
-                ValueVector vals = expressionVectors[i];
-                // Eval expression if not already done
-                if (vals == null)
-                {
-                    if (sortItem.getExpression() instanceof LiteralIntegerExpression)
-                    {
-                        int index = ((LiteralIntegerExpression) sortItem.getExpression()).getValue();
-                        if (index <= 0
-                                || index > all.getSchema()
-                                        .getSize())
-                        {
-                            throw new QueryException("ORDER BY position is out of range");
-                        }
-
-                        // Ordinal sort is 1 based
-                        vals = all.getColumn(index - 1);
-                    }
-                    else
-                    {
-                        vals = sortItem.getExpression()
-                                .eval(all, context);
-                    }
-                    expressionVectors[i] = vals;
-                }
-
-                ResolvedType type = vals.type();
-
-                // CSOFF
-                boolean aIsNull = vals.isNull(a);
-                boolean bIsNull = vals.isNull(b);
-                // CSON
-                NullOrder nullOrder = sortItem.getNullOrder();
-
-                if (aIsNull
-                        && bIsNull)
-                {
-                    continue;
-                }
-                else if (aIsNull)
-                {
-                    // Null is always less if not specified
-                    return nullOrder == NullOrder.FIRST
-                            || nullOrder == NullOrder.UNDEFINED ? -1
-                                    : 1;
-                }
-                else if (bIsNull)
-                {
-                    // Null is always less if not specified
-                    return nullOrder == NullOrder.FIRST
-                            || nullOrder == NullOrder.UNDEFINED ? 1
-                                    : -1;
-                }
-
-                Order order = sortItem.getOrder();
-                int c = VectorUtils.compare(vals, vals, type.getType(), a, b);
-                if (c != 0)
-                {
-                    return c * (order == Order.DESC ? -1
-                            : 1);
-                }
-            }
-            return 0;
-        });
+        final int[] sortIndices = sort(context, all);
 
         int columnCount = all.getSchema()
                 .getSize();
@@ -200,6 +190,479 @@ public ValueVector getColumn(int column)
         });
     }
 
+    /**
+     * Sort input with a bounded memory. Input is collected into runs until the memory budget is exceeded, then the run is sorted and spilled to disk. When the input is consumed the spilled runs are
+     * merged and streamed in batches. If the whole input fits in the budget it's sorted in memory.
+     */
+    private TupleIterator sortExternal(IExecutionContext context, TupleIterator it)
+    {
+        SortNodeData nodeData = context.getStatementContext()
+                .getOrCreateNodeData(nodeId, SortNodeData::new);
+        List<TupleVector> run = new ArrayList<>();
+        List<SpillFile> runs = new ArrayList<>();
+        long runSize = 0;
+        try
+        {
+            while (it.hasNext())
+            {
+                TupleVector vector = it.next();
+                if (vector.getRowCount() == 0)
+                {
+                    continue;
+                }
+                run.add(vector);
+                runSize += VectorUtils.estimateSize(vector);
+                if (runSize > memoryBudget)
+                {
+                    runs.add(spillRun(context, concat(context, run), nodeData));
+                    run.clear();
+                    runSize = 0;
+                }
+            }
+
+            if (runs.isEmpty())
+            {
+                return sortInMemory(context, concat(context, run));
+            }
+            else if (!run.isEmpty())
+            {
+                runs.add(spillRun(context, concat(context, run), nodeData));
+                run.clear();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            runs.forEach(SpillFile::close);
+            throw e;
+        }
+        finally
+        {
+            it.close();
+        }
+
+        return new MergeIterator(context, runs);
+    }
+
+    /** Sort provided vector and write it to disk in batches */
+    private SpillFile spillRun(IExecutionContext context, TupleVector vector, SortNodeData nodeData)
+    {
+        int[] sortIndices = sort(context, vector);
+        final long start = System.nanoTime();
+        int rowCount = vector.getRowCount();
+        SpillFile file = new SpillFile();
+        try
+        {
+            for (int from = 0; from < rowCount; from += MERGE_BATCH_SIZE)
+            {
+                int to = Math.min(rowCount, from + MERGE_BATCH_SIZE);
+                ValueVector selection = VectorUtils.convertToSelectionVector(Arrays.copyOfRange(sortIndices, from, to), to - from);
+                nodeData.spilledBytes += file.write(SelectedTupleVector.select(vector, selection));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            file.close();
+            throw e;
+        }
+        nodeData.spilledRuns++;
+        nodeData.spilledRows += rowCount;
+        nodeData.spillTime += System.nanoTime() - start;
+        return file;
+    }
+
+    /** Sort provided vector and return the row indices in sorted order */
+    private int[] sort(IExecutionContext context, TupleVector vector)
+    {
+        final ValueVector[] expressionVectors = evalSortItems(context, vector, sortItems);
+        Type prefixType = expressionVectors[0].type()
+                .getType();
+        if (SortKeyNormalizer.isSupported(prefixType))
+        {
+            return sortNormalized(expressionVectors, prefixType, vector.getRowCount());
+        }
+
+        // Result array to store the resulting sorted index of the value vector
+        // Start with input order
+        final int[] sortIndices = IntStream.range(0, vector.getRowCount())
+                .toArray();
+        IntArrays.mergeSort(sortIndices, (a, b) -> compare(sortItems, expressionVectors, expressionVectors, a, b));
+        return sortIndices;
+    }
+
+    /**
+     * Sort by normalized keys. The first sort item is encoded into a long prefix per row with DESC inverted and the rows are radix sorted on the prefixes. Rows with equal prefixes are then sorted
+     * with the full comparison. Null rows are sorted separately and placed first or last according to the null order.
+     */
+    private int[] sortNormalized(ValueVector[] expressionVectors, Type prefixType, int rowCount)
+    {
+        SortItem sortItem = sortItems.get(0);
+        ValueVector keys = expressionVectors[0];
+        boolean descending = sortItem.getOrder() == Order.DESC;
+
+        int[] rows = new int[rowCount];
+        long[] prefixes = new long[rowCount];
+        IntList nullRows = null;
+        int count = 0;
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (keys.isNull(i))
+            {
+                if (nullRows == null)
+                {
+                    nullRows = new IntArrayList();
+                }
+                nullRows.add(i);
+                continue;
+            }
+            long prefix = SortKeyNormalizer.encode(keys, prefixType, i);
+            if (descending)
+            {
+                prefix = ~prefix;
+            }
+            rows[count] = i;
+            // Radix sort is signed, flip the sign bit to get the unsigned order
+            prefixes[count] = prefix ^ Long.MIN_VALUE;
+            count++;
+        }
+
+        // Sort positions of the rows stable on the prefixes
+        int[] positions = IntStream.range(0, count)
+                .toArray();
+        LongArrays.radixSortIndirect(positions, prefixes, 0, count, true);
+
+        int[] sortIndices = new int[rowCount];
+        int nullCount = nullRows != null ? nullRows.size()
+                : 0;
+        boolean nullsFirst = sortItem.getNullOrder() != NullOrder.LAST;
+        int offset = nullsFirst ? nullCount
+                : 0;
+        for (int i = 0; i < count; i++)
+        {
+            sortIndices[offset + i] = rows[positions[i]];
+        }
+
+        // Equal prefixes of an exact type are equal values so those only needs to be compared on the remaining items
+        int tieFrom = SortKeyNormalizer.isExact(prefixType) ? 1
+                : 0;
+        if (tieFrom < sortItems.size())
+        {
+            int start = 0;
+            for (int i = 1; i <= count; i++)
+            {
+                if (i == count
+                        || prefixes[positions[i]] != prefixes[positions[start]])
+                {
+                    if (i - start > 1)
+                    {
+                        IntArrays.mergeSort(sortIndices, offset + start, offset + i, (a, b) -> compare(sortItems, tieFrom, expressionVectors, expressionVectors, a, b));
+                    }
+                    start = i;
+                }
+            }
+        }
+
+        if (nullCount > 0)
+        {
+            int nullOffset = nullsFirst ? 0
+                    : count;
+            nullRows.getElements(0, sortIndices, nullOffset, nullCount);
+            if (sortItems.size() > 1)
+            {
+                IntArrays.mergeSort(sortIndices, nullOffset, nullOffset + nullCount, (a, b) -> compare(sortItems, 1, expressionVectors, expressionVectors, a, b));
+            }
+        }
+        return sortIndices;
+    }
+
+    /** Evaluate the sort items against provided vector */
+    static ValueVector[] evalSortItems(IExecutionContext context, TupleVector vector, List<SortItem> sortItems)
+    {
+        final int itemSize = sortItems.size();
+        final ValueVector[] expressionVectors = new ValueVector[itemSize];
+        for (int i = 0; i < itemSize; i++)
+        {
+            SortItem sortItem = sortItems.get(i);
+            if (sortItem.getExpression() instanceof LiteralIntegerExpression)
+            {
+                int index = ((LiteralIntegerExpression) sortItem.getExpression()).getValue();
+                if (index <= 0
+                        || index > vector.getSchema()
+                                .getSize())
+                {
+                    throw new QueryException("ORDER BY position is out of range");
+                }
+
+                // Ordinal sort is 1 based
+                expressionVectors[i] = vector.getColumn(index - 1);
+            }
+            else
+            {
+                expressionVectors[i] = sortItem.getExpression()
+                        .eval(vector, context);
+            }
+        }
+        return expressionVectors;
+    }
+
+    /** Compare two rows of evaluated sort items. The rows can belong to different vectors */
+    static int compare(List<SortItem> sortItems, ValueVector[] left, ValueVector[] right, int leftRow, int rightRow)
+    {
+        return compare(sortItems, 0, left, right, leftRow, rightRow);
+    }
+
+    /** Compare two rows of evaluated sort items starting from provided sort item index */
+    static int compare(List<SortItem> sortItems, int fromItem, ValueVector[] left, ValueVector[] right, int leftRow, int rightRow)
+    {
+        final int itemSize = left.length;
+        for (int i = fromItem; i < itemSize; i++)
+        {
+            SortItem sortItem = sortItems.get(i);
+            ValueVector leftVals = left[i];
+            ValueVector rightVals = right[i];
+
+            // CSOFF
+            boolean aIsNull = leftVals.isNull(leftRow);
+            boolean bIsNull = rightVals.isNull(rightRow);
+            // CSON
+            NullOrder nullOrder = sortItem.getNullOrder();
+
+            if (aIsNull
+                    && bIsNull)
+            {
+                continue;
+            }
+            else if (aIsNull)
+            {
+                // Null is always less if not specified
+                return nullOrder == NullOrder.FIRST
+                        || nullOrder == NullOrder.UNDEFINED ? -1
+                                : 1;
+            }
+            else if (bIsNull)
+            {
+                // Null is always less if not specified
+                return nullOrder == NullOrder.FIRST
+                        || nullOrder == NullOrder.UNDEFINED ? 1
+                                : -1;
+            }
+
+            Type type = leftVals.type()
+                    .getType();
+            // Vectors from different runs can have different types, fallback to a reflective compare
+            if (leftVals != rightVals
+                    && type != rightVals.type()
+                            .getType())
+            {
+                type = Type.Any;
+            }
+
+            Order order = sortItem.getOrder();
+            int c = VectorUtils.compare(leftVals, rightVals, type, leftRow, rightRow);
+            if (c != 0)
+            {
+                return c * (order == Order.DESC ? -1
+                        : 1);
+            }
+        }
+        return 0;
+    }
+
+    private static TupleVector concat(IExecutionContext context, List<TupleVector> vectors)
+    {
+        if (vectors.size() == 1)
+        {
+            return vectors.get(0);
+        }
+        int rowCount = 0;
+        for (TupleVector vector : vectors)
+        {
+            rowCount += vector.getRowCount();
+        }
+        ITupleVectorBuilder builder = context.getVectorFactory()
+                .getTupleVectorBuilder(rowCount);
+        for (TupleVector vector : vectors)
+        {
+            builder.append(vector);
+        }
+        return builder.build();
+    }
+
+    /** Iterator that merges sorted spilled runs */
+    private class MergeIterator implements TupleIterator
+    {
+        private final IExecutionContext context;
+        private final List<RunCursor> cursors;
+        private final PriorityQueue<RunCursor> queue;
+        private TupleVector next;
+
+        MergeIterator(IExecutionContext context, List<SpillFile> runs)
+        {
+            this.context = context;
+            this.cursors = new ArrayList<>(runs.size());
+            // Ties are broken by run index to keep the sort stable
+            this.queue = new PriorityQueue<>(runs.size(), (a, b) ->
+            {
+                int c = compare(sortItems, a.keys, b.keys, a.row, b.row);
+                return c != 0 ? c
+                        : Integer.compare(a.index, b.index);
+            });
+            for (SpillFile run : runs)
+            {
+                RunCursor cursor = new RunCursor(cursors.size(), run.iterator());
+                cursors.add(cursor);
+                if (cursor.nextVector(context))
+                {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next != null)
+            {
+                return true;
+            }
+            if (queue.isEmpty()
+                    || context.getSession()
+                            .abortQuery())
+            {
+                return false;
+            }
+            next = nextBatch();
+            return true;
+        }
+
+        @Override
+        public TupleVector next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            TupleVector result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close()
+        {
+            for (RunCursor cursor : cursors)
+            {
+                cursor.iterator.close();
+            }
+        }
+
+        private TupleVector nextBatch()
+        {
+            ITupleVectorBuilder builder = context.getVectorFactory()
+                    .getTupleVectorBuilder(MERGE_BATCH_SIZE);
+            // Consecutive rows picked from the same vector are appended together
+            TupleVector pendingVector = null;
+            IntList pendingRows = new IntArrayList();
+            int count = 0;
+            while (count < MERGE_BATCH_SIZE
+                    && !queue.isEmpty())
+            {
+                RunCursor cursor = queue.poll();
+                if (cursor.vector != pendingVector)
+                {
+                    append(builder, pendingVector, pendingRows);
+                    pendingVector = cursor.vector;
+                }
+                pendingRows.add(cursor.row);
+                count++;
+                if (cursor.next(context))
+                {
+                    queue.add(cursor);
+                }
+            }
+            append(builder, pendingVector, pendingRows);
+            return builder.build();
+        }
+
+        private void append(ITupleVectorBuilder builder, TupleVector vector, IntList rows)
+        {
+            if (vector == null
+                    || rows.isEmpty())
+            {
+                return;
+            }
+            builder.append(SelectedTupleVector.select(vector, VectorUtils.convertToSelectionVector(new IntArrayList(rows))));
+            rows.clear();
+        }
+    }
+
+    /** Current position in a spilled run */
+    private class RunCursor
+    {
+        private final int index;
+        private final TupleIterator iterator;
+        private TupleVector vector;
+        private ValueVector[] keys;
+        private int row;
+
+        RunCursor(int index, TupleIterator iterator)
+        {
+            this.index = index;
+            this.iterator = iterator;
+        }
+
+        /** Move to next row. Returns false if the run is exhausted */
+        boolean next(IExecutionContext context)
+        {
+            row++;
+            if (row < vector.getRowCount())
+            {
+                return true;
+            }
+            return nextVector(context);
+        }
+
+        /** Read next vector from run. Returns false if the run is exhausted */
+        boolean nextVector(IExecutionContext context)
+        {
+            while (iterator.hasNext())
+            {
+                vector = iterator.next();
+                if (vector.getRowCount() > 0)
+                {
+                    keys = evalSortItems(context, vector, sortItems);
+                    row = 0;
+                    return true;
+                }
+            }
+            vector = null;
+            keys = null;
+            return false;
+        }
+    }
+
+    /** Node data for sort */
+    private static class SortNodeData extends NodeData
+    {
+        int spilledRuns;
+        long spilledRows;
+        long spilledBytes;
+        // Nanos
+        long spillTime;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof SortNodeData data)
+            {
+                spilledRuns += data.spilledRuns;
+                spilledRows += data.spilledRows;
+                spilledBytes += data.spilledBytes;
+                spillTime += data.spillTime;
+            }
+        }
+    }
+
     @Override
     public List<IPhysicalPlan> getChildren()
     {
@@ -233,7 +696,8 @@ else if (obj instanceof Sort that)
         {
             return nodeId == that.nodeId
                     && input.equals(that.input)
-                    && sortItems.equals(that.sortItems);
+                    && sortItems.equals(that.sortItems)
+                    && memoryBudget == that.memoryBudget;
         }
         return false;
     }
@@ -246,7 +710,9 @@ public String toString()
                + sortItems.stream()
                        .map(i -> i.getExpression()
                                .toVerboseString() + " " + i.getOrder())
-                       .collect(joining(", "));
+                       .collect(joining(", "))
+               + (memoryBudget > 0 ? ", memoryBudget: " + memoryBudget
+                       : "");
     }
 
 }
@@ -0,0 +1,61 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+
+/**
+ * Encodes sort key values into fixed width long prefixes that can be compared unsigned. The order of the prefixes is the same as the order of
+ * {@link se.kuseman.payloadbuilder.core.execution.VectorUtils#compare} for the type. For exact types equal prefixes means equal values, for other types equal prefixes must be compared with the full
+ * comparison.
+ */
+final class SortKeyNormalizer
+{
+    private SortKeyNormalizer()
+    {
+    }
+
+    /** Returns true if provided type can be encoded into a prefix */
+    static boolean isSupported(Type type)
+    {
+        return switch (type)
+        {
+            case Boolean, Int, Long, Float, Double, DateTime, DateTimeOffset, String -> true;
+            default -> false;
+        };
+    }
+
+    /** Returns true if prefixes of provided type are equal only when the values are equal */
+    static boolean isExact(Type type)
+    {
+        return type != Type.String;
+    }
+
+    /** Encode the value of provided row. NOTE! Doesn't take nulls into consideration */
+    static long encode(ValueVector vector, Type type, int row)
+    {
+        return switch (type)
+        {
+            case Boolean -> vector.getBoolean(row) ? 1
+                    : 0;
+            case Int -> vector.getInt(row) ^ Long.MIN_VALUE;
+            case Long -> vector.getLong(row) ^ Long.MIN_VALUE;
+            case Float -> encode(vector.getFloat(row));
+            case Double -> encode(vector.getDouble(row));
+            case DateTime -> vector.getDateTime(row)
+                    .getEpoch() ^ Long.MIN_VALUE;
+            case DateTimeOffset -> vector.getDateTimeOffset(row)
+                    .getEpoch() ^ Long.MIN_VALUE;
+            case String -> vector.getString(row)
+                    .getSortPrefix();
+            default -> throw new IllegalArgumentException("Cannot encode sort key of type " + type);
+        };
+    }
+
+    /** Encode a double. Negative values have their bits flipped to get the same order as {@link Double#compare(double, double)} */
+    private static long encode(double value)
+    {
+        long bits = Double.doubleToLongBits(value);
+        return bits < 0 ? ~bits
+                : bits ^ Long.MIN_VALUE;
+    }
+}
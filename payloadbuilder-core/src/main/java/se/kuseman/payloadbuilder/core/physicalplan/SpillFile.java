@@ -0,0 +1,190 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.bytes.PayloadReader;
+import se.kuseman.payloadbuilder.bytes.PayloadWriter;
+import se.kuseman.payloadbuilder.core.QueryException;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+
+/**
+ * A temporary file on local disk where tuple vectors are spilled when an operator exceeds it's memory budget. Vectors are written in payloadbuilder-bytes format and are read back in the same order as
+ * they were written. The file is deleted when closed.
+ */
+class SpillFile implements AutoCloseable
+{
+    private static final String PREFIX = "payloadbuilder-spill-";
+
+    private final Path path;
+    /** Schema of each written vector. Vectors are read back with their original schema to keep column references intact */
+    private final List<Schema> schemas = new ArrayList<>();
+    private DataOutputStream output;
+    private DataInputStream input;
+    private long rowCount;
+    private long size;
+
+    SpillFile()
+    {
+        try
+        {
+            path = Files.createTempFile(PREFIX, ".bin");
+            output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Error creating spill file", e);
+        }
+    }
+
+    /** Return total number of rows written to this file */
+    long getRowCount()
+    {
+        return rowCount;
+    }
+
+    /** Return total number of bytes written to this file */
+    long getSize()
+    {
+        return size;
+    }
+
+    /** Write provided vector to file. Returns the number of bytes written */
+    long write(TupleVector vector)
+    {
+        requireNonNull(vector);
+        if (output == null)
+        {
+            throw new IllegalStateException("Spill file is not writable");
+        }
+
+        byte[] bytes;
+        try
+        {
+            bytes = PayloadWriter.write(ValueVector.literalTable(VectorUtils.resolveAnyColumns(vector), 1));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new QueryException("Cannot spill vector with schema " + vector.getSchema() + " to disk: " + e.getMessage(), e);
+        }
+
+        try
+        {
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Error writing to spill file", e);
+        }
+
+        schemas.add(vector.getSchema());
+        rowCount += vector.getRowCount();
+        size += bytes.length + Integer.BYTES;
+        return bytes.length + Integer.BYTES;
+    }
+
+    /** Return an iterator that reads the written vectors. NOTE! File is deleted when the iterator is closed. */
+    TupleIterator iterator()
+    {
+        try
+        {
+            output.close();
+            output = null;
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Error opening spill file", e);
+        }
+
+        return new TupleIterator()
+        {
+            private int index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < schemas.size();
+            }
+
+            @Override
+            public TupleVector next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                Schema schema = schemas.get(index);
+                // Release the reference, the schema is not needed anymore
+                schemas.set(index++, null);
+                try
+                {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    return PayloadReader.readTupleVector(bytes, schema, false);
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeException("Error reading from spill file", e);
+                }
+            }
+
+            @Override
+            public int estimatedBatchCount()
+            {
+                return schemas.size();
+            }
+
+            @Override
+            public int estimatedRowCount()
+            {
+                return (int) Math.min(Integer.MAX_VALUE, rowCount);
+            }
+
+            @Override
+            public void close()
+            {
+                SpillFile.this.close();
+            }
+        };
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            if (output != null)
+            {
+                output.close();
+                output = null;
+            }
+            if (input != null)
+            {
+                input.close();
+                input = null;
+            }
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Error closing spill file", e);
+        }
+    }
+}
@@ -18,11 +18,14 @@
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IColumnExpression;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.QueryException;
 import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
 import se.kuseman.payloadbuilder.core.common.SchemaUtils;
 import se.kuseman.payloadbuilder.core.execution.StatementContext;
+import se.kuseman.payloadbuilder.core.expression.ARewriteExpressionVisitor;
+import se.kuseman.payloadbuilder.core.expression.ColumnExpression;
 
 /** A table component in the logical plan */
 public class TableFunctionScan implements IPhysicalPlan
@@ -36,6 +39,8 @@ public class TableFunctionScan implements IPhysicalPlan
     private final List<IExpression> arguments;
     private final List<Option> options;
     private final boolean asteriskSchema;
+    /** Arguments used in batch mode where outer references are resolved against the input vector */
+    private List<IExpression> batchArguments;
 
     public TableFunctionScan(int nodeId, Schema schema, TableSourceReference tableSource, String catalogAlias, String catalogName, TableFunctionInfo functionInfo, List<IExpression> arguments,
             List<Option> options)
@@ -80,10 +85,38 @@ public List<IExpression> getArguments()
 
     @Override
     public TupleIterator execute(IExecutionContext context)
+    {
+        TupleIterator iterator = functionInfo.execute(context, catalogAlias, arguments, new FunctionData(nodeId, options));
+        return wrap(context, iterator, false);
+    }
+
+    /** Returns true if this scan supports batched execution with {@link #executeBatch(IExecutionContext, TupleVector)} */
+    public boolean isBatchSupported()
+    {
+        return functionInfo.isBatchSupported();
+    }
+
+    /**
+     * Execute this scan for a batch of input rows. Returned vectors have the schema of this scan followed by a trailing row id column that tells which input row that produced each row.
+     *
+     * @see TableFunctionInfo#executeBatch(IExecutionContext, String, List, FunctionData, TupleVector)
+     */
+    public TupleIterator executeBatch(IExecutionContext context, TupleVector input)
+    {
+        if (batchArguments == null)
+        {
+            batchArguments = arguments.stream()
+                    .map(a -> OuterReferenceRewriter.INSTANCE.visit(a, null))
+                    .toList();
+        }
+        TupleIterator iterator = functionInfo.executeBatch(context, catalogAlias, batchArguments, new FunctionData(nodeId, options), input);
+        return wrap(context, iterator, true);
+    }
+
+    private TupleIterator wrap(IExecutionContext context, TupleIterator iterator, boolean batch)
     {
         final int batchSize = context.getBatchSize(options);
         final StatementContext statementContext = (StatementContext) context.getStatementContext();
-        final TupleIterator iterator = functionInfo.execute(context, catalogAlias, arguments, new FunctionData(nodeId, options));
         return new TupleIterator()
         {
             @Override
@@ -109,12 +142,24 @@ public TupleVector next()
                 // Concat the data source up to batch size, this might happen if catalog don't implement batch size correct
                 final TupleVector next = PlanUtils.concat(context, iterator, batchSize);
                 Schema vectorSchema = next.getSchema();
+                if (batch
+                        && vectorSchema.getSize() > 0)
+                {
+                    // Strip the row id column, it's appended back to the resulting schema below
+                    vectorSchema = new Schema(vectorSchema.getColumns()
+                            .subList(0, vectorSchema.getSize() - 1));
+                }
                 validate(context, vectorSchema, next.getRowCount());
                 statementContext.setRuntimeSchema(tableSource.getId(), vectorSchema);
                 // If asterisk schema then recreate the schema and attach a table source to make resolved columns properly detect it
                 // if not use the planned schema which already has table source attached
-                final Schema actualSchema = asteriskSchema ? TableScan.recreateSchema(tableSource, vectorSchema)
+                Schema resultSchema = asteriskSchema ? TableScan.recreateSchema(tableSource, vectorSchema)
                         : schema;
+                if (batch)
+                {
+                    resultSchema = SchemaUtils.joinSchema(resultSchema, Schema.of(TableFunctionInfo.ROW_ID_COLUMN));
+                }
+                final Schema actualSchema = resultSchema;
                 return new TupleVector()
                 {
                     @Override
@@ -157,6 +202,26 @@ public Schema getSchema()
         return schema;
     }
 
+    /**
+     * Rewrites outer column references to regular column references. In batch mode the outer rows are the input vector to the arguments so the outer ordinals resolves against that vector. This
+     * also makes selections (ie. case/when) on the input apply to the outer columns.
+     */
+    private static class OuterReferenceRewriter extends ARewriteExpressionVisitor<Void>
+    {
+        private static final OuterReferenceRewriter INSTANCE = new OuterReferenceRewriter();
+
+        @Override
+        public IExpression visit(IColumnExpression expression, Void context)
+        {
+            if (expression instanceof ColumnExpression ce
+                    && ce.isOuterReference())
+            {
+                return new ColumnExpression(ce, false);
+            }
+            return expression;
+        }
+    }
+
     @Override
     public List<IPhysicalPlan> getChildren()
     {
@@ -80,7 +80,7 @@ public TupleIterator execute(IExecutionContext context)
     {
         final int batchSize = context.getBatchSize(options);
         final StatementContext statementContext = (StatementContext) context.getStatementContext();
-        final TupleIterator iterator = datasource.execute(context);
+        final TupleIterator iterator = executeDatasource(context);
         // Clear any seek keys after we executed the data source to make sure they are not misused
         statementContext.setIndexSeekKeys(tableSource.getId(), null);
         return new TupleIterator()
@@ -156,6 +156,12 @@ public List<IPhysicalPlan> getChildren()
         return emptyList();
     }
 
+    /** Execute the data source. Sub classes can override to intercept the execution */
+    protected TupleIterator executeDatasource(IExecutionContext context)
+    {
+        return datasource.execute(context);
+    }
+
     protected void validate(Schema vectorSchema, int rowCount)
     {
         if (!asteriskSchema
@@ -0,0 +1,342 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.kuseman.payloadbuilder.api.catalog.IDatasource;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.NodeData;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.ITupleVectorBuilder;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedTupleVector;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.QueryException;
+import se.kuseman.payloadbuilder.core.common.DescribableNode;
+import se.kuseman.payloadbuilder.core.common.SortItem;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+
+/**
+ * Top N plan. Sorts input and returns the first N rows. Used instead of a {@link Sort} followed by a {@link Limit}. Only the current top rows are retained in a bounded heap so memory is proportional
+ * to N and not to the input.
+ */
+public class TopN implements IPhysicalPlan
+{
+    /** Minimum number of retained rows before the retained batches are compacted */
+    private static final int MIN_COMPACT_ROW_COUNT = 1024;
+
+    private final int nodeId;
+    private final IPhysicalPlan input;
+    private final List<SortItem> sortItems;
+    private final IExpression limitExpression;
+
+    public TopN(int nodeId, IPhysicalPlan input, List<SortItem> sortItems, IExpression limitExpression)
+    {
+        this.nodeId = nodeId;
+        this.input = requireNonNull(input, "input");
+        this.sortItems = requireNonNull(sortItems, "sortItems");
+        this.limitExpression = requireNonNull(limitExpression, "limitExpression");
+    }
+
+    @Override
+    public int getNodeId()
+    {
+        return nodeId;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Top N";
+    }
+
+    @Override
+    public Schema getSchema()
+    {
+        return input.getSchema();
+    }
+
+    @Override
+    public Map<String, Object> getDescribeProperties(IExecutionContext context)
+    {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("Order By", sortItems.stream()
+                .map(si -> si.getExpression()
+                        .toString() + " " + si.getOrder())
+                .collect(toList()));
+        properties.put("Value", limitExpression.toString());
+        properties.put(IDatasource.OUTPUT, DescribeUtils.getOutputColumns(input.getSchema()));
+        TopNNodeData nodeData = context.getStatementContext()
+                .getNodeData(nodeId);
+        if (nodeData != null)
+        {
+            properties.put("Rows Seen", nodeData.rowsSeen);
+            properties.put("Rows Kept", nodeData.rowsKept);
+        }
+        return properties;
+    }
+
+    @Override
+    public TupleIterator execute(IExecutionContext context)
+    {
+        ValueVector result = limitExpression.eval(TupleVector.CONSTANT, context);
+        if (result.size() == 0)
+        {
+            throw new QueryException("Limit expression returned no rows");
+        }
+        int topCount = result.getInt(0);
+        if (topCount <= 0)
+        {
+            return TupleIterator.EMPTY;
+        }
+
+        TopNNodeData nodeData = context.getStatementContext()
+                .getOrCreateNodeData(nodeId, TopNNodeData::new);
+        Heap heap = new Heap(context, topCount);
+        TupleIterator it = input.execute(context);
+        try
+        {
+            while (it.hasNext())
+            {
+                if (context.getSession()
+                        .abortQuery())
+                {
+                    break;
+                }
+                TupleVector vector = it.next();
+                nodeData.rowsSeen += vector.getRowCount();
+                heap.add(vector);
+            }
+        }
+        finally
+        {
+            it.close();
+        }
+
+        TupleVector vector = heap.build();
+        nodeData.rowsKept += vector.getRowCount();
+        if (vector.getRowCount() == 0)
+        {
+            return TupleIterator.EMPTY;
+        }
+        return TupleIterator.singleton(vector);
+    }
+
+    @Override
+    public List<IPhysicalPlan> getChildren()
+    {
+        return singletonList(input);
+    }
+
+    @Override
+    public List<DescribableNode> getChildNodes()
+    {
+        return singletonList(input);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return nodeId;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == null)
+        {
+            return false;
+        }
+        else if (obj == this)
+        {
+            return true;
+        }
+        else if (obj instanceof TopN that)
+        {
+            return nodeId == that.nodeId
+                    && input.equals(that.input)
+                    && sortItems.equals(that.sortItems)
+                    && limitExpression.equals(that.limitExpression);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Top N (" + nodeId
+               + "): "
+               + limitExpression.toVerboseString()
+               + ", "
+               + sortItems.stream()
+                       .map(i -> i.getExpression()
+                               .toVerboseString() + " " + i.getOrder())
+                       .collect(joining(", "));
+    }
+
+    /**
+     * Bounded heap of row references. A reference is encoded as a long with the batch index in the high bits and the row in the low bits. The worst row is at the top of the heap. Rows with equal sort
+     * keys are ordered by arrival to keep the result equal to a stable sort.
+     */
+    private class Heap
+    {
+        private final IExecutionContext context;
+        private final int topCount;
+        private final List<TupleVector> batches = new ArrayList<>();
+        private final List<ValueVector[]> batchKeys = new ArrayList<>();
+        private final LongHeapPriorityQueue queue;
+        /** Total number of rows in the retained batches */
+        private long retainedRowCount;
+
+        Heap(IExecutionContext context, int topCount)
+        {
+            this.context = context;
+            this.topCount = topCount;
+            this.queue = new LongHeapPriorityQueue(Math.min(topCount, MIN_COMPACT_ROW_COUNT), (a, b) -> -compare(a, b));
+        }
+
+        void add(TupleVector vector)
+        {
+            int rowCount = vector.getRowCount();
+            if (rowCount == 0)
+            {
+                return;
+            }
+            int batch = batches.size();
+            batches.add(vector);
+            batchKeys.add(Sort.evalSortItems(context, vector, sortItems));
+            retainedRowCount += rowCount;
+
+            for (int i = 0; i < rowCount; i++)
+            {
+                long reference = encode(batch, i);
+                if (queue.size() < topCount)
+                {
+                    queue.enqueue(reference);
+                }
+                // Replace the current worst row if the new row sorts before it
+                else if (compare(reference, queue.firstLong()) < 0)
+                {
+                    queue.dequeueLong();
+                    queue.enqueue(reference);
+                }
+            }
+
+            // Retained batches keeps references to rows that are not part of the top rows anymore
+            // compact the heap to keep the memory bounded
+            if (retainedRowCount > Math.max(2L * topCount, MIN_COMPACT_ROW_COUNT))
+            {
+                compact();
+            }
+        }
+
+        /** Build the top rows in sorted order */
+        TupleVector build()
+        {
+            compact();
+            return batches.isEmpty() ? TupleVector.EMPTY
+                    : batches.get(0);
+        }
+
+        /** Copy the top rows into a single sorted batch and release all other batches */
+        private void compact()
+        {
+            int size = queue.size();
+            if (size == 0)
+            {
+                return;
+            }
+            long[] references = new long[size];
+            // Worst row is dequeued first
+            for (int i = size - 1; i >= 0; i--)
+            {
+                references[i] = queue.dequeueLong();
+            }
+
+            ITupleVectorBuilder builder = context.getVectorFactory()
+                    .getTupleVectorBuilder(size);
+            // Consecutive rows from the same batch are appended together
+            int pendingBatch = -1;
+            IntList pendingRows = new IntArrayList();
+            for (long reference : references)
+            {
+                int batch = (int) (reference >>> 32);
+                if (batch != pendingBatch)
+                {
+                    append(builder, pendingBatch, pendingRows);
+                    pendingBatch = batch;
+                }
+                pendingRows.add((int) reference);
+            }
+            append(builder, pendingBatch, pendingRows);
+
+            TupleVector compacted = builder.build();
+            batches.clear();
+            batchKeys.clear();
+            batches.add(compacted);
+            batchKeys.add(Sort.evalSortItems(context, compacted, sortItems));
+            retainedRowCount = size;
+            // Rows are in sorted order so arrival order for equal rows is preserved
+            for (int i = 0; i < size; i++)
+            {
+                queue.enqueue(encode(0, i));
+            }
+        }
+
+        private void append(ITupleVectorBuilder builder, int batch, IntList rows)
+        {
+            if (rows.isEmpty())
+            {
+                return;
+            }
+            builder.append(SelectedTupleVector.select(batches.get(batch), VectorUtils.convertToSelectionVector(new IntArrayList(rows))));
+            rows.clear();
+        }
+
+        private int compare(long a, long b)
+        {
+            int batchA = (int) (a >>> 32);
+            int batchB = (int) (b >>> 32);
+            int c = Sort.compare(sortItems, batchKeys.get(batchA), batchKeys.get(batchB), (int) a, (int) b);
+            // Tie => first arrived row sorts first
+            return c != 0 ? c
+                    : Long.compare(a, b);
+        }
+    }
+
+    private static long encode(int batch, int row)
+    {
+        return ((long) batch << 32) | row;
+    }
+
+    /** Node data for top n */
+    private static class TopNNodeData extends NodeData
+    {
+        long rowsSeen;
+        long rowsKept;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof TopNNodeData data)
+            {
+                rowsSeen += data.rowsSeen;
+                rowsKept += data.rowsKept;
+            }
+        }
+    }
+}
@@ -74,6 +74,7 @@ static SeekPredicate getSeekPredicate(TableScan scan, List<IPredicate> predicate
 
         List<AnalyzePair> equiPairs = new ArrayList<>();
         List<AnalyzePair> inPairs = new ArrayList<>();
+        List<AnalyzePair> rangePairs = new ArrayList<>();
         for (IPredicate p : predicates)
         {
             PredicatePair pp = (PredicatePair) p;
@@ -83,6 +84,11 @@ static SeekPredicate getSeekPredicate(TableScan scan, List<IPredicate> predicate
             {
                 equiPairs.add(pair);
             }
+            else if (pair.getType() == Type.COMPARISION
+                    && pair.isRange(tableSource))
+            {
+                rangePairs.add(pair);
+            }
             else if (pair.getType() == Type.IN)
             {
                 Pair<IExpression, IExpression> ine = pair.getExpressionPair(tableSource);
@@ -127,7 +133,7 @@ else if (pair.getType() == Type.IN)
 
             for (Index index : indices)
             {
-                if (canUseIndexForInExpressionPushDown(index, column))
+                if (canUseSingleColumnIndex(index, column, IndexType.SEEK_EQ))
                 {
                     // Remove the predicate we used as index source
                     // This should not be used as pushed down later on
@@ -142,12 +148,67 @@ else if (pair.getType() == Type.IN)
             }
         }
 
+        // Lastly try range pairs
+        SeekPredicate rangePredicate = getRangeSeekPredicate(rangePairs, tableSource, indices, true);
+        if (rangePredicate != null)
+        {
+            predicates.removeIf(p -> rangePairs.contains(((PredicatePair) p).getAnalyzePair()));
+        }
+        return rangePredicate;
+    }
+
+    /**
+     * Try to create a range seek predicate from provided range pairs. Picks the first column that has a {@link IndexType#SEEK_RANGE} index and uses all pairs for that column. Used pairs are kept in
+     * provided list and the rest is removed.
+     */
+    private static SeekPredicate getRangeSeekPredicate(List<AnalyzePair> rangePairs, TableSourceReference tableSource, List<Index> indices, boolean isPushDown)
+    {
+        for (AnalyzePair pair : rangePairs)
+        {
+            String column = pair.getColumn(tableSource);
+            if (column == null)
+            {
+                continue;
+            }
+
+            for (Index index : indices)
+            {
+                if (!canUseSingleColumnIndex(index, column, IndexType.SEEK_RANGE))
+                {
+                    continue;
+                }
+
+                rangePairs.removeIf(p -> !CI.equals(column, p.getColumn(tableSource)));
+                List<SeekPredicateItem> items = new ArrayList<>(rangePairs.size());
+                for (AnalyzePair rangePair : rangePairs)
+                {
+                    Pair<IExpression, IExpression> p = rangePair.getExpressionPair(tableSource);
+                    IComparisonExpression.Type comparisonType = rangePair.getComparisonType();
+                    // Column is on the right side, mirror the comparison to get the column on the left side
+                    // ie. 10 < a.col => a.col > 10
+                    if (p.getLeft() != rangePair.getLeftExpression())
+                    {
+                        comparisonType = switch (comparisonType)
+                        {
+                            case GREATER_THAN -> IComparisonExpression.Type.LESS_THAN;
+                            case GREATER_THAN_EQUAL -> IComparisonExpression.Type.LESS_THAN_EQUAL;
+                            case LESS_THAN -> IComparisonExpression.Type.GREATER_THAN;
+                            case LESS_THAN_EQUAL -> IComparisonExpression.Type.GREATER_THAN_EQUAL;
+                            default -> throw new IllegalArgumentException("Unsupported range comparison type: " + comparisonType);
+                        };
+                    }
+                    items.add(new SeekPredicateItem(column, p.getLeft(), List.of(p.getRight()), comparisonType));
+                }
+                return new SeekPredicate(tableSource.getId(), index, items, isPushDown);
+            }
+        }
         return null;
     }
 
-    private static boolean canUseIndexForInExpressionPushDown(Index index, String pairColumn)
+    /** Returns true if provided index can be used for seeking a single column with provided index type */
+    private static boolean canUseSingleColumnIndex(Index index, String pairColumn, IndexType indexType)
     {
-        if (!index.supports(IndexType.SEEK_EQ))
+        if (!index.supports(indexType))
         {
             return false;
         }
@@ -186,31 +247,16 @@ static Result analyze(List<TableSourceReference> innerTableSource, IExpression p
         }
 
         // No equis, then we cannot do anything else than a nested loop atm.
+        // but we might be able to use a range index for the inner
         if (equiPairs.isEmpty())
         {
-            return EMPTY;
+            SeekPredicate rangePredicate = analyzeRange(innerTableSource, analyzeResult, schemaByTableSource);
+            return rangePredicate != null ? new Result(List.of(), List.of(), rangePredicate)
+                    : EMPTY;
         }
 
         // See if there is any index present on the inner equi pairs
-        List<Index> indices = emptyList();
-        for (AnalyzePair pair : equiPairs)
-        {
-            Pair<IExpression, IExpression> expressionPair = pair.getExpressionPair(tableSource);
-            IExpression innerExpression = expressionPair.getLeft();
-            ColumnReference cr = SchemaUtils.getColumnReference(innerExpression);
-            if (cr != null)
-            {
-                TableSourceReference tableRef = cr.tableSourceReference();
-                // Pick the first table schema we find, later on we might want
-                // to optimize and try to find the best candidate
-                TableSchema tableSchema = schemaByTableSource.get(tableRef);
-                if (tableSchema != null)
-                {
-                    indices = tableSchema.getIndices();
-                    break;
-                }
-            }
-        }
+        List<Index> indices = getIndices(equiPairs, tableSource, schemaByTableSource);
 
         /*
          * @formatter:off
@@ -251,9 +297,67 @@ static Result analyze(List<TableSourceReference> innerTableSource, IExpression p
                     .toList();
             seekPredicate = new SeekPredicate(tableSource.getId(), splitResult.index, items);
         }
+        else
+        {
+            seekPredicate = analyzeRange(List.of(tableSource), analyzeResult, schemaByTableSource);
+        }
         return new Result(outerValueExpressions, innerValueExpressions, seekPredicate);
     }
 
+    /**
+     * Analyze range pairs of a join condition.
+     *
+     * <pre>
+     * Index [ts] (SEEK_RANGE)
+     * Condition a.ts &gt;= s.from_ts AND a.ts &lt; s.to_ts
+     *
+     * Result: ts &gt;= s.from_ts, ts &lt; s.to_ts
+     * </pre>
+     */
+    private static SeekPredicate analyzeRange(List<TableSourceReference> innerTableSource, AnalyzeResult analyzeResult, Map<TableSourceReference, TableSchema> schemaByTableSource)
+    {
+        for (TableSourceReference ts : innerTableSource)
+        {
+            List<AnalyzePair> rangePairs = analyzeResult.getRangePairs(ts);
+            rangePairs.removeIf(p -> p.isPushdown(ts));
+            if (rangePairs.isEmpty())
+            {
+                continue;
+            }
+
+            List<Index> indices = getIndices(rangePairs, ts, schemaByTableSource);
+            SeekPredicate seekPredicate = getRangeSeekPredicate(rangePairs, ts, indices, false);
+            if (seekPredicate != null)
+            {
+                return seekPredicate;
+            }
+        }
+        return null;
+    }
+
+    /** Return the indices of the first inner expression in provided pairs that belongs to a table with a schema */
+    private static List<Index> getIndices(List<AnalyzePair> pairs, TableSourceReference tableSource, Map<TableSourceReference, TableSchema> schemaByTableSource)
+    {
+        for (AnalyzePair pair : pairs)
+        {
+            Pair<IExpression, IExpression> expressionPair = pair.getExpressionPair(tableSource);
+            IExpression innerExpression = expressionPair.getLeft();
+            ColumnReference cr = SchemaUtils.getColumnReference(innerExpression);
+            if (cr != null)
+            {
+                TableSourceReference tableRef = cr.tableSourceReference();
+                // Pick the first table schema we find, later on we might want
+                // to optimize and try to find the best candidate
+                TableSchema tableSchema = schemaByTableSource.get(tableRef);
+                if (tableSchema != null)
+                {
+                    return tableSchema.getIndices();
+                }
+            }
+        }
+        return emptyList();
+    }
+
     /** Split provided equi pairs */
     // CSOFF
     private static SplitResult splitEquiPairs(List<AnalyzePair> equiPairs, TableSourceReference tableSource, List<Index> indices)
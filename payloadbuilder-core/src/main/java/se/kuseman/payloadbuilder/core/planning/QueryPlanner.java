@@ -64,11 +64,14 @@
 import se.kuseman.payloadbuilder.core.logicalplan.TableSource;
 import se.kuseman.payloadbuilder.core.logicalplan.optimization.ProjectionMerger;
 import se.kuseman.payloadbuilder.core.physicalplan.AnalyzeInterceptor;
+import se.kuseman.payloadbuilder.core.physicalplan.Concatenation.ExecutionMode;
+import se.kuseman.payloadbuilder.core.physicalplan.Exchange;
 import se.kuseman.payloadbuilder.core.physicalplan.ExpressionPredicate;
 import se.kuseman.payloadbuilder.core.physicalplan.HashAggregate;
 import se.kuseman.payloadbuilder.core.physicalplan.HashMatch;
 import se.kuseman.payloadbuilder.core.physicalplan.IPhysicalPlan;
 import se.kuseman.payloadbuilder.core.physicalplan.NestedLoop;
+import se.kuseman.payloadbuilder.core.physicalplan.TopN;
 import se.kuseman.payloadbuilder.core.planning.ConditionAnalyzer.Result;
 import se.kuseman.payloadbuilder.core.planning.StatementPlanner.Context;
 import se.kuseman.payloadbuilder.core.planning.StatementPlanner.TableSourcePushDown;
@@ -109,7 +112,8 @@ else if (input instanceof AnalyzeInterceptor ai
             parentTableSource = p.getParentTableSource();
         }
 
-        return wrapWithAnalyze(context, new se.kuseman.payloadbuilder.core.physicalplan.Projection(context.getNextNodeId(), input, schema, expressions, parentTableSource));
+        return wrapWithAnalyze(context,
+                new se.kuseman.payloadbuilder.core.physicalplan.Projection(context.getNextNodeId(), input, schema, expressions, parentTableSource, compileExpressions(context)));
     }
 
     @Override
@@ -157,7 +161,7 @@ public IPhysicalPlan visit(Sort plan, Context context)
             return input;
         }
 
-        return wrapWithAnalyze(context, new se.kuseman.payloadbuilder.core.physicalplan.Sort(context.getNextNodeId(), input, plan.getSortItems()));
+        return wrapWithAnalyze(context, new se.kuseman.payloadbuilder.core.physicalplan.Sort(context.getNextNodeId(), input, plan.getSortItems(), getOperatorMemoryBudget(context)));
     }
 
     @Override
@@ -196,7 +200,7 @@ public IPhysicalPlan visit(Filter plan, Context context)
             input = filter.getInput();
         }
 
-        return wrapWithAnalyze(context, new se.kuseman.payloadbuilder.core.physicalplan.Filter(context.getNextNodeId(), input, new ExpressionPredicate(predicate)));
+        return wrapWithAnalyze(context, new se.kuseman.payloadbuilder.core.physicalplan.Filter(context.getNextNodeId(), input, new ExpressionPredicate(predicate, compileExpressions(context))));
     }
 
     @Override
@@ -205,7 +209,14 @@ public IPhysicalPlan visit(Aggregate plan, Context context)
         IPhysicalPlan input = plan.getInput()
                 .accept(this, context);
 
-        return wrapWithAnalyze(context, new HashAggregate(context.getNextNodeId(), input, plan.getAggregateExpressions(), plan.getProjectionExpressions(), plan.getParentTableSource()));
+        ValueVector partitionsProperty = context.context.getSession()
+                .getSystemProperty(QuerySession.HASH_AGGREGATE_PARTITIONS);
+        int partitions = partitionsProperty.isNull(0) ? 1
+                : partitionsProperty.getInt(0);
+
+        return wrapWithAnalyze(context,
+                new HashAggregate(context.getNextNodeId(), input, plan.getAggregateExpressions(), plan.getProjectionExpressions(), plan.getParentTableSource(), partitions,
+                        getOperatorMemoryBudget(context)));
     }
 
     @Override
@@ -302,9 +313,21 @@ public IPhysicalPlan visit(TableScan plan, Context context)
 
         context.topTableScanVisited = true;
 
+        // Prefetch statistics of index seek needs a node id of it's own since the datasource owns the node data of nodeId
+        int prefetchNodeId = -1;
+        if (seekPredicate != null
+                && plan.getOptions()
+                        .stream()
+                        .anyMatch(o -> o.getOption()
+                                .equalsIgnoreCase(se.kuseman.payloadbuilder.core.physicalplan.IndexSeek.PREFETCH_BATCHES)))
+        {
+            prefetchNodeId = context.getNextNodeId();
+        }
+
         return wrapWithAnalyze(context,
                 seekPredicate != null
-                        ? new se.kuseman.payloadbuilder.core.physicalplan.IndexSeek(nodeId, plan.getSchema(), plan.getTableSource(), catalog.getName(), seekPredicate, dataSource, plan.getOptions())
+                        ? new se.kuseman.payloadbuilder.core.physicalplan.IndexSeek(nodeId, plan.getSchema(), plan.getTableSource(), catalog.getName(), seekPredicate, dataSource, plan.getOptions(),
+                                prefetchNodeId)
                         : new se.kuseman.payloadbuilder.core.physicalplan.TableScan(nodeId, plan.getSchema(), plan.getTableSource(), catalog.getName(), dataSource, plan.getOptions()));
     }
 
@@ -482,7 +505,7 @@ public IPhysicalPlan visit(Join plan, Context context)
         IPhysicalPlan inner = plan.getInner()
                 .accept(this, context);
 
-        ExpressionPredicate predicate = plan.getCondition() != null ? new ExpressionPredicate(condition)
+        ExpressionPredicate predicate = plan.getCondition() != null ? new ExpressionPredicate(condition, compileExpressions(context))
                 : null;
 
         ValueVector forceNestedLoopProperty = context.context.getSession()
@@ -497,8 +520,20 @@ public IPhysicalPlan visit(Join plan, Context context)
                 && !forceNestedLoop
                 && !context.joinPreserveOuterOrder)
         {
+            ValueVector partitionsProperty = context.context.getSession()
+                    .getSystemProperty(QuerySession.HASH_MATCH_PARTITIONS);
+            int partitions = partitionsProperty.isNull(0) ? 1
+                    : partitionsProperty.getInt(0);
+
+            outer = wrapWithExchange(context, outer);
+            // Inner is executed once per outer batch when pushing outer reference so run that one in place
+            if (seekPredicate == null)
+            {
+                inner = wrapWithExchange(context, inner);
+            }
+
             join = new HashMatch(context.getNextNodeId(), outer, inner, outerEquiExpressions, innerEquiExpressions, predicate, plan.getPopulateAlias(), plan.getType() == Type.LEFT,
-                    seekPredicate != null);
+                    seekPredicate != null, partitions, getOperatorMemoryBudget(context));
         }
         else
         {
@@ -586,6 +621,20 @@ public IPhysicalPlan visit(Limit plan, Context context)
     {
         IPhysicalPlan input = plan.getInput()
                 .accept(this, context);
+
+        // A constant limit directly above a sort is fused into a top n that only retains the limited rows
+        if (plan.getInput() instanceof Sort
+                && plan.getLimitExpression()
+                        .isConstant())
+        {
+            IPhysicalPlan sortPlan = input instanceof AnalyzeInterceptor analyzeInterceptor ? analyzeInterceptor.getInput()
+                    : input;
+            if (sortPlan instanceof se.kuseman.payloadbuilder.core.physicalplan.Sort sort)
+            {
+                return wrapWithAnalyze(context, new TopN(sort.getNodeId(), sort.getInput(), sort.getSortItems(), plan.getLimitExpression()));
+            }
+        }
+
         return wrapWithAnalyze(context, new se.kuseman.payloadbuilder.core.physicalplan.Limit(context.getNextNodeId(), input, plan.getLimitExpression()));
     }
 
@@ -600,11 +649,29 @@ public IPhysicalPlan visit(MaxRowCountAssert plan, Context context)
     @Override
     public IPhysicalPlan visit(Concatenation plan, Context context)
     {
+        ValueVector concurrentProperty = context.context.getSession()
+                .getSystemProperty(QuerySession.CONCURRENT_CONCATENATION);
+        if (concurrentProperty.isNull(0)
+                || !concurrentProperty.getBoolean(0))
+        {
+            List<IPhysicalPlan> inputs = plan.getChildren()
+                    .stream()
+                    .map(c -> wrapWithExchange(context, c.accept(this, context)))
+                    .collect(toList());
+            return new se.kuseman.payloadbuilder.core.physicalplan.Concatenation(context.getNextNodeId(), plan.getSchema(), inputs);
+        }
+
+        // Inputs are executed on the sessions executor by the concatenation itself so no exchanges are needed
         List<IPhysicalPlan> inputs = plan.getChildren()
                 .stream()
                 .map(c -> c.accept(this, context))
                 .collect(toList());
-        return new se.kuseman.payloadbuilder.core.physicalplan.Concatenation(context.getNextNodeId(), plan.getSchema(), inputs);
+        ValueVector arrivalOrderProperty = context.context.getSession()
+                .getSystemProperty(QuerySession.CONCURRENT_CONCATENATION_ARRIVAL_ORDER);
+        ExecutionMode executionMode = !arrivalOrderProperty.isNull(0)
+                && arrivalOrderProperty.getBoolean(0) ? ExecutionMode.CONCURRENT_ARRIVAL_ORDER
+                        : ExecutionMode.CONCURRENT_INPUT_ORDER;
+        return new se.kuseman.payloadbuilder.core.physicalplan.Concatenation(context.getNextNodeId(), plan.getSchema(), inputs, executionMode);
     }
 
     private IPhysicalPlan createNestedLoop(Join plan, int nodeId, IPhysicalPlan outer, IPhysicalPlan inner, BiFunction<TupleVector, IExecutionContext, ValueVector> condition,
@@ -683,6 +750,44 @@ private TableSource getTopTableSource(ILogicalPlan plan, boolean skipSubQuery)
         return null;
     }
 
+    /** Return the memory budget in bytes for operators that can spill to disk. Returns 0 if unbounded */
+    private long getOperatorMemoryBudget(Context context)
+    {
+        ValueVector budgetProperty = context.context.getSession()
+                .getSystemProperty(QuerySession.OPERATOR_MEMORY_BUDGET);
+        return budgetProperty.isNull(0) ? 0
+                : Math.max(0, budgetProperty.getLong(0));
+    }
+
+    /** Return true if expressions should be compiled */
+    private boolean compileExpressions(Context context)
+    {
+        ValueVector compileProperty = context.context.getSession()
+                .getSystemProperty(QuerySession.COMPILE_EXPRESSIONS);
+        return !compileProperty.isNull(0)
+                && compileProperty.getBoolean(0);
+    }
+
+    /** Wrap provided plan in an exchange if parallel exchanges are enabled. Constant scans are never wrapped since there is nothing to gain */
+    private IPhysicalPlan wrapWithExchange(Context context, IPhysicalPlan plan)
+    {
+        ValueVector exchangeProperty = context.context.getSession()
+                .getSystemProperty(QuerySession.PARALLEL_EXCHANGE);
+        if (exchangeProperty.isNull(0)
+                || !exchangeProperty.getBoolean(0))
+        {
+            return plan;
+        }
+
+        IPhysicalPlan actualPlan = plan instanceof AnalyzeInterceptor analyzeInterceptor ? analyzeInterceptor.getInput()
+                : plan;
+        if (actualPlan instanceof se.kuseman.payloadbuilder.core.physicalplan.ConstantScan)
+        {
+            return plan;
+        }
+        return wrapWithAnalyze(context, new Exchange(context.getNextNodeId(), plan));
+    }
+
     static IPhysicalPlan wrapWithAnalyze(Context context, IPhysicalPlan plan)
     {
         if (context.analyze)
@@ -17,6 +17,7 @@
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
 import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.execution.StatementContext;
 import se.kuseman.payloadbuilder.core.execution.VectorUtils;
@@ -24,7 +25,7 @@
 import it.unimi.dsi.fastutil.ints.IntHash.Strategy;
 import it.unimi.dsi.fastutil.ints.IntLinkedOpenCustomHashSet;
 
-/** Index predicate used on {@link IndexType#SEEK_EQ} index types when creating index operators from catalogs */
+/** Index predicate used on {@link IndexType#SEEK_EQ} and {@link IndexType#SEEK_RANGE} index types when creating index operators from catalogs */
 class SeekPredicate implements ISeekPredicate
 {
     /** Table source reference id that this predicate belongs to. */
@@ -34,6 +35,7 @@ class SeekPredicate implements ISeekPredicate
     /** Columns used in index */
     private final List<String> indexColumns;
     private final List<SeekPredicateItem> predicateItems;
+    private final boolean isRangeSeek;
 
     /**
      * If this seek predicate is used as a push down predicate then this flag is set. ie. 'where a.col in (1,2,3)' and there is an index on 'col'
@@ -60,6 +62,8 @@ class SeekPredicate implements ISeekPredicate
         this.indexColumns = predicateItems.stream()
                 .map(i -> i.column)
                 .toList();
+        this.isRangeSeek = predicateItems.stream()
+                .anyMatch(i -> i.comparisonType != IComparisonExpression.Type.EQUAL);
     }
 
     @Override
@@ -74,6 +78,12 @@ public List<String> getIndexColumns()
         return indexColumns;
     }
 
+    @Override
+    public boolean isRangeSeek()
+    {
+        return isRangeSeek;
+    }
+
     @Override
     public List<ISeekKey> getSeekKeys(IExecutionContext context)
     {
@@ -118,15 +128,7 @@ private List<ISeekKey> getSeekKeysInternal(IExecutionContext context)
         List<ISeekKey> seekKeys = new ArrayList<>(size);
         for (int i = 0; i < size; i++)
         {
-            ValueVector keyVector = SelectedValueVector.select(vectors[i], selection);
-            seekKeys.add(new ISeekKey()
-            {
-                @Override
-                public ValueVector getValue()
-                {
-                    return keyVector;
-                }
-            });
+            seekKeys.add(new SeekKey(SelectedValueVector.select(vectors[i], selection), predicateItems.get(i).comparisonType));
         }
         return seekKeys;
     }
@@ -181,6 +183,8 @@ private List<ISeekKey> getPushDownSeekKeys(IExecutionContext context)
          * single column multi expressions => single seek key multi value a.col in (10,20,30)
          *
          * multi column single expression => multi seek key one value [a.col = 10 and a.col2 = 20]
+         *
+         * range single column multi expressions => multi seek key one value [a.col >= 10 and a.col < 20]
          */
 
         for (int i = 0; i < itemCount; i++)
@@ -188,16 +192,8 @@ private List<ISeekKey> getPushDownSeekKeys(IExecutionContext context)
             SeekPredicateItem item = predicateItems.get(i);
             if (item.valueExpressions.size() == 1)
             {
-                ValueVector vector = item.valueExpressions.get(0)
-                        .eval(context);
-                seekKeys.add(new ISeekKey()
-                {
-                    @Override
-                    public ValueVector getValue()
-                    {
-                        return vector;
-                    }
-                });
+                seekKeys.add(new SeekKey(item.valueExpressions.get(0)
+                        .eval(context), item.comparisonType));
             }
             else
             {
@@ -224,16 +220,7 @@ public ValueVector getValue()
                             .eval(context);
                     resultVector.copy(j, vector, 0);
                 }
-                seekKeys.add(new ISeekKey()
-                {
-
-                    @Override
-                    public ValueVector getValue()
-                    {
-                        return resultVector;
-                    }
-
-                });
+                seekKeys.add(new SeekKey(resultVector, item.comparisonType));
             }
         }
         return seekKeys;
@@ -270,7 +257,7 @@ else if (obj instanceof SeekPredicate that)
     public String toString()
     {
         return IntStream.range(0, predicateItems.size())
-                .mapToObj(i -> predicateItems.get(i).column + " = " + predicateItems.get(i).valueExpressions)
+                .mapToObj(i -> predicateItems.get(i).column + " " + predicateItems.get(i).comparisonType + " " + predicateItems.get(i).valueExpressions)
                 .collect(joining(", "));
     }
 
@@ -293,9 +280,34 @@ public String toString()
      *     where a.indexCol in (10,20,30)
      *
      *     Item: column = 'indexCol', columnExpression = a.indexCol, valueExpressions = [ 10,20,30 ]
+     *
+     *   - Range
+     *     where a.indexCol &gt;= 10
+     *
+     *     Item: column = 'indexCol', columnExpression = a.indexCol, valueExpressions = [ 10 ], comparisonType = GREATER_THAN_EQUAL
      * </pre>
      */
-    record SeekPredicateItem(String column, IExpression columnExpression, List<IExpression> valueExpressions)
+    record SeekPredicateItem(String column, IExpression columnExpression, List<IExpression> valueExpressions, IComparisonExpression.Type comparisonType)
+    {
+        SeekPredicateItem(String column, IExpression columnExpression, List<IExpression> valueExpressions)
+        {
+            this(column, columnExpression, valueExpressions, IComparisonExpression.Type.EQUAL);
+        }
+    }
+
+    /** Seek key with values and comparison type */
+    private record SeekKey(ValueVector vector, IComparisonExpression.Type comparisonType) implements ISeekKey
     {
+        @Override
+        public ValueVector getValue()
+        {
+            return vector;
+        }
+
+        @Override
+        public IComparisonExpression.Type getComparisonType()
+        {
+            return comparisonType;
+        }
     }
 }
@@ -0,0 +1,252 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.core.cache.AInMemoryCache.CacheImpl;
+
+/** Test of {@link DiskGenericCache} */
+class DiskGenericCacheTest
+{
+    private static final QualifiedName NAME = QualifiedName.of("cache");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_restart() throws IOException
+    {
+        AtomicInteger loads = new AtomicInteger();
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals("value", cache.computIfAbsent(NAME, "key", Duration.ofMinutes(10), () -> load(loads, "value")));
+            assertEquals(asList(1, 2), cache.computIfAbsent(NAME, QualifiedName.of("a", "b"), null, () -> load(loads, asList(1, 2))));
+            assertEquals("other", cache.computIfAbsent(QualifiedName.of("other"), 10, Duration.ofMinutes(10), () -> load(loads, "other")));
+            assertEquals(3, loads.get());
+        }
+
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals("value", cache.computIfAbsent(NAME, "key", Duration.ofMinutes(10), () -> load(loads, "new")));
+            assertEquals(asList(1, 2), cache.computIfAbsent(NAME, QualifiedName.of("a", "b"), null, () -> load(loads, "new")));
+            assertEquals("other", cache.computIfAbsent(QualifiedName.of("other"), 10, Duration.ofMinutes(10), () -> load(loads, "new")));
+            assertEquals(3, loads.get());
+            assertEquals(2, cache.getCache(NAME)
+                    .getCacheHits());
+
+            // Expire time is restored
+            Cache.CacheEntry entry = cache.getCache(NAME)
+                    .getCacheEntries()
+                    .stream()
+                    .filter(e -> "key".equals(e.getKey()))
+                    .findAny()
+                    .get();
+            assertNotNull(entry.getExpireTime());
+        }
+    }
+
+    @Test
+    void test_expired_and_flushed_entries_are_not_loaded() throws IOException, InterruptedException
+    {
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            cache.computIfAbsent(NAME, "expired", Duration.ofMillis(1), () -> "value");
+            cache.computIfAbsent(NAME, "flushed", null, () -> "value");
+            cache.computIfAbsent(NAME, "removed", null, () -> "value");
+            cache.computIfAbsent(NAME, "kept", null, () -> "value");
+            cache.getCache(NAME)
+                    .flush("flushed");
+            cache.remove(QualifiedName.of("missing"));
+            CacheImpl<Object> impl = cache.getCacheOrCreate(NAME);
+            impl.flush("removed");
+            Thread.sleep(10);
+        }
+
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals(List.of("kept"), keys(cache));
+        }
+    }
+
+    @Test
+    void test_non_serializable_values_are_kept_in_memory() throws IOException
+    {
+        Object value = new Object();
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            cache.computIfAbsent(NAME, "key", null, () -> "value");
+            // Replace the persisted value with a non serializable one
+            cache.getCacheOrCreate(NAME)
+                    .put("key", value, null);
+            assertEquals(value, cache.computIfAbsent(NAME, "key", null, () -> "other"));
+            cache.computIfAbsent(NAME, new Object(), null, () -> "value");
+        }
+
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals(List.of(), keys(cache));
+        }
+    }
+
+    @Test
+    void test_only_allowed_classes_are_loaded() throws IOException
+    {
+        URI uri = URI.create("http://localhost");
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            cache.computIfAbsent(NAME, "uri", null, () -> uri);
+            cache.computIfAbsent(NAME, "string", null, () -> "value");
+        }
+
+        // java.net is not allowed by default
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals(List.of("string"), keys(cache));
+            cache.computIfAbsent(NAME, "uri", null, () -> uri);
+        }
+
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory, false, false, "java.net.URI"))
+        {
+            assertEquals(uri, cache.computIfAbsent(NAME, "uri", null, () -> URI.create("http://other")));
+            assertEquals("value", cache.computIfAbsent(NAME, "string", null, () -> "new"));
+        }
+    }
+
+    @Test
+    void test_compaction() throws IOException
+    {
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            cache.setCompactMinSize(0);
+            CacheImpl<Object> impl = cache.getCacheOrCreate(NAME);
+            impl.put("other", "value", null);
+            long size = cache.getLogSize();
+            for (int i = 0; i < 100; i++)
+            {
+                impl.put("key", "value" + i, null);
+            }
+            // Log only contains the live records and at most as many stale
+            assertTrue(cache.getLogSize() < size * 4, "Log should be compacted, size: " + cache.getLogSize());
+        }
+
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals("value99", cache.computIfAbsent(NAME, "key", null, () -> "new"));
+            assertEquals("value", cache.computIfAbsent(NAME, "other", null, () -> "new"));
+        }
+    }
+
+    @Test
+    void test_corrupt_tail_is_truncated() throws IOException
+    {
+        long size;
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            cache.computIfAbsent(NAME, "key", null, () -> "value");
+            size = cache.getLogSize();
+        }
+
+        Path file = directory.resolve(DiskGenericCache.FILE_NAME);
+        Files.write(file, new byte[] { 0, 0, 0, 100, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals(size, cache.getLogSize());
+            assertEquals(size, Files.size(file));
+            assertEquals("value", cache.computIfAbsent(NAME, "key", null, () -> "new"));
+        }
+    }
+
+    @Test
+    void test_invalid_log_is_discarded() throws IOException
+    {
+        Files.write(directory.resolve(DiskGenericCache.FILE_NAME), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals(List.of(), cache.getCaches());
+            assertEquals("value", cache.computIfAbsent(NAME, "key", null, () -> "value"));
+        }
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals(List.of("key"), keys(cache));
+        }
+    }
+
+    @Test
+    void test_load_statistics() throws IOException
+    {
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            cache.computIfAbsent(NAME, "key", null, () ->
+            {
+                sleep(20);
+                return "value";
+            });
+            cache.computIfAbsent(NAME, "key", null, () -> "value");
+
+            Cache c = cache.getCache(NAME);
+            assertEquals(1, c.getLoadCount());
+            assertTrue(c.getTotalLoadTime() >= 20, "Load time: " + c.getTotalLoadTime());
+            assertTrue(c.getAverageLoadTime() >= 20, "Average load time: " + c.getAverageLoadTime());
+            assertTrue(c.getCacheEntries()
+                    .get(0)
+                    .getLoadTime() >= 20);
+            assertEquals(0.5f, c.getCacheHitRatio());
+        }
+        // Replayed entries are not loads
+        try (DiskGenericCache cache = new DiskGenericCache("cache", directory))
+        {
+            assertEquals(0, cache.getCache(NAME)
+                    .getLoadCount());
+            assertNull(cache.getCache(QualifiedName.of("missing")));
+        }
+    }
+
+    private static List<Object> keys(DiskGenericCache cache)
+    {
+        Cache c = cache.getCache(NAME);
+        if (c == null)
+        {
+            return List.of();
+        }
+        return c.getCacheEntries()
+                .stream()
+                .map(Cache.CacheEntry::getKey)
+                .toList();
+    }
+
+    private static <T> T load(AtomicInteger loads, T value)
+    {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+}
@@ -2,11 +2,18 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
@@ -144,4 +151,80 @@ else if (call == 1)
         assertEquals(0, cacheImpl.getCacheMisses());
         assertEquals(2, cacheImpl.getCacheStaleHits());
     }
+
+    @Test
+    void test_concurrent_load_is_coalesced() throws Exception
+    {
+        InMemoryGenericCache cache = new InMemoryGenericCache("cache");
+        CacheImpl<Object> cacheImpl = cache.getCacheOrCreate(QualifiedName.of("cache"));
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<Object> supplier = () ->
+        {
+            calls.incrementAndGet();
+            loading.countDown();
+            try
+            {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread()
+                        .interrupt();
+            }
+            return "value";
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<Object> first = executor.submit(() -> cacheImpl.computeIfAbsent(0, null, supplier));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            Future<Object> second = executor.submit(() -> cacheImpl.computeIfAbsent(0, null, supplier));
+
+            // Key in the same map bin as the loading key is not blocked by the load
+            assertEquals("other", cacheImpl.computeIfAbsent(16, null, () -> "other"));
+
+            release.countDown();
+            assertEquals("value", first.get(10, TimeUnit.SECONDS));
+            assertEquals("value", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+            assertEquals(2, cacheImpl.getCacheMisses());
+            assertEquals(1, cacheImpl.getCacheHits());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void test_failed_load_is_retried()
+    {
+        InMemoryGenericCache cache = new InMemoryGenericCache("cache");
+        CacheImpl<Object> cacheImpl = cache.getCacheOrCreate(QualifiedName.of("cache"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> cacheImpl.computeIfAbsent("key", null, () ->
+        {
+            throw new IllegalArgumentException("fail");
+        }));
+        assertEquals("fail", e.getMessage());
+        assertEquals(0, cacheImpl.getSize());
+
+        assertEquals("value", cacheImpl.computeIfAbsent("key", null, () -> "value"));
+        assertEquals(1, cacheImpl.getSize());
+    }
+
+    @Test
+    void test_limits_validation()
+    {
+        InMemoryGenericCache cache = new InMemoryGenericCache("cache");
+        cache.setCacheLimits(CacheLimits.ofEntries(10));
+        assertThrows(IllegalArgumentException.class, () -> cache.setCacheLimits(CacheLimits.ofBytes(100)));
+        assertThrows(IllegalArgumentException.class, () -> cache.setProviderLimits(new CacheLimits(10, 100)));
+        assertEquals(CacheLimits.ofEntries(10), cache.getCacheLimits());
+        assertEquals(CacheLimits.UNBOUNDED, cache.getProviderLimits());
+    }
 }
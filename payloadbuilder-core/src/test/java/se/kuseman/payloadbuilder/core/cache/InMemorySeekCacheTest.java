@@ -0,0 +1,78 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+
+/** Test of {@link InMemorySeekCache} */
+class InMemorySeekCacheTest
+{
+    private static final QualifiedName NAME = QualifiedName.of("table", "col");
+    private static final Schema SCHEMA = Schema.of(Column.of("col", Type.Int));
+
+    @Test
+    void test() throws InterruptedException
+    {
+        InMemorySeekCache cache = new InMemorySeekCache();
+        TupleVector rows = TupleVector.of(SCHEMA, vv(Type.Int, 1, 1));
+
+        assertNull(cache.get(NAME, 1L));
+        cache.put(NAME, 1L, rows, Duration.ofMillis(50));
+        cache.put(NAME, 2L, TupleVector.EMPTY, null);
+        assertSame(rows, cache.get(NAME, 1L));
+        assertSame(TupleVector.EMPTY, cache.get(NAME, 2L));
+
+        Cache c = cache.getCache(NAME);
+        assertEquals(2, c.getSize());
+        assertEquals(2, c.getCacheHits());
+        assertEquals(1, c.getCacheMisses());
+        assertEquals(CacheType.SEEK, CacheType.from(cache));
+
+        Thread.sleep(60);
+        // Expired
+        assertNull(cache.get(NAME, 1L));
+        assertSame(TupleVector.EMPTY, cache.get(NAME, 2L));
+    }
+
+    @Test
+    void test_eviction_of_least_recently_used() throws InterruptedException
+    {
+        TupleVector rows = TupleVector.of(SCHEMA, vv(Type.Int, 1, 2, 3));
+        long size = VectorUtils.estimateSize(rows);
+        InMemorySeekCache cache = new InMemorySeekCache(false, size * 3);
+
+        cache.put(NAME, 1L, rows, null);
+        cache.put(NAME, 2L, rows, null);
+        cache.put(NAME, 3L, rows, null);
+        Thread.sleep(1);
+        // Access first to make second the least recently used
+        assertNotNull(cache.get(NAME, 1L));
+        Thread.sleep(1);
+        assertNotNull(cache.get(NAME, 3L));
+
+        cache.put(NAME, 4L, rows, null);
+
+        // Evicted down to 90% of max
+        assertEquals(2, cache.getCache(NAME)
+                .getSize());
+        assertNull(cache.get(NAME, 2L));
+        assertNotNull(cache.get(NAME, 4L));
+
+        cache.getCache(NAME)
+                .flush();
+        assertEquals(0, cache.getCacheOrCreate(NAME).weight.get());
+    }
+}
@@ -1,23 +1,35 @@
 package se.kuseman.payloadbuilder.core.cache;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.junit.jupiter.api.Test;
 
 import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.core.cache.AInMemoryCache.CacheImpl;
 import se.kuseman.payloadbuilder.core.execution.TemporaryTable;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
 
 /** Test of {@link InMemoryTempTableCache} */
 class InMemoryTempTableCacheTest
 {
+    private static final Schema SCHEMA = Schema.of(Column.of("col", Type.Int));
+
     @Test
     void test_reload() throws InterruptedException
     {
@@ -73,7 +85,7 @@ else if (call == 2)
         assertEquals(1, cacheImpl.getCacheStaleHits());
 
         // Let background reload complete
-        Thread.sleep(10);
+        awaitReload(cacheImpl, QualifiedName.of("table"));
 
         // Fresh value now available
         table = cacheImpl.computeIfAbsent(QualifiedName.of("table"), Duration.ofMillis(100), supplier);
@@ -92,7 +104,7 @@ else if (call == 2)
         assertEquals(2, cacheImpl.getCacheStaleHits());
 
         // Let background reload attempt complete (it fails, second is kept)
-        Thread.sleep(10);
+        awaitReload(cacheImpl, QualifiedName.of("table"));
 
         table = cacheImpl.computeIfAbsent(QualifiedName.of("table"), Duration.ofMillis(100), supplier);
         assertSame(second, table.getTupleVector());
@@ -110,7 +122,7 @@ else if (call == 2)
         assertEquals(4, cacheImpl.getCacheStaleHits());
 
         // Let background reload complete
-        Thread.sleep(10);
+        awaitReload(cacheImpl, QualifiedName.of("table"));
 
         table = cacheImpl.computeIfAbsent(QualifiedName.of("table"), Duration.ofMillis(100), supplier);
         assertSame(third, table.getTupleVector());
@@ -118,4 +130,127 @@ else if (call == 2)
         assertEquals(1, cacheImpl.getCacheMisses());
         assertEquals(4, cacheImpl.getCacheStaleHits());
     }
+
+    @Test
+    void test_cache_limits()
+    {
+        InMemoryTempTableCache cache = new InMemoryTempTableCache();
+        cache.setCacheLimits(CacheLimits.ofEntries(4));
+        CacheImpl<TemporaryTable> cacheImpl = cache.getCacheOrCreate(QualifiedName.of("table"));
+
+        for (int i = 0; i < 4; i++)
+        {
+            cacheImpl.computeIfAbsent(i, null, () -> table(1));
+        }
+        // Access first to make second the least recently used
+        cacheImpl.computeIfAbsent(0, null, () -> table(1));
+        assertEquals(0, cacheImpl.getEvictionCount());
+
+        // Evicted down to 90% of max
+        cacheImpl.computeIfAbsent(4, null, () -> table(1));
+        assertEquals(3, cacheImpl.getSize());
+        assertEquals(2, cacheImpl.getEvictionCount());
+        assertEquals(asList(0, 3, 4), keys(cacheImpl));
+
+        // Estimated size
+        long size = VectorUtils.estimateSize(table(10).getTupleVector());
+        assertEquals(3 * VectorUtils.estimateSize(table(1).getTupleVector()), cacheImpl.getEstimatedSize());
+        cacheImpl.flush();
+        assertEquals(0, cacheImpl.getEstimatedSize());
+
+        cache.setCacheLimits(CacheLimits.ofBytes(size * 2));
+        cacheImpl.computeIfAbsent(0, null, () -> table(10));
+        cacheImpl.computeIfAbsent(1, null, () -> table(10));
+        assertEquals(2, cacheImpl.getSize());
+        assertEquals(2 * size, cacheImpl.getEstimatedSize());
+        cacheImpl.computeIfAbsent(2, null, () -> table(10));
+        assertEquals(asList(2), keys(cacheImpl));
+        assertEquals(size, cacheImpl.getEstimatedSize());
+        assertEquals(4, cacheImpl.getEvictionCount());
+    }
+
+    @Test
+    void test_provider_limits()
+    {
+        InMemoryTempTableCache cache = new InMemoryTempTableCache();
+        cache.setProviderLimits(CacheLimits.ofEntries(3));
+        CacheImpl<TemporaryTable> first = cache.getCacheOrCreate(QualifiedName.of("first"));
+        CacheImpl<TemporaryTable> second = cache.getCacheOrCreate(QualifiedName.of("second"));
+
+        first.computeIfAbsent(0, null, () -> table(1));
+        second.computeIfAbsent(0, null, () -> table(1));
+        first.computeIfAbsent(1, null, () -> table(1));
+        first.computeIfAbsent(0, null, () -> table(1));
+        assertEquals(0, first.getEvictionCount() + second.getEvictionCount());
+
+        // Least recently used among all caches are evicted
+        second.computeIfAbsent(1, null, () -> table(1));
+        assertEquals(asList(0), keys(first));
+        assertEquals(asList(1), keys(second));
+        assertEquals(1, first.getEvictionCount());
+        assertEquals(1, second.getEvictionCount());
+    }
+
+    @Test
+    void test_sweep() throws InterruptedException
+    {
+        InMemoryTempTableCache cache = new InMemoryTempTableCache();
+        CacheImpl<TemporaryTable> cacheImpl = cache.getCacheOrCreate(QualifiedName.of("table"));
+        cacheImpl.computeIfAbsent(0, Duration.ofMillis(20), () -> table(1));
+        cacheImpl.computeIfAbsent(1, null, () -> table(1));
+
+        assertEquals(0, cache.sweep());
+        Thread.sleep(30);
+        assertEquals(1, cache.sweep());
+        assertEquals(asList(1), keys(cacheImpl));
+        assertEquals(1, cacheImpl.getEvictionCount());
+        assertEquals(VectorUtils.estimateSize(table(1).getTupleVector()), cacheImpl.getEstimatedSize());
+
+        // Background sweep
+        cacheImpl.computeIfAbsent(2, Duration.ofMillis(20), () -> table(1));
+        cache.setSweepInterval(Duration.ofMillis(10));
+        try
+        {
+            for (int i = 0; i < 100
+                    && cacheImpl.getSize() > 1; i++)
+            {
+                Thread.sleep(10);
+            }
+            assertEquals(asList(1), keys(cacheImpl));
+        }
+        finally
+        {
+            cache.setSweepInterval(null);
+        }
+    }
+
+    /** Wait for background reload of provided key to complete */
+    private static void awaitReload(CacheImpl<TemporaryTable> cache, Object key) throws InterruptedException
+    {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (cache.elements.get(key).reloading)
+        {
+            if (System.currentTimeMillis() > timeout)
+            {
+                throw new AssertionError("Reload of " + key + " did not complete");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static TemporaryTable table(int rowCount)
+    {
+        Integer[] values = new Integer[rowCount];
+        Arrays.fill(values, 1);
+        return new TemporaryTable(TupleVector.of(SCHEMA, vv(Type.Int, (Object[]) values)), emptyList());
+    }
+
+    private static List<Object> keys(CacheImpl<TemporaryTable> cache)
+    {
+        return cache.getCacheEntries()
+                .stream()
+                .map(Cache.CacheEntry::getKey)
+                .sorted(Comparator.comparingInt(k -> (int) k))
+                .toList();
+    }
 }
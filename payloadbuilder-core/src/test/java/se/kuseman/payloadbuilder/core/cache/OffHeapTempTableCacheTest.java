@@ -0,0 +1,155 @@
+package se.kuseman.payloadbuilder.core.cache;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertTupleVectorsEquals;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.Index;
+import se.kuseman.payloadbuilder.api.catalog.Index.ColumnsType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.ISeekPredicate;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.cache.OffHeapTempTableCache.OffHeapTable;
+import se.kuseman.payloadbuilder.core.execution.TemporaryTable;
+import se.kuseman.payloadbuilder.core.physicalplan.APhysicalPlanTest;
+
+/** Test of {@link OffHeapTempTableCache} */
+class OffHeapTempTableCacheTest extends APhysicalPlanTest
+{
+    private static final QualifiedName NAME = QualifiedName.of("temp");
+    private static final Index INDEX = new Index(NAME, asList("col1"), ColumnsType.ALL);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_direct_buffer()
+    {
+        OffHeapTempTableCache cache = new OffHeapTempTableCache();
+        TemporaryTable table = table();
+
+        TemporaryTable actual = cache.computIfAbsent(NAME, null, () -> table);
+        assertInstanceOf(OffHeapTable.class, actual);
+        assertTupleVectorsEquals(table.getTupleVector(), actual.getTupleVector());
+        assertEquals(asList(INDEX), actual.getIndices());
+        assertSeek(actual);
+
+        // Cached
+        assertSame(actual, cache.computIfAbsent(NAME, null, () -> table()));
+        assertTrue(cache.getCache(NAME)
+                .getEstimatedSize() > 0);
+    }
+
+    @Test
+    void test_directory() throws IOException
+    {
+        OffHeapTempTableCache cache = new OffHeapTempTableCache(directory);
+        TemporaryTable table = table();
+
+        TemporaryTable actual = cache.computIfAbsent(NAME, Duration.ofMinutes(10), () -> table);
+        assertInstanceOf(OffHeapTable.class, actual);
+        assertTupleVectorsEquals(table.getTupleVector(), actual.getTupleVector());
+        assertSeek(actual);
+        assertEquals(1, files().size());
+
+        // A new cache on the same directory loads the stored table
+        OffHeapTempTableCache other = new OffHeapTempTableCache(directory);
+        TemporaryTable loaded = other.computIfAbsent(NAME, Duration.ofMinutes(10), () -> table());
+        assertNotSame(actual, loaded);
+        assertTupleVectorsEquals(table.getTupleVector(), loaded.getTupleVector());
+        assertEquals(asList(INDEX), loaded.getIndices());
+        assertSeek(loaded);
+        assertEquals(1, other.getCache(NAME)
+                .getCacheHits());
+
+        // Flush removes the file
+        other.getCache(NAME)
+                .flush();
+        assertEquals(emptyList(), files());
+    }
+
+    @Test
+    void test_directory_skips_expired_and_corrupt_files() throws IOException, InterruptedException
+    {
+        OffHeapTempTableCache cache = new OffHeapTempTableCache(directory);
+        cache.computIfAbsent(NAME, Duration.ofMillis(1), () -> table());
+        Files.write(directory.resolve("corrupt" + OffHeapTempTableCache.FILE_SUFFIX), new byte[] { 1, 2, 3 });
+        assertEquals(2, files().size());
+
+        Thread.sleep(10);
+
+        OffHeapTempTableCache other = new OffHeapTempTableCache(directory);
+        assertEquals(emptyList(), other.getCaches());
+        assertEquals(emptyList(), files());
+    }
+
+    @Test
+    void test_unsupported_table_is_kept_on_heap()
+    {
+        OffHeapTempTableCache cache = new OffHeapTempTableCache(directory);
+        TemporaryTable table = new TemporaryTable(TupleVector.of(Schema.of(Column.of("col1", Type.Any)), asList(vv(Type.Any, 1, "two"))), emptyList());
+
+        TemporaryTable actual = cache.computIfAbsent(NAME, null, () -> table);
+        assertSame(table, actual);
+        assertFalse(actual instanceof OffHeapTable);
+    }
+
+    private void assertSeek(TemporaryTable table)
+    {
+        ISeekPredicate predicate = mock(ISeekPredicate.class);
+        ISeekPredicate.ISeekKey seekKey = mock(ISeekPredicate.ISeekKey.class);
+        when(seekKey.getValue()).thenReturn(vv(Type.Int, 2, 4));
+        when(predicate.getIndex()).thenReturn(INDEX);
+        when(predicate.getSeekKeys(any())).thenReturn(asList(seekKey));
+
+        TupleIterator iterator = table.getIndexIterator(context, predicate);
+        assertTrue(iterator.hasNext());
+        //@formatter:off
+        assertTupleVectorsEquals(TupleVector.of(Schema.of(Column.of("col1", Type.Int), Column.of("col2", Type.String)), asList(
+                vv(Type.Int, 2, 2),
+                vv(Type.String, "two", "eight"))), iterator.next());
+        //@formatter:on
+        assertFalse(iterator.hasNext());
+    }
+
+    private List<Path> files() throws IOException
+    {
+        try (Stream<Path> stream = Files.list(directory))
+        {
+            return stream.toList();
+        }
+    }
+
+    private static TemporaryTable table()
+    {
+        //@formatter:off
+        return new TemporaryTable(TupleVector.of(Schema.of(Column.of("col1", Type.Int), Column.of("col2", Type.String)), asList(
+                vv(Type.Int, 1, 2, 3, 2),
+                vv(Type.String, "one", "two", "three", "eight"))), asList(INDEX));
+        //@formatter:on
+    }
+}
@@ -46,6 +46,29 @@ void test_empty_on_null()
         assertFalse(it.hasNext());
     }
 
+    @Test
+    void test_batch()
+    {
+        assertTrue(f.isBatchSupported());
+        TupleVector input = TupleVector.of(Schema.of(Column.of("col", Column.Type.Any)),
+                List.of(VectorTestUtils.vv(Column.Type.Any, "[{\"a\":1},{\"a\":2,\"b\":3}]", null, "{\"a\":4}", "[]")));
+        TupleIterator it = f.executeBatch(context, "", asList(ce("col")), new FunctionData(0, List.of(new Option(IExecutionContext.BATCH_SIZE, intLit(2)))), input);
+
+        assertTrue(it.hasNext());
+        //@formatter:off
+        VectorTestUtils.assertTupleVectorsEquals(TupleVector.of(Schema.of(Column.of("a", Column.Type.Any), Column.of("b", Column.Type.Any), TableFunctionInfo.ROW_ID_COLUMN), List.of(
+                VectorTestUtils.vv(Column.Type.Any, 1, 2),
+                VectorTestUtils.vv(Column.Type.Any, null, 3),
+                VectorTestUtils.vv(Column.Type.Int, 0, 0))), it.next());
+        assertTrue(it.hasNext());
+        VectorTestUtils.assertTupleVectorsEquals(TupleVector.of(Schema.of(Column.of("a", Column.Type.Any), TableFunctionInfo.ROW_ID_COLUMN), List.of(
+                VectorTestUtils.vv(Column.Type.Any, 4),
+                VectorTestUtils.vv(Column.Type.Int, 2))), it.next());
+        //@formatter:on
+        assertFalse(it.hasNext());
+        it.close();
+    }
+
     @Test
     void test_empty_object()
     {
@@ -4,14 +4,19 @@
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
+import java.util.EnumSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -20,11 +25,15 @@
 import se.kuseman.payloadbuilder.api.catalog.Column.Type;
 import se.kuseman.payloadbuilder.api.catalog.Index;
 import se.kuseman.payloadbuilder.api.catalog.Index.ColumnsType;
+import se.kuseman.payloadbuilder.api.catalog.Index.IndexType;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
 import se.kuseman.payloadbuilder.api.execution.ISeekPredicate;
+import se.kuseman.payloadbuilder.api.execution.ISeekPredicate.ISeekKey;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.UTF8String;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.core.physicalplan.APhysicalPlanTest;
 import se.kuseman.payloadbuilder.test.VectorTestUtils;
 
@@ -312,4 +321,191 @@ void test_index_scanning_with_different_seek_key_type_than_index_type_2()
 
         assertFalse(iterator.hasNext());
     }
+
+    @Test
+    void test_primitive_index()
+    {
+        //@formatter:off
+        TupleVector tv = TupleVector.of(Schema.of(Column.of("col1", Type.Long), Column.of("col2", Type.Int)), asList(
+                vv(Type.Long, 1L, 2L, null, 1L, 5L, null),
+                vv(Type.Int, 10, 20, 30, 40, 50, 60)
+                ));
+        //@formatter:on
+
+        Index index = new Index(QualifiedName.of("temp"), asList("col1"), ColumnsType.ALL);
+        TemporaryTable tempTable = new TemporaryTable(tv, asList(index));
+
+        // Int, null, lossy float, decimal and any seek values
+        TupleIterator iterator = tempTable.getIndexIterator(context, predicate(index, vv(Type.Int, 1, null, 7)));
+        assertVectorsEquals(vv(Type.Int, 10, 40), next(iterator).getColumn(1));
+        assertVectorsEquals(vv(Type.Int, 30, 60), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+
+        iterator = tempTable.getIndexIterator(context, predicate(index, vv(Type.Float, 1.5F, 5.0F)));
+        assertVectorsEquals(vv(Type.Int, 50), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+
+        iterator = tempTable.getIndexIterator(context, predicate(index, vv(Type.Any, 2, "5")));
+        assertVectorsEquals(vv(Type.Int, 20), next(iterator).getColumn(1));
+        assertVectorsEquals(vv(Type.Int, 50), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+
+        // Long seek values on an int index must not be truncated
+        //@formatter:off
+        tv = TupleVector.of(Schema.of(Column.of("col1", Type.Int), Column.of("col2", Type.Int)), asList(
+                vv(Type.Int, 1, 2),
+                vv(Type.Int, 10, 20)
+                ));
+        //@formatter:on
+        tempTable = new TemporaryTable(tv, asList(index));
+        iterator = tempTable.getIndexIterator(context, predicate(index, vv(Type.Long, 4294967297L, 2L)));
+        assertVectorsEquals(vv(Type.Int, 20), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void test_lazy_and_eager_index()
+    {
+        AtomicInteger getColumnCount = new AtomicInteger();
+        //@formatter:off
+        TupleVector tv = TupleVector.of(Schema.of(Column.of("col1", Type.Int), Column.of("col2", Type.String)), asList(
+                vv(Type.Int, 1, 2, 3, 1),
+                vv(Type.String, "a", "b", "c", "a")
+                ));
+        //@formatter:on
+        TupleVector counting = new TupleVector()
+        {
+            @Override
+            public int getRowCount()
+            {
+                return tv.getRowCount();
+            }
+
+            @Override
+            public Schema getSchema()
+            {
+                return tv.getSchema();
+            }
+
+            @Override
+            public ValueVector getColumn(int column)
+            {
+                getColumnCount.incrementAndGet();
+                return tv.getColumn(column);
+            }
+        };
+
+        Index index1 = new Index(QualifiedName.of("temp"), asList("col1"), ColumnsType.ALL);
+        Index index2 = new Index(QualifiedName.of("temp"), asList("col2"), ColumnsType.ALL);
+
+        TemporaryTable tempTable = new TemporaryTable(counting, asList(index1, index2));
+        assertEquals(0, getColumnCount.get());
+
+        // Only the seeked index is built
+        TupleIterator iterator = tempTable.getIndexIterator(context, predicate(index2, vv(Type.String, "a")));
+        assertEquals(1, getColumnCount.get());
+        tempTable.getIndexIterator(context, predicate(index2, vv(Type.String, "b")));
+        assertEquals(1, getColumnCount.get());
+        assertVectorsEquals(vv(Type.Int, 1, 1), next(iterator).getColumn(0));
+
+        getColumnCount.set(0);
+        tempTable = new TemporaryTable(counting, asList(index1, index2), session.getExecutorService());
+        assertEquals(2, getColumnCount.get());
+        iterator = tempTable.getIndexIterator(context, predicate(index1, vv(Type.Int, 3)));
+        assertEquals(2, getColumnCount.get());
+        assertVectorsEquals(vv(Type.String, "c"), next(iterator).getColumn(1));
+    }
+
+    @Test
+    void test_range_index()
+    {
+        //@formatter:off
+        TupleVector tv = TupleVector.of(Schema.of(Column.of("col1", Type.Int), Column.of("col2", Type.Int)), asList(
+                vv(Type.Int, 5, 1, null, 3, 8, 3, 10),
+                vv(Type.Int, 0, 1, 2, 3, 4, 5, 6)
+                ));
+        //@formatter:on
+
+        Index index = new Index(QualifiedName.of("temp"), asList("col1"), ColumnsType.ALL, EnumSet.of(IndexType.SEEK_EQ, IndexType.SEEK_RANGE));
+        TemporaryTable tempTable = new TemporaryTable(tv, asList(index));
+
+        // col1 >= 3 and col1 < 8, rows are returned in index order
+        TupleIterator iterator = tempTable.getIndexIterator(context, rangePredicate(index, List.of(
+                key(IComparisonExpression.Type.GREATER_THAN_EQUAL, vv(Type.Int, 3)),
+                key(IComparisonExpression.Type.LESS_THAN, vv(Type.Int, 8)))));
+        assertVectorsEquals(vv(Type.Int, 3, 5, 0), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+
+        // Overlapping ranges (1, 5] and (4, 10] should not return any row twice
+        iterator = tempTable.getIndexIterator(context, rangePredicate(index, List.of(
+                key(IComparisonExpression.Type.GREATER_THAN, vv(Type.Int, 1, 4)),
+                key(IComparisonExpression.Type.LESS_THAN_EQUAL, vv(Type.Int, 5, 10)))));
+        assertVectorsEquals(vv(Type.Int, 3, 5, 0, 4, 6), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+
+        // Null bounds never matches
+        iterator = tempTable.getIndexIterator(context, rangePredicate(index, List.of(
+                key(IComparisonExpression.Type.GREATER_THAN, vv(Type.Int, (Object) null)))));
+        assertFalse(iterator.hasNext());
+
+        // Seek with another type than the index
+        iterator = tempTable.getIndexIterator(context, rangePredicate(index, List.of(
+                key(IComparisonExpression.Type.GREATER_THAN_EQUAL, vv(Type.Float, 7.5F)))));
+        assertVectorsEquals(vv(Type.Int, 4, 6), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+
+        // Equal seeks on the same index still works
+        iterator = tempTable.getIndexIterator(context, predicate(index, vv(Type.Int, 3)));
+        assertVectorsEquals(vv(Type.Int, 3, 5), next(iterator).getColumn(1));
+        assertFalse(iterator.hasNext());
+
+        // Index without range support
+        Index eqIndex = new Index(QualifiedName.of("temp"), asList("col2"), ColumnsType.ALL);
+        TemporaryTable eqTempTable = new TemporaryTable(tv, asList(eqIndex));
+        assertThrows(IllegalArgumentException.class, () -> eqTempTable.getIndexIterator(context, rangePredicate(eqIndex, List.of(
+                key(IComparisonExpression.Type.GREATER_THAN, vv(Type.Int, 1))))));
+    }
+
+    private static TupleVector next(TupleIterator iterator)
+    {
+        assertTrue(iterator.hasNext());
+        return iterator.next();
+    }
+
+    private static ISeekPredicate predicate(Index index, ValueVector values)
+    {
+        ISeekPredicate predicate = mock(ISeekPredicate.class);
+        ISeekPredicate.ISeekKey seekKey = mock(ISeekPredicate.ISeekKey.class);
+        when(seekKey.getValue()).thenReturn(values);
+        when(predicate.getIndex()).thenReturn(index);
+        when(predicate.getSeekKeys(any())).thenReturn(asList(seekKey));
+        return predicate;
+    }
+
+    private static ISeekPredicate rangePredicate(Index index, List<ISeekKey> seekKeys)
+    {
+        ISeekPredicate predicate = mock(ISeekPredicate.class);
+        when(predicate.getIndex()).thenReturn(index);
+        when(predicate.isRangeSeek()).thenReturn(true);
+        when(predicate.getSeekKeys(any())).thenReturn(seekKeys);
+        return predicate;
+    }
+
+    private static ISeekKey key(IComparisonExpression.Type comparisonType, ValueVector values)
+    {
+        return new ISeekKey()
+        {
+            @Override
+            public ValueVector getValue()
+            {
+                return values;
+            }
+
+            @Override
+            public IComparisonExpression.Type getComparisonType()
+            {
+                return comparisonType;
+            }
+        };
+    }
 }
@@ -24,7 +24,7 @@
     void test_fail_when_storing_wrong_type()
     {
         VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
-        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.Decimal), 2);
 
         assertFalse(b.hasNulls());
         assertTrue(b.isNull(0));
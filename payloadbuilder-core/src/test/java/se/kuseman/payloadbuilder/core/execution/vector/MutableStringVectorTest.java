@@ -0,0 +1,256 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.UTF8String;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+import se.kuseman.payloadbuilder.core.execution.vector.BufferAllocator.AllocatorSettings;
+import se.kuseman.payloadbuilder.test.VectorTestUtils;
+
+/** Test of {@link MutableStringVector} */
+class MutableStringVectorTest
+{
+    @Test
+    void test_fail_when_storing_wrong_type()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+
+        assertTrue(b instanceof MutableStringVector);
+        assertFalse(b.hasNulls());
+        assertTrue(b.isNull(0));
+
+        try
+        {
+            b.setInt(0, 123);
+            fail("Should fail");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertTrue(e.getMessage()
+                    .contains("Check implementation of MutableValueVector: class se.kuseman.payloadbuilder.core.execution.vector.MutableStringVector for setInt"), e.getMessage());
+        }
+    }
+
+    @Test
+    void test_literal_creation()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+
+        b.setString(0, UTF8String.from("hello"));
+        b.setNull(1);
+        b.setString(2, UTF8String.utf8("wörld".getBytes(StandardCharsets.UTF_8)));
+        b.setAny(3, "åäö");
+        b.setString(4, UTF8String.EMPTY);
+
+        assertTrue(b.hasNulls());
+        assertNull(b.getString(1));
+        VectorTestUtils.assertVectorsEquals(vv(Type.String, "hello", null, "wörld", "åäö", ""), b);
+
+        // All values in one byte buffer, offsets and lengths are allocated and resized once
+        assertEquals(1, factory.getAllocator()
+                .getStatistics()
+                .getByteAllocationCount());
+        assertEquals(4, factory.getAllocator()
+                .getStatistics()
+                .getIntAllocationCount());
+        assertEquals(0, factory.getAllocator()
+                .getStatistics()
+                .getObjectAllocationCount());
+    }
+
+    @Test
+    void test_skipped_rows_are_null()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+
+        b.setString(2, UTF8String.from("hello"));
+        b.setNull(5);
+        b.setString(4, UTF8String.from("world"));
+
+        VectorTestUtils.assertVectorsEquals(vv(Type.String, null, null, "hello", null, "world", null), b);
+    }
+
+    @Test
+    void test_overwrite_keeps_returned_views()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), 1);
+
+        b.setString(0, UTF8String.from("hello"));
+        UTF8String view = b.getString(0);
+        b.setString(0, UTF8String.from("world"));
+        // Force a resize of buffers
+        for (int i = 1; i < 100; i++)
+        {
+            b.setString(i, UTF8String.from("value" + i));
+        }
+
+        assertEquals(UTF8String.from("hello"), view);
+        assertEquals(UTF8String.from("world"), b.getString(0));
+        assertEquals(UTF8String.from("value99"), b.getString(99));
+    }
+
+    @Test
+    void test_copy()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+
+        b.copy(0, vv(Type.String, "one", null, "three"));
+        b.copy(b.size(), vv(Type.Any, 1, 2));
+        b.copy(b.size(), ValueVector.literalNull(ResolvedType.of(Type.Any), 1));
+
+        // Copy between string vectors
+        MutableValueVector c = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+        c.setString(0, UTF8String.from("first"));
+        c.copy(1, b, 1, 5);
+
+        VectorTestUtils.assertVectorsEquals(vv(Type.String, "one", null, "three", "1", "2", null), b);
+        VectorTestUtils.assertVectorsEquals(vv(Type.String, "first", null, "three", "1", "2", null), c);
+    }
+
+    @Test
+    void test_hash()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableStringVector b = (MutableStringVector) factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+
+        ValueVector source = vv(Type.String, "hello", null, "wörld");
+        b.copy(0, source);
+
+        assertEquals(UTF8String.from("hello")
+                .hashCode(), b.hashCode(0));
+        assertEquals(UTF8String.from("wörld")
+                .hashCode(), b.hashCode(2));
+
+        for (int i = 0; i < source.size(); i++)
+        {
+            assertEquals(VectorUtils.hash(new ValueVector[] { source }, i), VectorUtils.hash(new ValueVector[] { b }, i));
+        }
+    }
+
+    @Test
+    void test_dictionary_encoding()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableStringVector b = (MutableStringVector) factory.getMutableVector(ResolvedType.of(Column.Type.String), MutableStringVector.DICTIONARY_MIN_CAPACITY);
+
+        Object[] expected = new Object[1000];
+        for (int i = 0; i < expected.length; i++)
+        {
+            expected[i] = i % 7 == 0 ? null
+                    : "status" + (i % 5);
+            b.setAny(i, expected[i]);
+        }
+
+        VectorTestUtils.assertVectorsEquals(vv(Type.String, expected), b);
+        ValueVector dictionary = b.getDictionary();
+        assertNotNull(dictionary);
+        assertEquals(5, dictionary.size());
+        assertEquals(UTF8String.from("status1"), dictionary.getString(b.getDictionaryCode(1)));
+        assertEquals(b.getDictionaryCode(1), b.getDictionaryCode(6));
+        assertEquals(b.getDictionaryCode(1), dictionary.getDictionaryCode(UTF8String.from("status1")));
+        assertEquals(-1, dictionary.getDictionaryCode(UTF8String.from("missing")));
+        // Rows share the dictionary strings
+        assertSame(b.getString(1), b.getString(6));
+        assertEquals(UTF8String.from("status1")
+                .hashCode(), b.hashCode(6));
+        assertTrue(VectorUtils.equals(b, b, Type.String, 1, 6));
+        assertFalse(VectorUtils.equals(b, b, Type.String, 1, 2));
+
+        // Only the distinct values are stored
+        assertEquals(1, factory.getAllocator()
+                .getStatistics()
+                .getByteAllocationCount());
+        assertEquals(0, factory.getAllocator()
+                .getStatistics()
+                .getObjectAllocationCount());
+    }
+
+    @Test
+    void test_dictionary_is_abandoned_on_high_cardinality()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), MutableStringVector.DICTIONARY_MIN_CAPACITY);
+
+        Object[] expected = new Object[1000];
+        for (int i = 0; i < expected.length; i++)
+        {
+            expected[i] = i % 7 == 0 ? null
+                    : "value" + i;
+            b.setAny(i, expected[i]);
+            if (i == 10)
+            {
+                assertNotNull(b.getDictionary());
+            }
+        }
+
+        assertNull(b.getDictionary());
+        VectorTestUtils.assertVectorsEquals(vv(Type.String, expected), b);
+
+        try
+        {
+            b.getDictionaryCode(1);
+            fail("Should fail");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertTrue(e.getMessage()
+                    .contains("Vector is not dictionary encoded"), e.getMessage());
+        }
+    }
+
+    @Test
+    void test_copy_dictionary()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector source = factory.getMutableVector(ResolvedType.of(Column.Type.String), MutableStringVector.DICTIONARY_MIN_CAPACITY);
+        source.copy(0, vv(Type.String, "one", null, "two", "one", "three"));
+
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), MutableStringVector.DICTIONARY_MIN_CAPACITY);
+        b.setString(0, UTF8String.from("three"));
+        b.copy(1, source);
+        b.copy(b.size(), source, 2, 2);
+
+        VectorTestUtils.assertVectorsEquals(vv(Type.String, "three", "one", null, "two", "one", "three", "two", "one"), b);
+        assertEquals(3, b.getDictionary()
+                .size());
+        assertEquals(b.getDictionaryCode(0), b.getDictionaryCode(5));
+
+        // Copy into a plain vector
+        MutableValueVector c = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+        c.copy(0, b);
+        assertNull(c.getDictionary());
+        VectorTestUtils.assertVectorsEquals(b, c);
+    }
+
+    @Test
+    void test_get_float()
+    {
+        VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+        MutableValueVector b = factory.getMutableVector(ResolvedType.of(Column.Type.String), 2);
+
+        b.setString(0, UTF8String.from("1.5"));
+
+        assertEquals(1.5F, b.getFloat(0));
+    }
+}
@@ -0,0 +1,156 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
+import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.core.execution.vector.BufferAllocator.AllocatorSettings;
+
+/** Test of {@link PrimitiveKernels} */
+class PrimitiveKernelsTest
+{
+    private final VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+
+    @Test
+    void test_supports()
+    {
+        assertTrue(PrimitiveKernels.supports(Type.Int));
+        assertTrue(PrimitiveKernels.supports(Type.Long));
+        assertTrue(PrimitiveKernels.supports(Type.Float));
+        assertTrue(PrimitiveKernels.supports(Type.Double));
+        assertFalse(PrimitiveKernels.supports(Type.Decimal));
+        assertFalse(PrimitiveKernels.supports(Type.String));
+        assertFalse(PrimitiveKernels.supports(Type.Any));
+    }
+
+    @Test
+    void test_arithmetic_int()
+    {
+        ValueVector left = vv(Type.Int, 7, null, -7, 10, 3);
+        // Null rows are never computed, division by zero on a null row must not fail
+        ValueVector right = vv(Type.Int, 2, 0, 2, null, 4);
+
+        assertVectorsEquals(vv(Type.Int, 9, null, -5, null, 7), arithmetic(IArithmeticBinaryExpression.Type.ADD, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Int, 5, null, -9, null, -1), arithmetic(IArithmeticBinaryExpression.Type.SUBTRACT, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Int, 14, null, -14, null, 12), arithmetic(IArithmeticBinaryExpression.Type.MULTIPLY, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Int, 3, null, -4, null, 0), arithmetic(IArithmeticBinaryExpression.Type.DIVIDE, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Int, 1, null, 1, null, 3), arithmetic(IArithmeticBinaryExpression.Type.MODULUS, Type.Int, left, right));
+
+        assertThrows(ArithmeticException.class, () -> arithmetic(IArithmeticBinaryExpression.Type.ADD, Type.Int, vv(Type.Int, Integer.MAX_VALUE), vv(Type.Int, 1)));
+    }
+
+    @Test
+    void test_arithmetic_long()
+    {
+        ValueVector left = vv(Type.Long, 7L, null, Long.MAX_VALUE - 1);
+        ValueVector right = vv(Type.Int, 2, 0, 1);
+
+        assertVectorsEquals(vv(Type.Long, 9L, null, Long.MAX_VALUE), arithmetic(IArithmeticBinaryExpression.Type.ADD, Type.Long, left, right));
+        assertVectorsEquals(vv(Type.Long, 3L, null, Long.MAX_VALUE - 1), arithmetic(IArithmeticBinaryExpression.Type.DIVIDE, Type.Long, left, right));
+        assertVectorsEquals(vv(Type.Long, 1L, null, 0L), arithmetic(IArithmeticBinaryExpression.Type.MODULUS, Type.Long, left, right));
+
+        assertThrows(ArithmeticException.class, () -> arithmetic(IArithmeticBinaryExpression.Type.MULTIPLY, Type.Long, vv(Type.Long, Long.MAX_VALUE), vv(Type.Long, 2L)));
+    }
+
+    @Test
+    void test_arithmetic_float_and_double()
+    {
+        ValueVector left = vv(Type.Float, 7.5F, null, 1F);
+        ValueVector right = vv(Type.Double, 2D, 1D, 0D);
+
+        assertVectorsEquals(vv(Type.Float, 3.75F, null, Float.POSITIVE_INFINITY), arithmetic(IArithmeticBinaryExpression.Type.DIVIDE, Type.Float, left, vv(Type.Float, 2F, 1F, 0F)));
+        assertVectorsEquals(vv(Type.Double, 3.75D, null, Double.POSITIVE_INFINITY), arithmetic(IArithmeticBinaryExpression.Type.DIVIDE, Type.Double, left, right));
+        assertVectorsEquals(vv(Type.Double, 9.5D, null, 1D), arithmetic(IArithmeticBinaryExpression.Type.ADD, Type.Double, left, right));
+        assertVectorsEquals(vv(Type.Double, 5.5D, null, 1D), arithmetic(IArithmeticBinaryExpression.Type.SUBTRACT, Type.Double, left, right));
+        assertVectorsEquals(vv(Type.Double, 15D, null, 0D), arithmetic(IArithmeticBinaryExpression.Type.MULTIPLY, Type.Double, left, right));
+    }
+
+    @Test
+    void test_nulls_of_mutable_vectors_are_combined()
+    {
+        MutableValueVector left = factory.getMutableVector(ResolvedType.of(Type.Int), 200);
+        MutableValueVector right = factory.getMutableVector(ResolvedType.of(Type.Int), 200);
+        Object[] expected = new Object[200];
+        for (int i = 0; i < 200; i++)
+        {
+            if (i % 3 == 0)
+            {
+                left.setNull(i);
+            }
+            else
+            {
+                left.setInt(i, i);
+            }
+            if (i % 5 == 0)
+            {
+                right.setNull(i);
+            }
+            else
+            {
+                right.setInt(i, 1);
+            }
+            expected[i] = i % 3 == 0
+                    || i % 5 == 0 ? null
+                            : i + 1;
+        }
+
+        assertVectorsEquals(vv(Type.Int, expected), arithmetic(IArithmeticBinaryExpression.Type.ADD, Type.Int, left, right));
+    }
+
+    @Test
+    void test_compare()
+    {
+        ValueVector left = vv(Type.Int, 1, 2, 3, null);
+        ValueVector right = vv(Type.Int, 2, 2, 2, 2);
+
+        assertVectorsEquals(vv(Type.Boolean, false, true, false, null), compare(IComparisonExpression.Type.EQUAL, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Boolean, true, false, true, null), compare(IComparisonExpression.Type.NOT_EQUAL, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Boolean, false, false, true, null), compare(IComparisonExpression.Type.GREATER_THAN, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Boolean, false, true, true, null), compare(IComparisonExpression.Type.GREATER_THAN_EQUAL, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Boolean, true, false, false, null), compare(IComparisonExpression.Type.LESS_THAN, Type.Int, left, right));
+        assertVectorsEquals(vv(Type.Boolean, true, true, false, null), compare(IComparisonExpression.Type.LESS_THAN_EQUAL, Type.Int, left, right));
+
+        // Promoted types
+        assertVectorsEquals(vv(Type.Boolean, false, true, true, null), compare(IComparisonExpression.Type.GREATER_THAN_EQUAL, Type.Long, left, vv(Type.Long, 2L, 2L, 2L, 2L)));
+        assertVectorsEquals(vv(Type.Boolean, true, false, true, null), compare(IComparisonExpression.Type.LESS_THAN, Type.Float, left, vv(Type.Float, 1.5F, 1.5F, 3.5F, 1F)));
+        assertVectorsEquals(vv(Type.Boolean, false, false, true, null), compare(IComparisonExpression.Type.GREATER_THAN, Type.Double, left, vv(Type.Double, 1.5D, 2.5D, 2.5D, 1D)));
+
+        // Equality is == and ordering is compare, same as the generic comparison
+        ValueVector zero = vv(Type.Double, 0D, Double.NaN);
+        ValueVector negativeZero = vv(Type.Double, -0D, Double.NaN);
+        assertVectorsEquals(vv(Type.Boolean, true, false), compare(IComparisonExpression.Type.EQUAL, Type.Double, zero, negativeZero));
+        assertVectorsEquals(vv(Type.Boolean, true, false), compare(IComparisonExpression.Type.GREATER_THAN, Type.Double, zero, negativeZero));
+    }
+
+    @Test
+    void test_result_size()
+    {
+        ValueVector actual = arithmetic(IArithmeticBinaryExpression.Type.ADD, Type.Int, vv(Type.Int, 1, 2), vv(Type.Int, 3, 4));
+        assertEquals(2, actual.size());
+        assertFalse(actual.hasNulls());
+        actual = compare(IComparisonExpression.Type.EQUAL, Type.Int, vv(Type.Int, 1, 2), vv(Type.Int, 1, 4));
+        assertEquals(2, actual.size());
+        assertFalse(actual.hasNulls());
+    }
+
+    private ValueVector arithmetic(IArithmeticBinaryExpression.Type operation, Type type, ValueVector left, ValueVector right)
+    {
+        return PrimitiveKernels.arithmetic(factory, operation, type, left, right, left.size());
+    }
+
+    private ValueVector compare(IComparisonExpression.Type operation, Type type, ValueVector left, ValueVector right)
+    {
+        return PrimitiveKernels.compare(factory, operation, type, left, right, left.size());
+    }
+}
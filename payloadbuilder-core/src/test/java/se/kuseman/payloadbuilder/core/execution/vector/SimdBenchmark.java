@@ -0,0 +1,256 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.core.execution.vector.BufferAllocator.AllocatorSettings;
+
+/**
+ * Benchmark of {@link SimdKernels} against the scalar kernels. Compares a column with a literal and with another column and aggregates sum and min of columns, both all rows and a selection of the
+ * middle rows. Vectors have no nulls since that is the only case where the SIMD kernels are applied.
+ */
+//CSOFF
+@BenchmarkMode({ Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(
+        value = 1,
+        warmups = 2,
+        jvmArgs = { "-Xms4G", "-Xmx4G", "--add-modules=jdk.incubator.vector" })
+@Measurement(
+        iterations = 3,
+        time = 5)
+@Warmup(
+        iterations = 2,
+        time = 5)
+public class SimdBenchmark
+{
+    private static final int ROW_COUNT = 1_000_000;
+
+    @Param({ "64", "500", "10000" })
+    private int batchSize;
+
+    @Param({ "Int", "Long", "Double" })
+    private String columnType;
+
+    @Param({ "Scalar", "Simd" })
+    private String path;
+
+    private final VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings()));
+    private Type type;
+    private List<ValueVector> left;
+    private List<ValueVector> right;
+    private List<ValueVector> selected;
+    private ValueVector literal;
+    private boolean enabled;
+
+    @Setup
+    public void setup()
+    {
+        enabled = SimdKernels.setEnabled("Simd".equals(path));
+        if ("Simd".equals(path)
+                && !SimdKernels.isEnabled())
+        {
+            throw new IllegalStateException("Vector API kernels are not available, build with the simd profile and add module jdk.incubator.vector");
+        }
+
+        Random r = new Random(4711);
+        type = Type.valueOf(columnType);
+        left = new ArrayList<>();
+        right = new ArrayList<>();
+        selected = new ArrayList<>();
+        for (int row = 0; row < ROW_COUNT; row += batchSize)
+        {
+            ValueVector vector = create(r, batchSize);
+            left.add(vector);
+            right.add(create(r, batchSize));
+
+            MutableValueVector selection = factory.getMutableVector(ResolvedType.of(Type.Int), batchSize / 2);
+            for (int i = 0; i < batchSize / 2; i++)
+            {
+                selection.setInt(i, batchSize / 4 + i);
+            }
+            selected.add(SelectedValueVector.select(vector, selection));
+        }
+        literal = switch (type)
+        {
+            case Int -> ValueVector.literalInt(500, batchSize);
+            case Long -> ValueVector.literalLong(500, batchSize);
+            default -> ValueVector.literalDouble(500, batchSize);
+        };
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        SimdKernels.setEnabled(enabled);
+    }
+
+    /** col > 500 */
+    @Benchmark
+    public void compareLiteral(Blackhole bh)
+    {
+        for (ValueVector vector : left)
+        {
+            bh.consume(PrimitiveKernels.compare(factory, IComparisonExpression.Type.GREATER_THAN, type, vector, literal, batchSize)
+                    .getCardinality());
+        }
+    }
+
+    /** col1 = col2 */
+    @Benchmark
+    public void compareColumns(Blackhole bh)
+    {
+        for (int i = 0; i < left.size(); i++)
+        {
+            bh.consume(PrimitiveKernels.compare(factory, IComparisonExpression.Type.EQUAL, type, left.get(i), right.get(i), batchSize)
+                    .getCardinality());
+        }
+    }
+
+    @Benchmark
+    public void sum(Blackhole bh)
+    {
+        for (ValueVector vector : left)
+        {
+            bh.consume(sum(vector));
+        }
+    }
+
+    @Benchmark
+    public void sumSelected(Blackhole bh)
+    {
+        for (ValueVector vector : selected)
+        {
+            bh.consume(sum(vector));
+        }
+    }
+
+    /** Min of the column. Double has no SIMD min since the aggregate compares with Double.compare */
+    @Benchmark
+    public void min(Blackhole bh)
+    {
+        for (ValueVector vector : left)
+        {
+            bh.consume(min(vector));
+        }
+    }
+
+    /** Sum the same way as the sum aggregate */
+    private double sum(ValueVector vector)
+    {
+        if (SimdKernels.supports(vector, type))
+        {
+            return switch (type)
+            {
+                case Int -> SimdKernels.sumInt(vector);
+                case Long -> SimdKernels.sumLong(vector);
+                default -> SimdKernels.sumDouble(vector);
+            };
+        }
+
+        int intSum = 0;
+        long longSum = 0;
+        double doubleSum = 0;
+        int size = vector.size();
+        for (int i = 0; i < size; i++)
+        {
+            if (vector.isNull(i))
+            {
+                continue;
+            }
+            switch (type)
+            {
+                case Int:
+                    intSum = Math.addExact(intSum, vector.getInt(i));
+                    break;
+                case Long:
+                    longSum = Math.addExact(longSum, vector.getLong(i));
+                    break;
+                default:
+                    doubleSum += vector.getDouble(i);
+                    break;
+            }
+        }
+        return intSum + longSum + doubleSum;
+    }
+
+    private double min(ValueVector vector)
+    {
+        if (type != Type.Double
+                && SimdKernels.supports(vector, type))
+        {
+            return type == Type.Int ? SimdKernels.minMaxInt(vector, true)
+                    : SimdKernels.minMaxLong(vector, true);
+        }
+
+        double min = Double.MAX_VALUE;
+        int size = vector.size();
+        for (int i = 0; i < size; i++)
+        {
+            if (!vector.isNull(i))
+            {
+                min = Math.min(min, vector.getDouble(i));
+            }
+        }
+        return min;
+    }
+
+    private ValueVector create(Random r, int size)
+    {
+        MutableValueVector vector = factory.getMutableVector(ResolvedType.of(type), size);
+        for (int i = 0; i < size; i++)
+        {
+            int value = r.nextInt(1000);
+            switch (type)
+            {
+                case Int:
+                    vector.setInt(i, value);
+                    break;
+                case Long:
+                    vector.setLong(i, value);
+                    break;
+                default:
+                    vector.setDouble(i, value);
+                    break;
+            }
+        }
+        return vector;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder().include(SimdBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
+// CSON
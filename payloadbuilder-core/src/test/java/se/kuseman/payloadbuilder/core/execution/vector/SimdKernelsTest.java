@@ -0,0 +1,280 @@
+package se.kuseman.payloadbuilder.core.execution.vector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.SelectedValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.core.execution.vector.BufferAllocator.AllocatorSettings;
+
+/** Test of {@link SimdKernels} */
+class SimdKernelsTest
+{
+    private static final int[] SIZES = { 0, 1, 7, 8, 15, 16, 17, 63, 64, 65, 130, 1000 };
+
+    private final VectorFactory factory = new VectorFactory(new BufferAllocator(new AllocatorSettings().withBitSize(1)));
+    private final Random random = new Random(4711);
+    private boolean enabled;
+
+    @BeforeEach
+    void setup()
+    {
+        enabled = SimdKernels.setEnabled(true);
+        assumeTrue(SimdKernels.isEnabled(), "Vector API kernels are not available");
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        SimdKernels.setEnabled(enabled);
+    }
+
+    @Test
+    void test_supports()
+    {
+        ValueVector vector = create(Type.Int, 20);
+        assertTrue(SimdKernels.supports(vector, Type.Int));
+        assertTrue(SimdKernels.supports(select(vector), Type.Int));
+        // Selections must be contiguous
+        assertFalse(SimdKernels.supports(SelectedValueVector.select(vector, ValueVector.literalInt(3, 5)), Type.Int));
+        // Wrong type
+        assertFalse(SimdKernels.supports(vector, Type.Long));
+        // Not backed by an array
+        assertFalse(SimdKernels.supports(ValueVector.literalInt(10, 20), Type.Int));
+
+        MutableValueVector nullVector = (MutableValueVector) create(Type.Int, 20);
+        nullVector.setNull(5);
+        assertFalse(SimdKernels.supports(nullVector, Type.Int));
+
+        SimdKernels.setEnabled(false);
+        assertFalse(SimdKernels.supports(vector, Type.Int));
+    }
+
+    @Test
+    void test_compare_equals_scalar()
+    {
+        for (Type type : new Type[] { Type.Int, Type.Long, Type.Float, Type.Double })
+        {
+            for (int size : SIZES)
+            {
+                ValueVector left = create(type, size);
+                ValueVector right = create(type, size);
+                ValueVector literal = literal(type, left, size);
+                for (IComparisonExpression.Type operation : IComparisonExpression.Type.values())
+                {
+                    String message = type + " " + operation + " " + size;
+                    assertVectorsEquals(message, compare(false, operation, type, left, right), compare(true, operation, type, left, right));
+                    assertVectorsEquals(message, compare(false, operation, type, left, literal), compare(true, operation, type, left, literal));
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_compare_float_equality()
+    {
+        MutableValueVector left = factory.getMutableVector(ResolvedType.of(Type.Double), 20);
+        MutableValueVector right = factory.getMutableVector(ResolvedType.of(Type.Double), 20);
+        for (int i = 0; i < 20; i++)
+        {
+            left.setDouble(i, i % 2 == 0 ? Double.NaN
+                    : -0.0D);
+            right.setDouble(i, i % 2 == 0 ? Double.NaN
+                    : 0.0D);
+        }
+
+        ValueVector equal = compare(true, IComparisonExpression.Type.EQUAL, Type.Double, left, right);
+        ValueVector notEqual = compare(true, IComparisonExpression.Type.NOT_EQUAL, Type.Double, left, right);
+        for (int i = 0; i < 20; i++)
+        {
+            // NaN is never equal and -0.0 equals 0.0
+            assertEquals(i % 2 != 0, equal.getBoolean(i));
+            assertEquals(i % 2 == 0, notEqual.getBoolean(i));
+        }
+    }
+
+    @Test
+    void test_sum()
+    {
+        for (int size : SIZES)
+        {
+            for (Type type : new Type[] { Type.Int, Type.Long, Type.Float, Type.Double })
+            {
+                ValueVector vector = create(type, size);
+                ValueVector selected = select(vector);
+                for (ValueVector v : new ValueVector[] { vector, selected })
+                {
+                    String message = type + " " + size;
+                    switch (type)
+                    {
+                        case Int:
+                            assertEquals(scalarSum(v), SimdKernels.sumInt(v), message);
+                            break;
+                        case Long:
+                            assertEquals(scalarSum(v), SimdKernels.sumLong(v), message);
+                            break;
+                        case Float:
+                            assertEquals(scalarSum(v), SimdKernels.sumFloat(v), 0.01D, message);
+                            break;
+                        default:
+                            assertEquals(scalarSum(v), SimdKernels.sumDouble(v), 0.01D, message);
+                            break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_sum_overflow()
+    {
+        MutableValueVector ints = factory.getMutableVector(ResolvedType.of(Type.Int), 40);
+        MutableValueVector longs = factory.getMutableVector(ResolvedType.of(Type.Long), 40);
+        for (int i = 0; i < 40; i++)
+        {
+            ints.setInt(i, Integer.MAX_VALUE);
+            longs.setLong(i, Long.MAX_VALUE);
+        }
+        assertThrows(ArithmeticException.class, () -> SimdKernels.sumInt(ints));
+        assertThrows(ArithmeticException.class, () -> SimdKernels.sumLong(longs));
+
+        // Lanes overflow but the sum of the rows in order doesn't
+        for (int i = 0; i < 40; i++)
+        {
+            ints.setInt(i, i % 2 == 0 ? Integer.MAX_VALUE
+                    : -Integer.MAX_VALUE);
+            longs.setLong(i, i % 2 == 0 ? Long.MAX_VALUE
+                    : -Long.MAX_VALUE);
+        }
+        assertEquals(0, SimdKernels.sumInt(ints));
+        assertEquals(0, SimdKernels.sumLong(longs));
+    }
+
+    @Test
+    void test_min_max()
+    {
+        for (int size : SIZES)
+        {
+            if (size == 0)
+            {
+                continue;
+            }
+            for (Type type : new Type[] { Type.Int, Type.Long })
+            {
+                ValueVector vector = create(type, size);
+                ValueVector selected = select(vector);
+                for (ValueVector v : new ValueVector[] { vector, selected })
+                {
+                    if (v.size() == 0)
+                    {
+                        continue;
+                    }
+                    long min = Long.MAX_VALUE;
+                    long max = Long.MIN_VALUE;
+                    for (int i = 0; i < v.size(); i++)
+                    {
+                        min = Math.min(min, v.getLong(i));
+                        max = Math.max(max, v.getLong(i));
+                    }
+                    String message = type + " " + size;
+                    assertEquals(min, type == Type.Int ? SimdKernels.minMaxInt(v, true)
+                            : SimdKernels.minMaxLong(v, true), message);
+                    assertEquals(max, type == Type.Int ? SimdKernels.minMaxInt(v, false)
+                            : SimdKernels.minMaxLong(v, false), message);
+                }
+            }
+        }
+    }
+
+    private ValueVector compare(boolean simd, IComparisonExpression.Type operation, Type type, ValueVector left, ValueVector right)
+    {
+        boolean previous = SimdKernels.setEnabled(simd);
+        try
+        {
+            return PrimitiveKernels.compare(factory, operation, type, left, right, left.size());
+        }
+        finally
+        {
+            SimdKernels.setEnabled(previous);
+        }
+    }
+
+    private double scalarSum(ValueVector vector)
+    {
+        double sum = 0;
+        for (int i = 0; i < vector.size(); i++)
+        {
+            sum += vector.getDouble(i);
+        }
+        return sum;
+    }
+
+    /** Select the middle rows of vector */
+    private ValueVector select(ValueVector vector)
+    {
+        int size = vector.size() / 2;
+        MutableValueVector selection = factory.getMutableVector(ResolvedType.of(Type.Int), size);
+        for (int i = 0; i < size; i++)
+        {
+            selection.setInt(i, vector.size() / 4 + i);
+        }
+        return SelectedValueVector.select(vector, selection);
+    }
+
+    /** Create a literal with the value of the middle row of vector */
+    private ValueVector literal(Type type, ValueVector vector, int size)
+    {
+        int row = size / 2;
+        return switch (type)
+        {
+            case Int -> ValueVector.literalInt(size > 0 ? vector.getInt(row)
+                    : 0, size);
+            case Long -> ValueVector.literalLong(size > 0 ? vector.getLong(row)
+                    : 0, size);
+            case Float -> ValueVector.literalFloat(size > 0 ? vector.getFloat(row)
+                    : 0, size);
+            default -> ValueVector.literalDouble(size > 0 ? vector.getDouble(row)
+                    : 0, size);
+        };
+    }
+
+    private ValueVector create(Type type, int size)
+    {
+        MutableValueVector vector = factory.getMutableVector(ResolvedType.of(type), size);
+        for (int i = 0; i < size; i++)
+        {
+            // Small range to get equal values
+            int value = random.nextInt(20) - 10;
+            switch (type)
+            {
+                case Int:
+                    vector.setInt(i, value);
+                    break;
+                case Long:
+                    vector.setLong(i, value * 1_000_000_000L);
+                    break;
+                case Float:
+                    vector.setFloat(i, value / 2F);
+                    break;
+                default:
+                    vector.setDouble(i, value / 4D);
+                    break;
+            }
+        }
+        return vector;
+    }
+}
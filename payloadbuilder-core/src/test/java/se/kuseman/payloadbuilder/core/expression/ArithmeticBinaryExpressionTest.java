@@ -327,6 +327,22 @@ void test_int_add_overflow()
         assertThrows(ArithmeticException.class, () -> assertEquals(10, actual.getInt(1))); // Triggers overflow
     }
 
+    @Test
+    void test_int_divide_by_zero_fails_on_affected_row()
+    {
+        TupleVector tv = TupleVector.of(schema(new Type[] { Type.Int, Type.Int }, "col1", "col2"), asList(vv(ResolvedType.of(Type.Int), 10, 20, 30), vv(ResolvedType.of(Type.Int), 2, 0, 3)));
+
+        IExpression left = ce("col1", ResolvedType.of(Type.Int));
+        IExpression right = ce("col2", ResolvedType.of(Type.Int));
+        ArithmeticBinaryExpression e = new ArithmeticBinaryExpression(IArithmeticBinaryExpression.Type.DIVIDE, left, right);
+
+        // Evaluation does not fail, only reading the row with the zero divisor
+        ValueVector actual = e.eval(tv, context);
+        assertEquals(5, actual.getInt(0));
+        assertThrows(ArithmeticException.class, () -> actual.getInt(1));
+        assertEquals(10, actual.getInt(2));
+    }
+
     private void assertCase(TestCase test)
     {
         TupleVector input = TupleVector.of(Schema.of(Column.of("col1", test.left), Column.of("col2", test.right)), asList(vv(test.left, test.leftValue), vv(test.right, test.rightValue)));
@@ -3,6 +3,7 @@
 import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static se.kuseman.payloadbuilder.api.utils.MapUtils.entry;
@@ -14,14 +15,17 @@
 import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
 import se.kuseman.payloadbuilder.api.catalog.Column.Type;
 import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.UTF8String;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
 import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.physicalplan.APhysicalPlanTest;
@@ -369,6 +373,66 @@ void test_eq()
         assertVectorsEquals(vv(ResolvedType.of(Type.Boolean), null, null, null, null, null), actual);
     }
 
+    @Test
+    void test_right_is_not_evaluated_for_null_left_rows()
+    {
+        //@formatter:off
+        TupleVector tv = TupleVector.of(schema(new Type[] { Type.Int, Type.Int }, "col1", "col2"), asList(
+                vv(Type.Int, 1, null, 3, null),
+                vv(Type.Int, 1, 4, 9, 8)
+                ));
+        //@formatter:on
+
+        AtomicInteger evaluatedRows = new AtomicInteger();
+        IExpression right = new IExpression()
+        {
+            @Override
+            public ValueVector eval(TupleVector input, IExecutionContext context)
+            {
+                evaluatedRows.addAndGet(input.getRowCount());
+                return ce("col2", ResolvedType.of(Type.Int))
+                        .eval(input, context);
+            }
+
+            @Override
+            public ResolvedType getType()
+            {
+                return ResolvedType.of(Type.Int);
+            }
+        };
+
+        ComparisonExpression e = new ComparisonExpression(IComparisonExpression.Type.EQUAL, ce("col1", ResolvedType.of(Type.Int)), right);
+        assertVectorsEquals(vv(Type.Boolean, true, null, false, null), e.eval(tv, context));
+        assertEquals(2, evaluatedRows.get());
+    }
+
+    @Test
+    void test_dictionary_equality()
+    {
+        MutableValueVector col = context.getVectorFactory()
+                .getMutableVector(ResolvedType.of(Type.String), 100);
+        Object[] values = new Object[100];
+        for (int i = 0; i < 100; i++)
+        {
+            values[i] = i % 10 == 0 ? null
+                    : "value" + (i % 3);
+            col.setAny(i, values[i]);
+        }
+        assertNotNull(col.getDictionary());
+
+        TupleVector tv = TupleVector.of(schema(new Type[] { Type.String }, "col"), asList(col));
+        TupleVector expectedTv = TupleVector.of(schema(new Type[] { Type.String }, "col"), asList(vv(ResolvedType.of(Type.String), values)));
+
+        for (IComparisonExpression.Type type : asList(IComparisonExpression.Type.EQUAL, IComparisonExpression.Type.NOT_EQUAL))
+        {
+            for (String value : asList("value1", "missing"))
+            {
+                ComparisonExpression e = new ComparisonExpression(type, ce("col"), new LiteralStringExpression(value));
+                assertVectorsEquals(e.eval(expectedTv, context), e.eval(tv, context));
+            }
+        }
+    }
+
     @Test
     void test_neq()
     {
@@ -0,0 +1,210 @@
+package se.kuseman.payloadbuilder.core.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.ITupleVectorBuilder;
+import se.kuseman.payloadbuilder.api.execution.vector.IVectorFactory;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
+import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
+import se.kuseman.payloadbuilder.core.physicalplan.APhysicalPlanTest;
+
+/**
+ * Benchmark of {@link ArithmeticBinaryExpression} and {@link ComparisonExpression} evaluating {@code a * b + c * d > e}. Kernel uses the materialized primitive kernels and Lazy uses a vector factory
+ * that isn't supported by the kernels which makes the expressions fall back to lazy evaluation.
+ */
+//CSOFF
+@BenchmarkMode({ Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(
+        value = 1,
+        warmups = 2,
+        jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(
+        iterations = 3,
+        time = 5)
+@Warmup(
+        iterations = 2,
+        time = 5)
+public class ExpressionBenchmark extends APhysicalPlanTest
+{
+    private static final int ROW_COUNT = 1_000_000;
+    private static final String[] COLUMNS = { "a", "b", "c", "d", "e" };
+
+    @Param({ "500", "10000" })
+    private int batchSize;
+
+    @Param({ "Int", "Long", "Double" })
+    private String columnType;
+
+    @Param({ "Kernel", "Lazy" })
+    private String path;
+
+    private List<TupleVector> vectors;
+    private IExpression arithmetic;
+    private IExpression predicate;
+    private IExecutionContext executionContext;
+
+    @Setup
+    public void setup()
+    {
+        Random r = new Random(4711);
+        Type type = Type.valueOf(columnType);
+        ResolvedType resolvedType = ResolvedType.of(type);
+
+        List<Column> columns = new ArrayList<>();
+        List<IExpression> expressions = new ArrayList<>();
+        for (int i = 0; i < COLUMNS.length; i++)
+        {
+            columns.add(Column.of(COLUMNS[i], resolvedType));
+            expressions.add(ColumnExpression.Builder.of(COLUMNS[i], resolvedType)
+                    .withOrdinal(i)
+                    .build());
+        }
+        Schema schema = new Schema(columns);
+
+        vectors = new ArrayList<>();
+        for (int row = 0; row < ROW_COUNT; row += batchSize)
+        {
+            List<ValueVector> batch = new ArrayList<>();
+            for (int i = 0; i < COLUMNS.length; i++)
+            {
+                MutableValueVector vector = context.getVectorFactory()
+                        .getMutableVector(resolvedType, batchSize);
+                for (int j = 0; j < batchSize; j++)
+                {
+                    // Every 50:th value is null
+                    if (r.nextInt(50) == 0)
+                    {
+                        vector.setNull(j);
+                    }
+                    else if (type == Type.Double)
+                    {
+                        vector.setDouble(j, r.nextDouble() * 1000);
+                    }
+                    else if (type == Type.Long)
+                    {
+                        vector.setLong(j, r.nextInt(1000));
+                    }
+                    else
+                    {
+                        vector.setInt(j, r.nextInt(1000));
+                    }
+                }
+                batch.add(vector);
+            }
+            vectors.add(TupleVector.of(schema, batch));
+        }
+
+        // a * b + c * d
+        arithmetic = new ArithmeticBinaryExpression(IArithmeticBinaryExpression.Type.ADD,
+                new ArithmeticBinaryExpression(IArithmeticBinaryExpression.Type.MULTIPLY, expressions.get(0), expressions.get(1)),
+                new ArithmeticBinaryExpression(IArithmeticBinaryExpression.Type.MULTIPLY, expressions.get(2), expressions.get(3)));
+        // a * b + c * d > e
+        predicate = new ComparisonExpression(IComparisonExpression.Type.GREATER_THAN, arithmetic, expressions.get(4));
+
+        if ("Kernel".equals(path))
+        {
+            executionContext = context;
+        }
+        else
+        {
+            IVectorFactory factory = context.getVectorFactory();
+            IVectorFactory lazyFactory = new IVectorFactory()
+            {
+                @Override
+                public MutableValueVector getMutableVector(ResolvedType type, int estimatedCapacity)
+                {
+                    return factory.getMutableVector(type, estimatedCapacity);
+                }
+
+                @Override
+                public ITupleVectorBuilder getTupleVectorBuilder(int estimatedCapacity)
+                {
+                    return factory.getTupleVectorBuilder(estimatedCapacity);
+                }
+            };
+            executionContext = new ExecutionContext(session)
+            {
+                @Override
+                public IVectorFactory getVectorFactory()
+                {
+                    return lazyFactory;
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public void predicate(Blackhole bh)
+    {
+        for (TupleVector vector : vectors)
+        {
+            bh.consume(predicate.eval(vector, executionContext)
+                    .getCardinality());
+        }
+    }
+
+    /** Arithmetic result consumed twice to simulate multiple consumers of the same vector */
+    @Benchmark
+    public void arithmetic(Blackhole bh)
+    {
+        for (TupleVector vector : vectors)
+        {
+            ValueVector result = arithmetic.eval(vector, executionContext);
+            int size = result.size();
+            for (int consumer = 0; consumer < 2; consumer++)
+            {
+                for (int i = 0; i < size; i++)
+                {
+                    if (!result.isNull(i))
+                    {
+                        bh.consume(result.getDouble(i));
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder().include(ExpressionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
+// CSON
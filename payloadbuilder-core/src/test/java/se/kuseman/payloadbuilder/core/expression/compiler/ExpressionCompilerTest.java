@@ -0,0 +1,158 @@
+package se.kuseman.payloadbuilder.core.expression.compiler;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.expression.AliasExpression;
+import se.kuseman.payloadbuilder.core.expression.ArithmeticBinaryExpression;
+import se.kuseman.payloadbuilder.core.expression.ComparisonExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralDoubleExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralFloatExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralLongExpression;
+import se.kuseman.payloadbuilder.core.physicalplan.APhysicalPlanTest;
+import se.kuseman.payloadbuilder.core.physicalplan.ExpressionPredicate;
+
+/** Test of {@link ExpressionCompiler} */
+class ExpressionCompilerTest extends APhysicalPlanTest
+{
+    private final IExpression a = ce("a", ResolvedType.of(Type.Int));
+    private final IExpression b = ce("b", ResolvedType.of(Type.Long));
+    private final IExpression c = ce("c", ResolvedType.of(Type.Double));
+    private final IExpression d = ce("d", ResolvedType.of(Type.Float));
+    private final IExpression f = ce("f", ResolvedType.of(Type.Boolean));
+    private final IExpression s = ce("s", ResolvedType.of(Type.String));
+
+    @Test
+    void test_not_compiled()
+    {
+        // Nothing to compile
+        assertNull(ExpressionCompiler.compile(a));
+        assertNull(ExpressionCompiler.compile(intLit(10)));
+        assertNull(ExpressionCompiler.compile(like(s, stringLit("a%"), false)));
+        // Right side of AND is only evaluated for some rows and can then only have leaves without side effects
+        assertNull(ExpressionCompiler.compile(and(gt(a, intLit(10)), like(s, stringLit("a%"), false))));
+
+        assertNotNull(ExpressionCompiler.compile(and(like(s, stringLit("a%"), false), gt(a, intLit(10)))));
+        assertNotNull(ExpressionCompiler.compile(new AliasExpression(add(a, intLit(10)), "col")));
+    }
+
+    @Test
+    void test_compiled_equals_interpreted()
+    {
+        TupleVector input = createInput(new Random(4711), 500);
+        List<IExpression> expressions = List.of(
+                // a * b + c > d
+                gt(add(arithmetic(IArithmeticBinaryExpression.Type.MULTIPLY, a, b), c), d),
+                // (a + 10 > b AND NOT f) OR c < 0.5
+                or(and(gt(add(a, intLit(10)), b), not(f)), lt(c, new LiteralDoubleExpression(0.5D))),
+                // a % 7 - b / 3
+                arithmetic(IArithmeticBinaryExpression.Type.SUBTRACT, arithmetic(IArithmeticBinaryExpression.Type.MODULUS, a, intLit(7)),
+                        arithmetic(IArithmeticBinaryExpression.Type.DIVIDE, b, new LiteralLongExpression(3))),
+                // a * 1.5
+                arithmetic(IArithmeticBinaryExpression.Type.MULTIPLY, a, new LiteralFloatExpression(1.5F)),
+                // d / c
+                arithmetic(IArithmeticBinaryExpression.Type.DIVIDE, d, c),
+                // f AND a >= 10
+                and(f, new ComparisonExpression(IComparisonExpression.Type.GREATER_THAN_EQUAL, a, intLit(10))),
+                // NOT (a = b) OR f
+                or(not(eq(a, b)), f),
+                // a <> b AND a <= d
+                and(neq(a, b), new ComparisonExpression(IComparisonExpression.Type.LESS_THAN_EQUAL, a, d)));
+
+        for (IExpression expression : expressions)
+        {
+            CompiledExpression compiled = ExpressionCompiler.compile(expression);
+            assertNotNull(compiled, expression.toString());
+            assertVectorsEquals(expression.toString(), expression.eval(input, context), compiled.eval(input, context));
+            // Cached kernel
+            assertVectorsEquals(expression.toString(), expression.eval(input, context), compiled.eval(input, context));
+        }
+    }
+
+    @Test
+    void test_logical_short_circuit()
+    {
+        TupleVector input = TupleVector.of(schema(new Type[] { Type.Int, Type.Long }, "a", "b"), asList(vv(Type.Int, 10, 20, 30, null), vv(Type.Long, 0L, 5L, 0L, 0L)));
+
+        // b <> 0 AND a / b > 1, division is never performed on rows where b is 0
+        IExpression expression = and(neq(b, intLit(0)), gt(arithmetic(IArithmeticBinaryExpression.Type.DIVIDE, a, b), intLit(1)));
+        CompiledExpression compiled = ExpressionCompiler.compile(expression);
+        assertVectorsEquals(vv(Type.Boolean, false, true, false, false), compiled.eval(input, context));
+    }
+
+    @Test
+    void test_overflow()
+    {
+        TupleVector input = TupleVector.of(schema(new Type[] { Type.Int }, "a"), asList(vv(Type.Int, 1, Integer.MAX_VALUE)));
+        CompiledExpression compiled = ExpressionCompiler.compile(add(a, intLit(1)));
+        // Same as interpretation, only reading the overflowing row fails
+        ValueVector actual = compiled.eval(input, context);
+        assertEquals(2, actual.getInt(0));
+        assertThrows(ArithmeticException.class, () -> actual.getInt(1));
+    }
+
+    @Test
+    void test_unsupported_types_are_interpreted()
+    {
+        // a is resolved as Int but is a string runtime
+        TupleVector input = TupleVector.of(schema(new Type[] { Type.String }, "a"), asList(vv(Type.String, "10", "20", null)));
+        IExpression expression = add(a, intLit(1));
+        CompiledExpression compiled = ExpressionCompiler.compile(expression);
+        assertVectorsEquals(expression.eval(input, context), compiled.eval(input, context));
+    }
+
+    @Test
+    void test_predicate()
+    {
+        TupleVector input = TupleVector.of(schema(new Type[] { Type.Int }, "a"), asList(vv(Type.Int, 1, 20, null)));
+        ExpressionPredicate predicate = new ExpressionPredicate(gt(a, intLit(10)), true);
+        assertVectorsEquals(vv(Type.Boolean, false, true, null), predicate.apply(input, context));
+    }
+
+    private IExpression arithmetic(IArithmeticBinaryExpression.Type type, IExpression left, IExpression right)
+    {
+        return new ArithmeticBinaryExpression(type, left, right);
+    }
+
+    private TupleVector createInput(Random random, int rowCount)
+    {
+        List<Object> as = new ArrayList<>();
+        List<Object> bs = new ArrayList<>();
+        List<Object> cs = new ArrayList<>();
+        List<Object> ds = new ArrayList<>();
+        List<Object> fs = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++)
+        {
+            as.add(random.nextInt(10) == 0 ? null
+                    : random.nextInt(100) - 50);
+            bs.add(random.nextInt(10) == 0 ? null
+                    : (long) random.nextInt(100) - 50);
+            cs.add(random.nextInt(10) == 0 ? null
+                    : random.nextDouble());
+            ds.add(random.nextInt(10) == 0 ? null
+                    : (float) random.nextInt(100) - 50);
+            fs.add(random.nextInt(10) == 0 ? null
+                    : random.nextBoolean());
+        }
+        List<ValueVector> vectors = List.of(vv(Type.Int, as.toArray()), vv(Type.Long, bs.toArray()), vv(Type.Double, cs.toArray()), vv(Type.Float, ds.toArray()), vv(Type.Boolean, fs.toArray()));
+        return TupleVector.of(schema(new Type[] { Type.Int, Type.Long, Type.Double, Type.Float, Type.Boolean }, "a", "b", "c", "d", "f"), vectors);
+    }
+}
@@ -2,14 +2,19 @@
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
 import se.kuseman.payloadbuilder.api.catalog.IDatasource;
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.NullOrder;
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
@@ -18,13 +23,16 @@
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.catalog.CatalogRegistry;
 import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
+import se.kuseman.payloadbuilder.core.catalog.system.SystemCatalog;
 import se.kuseman.payloadbuilder.core.common.SortItem;
 import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
 import se.kuseman.payloadbuilder.core.execution.QuerySession;
 import se.kuseman.payloadbuilder.core.expression.AExpressionTest;
+import se.kuseman.payloadbuilder.core.expression.FunctionCallExpression;
 
 /** Base class for physical plan tests */
 public abstract class APhysicalPlanTest extends AExpressionTest
@@ -161,6 +169,94 @@ public TupleIterator execute(IExecutionContext context)
         };
     }
 
+    /** Create a plan that scans provided vectors. Schema is taken from the first vector */
+    protected IPhysicalPlan scanVectors(List<TupleVector> vectors)
+    {
+        return scanVectors(schemaDS(() ->
+        {
+        }, vectors.toArray(new TupleVector[0])), vectors.get(0)
+                .getSchema());
+    }
+
+    /** Create a system scalar function call expression */
+    protected FunctionCallExpression func(String name, IExpression... arguments)
+    {
+        return new FunctionCallExpression("", SystemCatalog.get()
+                .getScalarFunction(name), null, asList(arguments));
+    }
+
+    /**
+     * Create vectors with random data according to schema. First column is a key column with nulls and duplicates in range [0, keyCount), second column is a string column with a unique row value
+     * and nulls and an optional third column is a double column with nulls. Random is seeded so the same arguments yields the same vectors.
+     */
+    protected List<TupleVector> randomVectors(Schema schema, int vectorCount, int rowCount, int keyCount)
+    {
+        int columnCount = schema.getSize();
+        Random random = new Random(4711);
+        List<TupleVector> result = new ArrayList<>(vectorCount);
+        int row = 0;
+        for (int i = 0; i < vectorCount; i++)
+        {
+            Object[][] values = new Object[columnCount][rowCount];
+            for (int j = 0; j < rowCount; j++)
+            {
+                values[0][j] = row % 11 == 0 ? null
+                        : random.nextInt(keyCount);
+                values[1][j] = row % 13 == 0 ? null
+                        : "value" + row;
+                if (columnCount > 2)
+                {
+                    values[2][j] = row % 17 == 0 ? null
+                            : (double) random.nextInt(1000);
+                }
+                row++;
+            }
+            List<ValueVector> columns = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++)
+            {
+                columns.add(vv(schema.getColumns()
+                        .get(c)
+                        .getType()
+                        .getType(), values[c]));
+            }
+            result.add(TupleVector.of(schema, columns));
+        }
+        return result;
+    }
+
+    /** Execute plan and return a list with string representations of all rows in output order */
+    protected List<String> rows(IPhysicalPlan plan)
+    {
+        TupleVector vector = PlanUtils.concat(context, plan.execute(context));
+        int rowCount = vector.getRowCount();
+        int columnCount = vector.getSchema()
+                .getSize();
+        List<String> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (int c = 0; c < columnCount; c++)
+            {
+                if (c > 0)
+                {
+                    sb.append(",");
+                }
+                sb.append(vector.getColumn(c)
+                        .valueAsString(i));
+            }
+            rows.add(sb.toString());
+        }
+        return rows;
+    }
+
+    /** Execute plan and return a sorted list with string representations of all rows. Used for operators whose output order is undefined */
+    protected List<String> sortedRows(IPhysicalPlan plan)
+    {
+        List<String> rows = rows(plan);
+        Collections.sort(rows);
+        return rows;
+    }
+
     protected IPhysicalPlan scan(IDatasource ds, TableSourceReference tableSource, Schema schema)
     {
         return new TableScan(0, schema, tableSource, "", ds, emptyList());
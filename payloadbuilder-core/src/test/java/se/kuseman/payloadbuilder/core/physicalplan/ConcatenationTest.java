@@ -1,18 +1,31 @@
 package se.kuseman.payloadbuilder.core.physicalplan;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.junit.jupiter.api.Test;
 
 import se.kuseman.payloadbuilder.api.catalog.Column.Type;
 import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.physicalplan.Concatenation.ExecutionMode;
 
 /** Test of {@link Concatenation} */
 class ConcatenationTest extends APhysicalPlanTest
@@ -50,4 +63,199 @@ void test()
         assertTrue(closed2.booleanValue());
         assertTrue(closed3.booleanValue());
     }
+
+    @Test
+    void test_concurrent_input_order()
+    {
+        MutableBoolean closed1 = new MutableBoolean();
+        MutableBoolean closed2 = new MutableBoolean();
+        MutableBoolean closed3 = new MutableBoolean();
+
+        Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table));
+        IPhysicalPlan input1 = scanVectors(schemaDS(() -> closed1.setTrue(), vectors(schema, 0, 10)), schema);
+        IPhysicalPlan input2 = scanVectors(schemaDS(() -> closed2.setTrue(), vectors(schema, 100, 10)), schema);
+        IPhysicalPlan input3 = scanVectors(schemaDS(() -> closed3.setTrue(), vectors(schema, 200, 10)), schema);
+
+        Concatenation plan = new Concatenation(1, schema, asList(input1, input2, input3), ExecutionMode.CONCURRENT_INPUT_ORDER);
+        assertEquals(ExecutionMode.CONCURRENT_INPUT_ORDER, plan.getDescribeProperties(context)
+                .get("Execution Mode"));
+
+        TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+        assertEquals(schema, actual.getSchema());
+        assertEquals(expectedValues(10, 0, 100, 200), values(actual));
+
+        assertTrue(closed1.booleanValue());
+        assertTrue(closed2.booleanValue());
+        assertTrue(closed3.booleanValue());
+    }
+
+    @Test
+    void test_concurrent_arrival_order()
+    {
+        MutableBoolean closed1 = new MutableBoolean();
+        MutableBoolean closed2 = new MutableBoolean();
+
+        Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table));
+        IPhysicalPlan input1 = scanVectors(schemaDS(() -> closed1.setTrue(), vectors(schema, 0, 20)), schema);
+        IPhysicalPlan input2 = scanVectors(schemaDS(() -> closed2.setTrue(), vectors(schema, 100, 20)), schema);
+
+        Concatenation plan = new Concatenation(1, schema, asList(input1, input2), ExecutionMode.CONCURRENT_ARRIVAL_ORDER);
+
+        TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+        List<Integer> actualValues = values(actual);
+        Collections.sort(actualValues);
+        assertEquals(expectedValues(20, 0, 100), actualValues);
+
+        assertTrue(closed1.booleanValue());
+        assertTrue(closed2.booleanValue());
+    }
+
+    @Test
+    void test_concurrent_error_is_propagated()
+    {
+        Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table));
+        IPhysicalPlan input1 = scanVectors(schemaDS(() ->
+        {
+        }, vectors(schema, 0, 2)), schema);
+        IPhysicalPlan input2 = new IPhysicalPlan()
+        {
+            @Override
+            public int getNodeId()
+            {
+                return 3;
+            }
+
+            @Override
+            public Schema getSchema()
+            {
+                return schema;
+            }
+
+            @Override
+            public TupleIterator execute(IExecutionContext context)
+            {
+                throw new IllegalArgumentException("Boom");
+            }
+
+            @Override
+            public List<IPhysicalPlan> getChildren()
+            {
+                return emptyList();
+            }
+        };
+
+        for (ExecutionMode mode : asList(ExecutionMode.CONCURRENT_INPUT_ORDER, ExecutionMode.CONCURRENT_ARRIVAL_ORDER))
+        {
+            TupleIterator it = new Concatenation(1, schema, asList(input1, input2), mode).execute(context);
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PlanUtils.concat(context, it));
+            assertEquals("Boom", e.getMessage());
+            it.close();
+        }
+    }
+
+    @Test
+    void test_concurrent_close_before_inputs_are_drained()
+    {
+        MutableBoolean closed1 = new MutableBoolean();
+        MutableBoolean closed2 = new MutableBoolean();
+
+        Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table));
+        IPhysicalPlan input1 = scanVectors(schemaDS(() -> closed1.setTrue(), vectors(schema, 0, 50)), schema);
+        IPhysicalPlan input2 = scanVectors(schemaDS(() -> closed2.setTrue(), vectors(schema, 100, 50)), schema);
+
+        TupleIterator it = new Concatenation(1, schema, asList(input1, input2), ExecutionMode.CONCURRENT_INPUT_ORDER).execute(context);
+        assertTrue(it.hasNext());
+        assertEquals(0, it.next()
+                .getColumn(0)
+                .getInt(0));
+        it.close();
+
+        // Close waits for all inputs to complete
+        assertTrue(closed1.booleanValue());
+        assertTrue(closed2.booleanValue());
+    }
+
+    @Test
+    void test_concurrent_abort_query()
+    {
+        Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table));
+        IPhysicalPlan input1 = scanVectors(schemaDS(() ->
+        {
+        }, vectors(schema, 0, 2)), schema);
+        IPhysicalPlan input2 = scanVectors(schemaDS(() ->
+        {
+        }, vectors(schema, 100, 2)), schema);
+
+        session.setAbortSupplier(() -> true);
+        TupleIterator it = new Concatenation(1, schema, asList(input1, input2), ExecutionMode.CONCURRENT_INPUT_ORDER).execute(context);
+        assertFalse(it.hasNext());
+        it.close();
+    }
+
+    @Test
+    void test_nested_concurrent_on_single_thread_pool()
+    {
+        // Consumers block on producers in the same pool, the fork join pool must compensate for the blocked threads or this deadlocks
+        ForkJoinPool pool = new ForkJoinPool(1);
+        session.setExecutorService(pool);
+        try
+        {
+            Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table));
+            List<IPhysicalPlan> inputs = new ArrayList<>();
+            for (int i = 0; i < 2; i++)
+            {
+                IPhysicalPlan input1 = scanVectors(schemaDS(() ->
+                {
+                }, vectors(schema, i * 1000, 20)), schema);
+                IPhysicalPlan input2 = scanVectors(schemaDS(() ->
+                {
+                }, vectors(schema, i * 1000 + 100, 20)), schema);
+                inputs.add(new Concatenation(2 + i, schema, asList(input1, input2), ExecutionMode.CONCURRENT_INPUT_ORDER));
+            }
+            Concatenation plan = new Concatenation(1, schema, inputs, ExecutionMode.CONCURRENT_INPUT_ORDER);
+
+            TupleVector actual = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> pool.submit(() -> PlanUtils.concat(context, plan.execute(context)))
+                    .get());
+            assertEquals(expectedValues(20, 0, 100, 1000, 1100), values(actual));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Create vectors with one row each starting at provided value */
+    private TupleVector[] vectors(Schema schema, int start, int count)
+    {
+        TupleVector[] vectors = new TupleVector[count];
+        for (int i = 0; i < count; i++)
+        {
+            vectors[i] = TupleVector.of(schema, asList(vv(Type.Int, start + i)));
+        }
+        return vectors;
+    }
+
+    private List<Integer> expectedValues(int count, int... starts)
+    {
+        List<Integer> result = new ArrayList<>();
+        for (int start : starts)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                result.add(start + i);
+            }
+        }
+        return result;
+    }
+
+    private List<Integer> values(TupleVector vector)
+    {
+        List<Integer> result = new ArrayList<>(vector.getRowCount());
+        for (int i = 0; i < vector.getRowCount(); i++)
+        {
+            result.add(vector.getColumn(0)
+                    .getInt(i));
+        }
+        return result;
+    }
 }
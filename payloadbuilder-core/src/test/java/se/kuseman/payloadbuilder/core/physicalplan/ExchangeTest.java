@@ -0,0 +1,320 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ISortItem.NullOrder;
+import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.NodeData;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.QueryException;
+
+/** Test of {@link Exchange} */
+class ExchangeTest extends APhysicalPlanTest
+{
+    private final Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table));
+
+    @Test
+    void test()
+    {
+        MutableBoolean closed = new MutableBoolean();
+        AtomicReference<Thread> producerThread = new AtomicReference<>();
+        TupleVector[] vectors = new TupleVector[10];
+        for (int i = 0; i < vectors.length; i++)
+        {
+            vectors[i] = TupleVector.of(schema, asList(vv(Type.Int, i * 2, i * 2 + 1)));
+        }
+        IPhysicalPlan input = scanVectors(schemaDS(() -> closed.setTrue(), vectors), schema, () -> producerThread.set(Thread.currentThread()));
+
+        Exchange plan = new Exchange(1, input, 2);
+        assertEquals(schema, plan.getSchema());
+
+        TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+        assertVectorsEquals(vv(Type.Int, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19), actual.getColumn(0));
+        assertTrue(closed.isTrue());
+        assertNotSame(Thread.currentThread(), producerThread.get());
+
+        Map<String, Object> properties = plan.getDescribeProperties(context);
+        assertEquals(2, properties.get("Queue Size"));
+        assertTrue(properties.containsKey("Producer Wait Time"));
+        assertTrue(properties.containsKey("Consumer Wait Time"));
+    }
+
+    @Test
+    void test_empty_input()
+    {
+        MutableBoolean closed = new MutableBoolean();
+        Exchange plan = new Exchange(1, scanVectors(schemaDS(() -> closed.setTrue()), schema));
+
+        TupleIterator it = plan.execute(context);
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, () -> it.next());
+        it.close();
+        assertTrue(closed.isTrue());
+    }
+
+    @Test
+    void test_error_in_input_is_propagated()
+    {
+        IPhysicalPlan input = new TestPlan(2)
+        {
+            @Override
+            public TupleIterator execute(IExecutionContext context)
+            {
+                throw new IllegalArgumentException("Boom");
+            }
+        };
+
+        TupleIterator it = new Exchange(1, input).execute(context);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> it.hasNext());
+        assertEquals("Boom", e.getMessage());
+        it.close();
+    }
+
+    @Test
+    void test_checked_error_in_input_is_wrapped()
+    {
+        IPhysicalPlan input = new TestPlan(2)
+        {
+            @Override
+            public TupleIterator execute(IExecutionContext context)
+            {
+                return new TupleIterator()
+                {
+                    @Override
+                    public TupleVector next()
+                    {
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return sneakyThrow(new Exception("Checked"));
+                    }
+                };
+            }
+        };
+
+        TupleIterator it = new Exchange(1, input).execute(context);
+        QueryException e = assertThrows(QueryException.class, () -> it.hasNext());
+        assertEquals("Checked", e.getCause()
+                .getMessage());
+        it.close();
+    }
+
+    @Test
+    void test_close_before_input_is_drained()
+    {
+        MutableBoolean closed = new MutableBoolean();
+        AtomicInteger produced = new AtomicInteger();
+        IPhysicalPlan input = new TestPlan(2)
+        {
+            @Override
+            public TupleIterator execute(IExecutionContext context)
+            {
+                return new TupleIterator()
+                {
+                    @Override
+                    public TupleVector next()
+                    {
+                        produced.incrementAndGet();
+                        return TupleVector.of(schema, asList(vv(Type.Int, 1)));
+                    }
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        // Endless input
+                        return true;
+                    }
+
+                    @Override
+                    public void close()
+                    {
+                        closed.setTrue();
+                    }
+                };
+            }
+        };
+
+        TupleIterator it = new Exchange(1, input, 1).execute(context);
+        assertTrue(it.hasNext());
+        it.next();
+        it.close();
+
+        // Close waits for the producer to complete
+        assertTrue(closed.isTrue());
+        assertTrue(produced.get() >= 1);
+    }
+
+    @Test
+    void test_abort_query()
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        IPhysicalPlan input = new TestPlan(2)
+        {
+            @Override
+            public TupleIterator execute(IExecutionContext context)
+            {
+                try
+                {
+                    latch.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread()
+                            .interrupt();
+                }
+                return TupleIterator.EMPTY;
+            }
+        };
+
+        TupleIterator it = new Exchange(1, input).execute(context);
+        session.setAbortSupplier(() -> true);
+        try
+        {
+            // Consumer stops waiting when query is aborted
+            assertFalse(it.hasNext());
+        }
+        finally
+        {
+            latch.countDown();
+            it.close();
+        }
+    }
+
+    @Test
+    void test_node_data_is_merged()
+    {
+        AtomicReference<Object> workerStatementContext = new AtomicReference<>();
+        IPhysicalPlan input = new TestPlan(2)
+        {
+            @Override
+            public TupleIterator execute(IExecutionContext context)
+            {
+                workerStatementContext.set(context.getStatementContext());
+                NodeData data = context.getStatementContext()
+                        .getOrCreateNodeData(2);
+                data.increaseExecutionCount();
+                return TupleIterator.singleton(TupleVector.of(schema, asList(vv(Type.Int, 1, 2))));
+            }
+        };
+
+        Exchange plan = new Exchange(1, input);
+        TupleIterator it = plan.execute(context);
+        assertTrue(it.hasNext());
+        it.next();
+        assertFalse(it.hasNext());
+        it.close();
+
+        assertNotSame(context.getStatementContext(), workerStatementContext.get());
+        NodeData data = context.getStatementContext()
+                .getNodeData(2);
+        assertEquals(1, data.getExecutionCount());
+
+        // Second execution merges into existing data
+        PlanUtils.concat(context, plan.execute(context));
+        assertSame(data, context.getStatementContext()
+                .getNodeData(2));
+        assertEquals(2, data.getExecutionCount());
+    }
+
+    @Test
+    void test_operator_node_data_is_merged()
+    {
+        Schema sortSchema = Schema.of(col("col1", ResolvedType.of(Type.Int), table), col("col2", ResolvedType.of(Type.String), table));
+        Sort sort = new Sort(2, scanVectors(randomVectors(sortSchema, 5, 1_000, 500)), asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED)), 1);
+        Exchange plan = new Exchange(1, sort);
+
+        assertEquals(5_000, PlanUtils.concat(context, plan.execute(context))
+                .getRowCount());
+        assertEquals(5, sort.getDescribeProperties(context)
+                .get("Spilled Runs"));
+
+        // Sort statistics from the second worker should be added to the existing data
+        assertEquals(5_000, PlanUtils.concat(context, plan.execute(context))
+                .getRowCount());
+        Map<String, Object> properties = sort.getDescribeProperties(context);
+        assertEquals(10, properties.get("Spilled Runs"));
+        assertEquals(10_000L, properties.get("Spilled Rows"));
+    }
+
+    @Test
+    void test_describe_without_execution()
+    {
+        Exchange plan = new Exchange(1, scanVectors(schemaDS(() ->
+        {
+        }), schema));
+        assertEquals(Map.of("Queue Size", Exchange.DEFAULT_QUEUE_SIZE), plan.getDescribeProperties(context));
+        assertNull(context.getStatementContext()
+                .getNodeData(1));
+        assertThrows(IllegalArgumentException.class, () -> new Exchange(1, plan, 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> boolean sneakyThrow(Throwable e) throws E
+    {
+        throw (E) e;
+    }
+
+    /** Base plan used in tests */
+    private class TestPlan implements IPhysicalPlan
+    {
+        private final int nodeId;
+
+        TestPlan(int nodeId)
+        {
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public int getNodeId()
+        {
+            return nodeId;
+        }
+
+        @Override
+        public Schema getSchema()
+        {
+            return schema;
+        }
+
+        @Override
+        public TupleIterator execute(IExecutionContext context)
+        {
+            return TupleIterator.EMPTY;
+        }
+
+        @Override
+        public List<IPhysicalPlan> getChildren()
+        {
+            return emptyList();
+        }
+    }
+}
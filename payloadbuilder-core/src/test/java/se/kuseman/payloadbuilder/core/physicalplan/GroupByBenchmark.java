@@ -0,0 +1,187 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import se.kuseman.payloadbuilder.api.QualifiedName;
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.UTF8String;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
+import se.kuseman.payloadbuilder.core.catalog.system.SystemCatalog;
+import se.kuseman.payloadbuilder.core.expression.AggregateWrapperExpression;
+import se.kuseman.payloadbuilder.core.expression.ColumnExpression;
+import se.kuseman.payloadbuilder.core.expression.FunctionCallExpression;
+import se.kuseman.payloadbuilder.core.expression.IAggregateExpression;
+
+/**
+ * Benchmark of {@link HashAggregate} grouping on a single column. Int and String keys uses the specialized primitive group tables and Any keys (with the same int values) uses the generic
+ * {@link GroupKey} table.
+ */
+//CSOFF
+@BenchmarkMode({ Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(
+        value = 1,
+        warmups = 2,
+        jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(
+        iterations = 3,
+        time = 5)
+@Warmup(
+        iterations = 2,
+        time = 5)
+public class GroupByBenchmark extends APhysicalPlanTest
+{
+    private static final TableSourceReference TS = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("table"), "");
+
+    //@formatter:off
+    @Param({
+        "1000000;100",
+        "1000000;10000",
+        "1000000;500000",
+    })
+    //@formatter:on
+    private String testData;
+
+    @Param({ "Int", "String", "Any" })
+    private String keyType;
+
+    private Schema schema;
+    private TupleVector vector;
+    private List<IExpression> aggregateExpressions;
+    private List<IAggregateExpression> projections;
+
+    @Setup
+    public void setup()
+    {
+        Random r = new Random(4711);
+
+        String[] parts = testData.split(";");
+
+        int size = Integer.parseInt(parts[0]);
+        int randomizeBound = Integer.parseInt(parts[1]);
+
+        Type type = Type.valueOf(keyType);
+        int[] values = new int[size];
+        UTF8String[] strings = new UTF8String[size];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = r.nextInt(randomizeBound);
+            strings[i] = UTF8String.from("key" + values[i]);
+        }
+
+        schema = Schema.of(Column.of("col1", type));
+        vector = TupleVector.of(schema, List.of(new ValueVector()
+        {
+            @Override
+            public ResolvedType type()
+            {
+                return ResolvedType.of(type);
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+
+            @Override
+            public boolean isNull(int row)
+            {
+                return false;
+            }
+
+            @Override
+            public int getInt(int row)
+            {
+                return values[row];
+            }
+
+            @Override
+            public UTF8String getString(int row)
+            {
+                return strings[row];
+            }
+
+            @Override
+            public Object getAny(int row)
+            {
+                return values[row];
+            }
+        }));
+
+        IExpression col1 = ColumnExpression.Builder.of("col1", ResolvedType.of(type))
+                .withOrdinal(0)
+                .build();
+        aggregateExpressions = List.of(col1);
+        projections = List.of(new AggregateWrapperExpression(col1, true, false), new FunctionCallExpression("", SystemCatalog.get()
+                .getScalarFunction("count"), null, List.of(col1)));
+    }
+
+    @Benchmark
+    public void hashAggregate(Blackhole bh)
+    {
+        //@formatter:off
+        HashAggregate plan = new HashAggregate(
+                0,
+                scan(schemaDS(() ->{}, vector), TS, schema, 1000),
+                aggregateExpressions,
+                projections,
+                null);
+        //@formatter:on
+        consume(plan.execute(context), bh);
+    }
+
+    private void consume(TupleIterator it, Blackhole bh)
+    {
+        while (it.hasNext())
+        {
+            TupleVector next = it.next();
+            int size = next.getRowCount();
+            ValueVector column = next.getColumn(1);
+            for (int j = 0; j < size; j++)
+            {
+                bh.consume(column.getInt(j));
+            }
+        }
+        it.close();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder().include(GroupByBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
+// CSON
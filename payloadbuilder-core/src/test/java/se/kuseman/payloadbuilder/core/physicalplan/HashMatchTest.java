@@ -10,6 +10,7 @@
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -35,28 +36,34 @@
 /** Test of {@link HashMatch} */
 class HashMatchTest extends AJoinTest
 {
+    /** Number of partitions to use for created hash matches */
+    int getPartitionCount()
+    {
+        return 1;
+    }
+
     @Override
     IPhysicalPlan createInnerJoin(IPhysicalPlan outer, IPhysicalPlan inner, BiFunction<TupleVector, IExecutionContext, ValueVector> predicate, String populateAlias)
     {
-        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, false, false);
+        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, false, false, getPartitionCount());
     }
 
     @Override
     IPhysicalPlan createLeftJoin(IPhysicalPlan outer, IPhysicalPlan inner, BiFunction<TupleVector, IExecutionContext, ValueVector> predicate, String populateAlias)
     {
-        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, true, false);
+        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, true, false, getPartitionCount());
     }
 
     @Override
     protected IPhysicalPlan createIndexInnerJoin(IPhysicalPlan outer, IPhysicalPlan inner, BiFunction<TupleVector, IExecutionContext, ValueVector> predicate, String populateAlias)
     {
-        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, false, true);
+        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, false, true, getPartitionCount());
     }
 
     @Override
     protected IPhysicalPlan createIndexLeftJoin(IPhysicalPlan outer, IPhysicalPlan inner, BiFunction<TupleVector, IExecutionContext, ValueVector> predicate, String populateAlias)
     {
-        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, true, true);
+        return new HashMatch(0, outer, inner, List.of(ce("col1")), List.of(ce("col3")), predicate, populateAlias, true, true, getPartitionCount());
     }
 
     @Test
@@ -1067,6 +1074,84 @@ void test_inner_join_no_populate_multiple_outer_vectors_smaller_inner()
         assertTrue(outerClosed.get());
     }
 
+    @Test
+    void test_inner_join_unknown_sizes_observed_smaller_inner()
+    {
+        AtomicBoolean outerClosed = new AtomicBoolean();
+        AtomicBoolean innerClosed = new AtomicBoolean();
+
+        //@formatter:off
+        List<TupleVector> outer = asList(
+                TupleVector.of(outerSchema, asList(vv(Type.Any, 0, 1, 2), vv(Type.Any, 4, 5, 6))),
+                TupleVector.of(outerSchema, asList(vv(Type.Any, 0, 10), vv(Type.Any, 40, 50))),
+                TupleVector.of(outerSchema, asList(vv(Type.Any, 0, 20), vv(Type.Any, 70, 90))),
+                TupleVector.of(outerSchema, asList(vv(Type.Any, 3, 4), vv(Type.Any, 7, 8))));
+        //@formatter:on
+        List<TupleVector> inner = asList(TupleVector.of(innerSchema, asList(vv(Type.Any, 0), vv(Type.Any, 1))), TupleVector.of(innerSchema, asList(vv(Type.Any, 0, 1), vv(Type.Any, 2, 3))));
+
+        IDatasource dsOuter = schemaLessDS(() -> outerClosed.set(true), true, outer.toArray(new TupleVector[0]));
+        IDatasource dsInner = schemaLessDS(() -> innerClosed.set(true), true, inner.toArray(new TupleVector[0]));
+
+        IPhysicalPlan plan = createInnerJoin(scanVectors(dsOuter, outerSchemaLess), scanVectors(dsInner, innerSchemaLess), (tv, ctx) -> predicate.eval(tv, ctx), null);
+
+        TupleIterator it = plan.execute(context);
+        TupleVector actual = PlanUtils.concat(context, it);
+
+        // Same result as when sizes are known, inner is observed to be smaller and is hashed
+        assertVectorsEquals(vv(Type.Any, 0, 0, 1, 0, 0, 0, 0), actual.getColumn(0));
+        assertVectorsEquals(vv(Type.Any, 4, 4, 5, 40, 40, 70, 70), actual.getColumn(1));
+        assertVectorsEquals(vv(Type.Any, 0, 0, 1, 0, 0, 0, 0), actual.getColumn(2));
+        assertVectorsEquals(vv(Type.Any, 1, 2, 3, 1, 2, 1, 2), actual.getColumn(3));
+
+        Map<String, Object> properties = plan.getDescribeProperties(context);
+        assertEquals("Inner", properties.get("Hash Side"));
+        assertEquals("Observed (Outer: >= 5, Inner: 3)", properties.get("Hash Side Decision"));
+
+        assertTrue(innerClosed.get());
+        assertTrue(outerClosed.get());
+    }
+
+    @Test
+    void test_inner_join_unknown_sizes_observe_limit_reached()
+    {
+        int rowCount = HashMatch.OBSERVE_ROW_LIMIT;
+        TupleVector outerVector = TupleVector.of(outerSchema, asList(ValueVector.literalAny(rowCount, 1), ValueVector.literalAny(rowCount, 2)));
+        TupleVector innerVector = TupleVector.of(innerSchema, asList(ValueVector.literalAny(rowCount, 3), ValueVector.literalAny(rowCount, 4)));
+
+        IDatasource dsOuter = schemaLessDS(() -> {}, true, outerVector, outerVector, outerVector);
+        IDatasource dsInner = schemaLessDS(() -> {}, true, innerVector, innerVector, innerVector);
+
+        IPhysicalPlan plan = createInnerJoin(scanVectors(dsOuter, outerSchemaLess), scanVectors(dsInner, innerSchemaLess), (tv, ctx) -> predicate.eval(tv, ctx), null);
+
+        TupleIterator it = plan.execute(context);
+        assertFalse(it.hasNext());
+        it.close();
+
+        // Neither side is known within the limit => inner is hashed
+        Map<String, Object> properties = plan.getDescribeProperties(context);
+        assertEquals("Inner", properties.get("Hash Side"));
+        assertEquals("Observed (Outer: >= 10000, Inner: >= 10000)", properties.get("Hash Side Decision"));
+    }
+
+    @Test
+    void test_inner_join_known_sizes_estimated_decision()
+    {
+        List<TupleVector> outer = asList(TupleVector.of(outerSchema, asList(vv(Type.Any, 0, 1), vv(Type.Any, 4, 5))));
+        List<TupleVector> inner = asList(TupleVector.of(innerSchema, asList(vv(Type.Any, 0, 1, 2), vv(Type.Any, 1, 2, 3))));
+
+        IDatasource dsOuter = schemaLessDS(() -> {}, false, outer.toArray(new TupleVector[0]));
+        IDatasource dsInner = schemaLessDS(() -> {}, false, inner.toArray(new TupleVector[0]));
+
+        IPhysicalPlan plan = createInnerJoin(scanVectors(dsOuter, outerSchemaLess), scanVectors(dsInner, innerSchemaLess), (tv, ctx) -> predicate.eval(tv, ctx), null);
+
+        TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+        assertEquals(2, actual.getRowCount());
+
+        Map<String, Object> properties = plan.getDescribeProperties(context);
+        assertEquals("Outer", properties.get("Hash Side"));
+        assertEquals("Estimated", properties.get("Hash Side Decision"));
+    }
+
     @Test
     void test_inner_join_no_populate_multiple_inner_vectors_smaller_outer()
     {
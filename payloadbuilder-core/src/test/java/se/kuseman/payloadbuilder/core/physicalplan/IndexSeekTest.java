@@ -4,14 +4,19 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -29,10 +34,16 @@
 import se.kuseman.payloadbuilder.api.catalog.Schema;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
 import se.kuseman.payloadbuilder.api.execution.ISeekPredicate;
+import se.kuseman.payloadbuilder.api.execution.NodeData;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.core.cache.Cache;
 import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
+import se.kuseman.payloadbuilder.core.execution.StatementContext;
+import se.kuseman.payloadbuilder.core.expression.LiteralBooleanExpression;
 import se.kuseman.payloadbuilder.core.expression.LiteralIntegerExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralStringExpression;
 import se.kuseman.payloadbuilder.test.VectorTestUtils;
 
 /** Test of {@link IndexSeek} */
@@ -269,4 +280,280 @@ else if (closedCount.get() == 1)
         assertEquals(5, rowCount);
         assertEquals(3, closedCount.get());
     }
+
+    @Test
+    void test_batch_prefetch_ordered()
+    {
+        AtomicInteger closedCount = new AtomicInteger(0);
+        IndexSeek is = prefetchIndexSeek(closedCount, true);
+
+        TupleIterator it = is.execute(context);
+        assertEquals(10, it.estimatedBatchCount());
+        assertEquals(10, it.estimatedRowCount());
+
+        // Later batches completes first but should be delivered in seek key order
+        assertEquals(List.of(10, 20, 30, 40, 50, 60, 70, 80, 90, 100), values(it));
+        it.close();
+        assertEquals(10, closedCount.get());
+
+        Map<String, Object> properties = is.getDescribeProperties(context);
+        assertEquals(3, properties.get("Prefetch Batches"));
+        assertEquals(true, properties.get("Prefetch Ordered"));
+        assertEquals(10L, properties.get("Batch Count"));
+        assertEquals(3, properties.get("Max. In Flight"));
+        assertTrue(properties.containsKey("Avg. Batch Latency"));
+
+        // Prefetch statistics should not touch the data sources node data
+        DatasourceNodeData data = context.getStatementContext()
+                .getNodeData(0);
+        assertEquals(10, data.requestCount);
+    }
+
+    @Test
+    void test_batch_prefetch_unordered()
+    {
+        AtomicInteger closedCount = new AtomicInteger(0);
+        IndexSeek is = prefetchIndexSeek(closedCount, false);
+
+        TupleIterator it = is.execute(context);
+        List<Integer> actual = values(it);
+        it.close();
+        Collections.sort(actual);
+        assertEquals(List.of(10, 20, 30, 40, 50, 60, 70, 80, 90, 100), actual);
+        assertEquals(10, closedCount.get());
+        assertEquals(false, is.getDescribeProperties(context)
+                .get("Prefetch Ordered"));
+    }
+
+    @Test
+    void test_batch_prefetch_error_is_propagated()
+    {
+        TableSourceReference tsf = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tbl"), "t");
+        Schema schema = Schema.of(Column.of("col1", Type.Int));
+        IDatasource ds = schemaLessDS(() ->
+        {
+        }, ctx ->
+        {
+            int key = seekKey(ctx);
+            if (key == 4)
+            {
+                throw new IllegalArgumentException("Boom");
+            }
+            return new TupleVector[] { TupleVector.of(schema, vv(Type.Int, key)) };
+        });
+        ISeekPredicate predicate = mock(ISeekPredicate.class);
+        when(predicate.getSeekKeys(context)).thenReturn(List.of(() -> VectorTestUtils.vv(Type.Int, 1, 2, 3, 4, 5)));
+
+        IndexSeek is = new IndexSeek(0, Schema.EMPTY, tsf, "", predicate, ds, prefetchOptions(2, true));
+
+        TupleIterator it = is.execute(context);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> values(it));
+        assertEquals("Boom", e.getMessage());
+        it.close();
+    }
+
+    @Test
+    void test_batch_prefetch_abort_query()
+    {
+        AtomicInteger closedCount = new AtomicInteger(0);
+        IndexSeek is = prefetchIndexSeek(closedCount, true);
+
+        session.setAbortSupplier(() -> true);
+        TupleIterator it = is.execute(context);
+        assertFalse(it.hasNext());
+        it.close();
+    }
+
+    @Test
+    void test_seek_cache()
+    {
+        TableSourceReference tsf = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tbl"), "t");
+        Schema schema = Schema.of(Column.of("col1", Type.Int), Column.of("col2", Type.String));
+        List<List<Integer>> requestedKeys = new ArrayList<>();
+        IDatasource ds = schemaLessDS(() ->
+        {
+        }, ctx ->
+        {
+            // Return two rows per key except for key 3 that has no rows
+            ValueVector keys = ((StatementContext) ctx.getStatementContext()).getIndexSeekKeys(0)
+                    .get(0)
+                    .getValue();
+            List<Integer> keyList = new ArrayList<>();
+            List<Object> col1 = new ArrayList<>();
+            List<Object> col2 = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++)
+            {
+                int key = keys.getInt(i);
+                keyList.add(key);
+                if (key != 3)
+                {
+                    col1.add(key);
+                    col2.add("a" + key);
+                    col1.add(key);
+                    col2.add("b" + key);
+                }
+            }
+            requestedKeys.add(keyList);
+            return new TupleVector[] { TupleVector.of(schema, List.of(vv(Type.Int, col1.toArray()), vv(Type.String, col2.toArray()))) };
+        });
+
+        ISeekPredicate predicate = mock(ISeekPredicate.class);
+        when(predicate.getIndexColumns()).thenReturn(List.of("col1"));
+        List<Option> options = List.of(new Option(IndexSeek.SEEK_CACHE_TTL, new LiteralStringExpression("PT10m")));
+
+        when(predicate.getSeekKeys(context)).thenReturn(List.of(() -> VectorTestUtils.vv(Type.Int, 1, 2, 3)));
+        IndexSeek is = new IndexSeek(0, Schema.EMPTY, tsf, "", predicate, ds, options);
+        assertEquals(List.of("1,a1", "1,b1", "2,a2", "2,b2"), rows(PlanUtils.concat(context, is.execute(context))));
+        assertEquals(List.of(List.of(1, 2, 3)), requestedKeys);
+
+        // Clear context cached keys between executions
+        context.getStatementContext()
+                .setIndexSeekKeys(0, null);
+
+        // Only the missing key is sent to data source, key 3 is cached as empty
+        when(predicate.getSeekKeys(context)).thenReturn(List.of(() -> VectorTestUtils.vv(Type.Int, 2, 3, 4)));
+        assertEquals(List.of("2,a2", "2,b2", "4,a4", "4,b4"), rows(PlanUtils.concat(context, is.execute(context))));
+        assertEquals(List.of(List.of(1, 2, 3), List.of(4)), requestedKeys);
+
+        context.getStatementContext()
+                .setIndexSeekKeys(0, null);
+
+        // All keys cached, data source is not executed
+        when(predicate.getSeekKeys(context)).thenReturn(List.of(() -> VectorTestUtils.vv(Type.Int, 1, 4)));
+        assertEquals(List.of("1,a1", "1,b1", "4,a4", "4,b4"), rows(PlanUtils.concat(context, is.execute(context))));
+        assertEquals(2, requestedKeys.size());
+
+        Cache cache = session.getSeekCache()
+                .getCache(QualifiedName.of("tbl", "col1"));
+        assertEquals(4, cache.getSize());
+        assertEquals(4, cache.getCacheHits());
+        assertEquals(4, cache.getCacheMisses());
+        assertEquals("PT10M", is.getDescribeProperties(context)
+                .get("Seek Cache TTL"));
+    }
+
+    @Test
+    void test_seek_cache_unmappable_rows_are_not_cached()
+    {
+        TableSourceReference tsf = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tbl"), "t");
+        Schema schema = Schema.of(Column.of("col1", Type.String));
+        AtomicInteger executeCount = new AtomicInteger();
+        // Data source that compares case insensitive
+        IDatasource ds = schemaLessDS(() -> executeCount.incrementAndGet(), ctx -> new TupleVector[] { TupleVector.of(schema, vv(Type.String, "ABC")) });
+
+        ISeekPredicate predicate = mock(ISeekPredicate.class);
+        when(predicate.getIndexColumns()).thenReturn(List.of("col1"));
+        when(predicate.getSeekKeys(context)).thenReturn(List.of(() -> VectorTestUtils.vv(Type.String, "abc")));
+        List<Option> options = List.of(new Option(IndexSeek.SEEK_CACHE_TTL, new LiteralStringExpression("PT10m")),
+                new Option(IndexSeek.SEEK_CACHE_NAME, new LiteralStringExpression("my_cache")));
+        IndexSeek is = new IndexSeek(0, Schema.EMPTY, tsf, "", predicate, ds, options);
+
+        assertEquals(List.of("ABC"), rows(PlanUtils.concat(context, is.execute(context))));
+        context.getStatementContext()
+                .setIndexSeekKeys(0, null);
+        assertEquals(List.of("ABC"), rows(PlanUtils.concat(context, is.execute(context))));
+        assertEquals(2, executeCount.get());
+        assertEquals(0, session.getSeekCache()
+                .getCache(QualifiedName.of("my_cache"))
+                .getSize());
+    }
+
+    /** Return sorted string representations of all rows */
+    private List<String> rows(TupleVector vector)
+    {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < vector.getRowCount(); i++)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (int c = 0; c < vector.getSchema()
+                    .getSize(); c++)
+            {
+                sb.append(vector.getColumn(c)
+                        .valueAsString(i))
+                        .append(c < vector.getSchema()
+                                .getSize() - 1 ? ","
+                                        : "");
+            }
+            result.add(sb.toString());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /** Create an index seek with 10 seek keys and batch size 1 where the data source returns key * 10. Later batches are faster than earlier. */
+    private IndexSeek prefetchIndexSeek(AtomicInteger closedCount, boolean ordered)
+    {
+        TableSourceReference tsf = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tbl"), "t");
+        Schema schema = Schema.of(Column.of("col1", Type.Int));
+        IDatasource ds = schemaLessDS(() -> closedCount.incrementAndGet(), ctx ->
+        {
+            // Each batch should be executed with it's own statement context
+            assertNotSame(context.getStatementContext(), ctx.getStatementContext());
+            // Data source stores node data of it's own under the seek's node id
+            DatasourceNodeData data = ctx.getStatementContext()
+                    .getOrCreateNodeData(0, DatasourceNodeData::new);
+            data.requestCount++;
+            int key = seekKey(ctx);
+            try
+            {
+                Thread.sleep((10 - key) * 5);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread()
+                        .interrupt();
+            }
+            return new TupleVector[] { TupleVector.of(schema, vv(Type.Int, key * 10)) };
+        });
+        ISeekPredicate predicate = mock(ISeekPredicate.class);
+        when(predicate.getSeekKeys(context)).thenReturn(List.of(() -> VectorTestUtils.vv(Type.Int, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10)));
+        return new IndexSeek(0, Schema.EMPTY, tsf, "", predicate, ds, prefetchOptions(3, ordered), 1);
+    }
+
+    /** Node data of a data source that stores statistics under the node id of the seek */
+    static class DatasourceNodeData extends NodeData
+    {
+        int requestCount;
+
+        @Override
+        public void merge(NodeData nodeData)
+        {
+            super.merge(nodeData);
+            if (nodeData instanceof DatasourceNodeData data)
+            {
+                requestCount += data.requestCount;
+            }
+        }
+    }
+
+    private List<Option> prefetchOptions(int prefetchBatches, boolean ordered)
+    {
+        return List.of(new Option(IExecutionContext.BATCH_SIZE, new LiteralIntegerExpression(1)), new Option(IndexSeek.PREFETCH_BATCHES, new LiteralIntegerExpression(prefetchBatches)),
+                new Option(IndexSeek.PREFETCH_ORDERED, ordered ? LiteralBooleanExpression.TRUE
+                        : LiteralBooleanExpression.FALSE));
+    }
+
+    private int seekKey(IExecutionContext ctx)
+    {
+        ValueVector keys = ((StatementContext) ctx.getStatementContext()).getIndexSeekKeys(0)
+                .get(0)
+                .getValue();
+        assertEquals(1, keys.size());
+        return keys.getInt(0);
+    }
+
+    private List<Integer> values(TupleIterator it)
+    {
+        List<Integer> result = new ArrayList<>();
+        while (it.hasNext())
+        {
+            TupleVector v = it.next();
+            for (int i = 0; i < v.getRowCount(); i++)
+            {
+                result.add(v.getColumn(0)
+                        .getInt(i));
+            }
+        }
+        return result;
+    }
 }
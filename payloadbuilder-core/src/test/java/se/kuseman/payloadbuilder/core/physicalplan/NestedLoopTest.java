@@ -8,6 +8,7 @@
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -22,22 +23,27 @@
 import se.kuseman.payloadbuilder.api.catalog.Column;
 import se.kuseman.payloadbuilder.api.catalog.Column.Type;
 import se.kuseman.payloadbuilder.api.catalog.IDatasource;
+import se.kuseman.payloadbuilder.api.catalog.Option;
 import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.catalog.TableFunctionInfo;
 import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.ITupleVectorBuilder;
 import se.kuseman.payloadbuilder.api.expression.IArithmeticBinaryExpression;
 import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.catalog.CoreColumn;
 import se.kuseman.payloadbuilder.core.catalog.TableSourceReference;
+import se.kuseman.payloadbuilder.core.catalog.system.SystemCatalog;
 import se.kuseman.payloadbuilder.core.common.SchemaUtils;
 import se.kuseman.payloadbuilder.core.expression.AliasExpression;
 import se.kuseman.payloadbuilder.core.expression.ArithmeticBinaryExpression;
 import se.kuseman.payloadbuilder.core.expression.ColumnExpression;
 import se.kuseman.payloadbuilder.core.expression.ComparisonExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralStringExpression;
 import se.kuseman.payloadbuilder.core.parser.Location;
 import se.kuseman.payloadbuilder.test.VectorTestUtils;
 
@@ -1038,6 +1044,78 @@ void test_cross_join_no_populate_single_rows()
         assertEquals(1, innerClosed.get());
     }
 
+    @Test
+    void test_batched_cross_apply()
+    {
+        AtomicInteger outerClosed = new AtomicInteger();
+        IDatasource dsOuter = schemaDS(() -> outerClosed.incrementAndGet(), TupleVector.of(outerSchema, asList(vv(Type.Any, 0, 1, 5), vv(Type.Any, 2, 1, 7))));
+
+        // range(col1, col2) with a batch size of 3 to get multiple inner vectors
+        IPhysicalPlan plan = NestedLoop.innerJoin(2, scan(dsOuter, table, outerSchema), functionScan("range", List.of(oce("col1"), oce("col2")), 3), outerReferences, null, outerSchema);
+        assertEquals(true, plan.getDescribeProperties(context)
+                .get("Batched"));
+
+        TupleIterator it = plan.execute(context);
+        ITupleVectorBuilder builder = context.getVectorFactory()
+                .getTupleVectorBuilder(4);
+        int iterations = 0;
+        while (it.hasNext())
+        {
+            TupleVector next = it.next();
+            assertEquals(3, next.getSchema()
+                    .getSize());
+            builder.append(next);
+            iterations++;
+        }
+        it.close();
+
+        TupleVector actual = builder.build();
+        assertEquals(2, iterations);
+        assertVectorsEquals(vv(Type.Any, 0, 0, 5, 5), actual.getColumn(0));
+        assertVectorsEquals(vv(Type.Any, 2, 2, 7, 7), actual.getColumn(1));
+        assertVectorsEquals(vv(Type.Int, 0, 1, 5, 6), actual.getColumn(2));
+        assertEquals(1, outerClosed.get());
+    }
+
+    @Test
+    void test_batched_outer_apply()
+    {
+        IDatasource dsOuter = schemaDS(() ->
+        {
+        }, TupleVector.of(outerSchema, asList(vv(Type.Any, "a,b", null, "c", ""), vv(Type.Any, 1, 2, 3, 4))));
+
+        // string_split(col1, ',')
+        IPhysicalPlan plan = NestedLoop.leftJoin(2, scan(dsOuter, table, outerSchema), functionScan("string_split", List.of(oce("col1"), new LiteralStringExpression(",")), 500),
+                outerReferences, null, outerSchema);
+
+        TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+
+        // Matched rows first followed by the unmatched ones
+        assertVectorsEquals(vv(Type.Any, "a,b", "a,b", "c", null, ""), actual.getColumn(0));
+        assertVectorsEquals(vv(Type.Any, 1, 1, 3, 2, 4), actual.getColumn(1));
+        assertVectorsEquals(vv(Type.String, "a", "b", "c", null, null), actual.getColumn(2));
+        assertVectorsEquals(vv(Type.Int, 0, 1, 0, null, null), actual.getColumn(3));
+    }
+
+    @Test
+    void test_batched_apply_is_not_used_with_populate()
+    {
+        IDatasource dsOuter = schemaDS(() ->
+        {
+        }, TupleVector.of(outerSchema, asList(vv(Type.Any, 0, 1), vv(Type.Any, 2, 1))));
+        IPhysicalPlan plan = NestedLoop.innerJoin(2, scan(dsOuter, table, outerSchema), functionScan("range", List.of(oce("col1"), oce("col2")), 500), outerReferences, "p", outerSchema);
+        assertEquals(null, plan.getDescribeProperties(context)
+                .get("Batched"));
+    }
+
+    private TableFunctionScan functionScan(String name, List<IExpression> arguments, int batchSize)
+    {
+        TableFunctionInfo function = SystemCatalog.get()
+                .getTableFunction(name);
+        TableSourceReference tableSource = new TableSourceReference(1, TableSourceReference.Type.FUNCTION, "", QualifiedName.of(name), "f");
+        return new TableFunctionScan(1, function.getSchema(arguments), tableSource, "", "System", function, arguments, List.of(new Option(IExecutionContext.BATCH_SIZE, intLit(batchSize))));
+    }
+
     @Test
     void test_inner_loop_no_populate_with_outer()
     {
@@ -0,0 +1,102 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertTupleVectorsEquals;
+
+import java.util.List;
+
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.expression.AggregateWrapperExpression;
+import se.kuseman.payloadbuilder.core.expression.IAggregateExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralStringExpression;
+
+/** Test of {@link HashAggregate} in partitioned mode. Verifies that the result equals the serial aggregation. */
+class PartitionedHashAggregateTest extends APhysicalPlanTest
+{
+    private final Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table), col("col2", ResolvedType.of(Type.String), table), col("col3", ResolvedType.of(Type.Double), table));
+
+    @Test
+    void test_numeric_aggregates()
+    {
+        List<TupleVector> input = randomVectors(schema, 7, 1_000, 300);
+        List<IAggregateExpression> projections = asList(new AggregateWrapperExpression(ce("col1"), true, false), func("count", ce("col2")), func("sum", ce("col3")), func("avg", ce("col3")),
+                func("min", ce("col3")), func("max", ce("col3")), func("sum", ce("col1")), func("avg", ce("col1")));
+
+        HashAggregate expected = hashAggregate(0, input, projections, 1);
+        HashAggregate actual = hashAggregate(1, input, projections, 4);
+
+        List<String> expectedRows = rows(expected);
+        assertEquals(301, expectedRows.size());
+        // Output order should be the groups first appearance, same as serial
+        assertEquals(expectedRows, rows(actual));
+        assertEquals(4, actual.getDescribeProperties(context)
+                .get("Partitions"));
+        assertNull(expected.getDescribeProperties(context)
+                .get("Partitions"));
+    }
+
+    @Test
+    void test_string_and_collection_aggregates()
+    {
+        List<TupleVector> input = randomVectors(schema, 5, 500, 50);
+        List<IAggregateExpression> projections = asList(new AggregateWrapperExpression(ce("col1"), true, false), func("min", ce("col2")), func("max", ce("col2")),
+                func("string_agg", ce("col2"), new LiteralStringExpression(",")), func("array", ce("col3")), func("object_array", ce("col2"), ce("col3")),
+                func("object", new LiteralStringExpression("key"), ce("col2")), new AggregateWrapperExpression(ce("col2"), false, false));
+
+        // Collection values have no string representation so compare the vectors
+        TupleVector expected = PlanUtils.concat(context, hashAggregate(0, input, projections, 1)
+                .execute(context));
+        TupleVector actual = PlanUtils.concat(context, hashAggregate(1, input, projections, 8)
+                .execute(context));
+        assertEquals(51, expected.getRowCount());
+        assertTupleVectorsEquals(expected, actual);
+    }
+
+    @Test
+    void test_more_partitions_than_vectors()
+    {
+        List<TupleVector> input = randomVectors(schema, 3, 200, 1_000);
+        List<IAggregateExpression> projections = asList(new AggregateWrapperExpression(ce("col1"), true, false), func("count", ce("col2")), func("sum", ce("col3")));
+
+        assertEquals(rows(hashAggregate(0, input, projections, 1)), rows(hashAggregate(1, input, projections, 16)));
+    }
+
+    @Test
+    void test_schema_less_any_columns()
+    {
+        Schema anySchema = Schema.of(col("col1", ResolvedType.of(Type.Any), table), col("col2", ResolvedType.of(Type.Any), table), col("col3", ResolvedType.of(Type.Any), table));
+        List<TupleVector> input = randomVectors(anySchema, 6, 400, 100);
+        List<IAggregateExpression> projections = asList(new AggregateWrapperExpression(ce("col1"), true, false), func("count", ce("col2")), func("sum", ce("col3")), func("max", ce("col2")));
+
+        assertEquals(rows(hashAggregate(0, input, projections, 1)), rows(hashAggregate(1, input, projections, 4)));
+    }
+
+    @Test
+    void test_empty_input()
+    {
+        MutableBoolean closed = new MutableBoolean();
+        HashAggregate plan = new HashAggregate(1, scanVectors(schemaDS(() -> closed.setTrue()), schema), asList(ce("col1")),
+                asList(new AggregateWrapperExpression(ce("col1"), true, false), func("count", ce("col2"))), null, 4);
+
+        TupleIterator it = plan.execute(context);
+        assertFalse(it.hasNext());
+        it.close();
+        assertTrue(closed.isTrue());
+    }
+
+    private HashAggregate hashAggregate(int nodeId, List<TupleVector> input, List<IAggregateExpression> projections, int partitionCount)
+    {
+        return new HashAggregate(nodeId, scanVectors(input), asList(ce("col1")), projections, null, partitionCount);
+    }
+}
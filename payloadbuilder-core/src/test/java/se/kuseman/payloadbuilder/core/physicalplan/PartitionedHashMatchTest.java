@@ -0,0 +1,237 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column;
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.IDatasource;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.ScalarFunctionInfo;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.IExecutionContext;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.catalog.system.SystemCatalog;
+import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
+import se.kuseman.payloadbuilder.core.expression.ComparisonExpression;
+import se.kuseman.payloadbuilder.core.expression.FunctionCallExpression;
+import se.kuseman.payloadbuilder.core.expression.LambdaExpression;
+import se.kuseman.payloadbuilder.test.VectorTestUtils;
+
+/** Test of {@link HashMatch} in partitioned mode. Runs all join tests with a partitioned table. */
+class PartitionedHashMatchTest extends HashMatchTest
+{
+    @Override
+    int getPartitionCount()
+    {
+        return 4;
+    }
+
+    @Override
+    @Test
+    void test_inner_join_populate_schema_less_same_hash_different_value()
+    {
+        // Populated rows are emitted in hash table order which differs between partitioned and single table mode
+        TestObject a = new TestObject(10, 10);
+        TestObject b = new TestObject(20, 20);
+        TestObject c = new TestObject(20, 30);
+        TestObject f = new TestObject(50, 50);
+
+        List<TupleVector> outer = List.of(TupleVector.of(outerSchema, asList(vv(Type.Any, a, b, c), vv(Type.Any, 1, 3, 10))));
+        List<TupleVector> inner = List.of(TupleVector.of(innerSchema, asList(vv(Type.Any, a, b, f), vv(Type.Any, 1, 2, 4))));
+
+        IDatasource dsOuter = schemaLessDS(() ->
+        {
+        }, outer.toArray(new TupleVector[0]));
+        IDatasource dsInner = schemaLessDS(() ->
+        {
+        }, inner.toArray(new TupleVector[0]));
+
+        IPhysicalPlan plan = createInnerJoin(scanVectors(dsOuter, outerSchemaLess), scanVectors(dsInner, innerSchemaLess), (tv, ctx) -> predicate.eval(tv, ctx), "a");
+        TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+
+        assertEquals(2, actual.getRowCount());
+        Map<Object, Object> innerValueByOuter = new HashMap<>();
+        for (int i = 0; i < actual.getRowCount(); i++)
+        {
+            TupleVector innerActual = actual.getColumn(2)
+                    .getTable(i);
+            assertEquals(1, innerActual.getRowCount());
+            innerValueByOuter.put(actual.getColumn(0)
+                    .getAny(i),
+                    innerActual.getColumn(1)
+                            .getAny(0));
+        }
+        assertEquals(Map.of(a, 1, b, 2), innerValueByOuter);
+    }
+
+    @Test
+    void test_normalize_partition_count()
+    {
+        assertEquals(1, HashMatch.normalizePartitionCount(-1));
+        assertEquals(1, HashMatch.normalizePartitionCount(0));
+        assertEquals(1, HashMatch.normalizePartitionCount(1));
+        assertEquals(2, HashMatch.normalizePartitionCount(2));
+        assertEquals(4, HashMatch.normalizePartitionCount(3));
+        assertEquals(8, HashMatch.normalizePartitionCount(8));
+        assertEquals(HashMatch.MAX_PARTITION_COUNT, HashMatch.normalizePartitionCount(100_000));
+    }
+
+    @Test
+    void test_large_inner_join_equals_serial_and_describe()
+    {
+        int outerRows = 20_000;
+        int innerRows = 5_000;
+        Schema outerSchema = Schema.of(Column.of("col1", Type.Int), Column.of("col2", Type.Int));
+        Schema innerSchema = Schema.of(Column.of("col3", Type.Int), Column.of("col4", Type.Int));
+
+        List<Object> outerCol1 = new ArrayList<>();
+        List<Object> outerCol2 = new ArrayList<>();
+        for (int i = 0; i < outerRows; i++)
+        {
+            outerCol1.add(i % 7 == 0 ? null
+                    : i % 6_000);
+            outerCol2.add(i);
+        }
+        List<Object> innerCol3 = new ArrayList<>();
+        List<Object> innerCol4 = new ArrayList<>();
+        for (int i = 0; i < innerRows; i++)
+        {
+            innerCol3.add(i);
+            innerCol4.add(-i);
+        }
+
+        TupleVector outer = TupleVector.of(outerSchema, asList(VectorTestUtils.vv(Type.Int, outerCol1.toArray()), VectorTestUtils.vv(Type.Int, outerCol2.toArray())));
+        TupleVector inner = TupleVector.of(innerSchema, asList(VectorTestUtils.vv(Type.Int, innerCol3.toArray()), VectorTestUtils.vv(Type.Int, innerCol4.toArray())));
+
+        IExpression predicate = new ComparisonExpression(IComparisonExpression.Type.EQUAL, ce("col1"), ce("col3"));
+
+        IDatasource dsOuter = schemaLessDS(() ->
+        {
+        }, false, outer);
+        IDatasource dsInner = schemaLessDS(() ->
+        {
+        }, false, inner);
+
+        HashMatch serial = new HashMatch(0, scanVectors(dsOuter, outerSchema), scanVectors(dsInner, innerSchema), List.of(ce("col1")), List.of(ce("col3")), (tv, ctx) -> predicate.eval(tv, ctx), null,
+                false, false);
+        HashMatch partitioned = new HashMatch(1, scanVectors(dsOuter, outerSchema), scanVectors(dsInner, innerSchema), List.of(ce("col1")), List.of(ce("col3")), (tv, ctx) -> predicate.eval(tv, ctx),
+                null, false, false, 8);
+
+        TupleIterator it = serial.execute(context);
+        TupleVector expected = PlanUtils.concat(context, it);
+        it = partitioned.execute(context);
+        TupleVector actual = PlanUtils.concat(context, it);
+
+        assertTrue(actual.getRowCount() > 0);
+        VectorTestUtils.assertTupleVectorsEquals(expected, actual);
+
+        Map<String, Object> properties = partitioned.getDescribeProperties(context);
+        assertEquals(8, properties.get("Partitions"));
+        assertTrue(properties.containsKey("Partition Build Times"));
+        assertTrue(properties.containsKey("Partition Probe Times"));
+        assertTrue(properties.containsKey("Partition Skew"));
+        assertEquals(8, ((String) properties.get("Partition Rows")).split(",").length);
+    }
+
+    @Test
+    void test_partition_values_not_shared()
+    {
+        // Make sure that the partitioned mode finds matches for all kinds of hash values
+        Schema outerSchema = Schema.of(Column.of("col1", Type.Int));
+        Schema innerSchema = Schema.of(Column.of("col3", Type.Int));
+        Object[] values = new Object[1000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = i * 31;
+        }
+        TupleVector outer = TupleVector.of(outerSchema, asList(VectorTestUtils.vv(Type.Int, values)));
+        TupleVector inner = TupleVector.of(innerSchema, asList(VectorTestUtils.vv(Type.Int, values)));
+        IExpression predicate = new ComparisonExpression(IComparisonExpression.Type.EQUAL, ce("col1"), ce("col3"));
+
+        IPhysicalPlan plan = createInnerJoin(scanVectors(schemaLessDS(() ->
+        {
+        }, false, outer), outerSchema), scanVectors(schemaLessDS(() ->
+        {
+        }, false, inner), innerSchema), (tv, ctx) -> predicate.eval(tv, ctx), null);
+
+        TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+        assertEquals(values.length, actual.getRowCount());
+        ValueVector col1 = actual.getColumn(0);
+        ValueVector col3 = actual.getColumn(1);
+        for (int i = 0; i < actual.getRowCount(); i++)
+        {
+            assertEquals(col1.getInt(i), col3.getInt(i));
+        }
+    }
+
+    @Test
+    void test_lambda_condition_evaluated_with_worker_contexts()
+    {
+        // Lambda values are stored in the statement context so each partition must be probed with it's own context
+        ScalarFunctionInfo any = SystemCatalog.get()
+                .getScalarFunction("any");
+        Schema outerSchema = Schema.of(Column.of("col1", Type.Int));
+        Schema innerSchema = Schema.of(Column.of("col3", Type.Int));
+        Object[] values = new Object[5000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = i;
+        }
+        TupleVector outer = TupleVector.of(outerSchema, asList(VectorTestUtils.vv(Type.Int, values)));
+        TupleVector inner = TupleVector.of(innerSchema, asList(VectorTestUtils.vv(Type.Int, values)));
+        // any(col1, x -> x = col3)
+        IExpression lambda = new LambdaExpression(asList("x"), new ComparisonExpression(IComparisonExpression.Type.EQUAL, lce("x", 0, ResolvedType.of(Type.Int)), ce("col3")), new int[] { 0 });
+        IExpression predicate = new FunctionCallExpression("", any, null, asList(ce("col1"), lambda));
+
+        AtomicInteger sharedLambdaValues = new AtomicInteger();
+        BiFunction<TupleVector, IExecutionContext, ValueVector> condition = (tv, ctx) ->
+        {
+            ValueVector result = predicate.eval(tv, ctx);
+            Thread.yield();
+            // The lambda value set during evaluation must not have been overwritten by another partition
+            ValueVector lambdaValue = ((ExecutionContext) ctx).getStatementContext()
+                    .getLambdaValue(0);
+            if (lambdaValue.getInt(0) != tv.getColumn(0)
+                    .getInt(0))
+            {
+                sharedLambdaValues.incrementAndGet();
+            }
+            return result;
+        };
+
+        HashMatch plan = new HashMatch(0, scanVectors(schemaLessDS(() ->
+        {
+        }, false, outer), outerSchema), scanVectors(schemaLessDS(() ->
+        {
+        }, false, inner), innerSchema), List.of(ce("col1")), List.of(ce("col3")), condition, null, false, false, 8);
+
+        for (int i = 0; i < 5; i++)
+        {
+            TupleVector actual = PlanUtils.concat(context, plan.execute(context));
+            assertEquals(values.length, actual.getRowCount());
+            ValueVector col1 = actual.getColumn(0);
+            ValueVector col3 = actual.getColumn(1);
+            for (int row = 0; row < actual.getRowCount(); row++)
+            {
+                assertEquals(col1.getInt(row), col3.getInt(row));
+            }
+        }
+        assertEquals(0, sharedLambdaValues.get());
+    }
+}
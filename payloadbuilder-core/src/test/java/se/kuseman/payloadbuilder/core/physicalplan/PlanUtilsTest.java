@@ -1,9 +1,18 @@
 package se.kuseman.payloadbuilder.core.physicalplan;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.jupiter.api.Test;
 
 import se.kuseman.payloadbuilder.api.catalog.Column;
@@ -13,6 +22,7 @@
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.core.execution.ExecutionContext;
 import se.kuseman.payloadbuilder.core.execution.ValueVectorAdapter;
 import se.kuseman.payloadbuilder.test.VectorTestUtils;
 
@@ -223,6 +233,62 @@ protected int getRow(int row)
         };
     }
 
+    @Test
+    void test_invoke_all_uses_worker_contexts()
+    {
+        List<PlanUtils.WorkerTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            final int nodeId = i;
+            tasks.add(workerContext ->
+            {
+                assertNotSame(context, workerContext);
+                ((ExecutionContext) workerContext).getStatementContext()
+                        .getOrCreateNodeData(nodeId);
+                return nodeId;
+            });
+        }
+
+        assertEquals(asList(0, 1, 2, 3), PlanUtils.invokeAll(context, tasks));
+        // Node data from the workers are merged back
+        for (int i = 0; i < 4; i++)
+        {
+            assertNotNull(context.getStatementContext()
+                    .getNodeData(i));
+        }
+    }
+
+    @Test
+    void test_invoke_all_returns_when_aborted() throws InterruptedException
+    {
+        AtomicBoolean abort = new AtomicBoolean();
+        session.setAbortSupplier(abort::get);
+        CountDownLatch release = new CountDownLatch(1);
+        List<PlanUtils.WorkerTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+        {
+            tasks.add(workerContext ->
+            {
+                abort.set(true);
+                release.await(10, TimeUnit.SECONDS);
+                return 1;
+            });
+        }
+
+        try
+        {
+            // Returns while the tasks are still running
+            assertEquals(emptyList(), PlanUtils.invokeAll(context, tasks));
+            assertEquals(1, release.getCount());
+            // No tasks are started when the query is already aborted
+            assertEquals(emptyList(), PlanUtils.invokeAll(context, List.of(workerContext -> 1, workerContext -> 2)));
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
     private ValueVector range(int size)
     {
         return new ValueVector()
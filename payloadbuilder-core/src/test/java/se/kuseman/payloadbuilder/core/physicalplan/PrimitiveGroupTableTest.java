@@ -0,0 +1,254 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.execution.vector.MutableValueVector;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.expression.AggregateWrapperExpression;
+import se.kuseman.payloadbuilder.core.expression.IAggregateExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralStringExpression;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/** Test of {@link PrimitiveGroupTable}. Verifies that {@link HashAggregate} yields the same result as with the generic group table. */
+class PrimitiveGroupTableTest extends APhysicalPlanTest
+{
+    private final Schema anySchema = schema(Type.Any, Type.Any);
+
+    @Test
+    void test_create()
+    {
+        assertNotNull(PrimitiveGroupTable.create(new Type[] { Type.Int }));
+        assertNotNull(PrimitiveGroupTable.create(new Type[] { Type.Long }));
+        assertNotNull(PrimitiveGroupTable.create(new Type[] { Type.String }));
+        assertNotNull(PrimitiveGroupTable.create(new Type[] { Type.Int, Type.Int }));
+        assertNull(PrimitiveGroupTable.create(new Type[] { Type.Any }));
+        assertNull(PrimitiveGroupTable.create(new Type[] { Type.Double }));
+        assertNull(PrimitiveGroupTable.create(new Type[] { Type.Int, Type.Long }));
+        assertNull(PrimitiveGroupTable.create(new Type[] { Type.Int, Type.Int, Type.Int }));
+    }
+
+    @Test
+    void test_group()
+    {
+        PrimitiveGroupTable table = PrimitiveGroupTable.create(new Type[] { Type.Int });
+        IntArrayList skippedRows = new IntArrayList();
+
+        table.group(new ValueVector[] { vv(Type.Int, 1, 2, null, 1, null, 3) }, 6, Integer.MAX_VALUE, skippedRows);
+        assertEquals(4, table.size());
+        assertEquals(asList(0, 1, 2, 3), table.getGroupIds());
+        assertEquals(asList(0, 3), table.getGroupRows()
+                .get(0));
+        assertEquals(asList(2, 4), table.getGroupRows()
+                .get(2));
+        assertTrue(skippedRows.isEmpty());
+
+        // Only touched groups are returned and new groups are limited
+        table.group(new ValueVector[] { vv(Type.Int, 3, 4, 5, 3, 4) }, 5, 1, skippedRows);
+        assertEquals(5, table.size());
+        assertEquals(asList(3, 4), table.getGroupIds());
+        assertEquals(asList(0, 3), table.getGroupRows()
+                .get(0));
+        assertEquals(asList(1, 4), table.getGroupRows()
+                .get(1));
+        assertEquals(asList(2), skippedRows);
+    }
+
+    @Test
+    void test_int_keys()
+    {
+        assertSameAsGeneric(Type.Int, r -> r.nextInt(200));
+    }
+
+    @Test
+    void test_long_keys()
+    {
+        assertSameAsGeneric(Type.Long, r -> (long) r.nextInt(200) * Integer.MAX_VALUE);
+    }
+
+    @Test
+    void test_string_keys()
+    {
+        assertSameAsGeneric(Type.String, r -> "key" + r.nextInt(200));
+    }
+
+    @Test
+    void test_dictionary_string_keys()
+    {
+        List<IAggregateExpression> projections = projections();
+        Function<Random, Object> keySupplier = r -> "key" + r.nextInt(20);
+
+        List<TupleVector> input = new ArrayList<>();
+        for (TupleVector vector : vectors(schema(Type.String, Type.String), 5, 700, keySupplier, this::value))
+        {
+            List<ValueVector> columns = columns(vector);
+            MutableValueVector keys = context.getVectorFactory()
+                    .getMutableVector(ResolvedType.of(Type.String), vector.getRowCount());
+            keys.copy(0, columns.get(0));
+            assertNotNull(keys.getDictionary());
+            columns.set(0, keys);
+            input.add(TupleVector.of(vector.getSchema(), columns));
+        }
+
+        List<String> expected = sortedRows(hashAggregate(0, vectors(anySchema, 5, 700, keySupplier, this::value), asList(ce("col1")), projections, 0));
+        List<String> actual = sortedRows(hashAggregate(1, input, asList(ce("col1")), projections, 0));
+        assertEquals(21, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void test_int_pair_keys()
+    {
+        List<IAggregateExpression> projections = asList(new AggregateWrapperExpression(ce("col1"), true, false), new AggregateWrapperExpression(ce("col2"), true, false),
+                func("count", ce("col3")), func("sum", ce("col3")));
+        List<IExpression> aggregateExpressions = asList(ce("col1"), ce("col2"));
+        Function<Random, Object> keySupplier = r -> r.nextInt(20) - 10;
+
+        List<String> expected = sortedRows(hashAggregate(0, vectors(anySchema, 5, 500, keySupplier, keySupplier), aggregateExpressions, projections, 0));
+        List<String> actual = sortedRows(hashAggregate(1, vectors(schema(Type.Int, Type.Int), 5, 500, keySupplier, keySupplier), aggregateExpressions, projections, 0));
+        assertTrue(expected.size() > 300);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void test_key_type_changes_between_vectors()
+    {
+        // Schema less input where the runtime key types differs between vectors
+        List<TupleVector> input = new ArrayList<>();
+        vectors(schema(Type.Int, Type.String), 2, 300, r -> r.nextInt(50), this::value).forEach(v -> input.add(TupleVector.of(anySchema, columns(v))));
+        vectors(schema(Type.Long, Type.String), 2, 300, r -> (long) r.nextInt(100), this::value).forEach(v -> input.add(TupleVector.of(anySchema, columns(v))));
+        List<TupleVector> anyInput = new ArrayList<>(vectors(anySchema, 2, 300, r -> r.nextInt(50), this::value));
+        anyInput.addAll(vectors(anySchema, 2, 300, r -> (long) r.nextInt(100), this::value));
+
+        List<IAggregateExpression> projections = projections();
+        assertEquals(sortedRows(hashAggregate(0, anyInput, asList(ce("col1")), projections, 0)), sortedRows(hashAggregate(1, input, asList(ce("col1")), projections, 0)));
+    }
+
+    @Test
+    void test_spill()
+    {
+        List<IAggregateExpression> projections = projections();
+        Function<Random, Object> keySupplier = r -> r.nextInt(2_000);
+
+        HashAggregate actual = hashAggregate(1, vectors(schema(Type.Int, Type.String), 6, 1_000, keySupplier, this::value), asList(ce("col1")), projections, 1);
+        List<String> expected = sortedRows(hashAggregate(0, vectors(anySchema, 6, 1_000, keySupplier, this::value), asList(ce("col1")), projections, 0));
+        assertEquals(expected, sortedRows(actual));
+        assertEquals(1, actual.getDescribeProperties(context)
+                .get("Spill Count"));
+
+        // Budget exceeded in a later vector
+        keySupplier = r -> r.nextInt(300);
+        actual = hashAggregate(2, vectors(schema(Type.Int, Type.String), 4, 500, keySupplier, this::value), asList(ce("col1")), projections, 200 * 100);
+        expected = sortedRows(hashAggregate(0, vectors(anySchema, 4, 500, keySupplier, this::value), asList(ce("col1")), projections, 0));
+        assertEquals(expected, sortedRows(actual));
+        assertEquals(1, actual.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    @Test
+    void test_empty_input()
+    {
+        HashAggregate plan = hashAggregate(1, vectors(schema(Type.Int, Type.String), 1, 0, r -> r.nextInt(10), this::value), asList(ce("col1")), projections(), 0);
+        assertFalse(plan.execute(context)
+                .hasNext());
+    }
+
+    private void assertSameAsGeneric(Type keyType, Function<Random, Object> keySupplier)
+    {
+        List<IAggregateExpression> projections = projections();
+
+        List<String> expected = sortedRows(hashAggregate(0, vectors(anySchema, 5, 700, keySupplier, this::value), asList(ce("col1")), projections, 0));
+        List<String> actual = sortedRows(hashAggregate(1, vectors(schema(keyType, Type.String), 5, 700, keySupplier, this::value), asList(ce("col1")), projections, 0));
+        assertEquals(201, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    private Object value(Random random)
+    {
+        return "value" + random.nextInt(1000);
+    }
+
+    private Schema schema(Type col1Type, Type col2Type)
+    {
+        Type col3Type = col1Type == Type.Any ? Type.Any
+                : Type.Double;
+        return Schema.of(col("col1", ResolvedType.of(col1Type), table), col("col2", ResolvedType.of(col2Type), table), col("col3", ResolvedType.of(col3Type), table));
+    }
+
+    private List<IAggregateExpression> projections()
+    {
+        return asList(new AggregateWrapperExpression(ce("col1"), true, false), func("count", ce("col2")), func("sum", ce("col3")), func("min", ce("col2")), func("max", ce("col3")),
+                func("string_agg", ce("col2"), new LiteralStringExpression(",")));
+    }
+
+    private HashAggregate hashAggregate(int nodeId, List<TupleVector> input, List<IExpression> aggregateExpressions, List<IAggregateExpression> projections, long memoryBudget)
+    {
+        return new HashAggregate(nodeId, scanVectors(schemaDS(() ->
+        {
+        }, input.toArray(new TupleVector[0])), input.get(0)
+                .getSchema()), aggregateExpressions, projections, null, 1, memoryBudget);
+    }
+
+    /** Create vectors with two key columns with nulls and a double column. Random is seeded so the same suppliers yields the same values. */
+    private List<TupleVector> vectors(Schema schema, int vectorCount, int rowCount, Function<Random, Object> col1Supplier, Function<Random, Object> col2Supplier)
+    {
+        Random random = new Random(4711);
+        List<TupleVector> result = new ArrayList<>();
+        int row = 0;
+        for (int i = 0; i < vectorCount; i++)
+        {
+            Object[] col1 = new Object[rowCount];
+            Object[] col2 = new Object[rowCount];
+            Object[] col3 = new Object[rowCount];
+            for (int j = 0; j < rowCount; j++)
+            {
+                col1[j] = row % 17 == 0 ? null
+                        : col1Supplier.apply(random);
+                col2[j] = row % 13 == 0 ? null
+                        : col2Supplier.apply(random);
+                col3[j] = row % 11 == 0 ? null
+                        : (double) random.nextInt(1000);
+                row++;
+            }
+            result.add(TupleVector.of(schema, asList(vv(type(schema, 0), col1), vv(type(schema, 1), col2), vv(type(schema, 2), col3))));
+        }
+        return result;
+    }
+
+    private List<ValueVector> columns(TupleVector vector)
+    {
+        List<ValueVector> columns = new ArrayList<>();
+        for (int i = 0; i < vector.getSchema()
+                .getSize(); i++)
+        {
+            columns.add(vector.getColumn(i));
+        }
+        return columns;
+    }
+
+    private Type type(Schema schema, int ordinal)
+    {
+        return schema.getColumns()
+                .get(ordinal)
+                .getType()
+                .getType();
+    }
+}
@@ -13,6 +13,7 @@
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.apache.commons.lang3.time.DurationFormatUtils;
@@ -24,11 +25,16 @@
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
 import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
 import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.EpochDateTime;
+import se.kuseman.payloadbuilder.api.execution.EpochDateTimeOffset;
 import se.kuseman.payloadbuilder.api.execution.TupleIterator;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
 import se.kuseman.payloadbuilder.api.execution.UTF8String;
 import se.kuseman.payloadbuilder.api.execution.ValueVector;
 import se.kuseman.payloadbuilder.core.QueryException;
+import se.kuseman.payloadbuilder.core.common.SortItem;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
 
 /** Test of {@link Sort} */
 class SortTest extends APhysicalPlanTest
@@ -292,6 +298,89 @@ void test_ordinal_out_of_range_2()
         }
     }
 
+    @Test
+    void test_normalized_keys_equals_full_comparison()
+    {
+        Random random = new Random(123);
+        int rowCount = 2_000;
+        for (Type type : new Type[] { Type.Boolean, Type.Int, Type.Long, Type.Float, Type.Double, Type.DateTime, Type.DateTimeOffset, Type.String })
+        {
+            Object[] keys = new Object[rowCount];
+            Object[] values = new Object[rowCount];
+            for (int i = 0; i < rowCount; i++)
+            {
+                keys[i] = i % 17 == 0 ? null
+                        : randomValue(type, random);
+                values[i] = random.nextInt(50);
+            }
+            Schema schema = schema(new Type[] { type, Type.Int }, "col1", "col2");
+            TupleVector input = TupleVector.of(schema, asList(vv(type, keys), vv(Type.Int, values)));
+
+            for (Order order : Order.values())
+            {
+                for (NullOrder nullOrder : NullOrder.values())
+                {
+                    // Single item, tie breaking on second item and tie breaking on a descending second item
+                    List<List<SortItem>> sortItemsList = asList(asList(sortItem(ce("col1"), order, nullOrder)),
+                            asList(sortItem(ce("col1"), order, nullOrder), sortItem(ce("col2"), Order.ASC, NullOrder.UNDEFINED)),
+                            asList(sortItem(ce("col1"), order, nullOrder), sortItem(ce("col2"), Order.DESC, NullOrder.UNDEFINED)));
+
+                    for (List<SortItem> sortItems : sortItemsList)
+                    {
+                        IPhysicalPlan sort = new Sort(1, scan(schemaLessDS(() ->
+                        {
+                        }, input), table, Schema.EMPTY), sortItems);
+
+                        TupleIterator it = sort.execute(context);
+                        TupleVector actual = it.next();
+                        it.close();
+
+                        // Expected is a stable sort with the full comparison
+                        ValueVector[] expressionVectors = Sort.evalSortItems(context, input, sortItems);
+                        int[] expected = IntStream.range(0, rowCount)
+                                .toArray();
+                        IntArrays.mergeSort(expected, (a, b) -> Sort.compare(sortItems, expressionVectors, expressionVectors, a, b));
+
+                        for (int i = 0; i < rowCount; i++)
+                        {
+                            String message = type + " " + sortItems + " row " + i;
+                            assertEquals(input.getColumn(0)
+                                    .valueAsObject(expected[i]),
+                                    actual.getColumn(0)
+                                            .valueAsObject(i),
+                                    message);
+                            assertEquals(input.getColumn(1)
+                                    .valueAsObject(expected[i]),
+                                    actual.getColumn(1)
+                                            .valueAsObject(i),
+                                    message);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Object randomValue(Type type, Random random)
+    {
+        return switch (type)
+        {
+            case Boolean -> random.nextBoolean();
+            case Int -> random.nextInt(200) - 100;
+            case Long -> random.nextBoolean() ? random.nextLong()
+                    : (long) random.nextInt(200) - 100;
+            case Float -> random.nextInt(10) == 0 ? Float.NaN
+                    : (random.nextInt(200) - 100) / 4F;
+            case Double -> random.nextInt(10) == 0 ? -0.0D
+                    : (random.nextInt(200) - 100) / 4D;
+            case DateTime -> EpochDateTime.from(1_700_000_000_000L + random.nextInt(1000) * 1000L);
+            case DateTimeOffset -> EpochDateTimeOffset.from(1_700_000_000_000L + random.nextInt(1000) * 1000L);
+            // Strings sharing long prefixes and multi byte characters
+            case String -> new String[] { "prefix_prefix_", "åäö", "abc", "", "€uro" }[random.nextInt(5)] + random.nextInt(100);
+            default -> throw new IllegalArgumentException("Unsupported type " + type);
+        };
+    }
+
     @Disabled
     @Test
     void test_measure()
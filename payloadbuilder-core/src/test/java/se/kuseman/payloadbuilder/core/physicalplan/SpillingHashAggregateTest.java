@@ -0,0 +1,137 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.expression.AggregateWrapperExpression;
+import se.kuseman.payloadbuilder.core.expression.IAggregateExpression;
+import se.kuseman.payloadbuilder.core.expression.LiteralStringExpression;
+
+/** Test of {@link HashAggregate} when memory budget is exceeded and rows of new groups are spilled to disk */
+class SpillingHashAggregateTest extends APhysicalPlanTest
+{
+    private final Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table), col("col2", ResolvedType.of(Type.String), table), col("col3", ResolvedType.of(Type.Double), table));
+
+    @Test
+    void test_group_by_spill()
+    {
+        List<TupleVector> input = randomVectors(schema, 6, 1_000, 2_000);
+        List<IAggregateExpression> projections = projections();
+
+        HashAggregate expected = hashAggregate(0, input, asList(ce("col1")), projections, 0);
+        HashAggregate actual = hashAggregate(1, input, asList(ce("col1")), projections, 1);
+
+        List<String> expectedRows = sortedRows(expected);
+        assertTrue(expectedRows.size() > 1_000);
+        assertEquals(expectedRows, sortedRows(actual));
+
+        Map<String, Object> properties = actual.getDescribeProperties(context);
+        assertEquals(1, properties.get("Spill Count"));
+        assertTrue((long) properties.get("Spilled Rows") > 0);
+        assertTrue(properties.containsKey("Spilled Bytes"));
+        assertTrue(properties.containsKey("Spill Time"));
+        assertEquals("1 bytes", properties.get("Memory Budget"));
+
+        assertNull(expected.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    @Test
+    void test_group_by_spill_after_first_vector()
+    {
+        List<TupleVector> input = randomVectors(schema, 4, 500, 300);
+        List<IAggregateExpression> projections = projections();
+
+        HashAggregate actual = hashAggregate(1, input, asList(ce("col1")), projections, 200 * 100);
+        assertEquals(sortedRows(hashAggregate(0, input, asList(ce("col1")), projections, 0)), sortedRows(actual));
+        assertEquals(1, actual.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    @Test
+    void test_distinct_spill()
+    {
+        Schema distinctSchema = Schema.of(col("col1", ResolvedType.of(Type.Int), table), col("col2", ResolvedType.of(Type.Int), table));
+        List<TupleVector> input = new ArrayList<>();
+        Random random = new Random(4711);
+        for (int i = 0; i < 5; i++)
+        {
+            Object[] col1 = new Object[1_000];
+            Object[] col2 = new Object[1_000];
+            for (int j = 0; j < 1_000; j++)
+            {
+                col1[j] = j % 19 == 0 ? null
+                        : random.nextInt(100);
+                col2[j] = random.nextInt(5);
+            }
+            input.add(TupleVector.of(distinctSchema, asList(vv(Type.Int, col1), vv(Type.Int, col2))));
+        }
+
+        HashAggregate expected = hashAggregate(0, input, emptyList(), emptyList(), 0);
+        HashAggregate actual = hashAggregate(1, input, emptyList(), emptyList(), 1);
+
+        List<String> expectedRows = sortedRows(expected);
+        assertTrue(expectedRows.size() > 100);
+        assertEquals(expectedRows, sortedRows(actual));
+        assertEquals(1, actual.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    @Test
+    void test_schema_less_any_columns()
+    {
+        Schema anySchema = Schema.of(col("col1", ResolvedType.of(Type.Any), table), col("col2", ResolvedType.of(Type.Any), table), col("col3", ResolvedType.of(Type.Any), table));
+        List<TupleVector> input = randomVectors(anySchema, 4, 700, 1_000);
+        List<IAggregateExpression> projections = projections();
+
+        assertEquals(sortedRows(hashAggregate(0, input, asList(ce("col1")), projections, 0)), sortedRows(hashAggregate(1, input, asList(ce("col1")), projections, 1)));
+    }
+
+    @Test
+    void test_budget_not_exceeded()
+    {
+        List<TupleVector> input = randomVectors(schema, 3, 100, 50);
+        List<IAggregateExpression> projections = projections();
+
+        HashAggregate actual = hashAggregate(1, input, asList(ce("col1")), projections, 1024 * 1024);
+        assertEquals(sortedRows(hashAggregate(0, input, asList(ce("col1")), projections, 0)), sortedRows(actual));
+        assertNull(actual.getDescribeProperties(context)
+                .get("Spill Count"));
+
+        // Nothing spilled => a single vector
+        TupleIterator it = actual.execute(context);
+        assertEquals(51, it.next()
+                .getRowCount());
+        assertFalse(it.hasNext());
+        it.close();
+    }
+
+    private List<IAggregateExpression> projections()
+    {
+        return asList(new AggregateWrapperExpression(ce("col1"), true, false), func("count", ce("col2")), func("sum", ce("col3")), func("avg", ce("col3")), func("min", ce("col2")),
+                func("max", ce("col3")), func("string_agg", ce("col2"), new LiteralStringExpression(",")));
+    }
+
+    private HashAggregate hashAggregate(int nodeId, List<TupleVector> input, List<IExpression> aggregateExpressions, List<IAggregateExpression> projections, long memoryBudget)
+    {
+        return new HashAggregate(nodeId, scanVectors(input), aggregateExpressions, projections, null, 1, memoryBudget);
+    }
+}
@@ -0,0 +1,247 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.execution.ValueVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
+import se.kuseman.payloadbuilder.api.expression.IExpression;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+import se.kuseman.payloadbuilder.core.expression.ComparisonExpression;
+
+/** Test of {@link HashMatch} when memory budget is exceeded and inputs are spilled to disk */
+class SpillingHashMatchTest extends APhysicalPlanTest
+{
+    private final Schema outerSchema = Schema.of(col("col1", ResolvedType.of(Type.Int), table), col("col2", ResolvedType.of(Type.String), table));
+    private final Schema innerSchema = Schema.of(col("col3", ResolvedType.of(Type.Int), tableB), col("col4", ResolvedType.of(Type.String), tableB));
+    private final IExpression predicate = new ComparisonExpression(IComparisonExpression.Type.EQUAL, ce("col1"), ce("col3"));
+
+    @Test
+    void test_inner_join_hash_inner()
+    {
+        // Outer is larger => inner is hashed
+        List<TupleVector> outer = vectors(outerSchema, 4, 5_000, 6_000);
+        List<TupleVector> inner = vectors(innerSchema, 2, 2_000, 4_000);
+
+        HashMatch expected = hashMatch(0, outer, inner, null, false, 0);
+        HashMatch actual = hashMatch(1, outer, inner, null, false, 1);
+
+        List<String> expectedRows = sortedRows(expected);
+        assertFalse(expectedRows.isEmpty());
+        assertEquals(expectedRows, sortedRows(actual));
+
+        Map<String, Object> properties = actual.getDescribeProperties(context);
+        assertEquals(1, properties.get("Spill Count"));
+        assertEquals("Inner", properties.get("Hash Side"));
+        assertTrue((long) properties.get("Spilled Rows") > 0);
+        assertTrue(properties.containsKey("Spilled Bytes"));
+        assertTrue(properties.containsKey("Spill Time"));
+        assertEquals("1 bytes", properties.get("Memory Budget"));
+
+        assertNull(expected.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    @Test
+    void test_inner_join_hash_outer_budget_exceeded_after_first_vector()
+    {
+        // Inner is larger => outer is hashed
+        List<TupleVector> outer = vectors(outerSchema, 3, 500, 1_000);
+        List<TupleVector> inner = vectors(innerSchema, 4, 2_000, 1_000);
+
+        long budget = VectorUtils.estimateSize(outer.get(0)) + 1;
+
+        HashMatch expected = hashMatch(0, outer, inner, null, false, 0);
+        HashMatch actual = hashMatch(1, outer, inner, null, false, budget);
+
+        assertEquals(sortedRows(expected), sortedRows(actual));
+        Map<String, Object> properties = actual.getDescribeProperties(context);
+        assertEquals(1, properties.get("Spill Count"));
+        assertEquals("Outer", properties.get("Hash Side"));
+    }
+
+    @Test
+    void test_budget_not_exceeded()
+    {
+        List<TupleVector> outer = vectors(outerSchema, 2, 100, 100);
+        List<TupleVector> inner = vectors(innerSchema, 2, 100, 100);
+
+        HashMatch expected = hashMatch(0, outer, inner, null, false, 0);
+        HashMatch actual = hashMatch(1, outer, inner, null, false, 1024 * 1024);
+
+        assertEquals(sortedRows(expected), sortedRows(actual));
+        assertNull(actual.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    @Test
+    void test_left_join_hash_inner()
+    {
+        List<TupleVector> outer = vectors(outerSchema, 4, 5_000, 6_000);
+        List<TupleVector> inner = vectors(innerSchema, 2, 2_000, 4_000);
+
+        HashMatch expected = hashMatch(0, outer, inner, null, true, 0);
+        HashMatch actual = hashMatch(1, outer, inner, null, true, 1);
+
+        List<String> expectedRows = sortedRows(expected);
+        // All outer rows should be present
+        assertTrue(expectedRows.size() >= 20_000);
+        assertEquals(expectedRows, sortedRows(actual));
+    }
+
+    @Test
+    void test_left_join_hash_outer()
+    {
+        List<TupleVector> outer = vectors(outerSchema, 3, 500, 1_000);
+        List<TupleVector> inner = vectors(innerSchema, 4, 2_000, 1_000);
+
+        HashMatch expected = hashMatch(0, outer, inner, null, true, 0);
+        HashMatch actual = hashMatch(1, outer, inner, null, true, 1);
+
+        List<String> expectedRows = sortedRows(expected);
+        assertTrue(expectedRows.size() >= 1_500);
+        assertEquals(expectedRows, sortedRows(actual));
+    }
+
+    @Test
+    void test_left_join_empty_inner()
+    {
+        List<TupleVector> outer = vectors(outerSchema, 2, 500, 1_000);
+        List<TupleVector> inner = List.of(TupleVector.of(innerSchema, asList(vv(Type.Int), vv(Type.String))));
+
+        HashMatch expected = hashMatch(0, outer, inner, null, true, 0);
+        HashMatch actual = hashMatch(1, outer, inner, null, true, 1);
+
+        List<String> expectedRows = sortedRows(expected);
+        assertEquals(1_000, expectedRows.size());
+        assertEquals(expectedRows, sortedRows(actual));
+    }
+
+    @Test
+    void test_inner_join_populate()
+    {
+        List<TupleVector> outer = vectors(outerSchema, 4, 5_000, 600);
+        List<TupleVector> inner = vectors(innerSchema, 2, 2_000, 400);
+
+        HashMatch expected = hashMatch(0, outer, inner, "b", false, 0);
+        HashMatch actual = hashMatch(1, outer, inner, "b", false, 1);
+
+        List<String> expectedRows = populatedRows(expected);
+        assertFalse(expectedRows.isEmpty());
+        assertEquals(expectedRows, populatedRows(actual));
+        assertEquals(1, actual.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    @Test
+    void test_left_join_populate_schema_less_any_columns()
+    {
+        // Any columns are resolved to their actual type when spilled
+        Schema outerAnySchema = Schema.of(col("col1", ResolvedType.of(Type.Any), table), col("col2", ResolvedType.of(Type.Any), table));
+        Schema innerAnySchema = Schema.of(col("col3", ResolvedType.of(Type.Any), tableB), col("col4", ResolvedType.of(Type.Any), tableB));
+        List<TupleVector> outer = vectors(outerAnySchema, 3, 500, 600);
+        List<TupleVector> inner = vectors(innerAnySchema, 3, 300, 400);
+
+        HashMatch expected = hashMatch(0, outer, inner, "b", true, 0);
+        HashMatch actual = hashMatch(1, outer, inner, "b", true, 1);
+
+        List<String> expectedRows = populatedRows(expected);
+        assertEquals(1_500, expectedRows.size());
+        assertEquals(expectedRows, populatedRows(actual));
+        assertEquals(1, actual.getDescribeProperties(context)
+                .get("Spill Count"));
+    }
+
+    private HashMatch hashMatch(int nodeId, List<TupleVector> outer, List<TupleVector> inner, String populateAlias, boolean leftJoin, long memoryBudget)
+    {
+        TupleVector[] outerVectors = outer.toArray(new TupleVector[0]);
+        TupleVector[] innerVectors = inner.toArray(new TupleVector[0]);
+        return new HashMatch(nodeId, scanVectors(schemaDS(() ->
+        {
+        }, outerVectors), outer.get(0)
+                .getSchema()),
+                scanVectors(schemaDS(() ->
+                {
+                }, innerVectors), inner.get(0)
+                        .getSchema()),
+                List.of(ce("col1")), List.of(ce("col3")), (tv, ctx) -> predicate.eval(tv, ctx), populateAlias, leftJoin, false, 1, memoryBudget);
+    }
+
+    /** Create vectors with a key column where every 7:th row is null and a string column with a unique row value */
+    private List<TupleVector> vectors(Schema schema, int vectorCount, int rowCount, int keyModulo)
+    {
+        Type keyType = schema.getColumns()
+                .get(0)
+                .getType()
+                .getType();
+        Type valueType = schema.getColumns()
+                .get(1)
+                .getType()
+                .getType();
+        List<TupleVector> result = new ArrayList<>();
+        int row = 0;
+        for (int i = 0; i < vectorCount; i++)
+        {
+            Object[] keys = new Object[rowCount];
+            Object[] values = new Object[rowCount];
+            for (int j = 0; j < rowCount; j++)
+            {
+                keys[j] = row % 7 == 0 ? null
+                        : row % keyModulo;
+                values[j] = "value" + row;
+                row++;
+            }
+            result.add(TupleVector.of(schema, asList(vv(keyType, keys), vv(valueType, values))));
+        }
+        return result;
+    }
+
+    /** Execute populated plan and return a sorted list with the outer columns and sorted populated values for each row */
+    private List<String> populatedRows(IPhysicalPlan plan)
+    {
+        TupleVector vector = PlanUtils.concat(context, plan.execute(context));
+        List<String> rows = new ArrayList<>(vector.getRowCount());
+        for (int i = 0; i < vector.getRowCount(); i++)
+        {
+            List<String> populated = new ArrayList<>();
+            ValueVector populatedColumn = vector.getColumn(2);
+            if (!populatedColumn.isNull(i))
+            {
+                TupleVector table = populatedColumn.getTable(i);
+                for (int j = 0; j < table.getRowCount(); j++)
+                {
+                    populated.add(table.getColumn(0)
+                            .valueAsString(j)
+                                  + ":"
+                                  + table.getColumn(1)
+                                          .valueAsString(j));
+                }
+            }
+            Collections.sort(populated);
+            rows.add(vector.getColumn(0)
+                    .valueAsString(i)
+                     + ","
+                     + vector.getColumn(1)
+                             .valueAsString(i)
+                     + ","
+                     + populated);
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,130 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ISortItem.NullOrder;
+import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.common.SortItem;
+import se.kuseman.payloadbuilder.core.execution.VectorUtils;
+import se.kuseman.payloadbuilder.core.expression.LiteralIntegerExpression;
+
+/** Test of {@link Sort} when memory budget is exceeded and sorted runs are spilled to disk */
+class SpillingSortTest extends APhysicalPlanTest
+{
+    private final Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table), col("col2", ResolvedType.of(Type.String), table));
+
+    @Test
+    void test_spill_asc_nulls_undefined()
+    {
+        List<TupleVector> input = randomVectors(schema, 6, 1_500, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED));
+
+        Sort expected = sort(0, input, sortItems, 0);
+        Sort actual = sort(1, input, sortItems, VectorUtils.estimateSize(input.get(0)) + 1);
+
+        List<String> expectedRows = rows(expected);
+        assertEquals(9_000, expectedRows.size());
+        // Stable sort, rows with equal keys should come in input order
+        assertEquals(expectedRows, rows(actual));
+
+        Map<String, Object> properties = actual.getDescribeProperties(context);
+        assertEquals(3, properties.get("Spilled Runs"));
+        assertEquals(9_000L, properties.get("Spilled Rows"));
+        assertTrue(properties.containsKey("Spilled Bytes"));
+        assertTrue(properties.containsKey("Spill Time"));
+        assertTrue(properties.containsKey("Memory Budget"));
+
+        assertNull(expected.getDescribeProperties(context)
+                .get("Spilled Runs"));
+    }
+
+    @Test
+    void test_spill_multiple_sort_items()
+    {
+        List<TupleVector> input = randomVectors(schema, 5, 1_000, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.DESC, NullOrder.FIRST), sortItem(ce("col2"), Order.ASC, NullOrder.LAST));
+
+        assertEquals(rows(sort(0, input, sortItems, 0)), rows(sort(1, input, sortItems, 1)));
+        assertEquals(5, sort(1, input, sortItems, 1).getDescribeProperties(context)
+                .get("Spilled Runs"));
+    }
+
+    @Test
+    void test_spill_ordinal_sort_item()
+    {
+        List<TupleVector> input = randomVectors(schema, 3, 1_000, 500);
+        List<SortItem> sortItems = asList(sortItem(new LiteralIntegerExpression(2), Order.DESC, NullOrder.LAST));
+
+        assertEquals(rows(sort(0, input, sortItems, 0)), rows(sort(1, input, sortItems, 1)));
+    }
+
+    @Test
+    void test_spill_schema_less_any_columns()
+    {
+        Schema anySchema = Schema.of(col("col1", ResolvedType.of(Type.Any), table), col("col2", ResolvedType.of(Type.Any), table));
+        List<TupleVector> input = randomVectors(anySchema, 4, 700, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.ASC, NullOrder.LAST), sortItem(ce("col2"), Order.DESC, NullOrder.UNDEFINED));
+
+        assertEquals(rows(sort(0, input, sortItems, 0)), rows(sort(1, input, sortItems, 1)));
+    }
+
+    @Test
+    void test_spill_streams_batches()
+    {
+        List<TupleVector> input = randomVectors(schema, 4, 1_000, 500);
+        Sort sort = sort(1, input, asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED)), 1);
+
+        TupleIterator it = sort.execute(context);
+        int batches = 0;
+        int rows = 0;
+        while (it.hasNext())
+        {
+            TupleVector vector = it.next();
+            assertTrue(vector.getRowCount() <= Sort.MERGE_BATCH_SIZE);
+            rows += vector.getRowCount();
+            batches++;
+        }
+        it.close();
+
+        assertEquals(4_000, rows);
+        assertEquals(4_000 / Sort.MERGE_BATCH_SIZE, batches);
+    }
+
+    @Test
+    void test_budget_not_exceeded()
+    {
+        List<TupleVector> input = randomVectors(schema, 3, 100, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED));
+
+        Sort actual = sort(1, input, sortItems, 1024 * 1024);
+        assertEquals(rows(sort(0, input, sortItems, 0)), rows(actual));
+        assertNull(actual.getDescribeProperties(context)
+                .get("Spilled Runs"));
+
+        // Sorted in memory => a single vector
+        TupleIterator it = actual.execute(context);
+        assertEquals(300, it.next()
+                .getRowCount());
+        assertFalse(it.hasNext());
+        it.close();
+    }
+
+    private Sort sort(int nodeId, List<TupleVector> input, List<SortItem> sortItems, long memoryBudget)
+    {
+        return new Sort(nodeId, scanVectors(input), sortItems, memoryBudget);
+    }
+}
@@ -0,0 +1,133 @@
+package se.kuseman.payloadbuilder.core.physicalplan;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.junit.jupiter.api.Test;
+
+import se.kuseman.payloadbuilder.api.catalog.Column.Type;
+import se.kuseman.payloadbuilder.api.catalog.ISortItem.NullOrder;
+import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
+import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
+import se.kuseman.payloadbuilder.api.catalog.Schema;
+import se.kuseman.payloadbuilder.api.execution.TupleIterator;
+import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.core.common.SortItem;
+
+/** Test of {@link TopN} */
+class TopNTest extends APhysicalPlanTest
+{
+    private final Schema schema = Schema.of(col("col1", ResolvedType.of(Type.Int), table), col("col2", ResolvedType.of(Type.String), table));
+
+    @Test
+    void test_zero_rows()
+    {
+        MutableBoolean closed = new MutableBoolean();
+        TupleVector input = randomVectors(schema, 1, 10, 500).get(0);
+        TopN topN = new TopN(1, scanVectors(schemaDS(() -> closed.setTrue(), input), schema), asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED)), intLit(0));
+        TupleIterator it = topN.execute(context);
+        assertFalse(it.hasNext());
+        it.close();
+        assertFalse(closed.isTrue());
+    }
+
+    @Test
+    void test_empty_input()
+    {
+        MutableBoolean closed = new MutableBoolean();
+        TopN topN = new TopN(1, scanVectors(schemaDS(() -> closed.setTrue()), schema), asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED)), intLit(10));
+        TupleIterator it = topN.execute(context);
+        assertFalse(it.hasNext());
+        it.close();
+        assertTrue(closed.isTrue());
+    }
+
+    @Test
+    void test_small_n()
+    {
+        List<TupleVector> input = randomVectors(schema, 5, 1_000, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED));
+
+        TopN topN = topN(1, input, sortItems, 10);
+        assertEquals(expected(input, sortItems, 10), rows(topN));
+
+        Map<String, Object> properties = topN.getDescribeProperties(context);
+        assertEquals(5_000L, properties.get("Rows Seen"));
+        assertEquals(10L, properties.get("Rows Kept"));
+    }
+
+    @Test
+    void test_n_larger_than_batch_with_compaction()
+    {
+        List<TupleVector> input = randomVectors(schema, 8, 1_000, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.DESC, NullOrder.FIRST), sortItem(ce("col2"), Order.ASC, NullOrder.LAST));
+
+        assertEquals(expected(input, sortItems, 1_500), rows(topN(1, input, sortItems, 1_500)));
+    }
+
+    @Test
+    void test_n_larger_than_input()
+    {
+        List<TupleVector> input = randomVectors(schema, 3, 100, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col2"), Order.DESC, NullOrder.UNDEFINED));
+
+        TopN topN = topN(1, input, sortItems, 1_000);
+        List<String> actual = rows(topN);
+        assertEquals(300, actual.size());
+        assertEquals(expected(input, sortItems, 1_000), actual);
+        assertEquals(300L, topN.getDescribeProperties(context)
+                .get("Rows Kept"));
+    }
+
+    @Test
+    void test_ties_are_stable()
+    {
+        // Few distinct keys => rows with equal keys must come in input order like a stable sort
+        List<TupleVector> input = new ArrayList<>();
+        int row = 0;
+        for (int i = 0; i < 4; i++)
+        {
+            Object[] keys = new Object[700];
+            Object[] values = new Object[700];
+            for (int j = 0; j < 700; j++)
+            {
+                keys[j] = row % 3;
+                values[j] = "value" + row;
+                row++;
+            }
+            input.add(TupleVector.of(schema, asList(vv(Type.Int, keys), vv(Type.String, values))));
+        }
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.ASC, NullOrder.UNDEFINED));
+
+        assertEquals(expected(input, sortItems, 1_200), rows(topN(1, input, sortItems, 1_200)));
+    }
+
+    @Test
+    void test_schema_less_any_columns()
+    {
+        Schema anySchema = Schema.of(col("col1", ResolvedType.of(Type.Any), table), col("col2", ResolvedType.of(Type.Any), table));
+        List<TupleVector> input = randomVectors(anySchema, 4, 700, 500);
+        List<SortItem> sortItems = asList(sortItem(ce("col1"), Order.ASC, NullOrder.LAST), sortItem(ce("col2"), Order.DESC, NullOrder.UNDEFINED));
+
+        assertEquals(expected(input, sortItems, 50), rows(topN(1, input, sortItems, 50)));
+    }
+
+    private TopN topN(int nodeId, List<TupleVector> input, List<SortItem> sortItems, int n)
+    {
+        return new TopN(nodeId, scanVectors(input), sortItems, intLit(n));
+    }
+
+    /** Return expected rows by using a sort followed by a limit */
+    private List<String> expected(List<TupleVector> input, List<SortItem> sortItems, int n)
+    {
+        return rows(new Limit(0, new Sort(0, scanVectors(input), sortItems), intLit(n)));
+    }
+}
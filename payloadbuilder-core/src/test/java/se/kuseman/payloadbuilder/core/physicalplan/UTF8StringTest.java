@@ -172,6 +172,34 @@ void test_latin1_convertsion()
 
     }
 
+    @Test
+    void test_sort_prefix()
+    {
+        assertEquals(0L, UTF8String.from("")
+                .getSortPrefix());
+        assertEquals(0x6100000000000000L, UTF8String.from("a")
+                .getSortPrefix());
+
+        // Prefix from string and bytes should be equal and keep the order of the strings, including a surrogate pair and a broken surrogate
+        String[] strings = { "", "a", "abcdefgh", "abcdefghijkl", "åäö", "€", new String(Character.toChars(0x1F600)) + "smile", (char) 0xD83D + "broken", "z" };
+        for (String string : strings)
+        {
+            UTF8String fromString = UTF8String.from(string);
+            UTF8String fromBytes = UTF8String.utf8(string.getBytes(StandardCharsets.UTF_8));
+            assertEquals(fromBytes.getSortPrefix(), fromString.getSortPrefix(), string);
+
+            for (String other : strings)
+            {
+                UTF8String otherBytes = UTF8String.utf8(other.getBytes(StandardCharsets.UTF_8));
+                int c = Long.compareUnsigned(fromBytes.getSortPrefix(), otherBytes.getSortPrefix());
+                if (c != 0)
+                {
+                    assertEquals(c > 0, fromBytes.compareTo(otherBytes) > 0, string + " " + other);
+                }
+            }
+        }
+    }
+
     private String randomLatin1(int size)
     {
         Random rand = new Random();
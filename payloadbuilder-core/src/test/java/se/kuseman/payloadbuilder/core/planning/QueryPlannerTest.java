@@ -13,6 +13,7 @@
 import static se.kuseman.payloadbuilder.core.utils.CollectionUtils.asSet;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +40,7 @@
 import se.kuseman.payloadbuilder.api.catalog.ISortItem.Order;
 import se.kuseman.payloadbuilder.api.catalog.Index;
 import se.kuseman.payloadbuilder.api.catalog.Index.ColumnsType;
+import se.kuseman.payloadbuilder.api.catalog.Index.IndexType;
 import se.kuseman.payloadbuilder.api.catalog.Option;
 import se.kuseman.payloadbuilder.api.catalog.ResolvedType;
 import se.kuseman.payloadbuilder.api.catalog.ScalarFunctionInfo;
@@ -75,6 +77,7 @@
 import se.kuseman.payloadbuilder.core.physicalplan.Assert;
 import se.kuseman.payloadbuilder.core.physicalplan.ConstantScan;
 import se.kuseman.payloadbuilder.core.physicalplan.DescribePlan;
+import se.kuseman.payloadbuilder.core.physicalplan.Exchange;
 import se.kuseman.payloadbuilder.core.physicalplan.ExpressionPredicate;
 import se.kuseman.payloadbuilder.core.physicalplan.ExpressionScan;
 import se.kuseman.payloadbuilder.core.physicalplan.Filter;
@@ -90,6 +93,7 @@
 import se.kuseman.payloadbuilder.core.physicalplan.Sort;
 import se.kuseman.payloadbuilder.core.physicalplan.TableFunctionScan;
 import se.kuseman.payloadbuilder.core.physicalplan.TableScan;
+import se.kuseman.payloadbuilder.core.physicalplan.TopN;
 import se.kuseman.payloadbuilder.core.statement.PhysicalStatement;
 import se.kuseman.payloadbuilder.core.statement.QueryStatement;
 import se.kuseman.payloadbuilder.core.utils.CollectionUtils;
@@ -682,6 +686,57 @@ void test_using_same_table_ref_different_places()
         assertEquals(expected, actual);
     }
 
+    @Test
+    void test_parallel_exchange_on_hash_match_inputs()
+    {
+        //@formatter:off
+        String query = """
+                select *
+                from tableA a
+                inner join tableB b
+                  on b.col = a.col
+                """;
+        //@formatter:on
+
+        TestCatalog t = new TestCatalog(emptyMap());
+        catalogRegistry.registerCatalog("t", t);
+
+        session.setSystemProperty(QuerySession.PARALLEL_EXCHANGE, ValueVector.literalBoolean(true, 1));
+
+        QueryStatement queryStatement = parse(query);
+        queryStatement = StatementPlanner.plan(session, queryStatement);
+
+        IPhysicalPlan actual = ((PhysicalStatement) queryStatement.getStatements()
+                .get(0)).getPlan();
+
+        TableSourceReference tableA = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tableA"), "a");
+        TableSourceReference tableB = new TableSourceReference(1, TableSourceReference.Type.TABLE, "", QualifiedName.of("tableB"), "b");
+        Schema expectedSchemaA = Schema.of(ast("a", tableA));
+        Schema expectedSchemaB = Schema.of(ast("b", tableB));
+
+        //@formatter:off
+        IPhysicalPlan expected = new HashMatch(
+                4,
+                new Exchange(2, new TableScan(0, expectedSchemaA, tableA, "test", t.scanDataSources.get(0), emptyList())),
+                new Exchange(3, new TableScan(1, expectedSchemaB, tableB, "test", t.scanDataSources.get(1), emptyList())),
+                List.of(cre("col", tableA, CoreColumn.Type.NAMED_ASTERISK)),
+                List.of(cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK)),
+                new ExpressionPredicate(eq(cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK), cre("col", tableA, CoreColumn.Type.NAMED_ASTERISK))),
+                null,
+                false,
+                false);
+        //@formatter:on
+
+        // System.out.println(actual.print(0));
+        // System.out.println(expected.print(0));
+
+        Assertions.assertThat(actual)
+                .usingRecursiveComparison()
+                .isEqualTo(expected);
+
+        assertEquals(expected, actual);
+    }
+
     @Test
     void test_using_same_table_ref_different_places_2()
     {
@@ -1187,6 +1242,47 @@ void test_top()
         assertEquals(expected, actual);
     }
 
+    @Test
+    void test_top_order_by()
+    {
+        //@formatter:off
+        String query = ""
+                + "select top 10 * "
+                + "from tableA a "
+                + "order by col DESC";
+        //@formatter:on
+
+        TestCatalog t = new TestCatalog(emptyMap());
+        catalogRegistry.registerCatalog("t", t);
+
+        QueryStatement queryStatement = parse(query);
+        queryStatement = StatementPlanner.plan(session, queryStatement);
+
+        IPhysicalPlan actual = ((PhysicalStatement) queryStatement.getStatements()
+                .get(0)).getPlan();
+
+        TableSourceReference tableA = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tableA"), "a");
+        Schema expectedSchemaA = Schema.of(ast("a", tableA));
+
+        //@formatter:off
+        IPhysicalPlan expected = new TopN(
+                1,
+                new TableScan(0, expectedSchemaA, tableA, "test", t.scanDataSources.get(0), emptyList()),
+                asList(sortItem(cre("col", tableA, CoreColumn.Type.NAMED_ASTERISK), Order.DESC, NullOrder.UNDEFINED)),
+                intLit(10));
+        //@formatter:on
+
+        // System.out.println(actual.print(0));
+        // System.out.println(expected.print(0));
+
+        Assertions.assertThat(actual)
+                .usingRecursiveComparison()
+                .ignoringFieldsOfTypes(Location.class, Random.class)
+                .isEqualTo(expected);
+
+        assertEquals(expected, actual);
+    }
+
     @Test
     void test_temp_table()
     {
@@ -2248,6 +2344,142 @@ public TableSchema getTableSchema(IExecutionContext context, String catalogAlias
         assertEquals(expected, actual);
     }
 
+    @Test
+    void test_indexed_predicate_push_down_with_range_expression()
+    {
+        //@formatter:off
+        String query = ""
+                + "select * "
+                + "from tableB b "
+                + "where col > 3 "
+                + "and 10 >= col "
+                + "and col2 > 5 ";
+        //@formatter:on
+
+        Index index = new Index(QualifiedName.of("tableB"), asList("col"), ColumnsType.ALL, EnumSet.of(IndexType.SEEK_EQ, IndexType.SEEK_RANGE));
+
+        TestCatalog t = new TestCatalog(Map.of(QualifiedName.of("tableB"), Set.of("col2")))
+        {
+            @Override
+            public TableSchema getTableSchema(IExecutionContext context, String catalogAlias, QualifiedName table, List<Option> options)
+            {
+                if (table.toString()
+                        .equalsIgnoreCase("tableB"))
+                {
+                    return new TableSchema(Schema.EMPTY, asList(index));
+                }
+                return super.getTableSchema(context, catalogAlias, table, options);
+            }
+        };
+        catalogRegistry.registerCatalog("t", t);
+
+        QueryStatement queryStatement = parse(query);
+        queryStatement = StatementPlanner.plan(session, queryStatement);
+
+        IPhysicalPlan actual = ((PhysicalStatement) queryStatement.getStatements()
+                .get(0)).getPlan();
+
+        TableSourceReference tableB = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tableB"), "b");
+
+        //@formatter:off
+        Schema expectedSchemaB = Schema.of(ast("b", tableB));
+
+        // NOTE! Comparison is mirrored when column is on the right side
+        SeekPredicate expectedSeekPredicate = new SeekPredicate(0, index, List.of(
+                new SeekPredicate.SeekPredicateItem("col", cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK), List.of(intLit(10)), IComparisonExpression.Type.LESS_THAN_EQUAL),
+                new SeekPredicate.SeekPredicateItem("col", cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK), List.of(intLit(3)), IComparisonExpression.Type.GREATER_THAN)
+                ), true);
+
+        IPhysicalPlan expected = new IndexSeek(0, expectedSchemaB, tableB, "test", expectedSeekPredicate, t.seekDataSources.get(0), emptyList());
+        //@formatter:on
+
+        assertTrue(expectedSeekPredicate.isRangeSeek());
+        //@formatter:off
+        assertEquals(asList(
+                Triple.of(QualifiedName.of("col2"), IPredicate.Type.COMPARISION, asList(intLit(5)))
+                ), t.consumedPredicate.get(QualifiedName.of("tableB")));
+        //@formatter:on
+
+        // System.out.println(actual.print(0));
+        // System.out.println(expected.print(0));
+
+        Assertions.assertThat(actual)
+                .usingRecursiveComparison()
+                .isEqualTo(expected);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void test_indexed_join_with_range()
+    {
+        //@formatter:off
+        String query = ""
+                + "select * "
+                + "from tableA a "
+                + "inner join tableB b "
+                + "  on b.col >= a.col "
+                + "  and a.col2 > b.col ";
+        //@formatter:on
+
+        Index index = new Index(QualifiedName.of("tableB"), asList("col"), ColumnsType.ALL, EnumSet.of(IndexType.SEEK_RANGE));
+
+        TestCatalog t = new TestCatalog(emptyMap())
+        {
+            @Override
+            public TableSchema getTableSchema(IExecutionContext context, String catalogAlias, QualifiedName table, List<Option> options)
+            {
+                if (table.toString()
+                        .equalsIgnoreCase("tableB"))
+                {
+                    return new TableSchema(Schema.EMPTY, asList(index));
+                }
+                return super.getTableSchema(context, catalogAlias, table, options);
+            }
+        };
+        catalogRegistry.registerCatalog("t", t);
+
+        QueryStatement queryStatement = parse(query);
+        queryStatement = StatementPlanner.plan(session, queryStatement);
+
+        IPhysicalPlan actual = ((PhysicalStatement) queryStatement.getStatements()
+                .get(0)).getPlan();
+
+        TableSourceReference tableA = new TableSourceReference(0, TableSourceReference.Type.TABLE, "", QualifiedName.of("tableA"), "a");
+        TableSourceReference tableB = new TableSourceReference(1, TableSourceReference.Type.TABLE, "", QualifiedName.of("tableB"), "b");
+
+        //@formatter:off
+        Schema expectedSchemaA = Schema.of(ast("a", tableA));
+        Schema expectedSchemaB = Schema.of(ast("b", tableB));
+
+        SeekPredicate expectedSeekPredicate = new SeekPredicate(1, index, List.of(
+                new SeekPredicate.SeekPredicateItem("col", cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK), List.of(cre("col2", tableA, CoreColumn.Type.NAMED_ASTERISK)),
+                        IComparisonExpression.Type.LESS_THAN),
+                new SeekPredicate.SeekPredicateItem("col", cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK), List.of(cre("col", tableA, CoreColumn.Type.NAMED_ASTERISK)),
+                        IComparisonExpression.Type.GREATER_THAN_EQUAL)));
+
+        IPhysicalPlan expected = NestedLoop.innerJoin(
+                2,
+                new TableScan(0, expectedSchemaA, tableA, "test", t.scanDataSources.get(0), emptyList()),
+                new IndexSeek(1, expectedSchemaB, tableB, "test", expectedSeekPredicate, t.seekDataSources.get(0), emptyList()),
+                new ExpressionPredicate(
+                    and(new ComparisonExpression(IComparisonExpression.Type.GREATER_THAN_EQUAL, cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK), cre("col", tableA, CoreColumn.Type.NAMED_ASTERISK)),
+                        new ComparisonExpression(IComparisonExpression.Type.GREATER_THAN, cre("col2", tableA, CoreColumn.Type.NAMED_ASTERISK), cre("col", tableB, CoreColumn.Type.NAMED_ASTERISK)))
+                ),
+                null,
+                true);
+        //@formatter:on
+
+        // System.out.println(actual.print(0));
+        // System.out.println(expected.print(0));
+
+        Assertions.assertThat(actual)
+                .usingRecursiveComparison()
+                .isEqualTo(expected);
+
+        assertEquals(expected, actual);
+    }
+
     @Test
     void test_indexed_join_with_force_nested_loop()
     {
@@ -3,7 +3,9 @@
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.assertVectorsEquals;
 import static se.kuseman.payloadbuilder.test.VectorTestUtils.vv;
 
@@ -19,6 +21,7 @@
 import se.kuseman.payloadbuilder.api.catalog.Schema;
 import se.kuseman.payloadbuilder.api.execution.ISeekPredicate.ISeekKey;
 import se.kuseman.payloadbuilder.api.execution.TupleVector;
+import se.kuseman.payloadbuilder.api.expression.IComparisonExpression;
 import se.kuseman.payloadbuilder.api.expression.IExpression;
 import se.kuseman.payloadbuilder.core.physicalplan.APhysicalPlanTest;
 
@@ -79,6 +82,66 @@ void test_push_down_equal()
         assertVectorsEquals(vv(Type.Int, 10), keys.get(0)
                 .getValue());
         assertEquals("col1 = [10]", p.toString());
+        assertFalse(p.isRangeSeek());
+        assertEquals(IComparisonExpression.Type.EQUAL, keys.get(0)
+                .getComparisonType());
+    }
+
+    @Test
+    void test_push_down_range()
+    {
+        Index index = new Index(QualifiedName.of("table"), asList("col1"), ColumnsType.ALL);
+
+        IExpression colValue = ce("value");
+
+        List<SeekPredicate.SeekPredicateItem> items = List.of(new SeekPredicate.SeekPredicateItem("col1", colValue, List.of(intLit(10)), IComparisonExpression.Type.GREATER_THAN_EQUAL),
+                new SeekPredicate.SeekPredicateItem("col1", colValue, List.of(intLit(20)), IComparisonExpression.Type.LESS_THAN));
+
+        SeekPredicate p = new SeekPredicate(0, index, items, true);
+
+        assertTrue(p.isRangeSeek());
+        assertEquals(asList("col1", "col1"), p.getIndexColumns());
+
+        List<ISeekKey> keys = p.getSeekKeys(context);
+
+        assertEquals(2, keys.size());
+        assertVectorsEquals(vv(Type.Int, 10), keys.get(0)
+                .getValue());
+        assertEquals(IComparisonExpression.Type.GREATER_THAN_EQUAL, keys.get(0)
+                .getComparisonType());
+        assertVectorsEquals(vv(Type.Int, 20), keys.get(1)
+                .getValue());
+        assertEquals(IComparisonExpression.Type.LESS_THAN, keys.get(1)
+                .getComparisonType());
+        assertEquals("col1 >= [10], col1 < [20]", p.toString());
+    }
+
+    @Test
+    void test_range()
+    {
+        Index index = new Index(QualifiedName.of("table"), asList("col1"), ColumnsType.ALL);
+
+        List<SeekPredicate.SeekPredicateItem> items = List.of(new SeekPredicate.SeekPredicateItem("col1", ce("col1"), List.of(ce("from")), IComparisonExpression.Type.GREATER_THAN),
+                new SeekPredicate.SeekPredicateItem("col1", ce("col1"), List.of(ce("to")), IComparisonExpression.Type.LESS_THAN_EQUAL));
+
+        SeekPredicate p = new SeekPredicate(0, index, items);
+
+        // Verify that ranges with null bounds and duplicates are removed
+        TupleVector tv = TupleVector.of(Schema.of(Column.of("from", Type.Int), Column.of("to", Type.Int)), asList(vv(Type.Int, null, 1, 1, 5), vv(Type.Int, 3, 3, 3, null)));
+        context.getStatementContext()
+                .setIndexSeekTupleVector(tv);
+
+        List<ISeekKey> keys = p.getSeekKeys(context);
+
+        assertEquals(2, keys.size());
+        assertVectorsEquals(vv(Type.Int, 1), keys.get(0)
+                .getValue());
+        assertEquals(IComparisonExpression.Type.GREATER_THAN, keys.get(0)
+                .getComparisonType());
+        assertVectorsEquals(vv(Type.Int, 3), keys.get(1)
+                .getValue());
+        assertEquals(IComparisonExpression.Type.LESS_THAN_EQUAL, keys.get(1)
+                .getComparisonType());
     }
 
     @Test